@@ -1,22 +1,47 @@
 package net.noworks.clionesql.boot.autoconfigure;
 
+import java.sql.SQLException;
+
 import javax.sql.DataSource;
 
 import tetz42.clione.SQLManager;
 
+import io.micrometer.core.instrument.MeterRegistry;
+
+import net.noworks.clionesql.boot.ClioneSqlConnectionLeakFilter;
+import net.noworks.clionesql.boot.ClioneSqlExecutionListener;
+import net.noworks.clionesql.boot.ClioneSqlFileWatcher;
+import net.noworks.clionesql.boot.ClioneSqlMetricsListener;
 import net.noworks.clionesql.boot.ClioneSqlPersistenceExceptionTranslator;
+import net.noworks.clionesql.boot.ClioneSqlProfilingFilter;
+import net.noworks.clionesql.boot.ClioneSqlProfilingListener;
 import net.noworks.clionesql.boot.ClioneSqlProperties;
 import net.noworks.clionesql.boot.ClioneSqlTemplate;
+import net.noworks.clionesql.boot.ClioneSqlWarmup;
+import net.noworks.clionesql.boot.ConnectionLeakTracker;
+import net.noworks.clionesql.boot.ReadYourWritesListener;
+import net.noworks.clionesql.boot.ReplicaRoutingDataSource;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.metadata.CompositeDataSourcePoolMetadataProvider;
+import org.springframework.boot.jdbc.metadata.DataSourcePoolMetadata;
+import org.springframework.boot.jdbc.metadata.DataSourcePoolMetadataProvider;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.io.support.ResourcePatternUtils;
 import org.springframework.dao.support.PersistenceExceptionTranslator;
+import org.springframework.web.filter.OncePerRequestFilter;
 
 /**
  * Spring Boot {@link AutoConfiguration} for clione-sql.
@@ -33,15 +58,43 @@ import org.springframework.dao.support.PersistenceExceptionTranslator;
  * <li>{@link PersistenceExceptionTranslator} &mdash; translates clione-sql exceptions to Spring's
  * {@code DataAccessException} hierarchy. Can be disabled via
  * {@code clione-sql.exception-translation-enabled=false}.</li>
+ * <li>{@link ClioneSqlWarmup} &mdash; pre-parses every SQL file under {@code clione-sql.sql-file-prefix} before the
+ * application reports ready. Only created when {@code clione-sql.warmup.enabled=true}.</li>
+ * <li>{@link ClioneSqlFileWatcher} &mdash; reloads SQL files under {@code clione-sql.sql-file-prefix} when they change
+ * on disk. Only created when {@code clione-sql.development-mode=true}.</li>
+ * <li>{@link ClioneSqlMetricsListener} &mdash; records Micrometer metrics per SQL file and operation. Only created when
+ * a {@link MeterRegistry} bean exists; can be disabled via {@code clione-sql.metrics-enabled=false}.</li>
+ * <li>{@link ReplicaRoutingDataSource} &mdash; replaces the {@code dataSource} bean to route read-only transactions to
+ * the replicas under {@code clione-sql.routing.replicas}. Only created when {@code clione-sql.routing.enabled=true};
+ * with {@code clione-sql.routing.read-your-writes=true} a {@link ReadYourWritesListener} is registered as well.</li>
+ * <li>{@link ClioneSqlProfilingFilter} and {@link ClioneSqlProfilingListener} &mdash; record the SQL files executed by
+ * each servlet request and report suspected N+1 queries. Only created in servlet web applications when
+ * {@code clione-sql.profiling.enabled=true}.</li>
+ * <li>{@link ConnectionLeakTracker} &mdash; releases connections leaked through {@code useFile}/{@code useSQL} when
+ * their {@code SQLExecutor} is garbage collected, and with {@link ClioneSqlConnectionLeakFilter} in servlet web
+ * applications at the end of each request. Only created when {@code clione-sql.leak-tracking.enabled=true}.</li>
  * </ul>
  *
+ * <p>
+ * All {@link ClioneSqlExecutionListener} beans are registered with the auto-configured {@link ClioneSqlTemplate} in
+ * their {@link org.springframework.core.annotation.Order order}. Unless {@code clione-sql.async-max-concurrency} is
+ * set, the template's {@link ClioneSqlTemplate#setAsyncConcurrencyLimit(int) async concurrency limit} is the maximum
+ * size of the connection pool, as reported by the {@link DataSourcePoolMetadataProvider} beans.
+ *
+ * <p>
+ * For Spring AOT and GraalVM native images, {@link ClioneSqlRuntimeHints} registers clione-sql's reflection, resource
+ * and proxy hints, and the SQL files under {@code clione-sql.sql-file-prefix} are registered during AOT processing.
+ *
  * @see ClioneSqlProperties
  * @see ClioneSqlTemplate
  * @see ClioneSqlPersistenceExceptionTranslator
  */
-@AutoConfiguration(after = DataSourceAutoConfiguration.class)
+@AutoConfiguration(after = DataSourceAutoConfiguration.class, afterName = {
+        "org.springframework.boot.actuate.autoconfigure.metrics.CompositeMeterRegistryAutoConfiguration",
+        "org.springframework.boot.actuate.autoconfigure.metrics.export.simple.SimpleMetricsExportAutoConfiguration" })
 @ConditionalOnClass(SQLManager.class)
 @EnableConfigurationProperties(ClioneSqlProperties.class)
+@ImportRuntimeHints(ClioneSqlRuntimeHints.class)
 public class ClioneSqlAutoConfiguration {
 
     /** Creates a new {@code ClioneSqlAutoConfiguration}. */
@@ -55,14 +108,35 @@ public class ClioneSqlAutoConfiguration {
      *            the data source to use
      * @param properties
      *            the clione-sql configuration properties
+     * @param executionListeners
+     *            the listeners notified around each SQL execution
+     * @param poolMetadataProviders
+     *            the providers used to size the async concurrency limit to the connection pool when
+     *            {@code clione-sql.async-max-concurrency} is not set
+     * @param connectionLeakTracker
+     *            the tracker of connections leaked through the {@code useFile}/{@code useSQL} API, if enabled
      *
      * @return a new {@link ClioneSqlTemplate} instance
      */
     @Bean
     @ConditionalOnBean(DataSource.class)
     @ConditionalOnMissingBean
-    public ClioneSqlTemplate clioneSqlTemplate(DataSource dataSource, ClioneSqlProperties properties) {
-        return new ClioneSqlTemplate(dataSource, properties);
+    public ClioneSqlTemplate clioneSqlTemplate(DataSource dataSource, ClioneSqlProperties properties,
+            ObjectProvider<ClioneSqlExecutionListener> executionListeners,
+            ObjectProvider<DataSourcePoolMetadataProvider> poolMetadataProviders,
+            ObjectProvider<ConnectionLeakTracker> connectionLeakTracker) {
+        ClioneSqlTemplate template = new ClioneSqlTemplate(dataSource, properties);
+        template.setExecutionListeners(executionListeners.orderedStream().toList());
+        connectionLeakTracker.ifAvailable(template::setConnectionLeakTracker);
+        if (properties.getAsyncMaxConcurrency() <= 0) {
+            DataSourcePoolMetadata poolMetadata = new CompositeDataSourcePoolMetadataProvider(
+                    poolMetadataProviders.orderedStream().toList()).getDataSourcePoolMetadata(dataSource);
+            Integer maxPoolSize = poolMetadata != null ? poolMetadata.getMax() : null;
+            if (maxPoolSize != null && maxPoolSize > 0) {
+                template.setAsyncConcurrencyLimit(maxPoolSize);
+            }
+        }
+        return template;
     }
 
     /**
@@ -81,4 +155,206 @@ public class ClioneSqlAutoConfiguration {
     public PersistenceExceptionTranslator clioneSqlExceptionTranslator() {
         return new ClioneSqlPersistenceExceptionTranslator();
     }
+
+    /**
+     * Creates a {@link ClioneSqlWarmup} that parses all SQL templates at startup.
+     *
+     * <p>
+     * This bean is only registered when the property {@code clione-sql.warmup.enabled} is set to {@code true}.
+     *
+     * @param template
+     *            the template whose cache is populated, if any
+     * @param properties
+     *            the clione-sql configuration properties
+     * @param resourceLoader
+     *            the resource loader used to scan the classpath for SQL files
+     *
+     * @return a new {@link ClioneSqlWarmup} instance
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "clione-sql.warmup", name = "enabled")
+    public ClioneSqlWarmup clioneSqlWarmup(ObjectProvider<ClioneSqlTemplate> template, ClioneSqlProperties properties,
+            ResourceLoader resourceLoader) {
+        return new ClioneSqlWarmup(template.getIfAvailable(), properties,
+                ResourcePatternUtils.getResourcePatternResolver(resourceLoader));
+    }
+
+    /**
+     * Creates a {@link ClioneSqlFileWatcher} that reloads SQL templates when they change on disk.
+     *
+     * <p>
+     * This bean is only registered when the property {@code clione-sql.development-mode} is set to {@code true}.
+     *
+     * @param template
+     *            the template whose SQL file cache is invalidated
+     * @param properties
+     *            the clione-sql configuration properties
+     * @param resourceLoader
+     *            the resource loader used to find the classpath directories to watch
+     *
+     * @return a new {@link ClioneSqlFileWatcher} instance
+     */
+    @Bean
+    @ConditionalOnBean(ClioneSqlTemplate.class)
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "clione-sql", name = "development-mode")
+    public ClioneSqlFileWatcher clioneSqlFileWatcher(ClioneSqlTemplate template, ClioneSqlProperties properties,
+            ResourceLoader resourceLoader) {
+        return new ClioneSqlFileWatcher(template, properties,
+                ResourcePatternUtils.getResourcePatternResolver(resourceLoader));
+    }
+
+    /**
+     * Registers Micrometer metrics for clione-sql executions when Micrometer is on the classpath and a
+     * {@link MeterRegistry} bean exists.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(MeterRegistry.class)
+    @ConditionalOnBean(MeterRegistry.class)
+    @ConditionalOnProperty(prefix = "clione-sql", name = "metrics-enabled", matchIfMissing = true)
+    static class MetricsConfiguration {
+
+        /**
+         * Creates a {@link ClioneSqlMetricsListener} that records metrics to the given registry.
+         *
+         * @param meterRegistry
+         *            the registry to record metrics to
+         *
+         * @return a new {@link ClioneSqlMetricsListener} instance
+         */
+        @Bean
+        @ConditionalOnMissingBean
+        ClioneSqlMetricsListener clioneSqlMetricsListener(MeterRegistry meterRegistry) {
+            return new ClioneSqlMetricsListener(meterRegistry);
+        }
+    }
+
+    /**
+     * Routes read-only transactions to replica data sources when {@code clione-sql.routing.enabled=true}.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnProperty(prefix = "clione-sql.routing", name = "enabled")
+    static class RoutingConfiguration {
+
+        /**
+         * Creates the post-processor that wraps the {@code dataSource} bean in a {@link ReplicaRoutingDataSource}.
+         *
+         * @param environment
+         *            the environment to bind the routing properties from
+         *
+         * @return a new {@link RoutingDataSourcePostProcessor} instance
+         */
+        @Bean
+        static RoutingDataSourcePostProcessor clioneSqlRoutingDataSourcePostProcessor(Environment environment) {
+            return new RoutingDataSourcePostProcessor(environment);
+        }
+
+        /**
+         * Creates a {@link ReadYourWritesListener} that pins a thread to the primary after an update.
+         *
+         * @param dataSource
+         *            the routing data source
+         * @param properties
+         *            the clione-sql configuration properties
+         *
+         * @return a new {@link ReadYourWritesListener} instance
+         *
+         * @throws SQLException
+         *             if the data source is not a {@link ReplicaRoutingDataSource}
+         */
+        @Bean
+        @ConditionalOnProperty(prefix = "clione-sql.routing", name = "read-your-writes")
+        ReadYourWritesListener clioneSqlReadYourWritesListener(DataSource dataSource, ClioneSqlProperties properties)
+                throws SQLException {
+            return new ReadYourWritesListener(dataSource.unwrap(ReplicaRoutingDataSource.class),
+                    properties.getRouting().getReadYourWritesWindow());
+        }
+    }
+
+    /**
+     * Profiles the SQL executions of each servlet request when {@code clione-sql.profiling.enabled=true}.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    @ConditionalOnClass(OncePerRequestFilter.class)
+    @ConditionalOnProperty(prefix = "clione-sql.profiling", name = "enabled")
+    static class ProfilingConfiguration {
+
+        /**
+         * Creates a {@link ClioneSqlProfilingFilter} that binds a profile to each request.
+         *
+         * @param properties
+         *            the clione-sql configuration properties
+         *
+         * @return a new {@link ClioneSqlProfilingFilter} instance
+         */
+        @Bean
+        @ConditionalOnMissingBean
+        ClioneSqlProfilingFilter clioneSqlProfilingFilter(ClioneSqlProperties properties) {
+            return new ClioneSqlProfilingFilter(properties.getProfiling().getRepeatThreshold());
+        }
+
+        /**
+         * Creates a {@link ClioneSqlProfilingListener} that records executions in the current request's profile.
+         *
+         * @param properties
+         *            the clione-sql configuration properties
+         *
+         * @return a new {@link ClioneSqlProfilingListener} instance
+         */
+        @Bean
+        @ConditionalOnMissingBean
+        ClioneSqlProfilingListener clioneSqlProfilingListener(ClioneSqlProperties properties) {
+            return new ClioneSqlProfilingListener(properties.getProfiling().isFailOnRepeat());
+        }
+    }
+
+    /**
+     * Releases connections leaked through the {@code useFile}/{@code useSQL} API when
+     * {@code clione-sql.leak-tracking.enabled=true}.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnProperty(prefix = "clione-sql.leak-tracking", name = "enabled")
+    static class LeakTrackingConfiguration {
+
+        /**
+         * Creates the {@link ConnectionLeakTracker} registered with the auto-configured {@link ClioneSqlTemplate}.
+         *
+         * @param properties
+         *            the clione-sql configuration properties
+         *
+         * @return a new {@link ConnectionLeakTracker} instance
+         */
+        @Bean
+        @ConditionalOnMissingBean
+        ConnectionLeakTracker clioneSqlConnectionLeakTracker(ClioneSqlProperties properties) {
+            return new ConnectionLeakTracker(properties.getLeakTracking().isCaptureStackTrace());
+        }
+    }
+
+    /**
+     * Releases the connections leaked by each servlet request when it completes, when
+     * {@code clione-sql.leak-tracking.enabled=true}.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    @ConditionalOnClass(OncePerRequestFilter.class)
+    @ConditionalOnProperty(prefix = "clione-sql.leak-tracking", name = "enabled")
+    static class LeakTrackingFilterConfiguration {
+
+        /**
+         * Creates a {@link ClioneSqlConnectionLeakFilter} that opens a leak tracking scope for each request.
+         *
+         * @param tracker
+         *            the connection leak tracker
+         *
+         * @return a new {@link ClioneSqlConnectionLeakFilter} instance
+         */
+        @Bean
+        @ConditionalOnMissingBean
+        ClioneSqlConnectionLeakFilter clioneSqlConnectionLeakFilter(ConnectionLeakTracker tracker) {
+            return new ClioneSqlConnectionLeakFilter(tracker);
+        }
+    }
 }
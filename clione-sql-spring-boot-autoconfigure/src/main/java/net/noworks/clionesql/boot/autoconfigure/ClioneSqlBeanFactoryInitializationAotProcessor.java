@@ -0,0 +1,55 @@
+package net.noworks.clionesql.boot.autoconfigure;
+
+import net.noworks.clionesql.boot.ClioneSqlProperties;
+import net.noworks.clionesql.boot.ClioneSqlTemplate;
+import net.noworks.clionesql.boot.ClioneSqlWarmup;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.factory.aot.BeanFactoryInitializationAotContribution;
+import org.springframework.beans.factory.aot.BeanFactoryInitializationAotProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.util.StringUtils;
+
+/**
+ * {@link BeanFactoryInitializationAotProcessor} that registers the SQL files under {@code clione-sql.sql-file-prefix},
+ * including those in subdirectories, as native-image resources.
+ *
+ * <p>
+ * Only applies when a {@link ClioneSqlTemplate} bean is defined. The prefix is read from the environment used for AOT
+ * processing. Every SQL file under it is also parsed, so that 2Way SQL syntax errors fail the build instead of the
+ * first request of the native application.
+ */
+class ClioneSqlBeanFactoryInitializationAotProcessor implements BeanFactoryInitializationAotProcessor {
+
+    private static final Log LOGGER = LogFactory.getLog(ClioneSqlBeanFactoryInitializationAotProcessor.class);
+
+    @Override
+    public BeanFactoryInitializationAotContribution processAheadOfTime(ConfigurableListableBeanFactory beanFactory) {
+        if (beanFactory.getBeanNamesForType(ClioneSqlTemplate.class, false, false).length == 0
+                || !beanFactory.containsBean(ConfigurableApplicationContext.ENVIRONMENT_BEAN_NAME)) {
+            return null;
+        }
+        Environment environment = beanFactory.getBean(ConfigurableApplicationContext.ENVIRONMENT_BEAN_NAME,
+                Environment.class);
+        ClioneSqlProperties properties = Binder.get(environment).bind("clione-sql", ClioneSqlProperties.class)
+                .orElseGet(ClioneSqlProperties::new);
+        String prefix = properties.getSqlFilePrefix();
+        if (!StringUtils.hasText(prefix)) {
+            LOGGER.info("Not registering clione-sql templates as native resources because clione-sql.sql-file-prefix"
+                    + " is not set");
+            return null;
+        }
+        new ClioneSqlWarmup(properties, new PathMatchingResourcePatternResolver(beanFactory.getBeanClassLoader()))
+                .warmUp();
+        String pattern = StringUtils.trimTrailingCharacter(StringUtils.trimLeadingCharacter(prefix.trim(), '/'), '/')
+                + "/**";
+        return (generationContext, beanFactoryInitializationCode) -> generationContext.getRuntimeHints().resources()
+                .registerPattern(pattern);
+    }
+}
@@ -0,0 +1,63 @@
+package net.noworks.clionesql.boot.autoconfigure;
+
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+
+import tetz42.clione.common.exception.SQLRuntimeException;
+import tetz42.clione.exception.ClioneFormatException;
+import tetz42.clione.exception.ConnectionNotFoundException;
+import tetz42.clione.exception.DuplicateKeyException;
+import tetz42.clione.exception.ParameterNotFoundException;
+import tetz42.clione.exception.SQLFileNotFoundException;
+import tetz42.clione.util.ParamMap;
+import tetz42.clione.util.ResultMap;
+
+import net.noworks.clionesql.boot.SqlBundle;
+
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+
+/**
+ * {@link RuntimeHintsRegistrar} for clione-sql and the JDBC proxies created by
+ * {@link net.noworks.clionesql.boot.ClioneSqlTemplate}.
+ *
+ * <p>
+ * Registers clione-sql's own {@code clione.properties}, the {@link SqlBundle}, reflection on clione-sql's result and
+ * parameter maps and on the exception types translated by
+ * {@link net.noworks.clionesql.boot.ClioneSqlPersistenceExceptionTranslator}, and the JDK proxies that wrap JDBC
+ * connections, statements and result sets. SQL files under {@code clione-sql.sql-file-prefix} depend on the environment
+ * and are registered by {@link ClioneSqlBeanFactoryInitializationAotProcessor}.
+ */
+class ClioneSqlRuntimeHints implements RuntimeHintsRegistrar {
+
+    private static final List<Class<?>> MAP_TYPES = List.of(ResultMap.class, ParamMap.class);
+
+    private static final List<Class<?>> EXCEPTION_TYPES = List.of(SQLRuntimeException.class,
+            ClioneFormatException.class, ConnectionNotFoundException.class, DuplicateKeyException.class,
+            ParameterNotFoundException.class, SQLFileNotFoundException.class);
+
+    private static final List<Class<?>> PROXIED_TYPES = List.of(Connection.class, Statement.class,
+            PreparedStatement.class, CallableStatement.class, ResultSet.class);
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        hints.resources().registerPattern("clione.properties");
+        hints.resources().registerPattern(SqlBundle.LOCATION);
+        for (Class<?> type : MAP_TYPES) {
+            hints.reflection().registerType(type, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS,
+                    MemberCategory.INVOKE_PUBLIC_METHODS);
+        }
+        for (Class<?> type : EXCEPTION_TYPES) {
+            hints.reflection().registerType(type, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+        }
+        for (Class<?> type : PROXIED_TYPES) {
+            hints.proxies().registerJdkProxy(TypeReference.of(type));
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package net.noworks.clionesql.boot.autoconfigure;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import net.noworks.clionesql.boot.ClioneSqlProperties;
+import net.noworks.clionesql.boot.ReplicaRoutingDataSource;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.core.env.Environment;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+/**
+ * {@link BeanPostProcessor} that replaces the {@code dataSource} bean with a {@link ReplicaRoutingDataSource} over the
+ * original data source and the replicas configured under {@code clione-sql.routing.replicas}.
+ *
+ * <p>
+ * Replicas are built with {@link DataSourceBuilder#derivedFrom(DataSource)}, so they use the primary's pool type and
+ * inherit its username, password and driver unless overridden. They are closed when the application context shuts down.
+ */
+class RoutingDataSourcePostProcessor implements BeanPostProcessor, DisposableBean {
+
+    /** Name of the data source bean that is wrapped. */
+    static final String DATA_SOURCE_BEAN_NAME = "dataSource";
+
+    private static final Log LOGGER = LogFactory.getLog(RoutingDataSourcePostProcessor.class);
+
+    private final Environment environment;
+
+    private final List<DataSource> replicas = new ArrayList<>();
+
+    /**
+     * Creates a new {@code RoutingDataSourcePostProcessor}.
+     *
+     * @param environment
+     *            the environment to bind {@code clione-sql.routing} from
+     */
+    RoutingDataSourcePostProcessor(Environment environment) {
+        this.environment = environment;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (DATA_SOURCE_BEAN_NAME.equals(beanName) && bean instanceof DataSource primary
+                && !(bean instanceof ReplicaRoutingDataSource)) {
+            ClioneSqlProperties.Routing routing = Binder.get(environment)
+                    .bind("clione-sql.routing", ClioneSqlProperties.Routing.class)
+                    .orElseGet(ClioneSqlProperties.Routing::new);
+            List<DataSource> built = new ArrayList<>();
+            for (ClioneSqlProperties.Replica replica : routing.getReplicas()) {
+                built.add(createReplica(primary, replica));
+            }
+            replicas.addAll(built);
+            if (LOGGER.isInfoEnabled()) {
+                LOGGER.info("Routing read-only transactions to " + built.size() + " clione-sql replica(s) using "
+                        + routing.getLoadBalancing() + " load balancing");
+            }
+            return new ReplicaRoutingDataSource(primary, built, routing.getLoadBalancing());
+        }
+        return bean;
+    }
+
+    private static DataSource createReplica(DataSource primary, ClioneSqlProperties.Replica replica) {
+        Assert.hasText(replica.getUrl(), "clione-sql.routing.replicas[].url must be set");
+        DataSourceBuilder<?> builder = DataSourceBuilder.derivedFrom(primary).url(replica.getUrl());
+        if (StringUtils.hasText(replica.getUsername())) {
+            builder.username(replica.getUsername());
+        }
+        if (replica.getPassword() != null) {
+            builder.password(replica.getPassword());
+        }
+        if (StringUtils.hasText(replica.getDriverClassName())) {
+            builder.driverClassName(replica.getDriverClassName());
+        }
+        return builder.build();
+    }
+
+    /**
+     * Closes the replica data sources that were created by this post-processor.
+     */
+    @Override
+    public void destroy() {
+        for (DataSource replica : replicas) {
+            if (replica instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception ex) {
+                    LOGGER.warn("Failed to close replica data source " + replica, ex);
+                }
+            }
+        }
+        replicas.clear();
+    }
+}
@@ -0,0 +1,108 @@
+package net.noworks.clionesql.boot.autoconfigure;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import tetz42.clione.SQLManager;
+
+import net.noworks.clionesql.boot.ClioneSqlTemplate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = { "spring.datasource.url=jdbc:h2:mem:batchupdate;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver" })
+class BatchUpdateIntegrationTest {
+
+    private static final int ROWS = 25;
+
+    @Autowired
+    private ClioneSqlTemplate clioneSqlTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS batch_item (id INT PRIMARY KEY, name VARCHAR(100))");
+        jdbcTemplate.execute("DELETE FROM batch_item");
+    }
+
+    @Test
+    void batchUpdateInsertsAllRows() {
+        int[] counts = clioneSqlTemplate.batchUpdate("sql/InsertBatchItem.sql", rows(), 10);
+
+        assertThat(counts).hasSize(ROWS).containsOnly(1);
+        assertThat(count()).isEqualTo(ROWS);
+    }
+
+    @Test
+    void batchUpdateBindsRecordsAndQueryBindsBeans() {
+        List<Item> items = new ArrayList<>();
+        for (int i = 1; i <= ROWS; i++) {
+            items.add(new Item(i, "item" + i));
+        }
+
+        int[] counts = clioneSqlTemplate.batchUpdate("sql/InsertBatchItem.sql", items, 10);
+
+        assertThat(counts).hasSize(ROWS).containsOnly(1);
+        ItemQuery query = new ItemQuery();
+        query.setId(7);
+        assertThat(clioneSqlTemplate.query("sql/SelectBatchItem.sql", query, Item.class)).isEqualTo(items.get(6));
+    }
+
+    @Test
+    void batchUpdateJoinsCurrentTransaction() {
+        transactionTemplate.executeWithoutResult(status -> {
+            clioneSqlTemplate.batchUpdate("sql/InsertBatchItem.sql", rows(), 10);
+            assertThat(count()).isEqualTo(ROWS);
+            status.setRollbackOnly();
+        });
+
+        assertThat(count()).isZero();
+    }
+
+    private static List<Map<String, Object>> rows() {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (int i = 1; i <= ROWS; i++) {
+            rows.add(SQLManager.params("id", i).$("name", "item" + i));
+        }
+        return rows;
+    }
+
+    private Integer count() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM batch_item", Integer.class);
+    }
+
+    record Item(int id, String name) {
+    }
+
+    public static class ItemQuery {
+
+        private int id;
+
+        public int getId() {
+            return id;
+        }
+
+        public void setId(int id) {
+            this.id = id;
+        }
+    }
+
+    @SpringBootApplication
+    static class TestApplication {
+    }
+}
@@ -2,7 +2,17 @@ package net.noworks.clionesql.boot.autoconfigure;
 
 import javax.sql.DataSource;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import net.noworks.clionesql.boot.ClioneSqlConnectionLeakFilter;
+import net.noworks.clionesql.boot.ClioneSqlFileWatcher;
+import net.noworks.clionesql.boot.ClioneSqlMetricsListener;
+import net.noworks.clionesql.boot.ClioneSqlProfilingFilter;
+import net.noworks.clionesql.boot.ClioneSqlProfilingListener;
 import net.noworks.clionesql.boot.ClioneSqlTemplate;
+import net.noworks.clionesql.boot.ClioneSqlWarmup;
+import net.noworks.clionesql.boot.ConnectionLeakTracker;
 
 import org.junit.jupiter.api.Test;
 
@@ -10,6 +20,7 @@ import org.springframework.boot.autoconfigure.AutoConfigurations;
 import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
 import org.springframework.boot.test.context.FilteredClassLoader;
 import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.boot.test.context.runner.WebApplicationContextRunner;
 import org.springframework.dao.support.PersistenceExceptionTranslator;
 
 import tetz42.clione.SQLManager;
@@ -29,9 +40,121 @@ class ClioneSqlAutoConfigurationTest {
         this.contextRunner.run(context -> {
             assertThat(context).hasSingleBean(ClioneSqlTemplate.class);
             assertThat(context).hasSingleBean(PersistenceExceptionTranslator.class);
+            assertThat(context).doesNotHaveBean(ClioneSqlWarmup.class);
+            assertThat(context).doesNotHaveBean(ClioneSqlFileWatcher.class);
+        });
+    }
+
+    @Test
+    void warmupIsCreatedWhenEnabled() {
+        this.contextRunner.withPropertyValues("clione-sql.warmup.enabled=true", "clione-sql.sql-file-prefix=sql")
+                .run(context -> {
+                    assertThat(context).hasNotFailed();
+                    assertThat(context).hasSingleBean(ClioneSqlWarmup.class);
+                });
+    }
+
+    @Test
+    void fileWatcherIsStartedInDevelopmentMode() {
+        this.contextRunner.withPropertyValues("clione-sql.development-mode=true", "clione-sql.sql-file-prefix=sql")
+                .run(context -> {
+                    assertThat(context).hasNotFailed();
+                    assertThat(context).hasSingleBean(ClioneSqlFileWatcher.class);
+                    assertThat(context.getBean(ClioneSqlFileWatcher.class).isRunning()).isTrue();
+                    assertThat(context.getBean(ClioneSqlTemplate.class).queryForList("sql/SelectOne.sql")).hasSize(1);
+                });
+    }
+
+    @Test
+    void metricsAreRecordedWhenMeterRegistryIsPresent() {
+        this.contextRunner.withBean(SimpleMeterRegistry.class).run(context -> {
+            assertThat(context).hasSingleBean(ClioneSqlMetricsListener.class);
+            context.getBean(ClioneSqlTemplate.class).queryForList("sql/SelectOne.sql");
+
+            MeterRegistry registry = context.getBean(MeterRegistry.class);
+            assertThat(registry.get(ClioneSqlMetricsListener.EXECUTION_METRIC)
+                    .tags("sql", "sql/SelectOne.sql", "operation", "findAll", "outcome", "success").timer().count())
+                            .isEqualTo(1);
+            assertThat(registry.get(ClioneSqlMetricsListener.ROWS_METRIC).summary().totalAmount()).isEqualTo(1.0);
+        });
+    }
+
+    @Test
+    void metricsListenerIsNotCreatedWithoutMeterRegistry() {
+        this.contextRunner.run(context -> assertThat(context).doesNotHaveBean(ClioneSqlMetricsListener.class));
+    }
+
+    @Test
+    void metricsListenerIsNotCreatedWhenDisabled() {
+        this.contextRunner.withBean(SimpleMeterRegistry.class).withPropertyValues("clione-sql.metrics-enabled=false")
+                .run(context -> assertThat(context).doesNotHaveBean(ClioneSqlMetricsListener.class));
+    }
+
+    @Test
+    void profilingIsEnabledInServletApplications() {
+        new WebApplicationContextRunner()
+                .withConfiguration(
+                        AutoConfigurations.of(DataSourceAutoConfiguration.class, ClioneSqlAutoConfiguration.class))
+                .withPropertyValues("spring.datasource.url=jdbc:h2:mem:testdb", "clione-sql.profiling.enabled=true",
+                        "clione-sql.profiling.fail-on-repeat=true")
+                .run(context -> {
+                    assertThat(context).hasSingleBean(ClioneSqlProfilingFilter.class);
+                    assertThat(context.getBean(ClioneSqlProfilingListener.class))
+                            .hasFieldOrPropertyWithValue("failOnRepeat", true);
+                });
+    }
+
+    @Test
+    void profilingIsNotEnabledOutsideServletApplications() {
+        this.contextRunner.withPropertyValues("clione-sql.profiling.enabled=true").run(context -> {
+            assertThat(context).doesNotHaveBean(ClioneSqlProfilingFilter.class);
+            assertThat(context).doesNotHaveBean(ClioneSqlProfilingListener.class);
+        });
+    }
+
+    @Test
+    void leakTrackingRegistersTrackerAndRequestFilter() {
+        new WebApplicationContextRunner()
+                .withConfiguration(
+                        AutoConfigurations.of(DataSourceAutoConfiguration.class, ClioneSqlAutoConfiguration.class))
+                .withPropertyValues("spring.datasource.url=jdbc:h2:mem:testdb", "clione-sql.leak-tracking.enabled=true",
+                        "clione-sql.leak-tracking.capture-stack-trace=false")
+                .run(context -> {
+                    ConnectionLeakTracker tracker = context.getBean(ConnectionLeakTracker.class);
+                    assertThat(tracker).hasFieldOrPropertyWithValue("captureStackTrace", false);
+                    assertThat(context.getBean(ClioneSqlTemplate.class))
+                            .hasFieldOrPropertyWithValue("connectionLeakTracker", tracker);
+                    assertThat(context).hasSingleBean(ClioneSqlConnectionLeakFilter.class);
+                });
+    }
+
+    @Test
+    void leakTrackingIsDisabledByDefault() {
+        this.contextRunner.run(context -> {
+            assertThat(context).doesNotHaveBean(ConnectionLeakTracker.class);
+            assertThat(context.getBean(ClioneSqlTemplate.class)).hasFieldOrPropertyWithValue("connectionLeakTracker",
+                    null);
+        });
+    }
+
+    @Test
+    void asyncConcurrencyLimitFollowsPoolSize() {
+        this.contextRunner.withPropertyValues("spring.datasource.hikari.maximum-pool-size=3").run(context -> {
+            ClioneSqlTemplate template = context.getBean(ClioneSqlTemplate.class);
+            assertThat(template).hasFieldOrPropertyWithValue("asyncConcurrencyLimit", 3);
+            assertThat(template.queryForListAsync("sql/SelectOne.sql").join()).hasSize(1);
         });
     }
 
+    @Test
+    void asyncConcurrencyLimitCanBeSetExplicitly() {
+        this.contextRunner
+                .withPropertyValues("spring.datasource.hikari.maximum-pool-size=3",
+                        "clione-sql.async-max-concurrency=2")
+                .run(context -> assertThat(context.getBean(ClioneSqlTemplate.class))
+                        .hasFieldOrPropertyWithValue("asyncConcurrencyLimit", 2));
+    }
+
     @Test
     void beansAreNotCreatedWithoutSQLManagerClass() {
         this.contextRunner.withClassLoader(new FilteredClassLoader(SQLManager.class)).run(context -> {
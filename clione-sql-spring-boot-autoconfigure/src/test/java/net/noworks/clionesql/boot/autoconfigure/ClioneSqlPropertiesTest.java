@@ -1,6 +1,9 @@
 package net.noworks.clionesql.boot.autoconfigure;
 
+import java.time.Duration;
+
 import net.noworks.clionesql.boot.ClioneSqlProperties;
+import net.noworks.clionesql.boot.ReplicaRoutingDataSource;
 
 import org.junit.jupiter.api.Test;
 
@@ -29,15 +32,36 @@ class ClioneSqlPropertiesTest {
             assertThat(properties.isDevelopmentMode()).isFalse();
             assertThat(properties.getSqlFileCacheTime()).isZero();
             assertThat(properties.getEntityDepthLimit()).isEqualTo(8);
+            assertThat(properties.getStreamFetchSize()).isEqualTo(1000);
+            assertThat(properties.isMetricsEnabled()).isTrue();
+            assertThat(properties.getStatementCacheSize()).isZero();
+            assertThat(properties.getAsyncMaxConcurrency()).isZero();
+            assertThat(properties.getWarmup().isEnabled()).isFalse();
+            assertThat(properties.getRouting().isEnabled()).isFalse();
+            assertThat(properties.getRouting().getReplicas()).isEmpty();
+            assertThat(properties.getRouting().getLoadBalancing())
+                    .isEqualTo(ReplicaRoutingDataSource.LoadBalancing.ROUND_ROBIN);
+            assertThat(properties.getRouting().isReadYourWrites()).isFalse();
+            assertThat(properties.getRouting().getReadYourWritesWindow()).isEqualTo(Duration.ofSeconds(1));
+            assertThat(properties.getQueries()).isEmpty();
         });
     }
 
     @Test
     void customValues() {
-        this.contextRunner.withPropertyValues("clione-sql.product-name=postgres",
-                "clione-sql.sql-file-encoding=Shift_JIS", "clione-sql.sql-file-prefix=sql",
-                "clione-sql.exception-translation-enabled=false", "clione-sql.development-mode=true",
-                "clione-sql.sql-file-cache-time=5000", "clione-sql.entity-depth-limit=4").run(context -> {
+        this.contextRunner
+                .withPropertyValues("clione-sql.product-name=postgres", "clione-sql.sql-file-encoding=Shift_JIS",
+                        "clione-sql.sql-file-prefix=sql", "clione-sql.exception-translation-enabled=false",
+                        "clione-sql.development-mode=true", "clione-sql.sql-file-cache-time=5000",
+                        "clione-sql.entity-depth-limit=4", "clione-sql.stream-fetch-size=200",
+                        "clione-sql.metrics-enabled=false", "clione-sql.statement-cache-size=32",
+                        "clione-sql.warmup.enabled=true", "clione-sql.warmup.parallelism=2",
+                        "clione-sql.async-max-concurrency=16", "clione-sql.routing.replicas[0].url=jdbc:h2:mem:replica",
+                        "clione-sql.routing.replicas[0].username=reader", "clione-sql.routing.load-balancing=random",
+                        "clione-sql.routing.read-your-writes=true", "clione-sql.routing.read-your-writes-window=5s",
+                        "clione-sql.queries[status/SelectAll.sql].cache-ttl=5m",
+                        "clione-sql.queries[status/SelectAll.sql].tables=status_code,status_group")
+                .run(context -> {
                     ClioneSqlProperties properties = context.getBean(ClioneSqlProperties.class);
                     assertThat(properties.getProductName()).isEqualTo("postgres");
                     assertThat(properties.getSqlFileEncoding()).isEqualTo("Shift_JIS");
@@ -46,6 +70,25 @@ class ClioneSqlPropertiesTest {
                     assertThat(properties.isDevelopmentMode()).isTrue();
                     assertThat(properties.getSqlFileCacheTime()).isEqualTo(5000);
                     assertThat(properties.getEntityDepthLimit()).isEqualTo(4);
+                    assertThat(properties.getStreamFetchSize()).isEqualTo(200);
+                    assertThat(properties.isMetricsEnabled()).isFalse();
+                    assertThat(properties.getStatementCacheSize()).isEqualTo(32);
+                    assertThat(properties.getAsyncMaxConcurrency()).isEqualTo(16);
+                    assertThat(properties.getWarmup().isEnabled()).isTrue();
+                    assertThat(properties.getWarmup().getParallelism()).isEqualTo(2);
+                    assertThat(properties.getRouting().getReplicas()).singleElement().satisfies(replica -> {
+                        assertThat(replica.getUrl()).isEqualTo("jdbc:h2:mem:replica");
+                        assertThat(replica.getUsername()).isEqualTo("reader");
+                    });
+                    assertThat(properties.getRouting().getLoadBalancing())
+                            .isEqualTo(ReplicaRoutingDataSource.LoadBalancing.RANDOM);
+                    assertThat(properties.getRouting().isReadYourWrites()).isTrue();
+                    assertThat(properties.getRouting().getReadYourWritesWindow()).isEqualTo(Duration.ofSeconds(5));
+                    assertThat(properties.getQueries()).hasEntrySatisfying("status/SelectAll.sql", query -> {
+                        assertThat(query.getCacheTtl()).isEqualTo(Duration.ofMinutes(5));
+                        assertThat(query.getCacheMaxSize()).isEqualTo(1000);
+                        assertThat(query.getTables()).containsExactly("status_code", "status_group");
+                    });
                 });
     }
 }
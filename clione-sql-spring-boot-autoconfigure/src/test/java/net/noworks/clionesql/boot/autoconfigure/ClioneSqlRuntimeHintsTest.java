@@ -0,0 +1,95 @@
+package net.noworks.clionesql.boot.autoconfigure;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+
+import tetz42.clione.exception.ClioneFormatException;
+import tetz42.clione.util.ResultMap;
+
+import net.noworks.clionesql.boot.ClioneSqlTemplate;
+import net.noworks.clionesql.boot.SqlBundle;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.aot.generate.GenerationContext;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+import org.springframework.beans.factory.aot.BeanFactoryInitializationAotContribution;
+import org.springframework.beans.factory.aot.BeanFactoryInitializationCode;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ClioneSqlRuntimeHintsTest {
+
+    @Test
+    void registersClioneSqlHints() {
+        RuntimeHints hints = new RuntimeHints();
+
+        new ClioneSqlRuntimeHints().registerHints(hints, getClass().getClassLoader());
+
+        assertThat(RuntimeHintsPredicates.resource().forResource(SqlBundle.LOCATION)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.resource().forResource("clione.properties")).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onType(ResultMap.class)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onType(ClioneFormatException.class)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.proxies().forInterfaces(Connection.class)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.proxies().forInterfaces(PreparedStatement.class)).accepts(hints);
+    }
+
+    @Test
+    void registersSqlFilesUnderPrefix() {
+        RuntimeHints hints = new RuntimeHints();
+
+        BeanFactoryInitializationAotContribution contribution = new ClioneSqlBeanFactoryInitializationAotProcessor()
+                .processAheadOfTime(
+                        beanFactory(new MockEnvironment().withProperty("clione-sql.sql-file-prefix", "/sql/")));
+        contribution.applyTo(generationContext(hints), mock(BeanFactoryInitializationCode.class));
+
+        assertThat(RuntimeHintsPredicates.resource().forResource("sql/SelectOne.sql")).accepts(hints);
+        assertThat(RuntimeHintsPredicates.resource().forResource("sql/person/SelectAll.sql")).accepts(hints);
+        assertThat(RuntimeHintsPredicates.resource().forResource("sql/person/SelectAll.sql-postgres")).accepts(hints);
+        assertThat(RuntimeHintsPredicates.resource().forResource("application.properties")).rejects(hints);
+    }
+
+    @Test
+    void doesNotContributeWithoutPrefix() {
+        assertThat(new ClioneSqlBeanFactoryInitializationAotProcessor()
+                .processAheadOfTime(beanFactory(new MockEnvironment()))).isNull();
+    }
+
+    @Test
+    void doesNotContributeWithoutTemplate() {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerSingleton(ConfigurableApplicationContext.ENVIRONMENT_BEAN_NAME,
+                new MockEnvironment().withProperty("clione-sql.sql-file-prefix", "sql"));
+
+        assertThat(new ClioneSqlBeanFactoryInitializationAotProcessor().processAheadOfTime(beanFactory)).isNull();
+    }
+
+    @Test
+    void failsOnFormatError() {
+        assertThatExceptionOfType(ClioneFormatException.class)
+                .isThrownBy(() -> new ClioneSqlBeanFactoryInitializationAotProcessor().processAheadOfTime(
+                        beanFactory(new MockEnvironment().withProperty("clione-sql.sql-file-prefix", "broken")
+                                .withProperty("clione-sql.warmup.parallelism", "1"))));
+    }
+
+    private static DefaultListableBeanFactory beanFactory(MockEnvironment environment) {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerSingleton(ConfigurableApplicationContext.ENVIRONMENT_BEAN_NAME, environment);
+        beanFactory.registerBeanDefinition("clioneSqlTemplate", new RootBeanDefinition(ClioneSqlTemplate.class));
+        return beanFactory;
+    }
+
+    private static GenerationContext generationContext(RuntimeHints hints) {
+        GenerationContext generationContext = mock(GenerationContext.class);
+        when(generationContext.getRuntimeHints()).thenReturn(hints);
+        return generationContext;
+    }
+}
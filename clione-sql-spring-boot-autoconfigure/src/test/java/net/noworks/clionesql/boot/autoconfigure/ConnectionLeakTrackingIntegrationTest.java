@@ -0,0 +1,118 @@
+package net.noworks.clionesql.boot.autoconfigure;
+
+import net.noworks.clionesql.boot.ClioneSqlConnectionLeakFilter;
+import net.noworks.clionesql.boot.ClioneSqlTemplate;
+import net.noworks.clionesql.boot.ConnectionLeakStatistics;
+import net.noworks.clionesql.boot.ConnectionLeakTracker;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@code clione-sql.leak-tracking.enabled=true} による接続リーク追跡の統合テスト。
+ *
+ * <p>
+ * {@link ConnectionLeakReproductionTest} と同じく maximumPoolSize=1 のプールで、旧来の {@code useSQL/useFile} 直叩きをプールサイズを超えて繰り返す。
+ * リークした接続がスコープ（リクエスト）終了時、または {@code SQLExecutor} の到達不能時に返却され、枯渇しないことを検証する。
+ */
+@SpringBootTest(properties = { "spring.datasource.url=jdbc:h2:mem:leaktracking;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.type=com.zaxxer.hikari.HikariDataSource", "spring.datasource.hikari.maximum-pool-size=1",
+        "spring.datasource.hikari.connection-timeout=1000", "spring.datasource.hikari.pool-name=LeakTrackingPool",
+        "clione-sql.leak-tracking.enabled=true" })
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class ConnectionLeakTrackingIntegrationTest {
+
+    private static final int CALLS = 5;
+
+    private static final String SQL_PATH = "sql/SelectOne.sql";
+
+    @Autowired
+    private ClioneSqlTemplate clioneSqlTemplate;
+
+    @Autowired
+    private ConnectionLeakTracker tracker;
+
+    @Autowired
+    private ClioneSqlConnectionLeakFilter filter;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * スコープ内で取得され、返却されなかった接続はスコープ終了時に返却される。
+     */
+    @Test
+    void scopeReleasesLeakedConnections() {
+        for (int i = 0; i < CALLS; i++) {
+            try (ConnectionLeakTracker.Scope scope = tracker.openScope("test")) {
+                assertThat(clioneSqlTemplate.useSQL("SELECT 1 AS v").find()).containsEntry("V", 1);
+            }
+        }
+
+        ConnectionLeakStatistics statistics = tracker.getStatistics();
+        assertThat(statistics.trackedCount()).isEqualTo(CALLS);
+        assertThat(statistics.scopeLeakCount()).isEqualTo(CALLS);
+        assertThat(statistics.unreachableLeakCount()).isZero();
+        assertThat(statistics.pendingCount()).isZero();
+        assertThat(statistics.maxLeakHeldNanos()).isPositive();
+    }
+
+    /**
+     * フィルタはリクエストごとにスコープを開き、リクエスト中にリークした接続を返却する。
+     */
+    @Test
+    void filterReleasesConnectionsLeakedByRequest() throws Exception {
+        for (int i = 0; i < CALLS; i++) {
+            filter.doFilter(new MockHttpServletRequest("GET", "/items"), new MockHttpServletResponse(),
+                    (request, response) -> clioneSqlTemplate.useFile(SQL_PATH).findAll());
+        }
+
+        assertThat(tracker.getStatistics().leakCount()).isEqualTo(CALLS);
+    }
+
+    /**
+     * スコープ外でリークした接続は、{@code SQLExecutor} が GC された後に返却される。
+     */
+    @Test
+    void unreachableExecutorReleasesConnection() throws InterruptedException {
+        clioneSqlTemplate.useSQL("SELECT 1 AS v").find();
+
+        for (int i = 0; i < 100 && tracker.getStatistics().unreachableLeakCount() == 0; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+
+        assertThat(tracker.getStatistics().unreachableLeakCount()).isEqualTo(1);
+        try (ConnectionLeakTracker.Scope scope = tracker.openScope("test")) {
+            assertThat(clioneSqlTemplate.useSQL("SELECT 2 AS v").find()).containsEntry("V", 2);
+        }
+    }
+
+    /**
+     * トランザクションの接続はトランザクション終了時に返却されるため追跡しない。
+     */
+    @Test
+    void transactionalConnectionsAreNotTracked() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        for (int i = 0; i < CALLS; i++) {
+            tx.executeWithoutResult(status -> clioneSqlTemplate.useSQL("SELECT 1 AS v").find());
+        }
+
+        assertThat(tracker.getStatistics().trackedCount()).isZero();
+    }
+
+    @SpringBootApplication
+    static class TestApplication {
+    }
+}
@@ -0,0 +1,120 @@
+package net.noworks.clionesql.boot.autoconfigure;
+
+import java.util.List;
+
+import tetz42.clione.SQLManager;
+import tetz42.clione.util.ResultMap;
+
+import net.noworks.clionesql.boot.ClioneSqlTemplate;
+import net.noworks.clionesql.boot.QueryCacheStatistics;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * {@code clione-sql.queries[...]} によるクエリ結果キャッシュの統合テスト。
+ *
+ * <p>
+ * キャッシュのヒット、宣言したテーブルへの更新による無効化 (トランザクション内ではコミット後) および件数上限による追い出しを検証する。
+ */
+@SpringBootTest(properties = { "spring.datasource.url=jdbc:h2:mem:querycache;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "clione-sql.queries[sql/SelectCachedItems.sql].cache-ttl=1h",
+        "clione-sql.queries[sql/SelectCachedItems.sql].cache-max-size=2",
+        "clione-sql.queries[sql/SelectCachedItems.sql].tables=cached_item",
+        "clione-sql.queries[sql/UpdateCachedItem.sql].tables=CACHED_ITEM" })
+class QueryCacheIntegrationTest {
+
+    private static final String SELECT = "sql/SelectCachedItems.sql";
+
+    @Autowired
+    private ClioneSqlTemplate clioneSqlTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS cached_item (id INT PRIMARY KEY, name VARCHAR(100))");
+        jdbcTemplate.execute("DELETE FROM cached_item");
+        jdbcTemplate.update("INSERT INTO cached_item VALUES (1, 'apple')");
+        clioneSqlTemplate.invalidateTables("cached_item");
+    }
+
+    @Test
+    void repeatedQueriesAreServedFromCache() {
+        QueryCacheStatistics before = statistics();
+
+        List<ResultMap> first = clioneSqlTemplate.queryForList(SELECT, SQLManager.params("minId", 1));
+        jdbcTemplate.update("UPDATE cached_item SET name = 'changed'");
+        List<ResultMap> second = clioneSqlTemplate.queryForList(SELECT, SQLManager.params("minId", 1));
+
+        assertThat(second).isSameAs(first);
+        assertThat(second).singleElement().satisfies(row -> assertThat(row.get("NAME")).isEqualTo("apple"));
+        assertThatExceptionOfType(UnsupportedOperationException.class).isThrownBy(() -> second.clear());
+        QueryCacheStatistics after = statistics();
+        assertThat(after.hitCount() - before.hitCount()).isEqualTo(1);
+        assertThat(after.missCount() - before.missCount()).isEqualTo(1);
+    }
+
+    @Test
+    void updateOfDeclaredTableInvalidatesCache() {
+        clioneSqlTemplate.queryForList(SELECT, SQLManager.params("minId", 1));
+
+        clioneSqlTemplate.update("sql/UpdateCachedItem.sql", SQLManager.params("id", 1).$("name", "banana"));
+
+        assertThat(clioneSqlTemplate.queryForList(SELECT, SQLManager.params("minId", 1))).singleElement()
+                .satisfies(row -> assertThat(row.get("NAME")).isEqualTo("banana"));
+    }
+
+    @Test
+    void invalidationIsDeferredUntilCommit() {
+        clioneSqlTemplate.queryForList(SELECT, SQLManager.params("minId", 1));
+        long invalidations = statistics().invalidationCount();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            clioneSqlTemplate.update("sql/UpdateCachedItem.sql", SQLManager.params("id", 1).$("name", "cherry"));
+
+            assertThat(clioneSqlTemplate.queryForList(SELECT, SQLManager.params("minId", 1))).singleElement()
+                    .satisfies(row -> assertThat(row.get("NAME")).isEqualTo("cherry"));
+            assertThat(statistics().invalidationCount()).isEqualTo(invalidations);
+        });
+
+        assertThat(statistics().invalidationCount()).isEqualTo(invalidations + 1);
+        assertThat(clioneSqlTemplate.queryForList(SELECT, SQLManager.params("minId", 1))).singleElement()
+                .satisfies(row -> assertThat(row.get("NAME")).isEqualTo("cherry"));
+    }
+
+    @Test
+    void leastRecentlyUsedResultsAreEvicted() {
+        long evictions = statistics().evictionCount();
+
+        for (int minId = 0; minId < 3; minId++) {
+            clioneSqlTemplate.queryForList(SELECT, SQLManager.params("minId", minId));
+        }
+
+        assertThat(statistics().evictionCount()).isEqualTo(evictions + 1);
+        assertThat(statistics().size()).isEqualTo(2);
+    }
+
+    private QueryCacheStatistics statistics() {
+        return clioneSqlTemplate.getQueryCacheStatistics().get(SELECT);
+    }
+
+    @SpringBootApplication
+    static class TestApplication {
+    }
+}
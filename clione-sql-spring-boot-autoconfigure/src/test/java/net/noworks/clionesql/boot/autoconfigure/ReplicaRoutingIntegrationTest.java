@@ -0,0 +1,109 @@
+package net.noworks.clionesql.boot.autoconfigure;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import net.noworks.clionesql.boot.ClioneSqlTemplate;
+import net.noworks.clionesql.boot.ReplicaRoutingDataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@code clione-sql.routing.*} の統合テスト。
+ *
+ * <p>
+ * プライマリとレプリカを別々の H2 インメモリデータベースとし、読み取り専用トランザクションだけがレプリカへ振り分けられること、 read-your-writes により更新直後の読み取りがプライマリへ固定されることを検証する。
+ */
+@SpringBootTest(properties = { "spring.datasource.url=jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver", "clione-sql.routing.enabled=true",
+        "clione-sql.routing.replicas[0].url=jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1",
+        "clione-sql.routing.read-your-writes=true", "clione-sql.routing.read-your-writes-window=100ms" })
+class ReplicaRoutingIntegrationTest {
+
+    @Autowired
+    private ClioneSqlTemplate clioneSqlTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        ReplicaRoutingDataSource routing = dataSource.unwrap(ReplicaRoutingDataSource.class);
+        createNode(new JdbcTemplate(routing.getTargetDataSource()), "primary");
+        createNode(new JdbcTemplate(routing.getReplicas().get(0)), "replica");
+        new JdbcTemplate(routing.getTargetDataSource())
+                .execute("CREATE TABLE IF NOT EXISTS node_log (name VARCHAR(20))");
+    }
+
+    private static void createNode(JdbcTemplate jdbcTemplate, String name) {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS node (name VARCHAR(20))");
+        jdbcTemplate.execute("DELETE FROM node");
+        jdbcTemplate.update("INSERT INTO node VALUES (?)", name);
+    }
+
+    @Test
+    void dataSourceIsWrapped() {
+        assertThat(dataSource).isInstanceOf(ReplicaRoutingDataSource.class);
+    }
+
+    @Test
+    void readOnlyTransactionsUseReplica() throws InterruptedException {
+        Thread.sleep(150);
+        assertThat(readNode(true)).isEqualTo("replica");
+    }
+
+    @Test
+    void readWriteTransactionsUsePrimary() {
+        assertThat(readNode(false)).isEqualTo("primary");
+        assertThat(clioneSqlTemplate.query("sql/SelectNodeName.sql")).containsEntry("NAME", "primary");
+    }
+
+    @Test
+    void readsAfterUpdateArePinnedToPrimary() throws InterruptedException {
+        clioneSqlTemplate.update("sql/UpdateNodeName.sql");
+
+        assertThat(readNode(true)).isEqualTo("primary");
+
+        Thread.sleep(150);
+        assertThat(readNode(true)).isEqualTo("replica");
+    }
+
+    @Test
+    void readsAfterBulkInsertArePinnedToPrimary() throws InterruptedException {
+        Thread.sleep(150);
+        clioneSqlTemplate.bulkInsert("node_log", List.of("name"), List.of(Map.of("name", "written")));
+
+        assertThat(readNode(true)).isEqualTo("primary");
+
+        Thread.sleep(150);
+        assertThat(readNode(true)).isEqualTo("replica");
+    }
+
+    private String readNode(boolean readOnly) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(readOnly);
+        Map<String, Object> row = transactionTemplate
+                .execute(status -> clioneSqlTemplate.query("sql/SelectNodeName.sql"));
+        return (String) row.get("NAME");
+    }
+
+    @SpringBootApplication
+    static class TestApplication {
+    }
+}
@@ -0,0 +1,80 @@
+package net.noworks.clionesql.boot.autoconfigure;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import tetz42.clione.SQLManager;
+import tetz42.clione.util.ResultMap;
+
+import net.noworks.clionesql.boot.ClioneSqlTemplate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+
+/**
+ * {@link ClioneSqlTemplate#stream(String, java.util.Map)} の統合テスト。
+ *
+ * <p>
+ * maximumPoolSize=1 で構成し、ストリームを close したときに接続が返却されることを検証する。
+ */
+@SpringBootTest(properties = { "spring.datasource.url=jdbc:h2:mem:streamquery;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.type=com.zaxxer.hikari.HikariDataSource", "spring.datasource.hikari.maximum-pool-size=1",
+        "spring.datasource.hikari.connection-timeout=1000" })
+class StreamQueryIntegrationTest {
+
+    private static final int ROWS = 50;
+
+    @Autowired
+    private ClioneSqlTemplate clioneSqlTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS stream_item (id INT PRIMARY KEY, name VARCHAR(100))");
+        jdbcTemplate.execute("DELETE FROM stream_item");
+        for (int i = 1; i <= ROWS; i++) {
+            jdbcTemplate.update("INSERT INTO stream_item (id, name) VALUES (?, ?)", i, "item" + i);
+        }
+    }
+
+    @Test
+    void streamReadsAllRowsAndReleasesConnection() {
+        try (Stream<ResultMap> rows = clioneSqlTemplate.stream("sql/SelectStreamItems.sql", SQLManager.params(), 10)) {
+            assertThat(rows.count()).isEqualTo(ROWS);
+        }
+        assertThatCode(() -> clioneSqlTemplate.query("sql/SelectOne.sql")).doesNotThrowAnyException();
+    }
+
+    @Test
+    void partiallyConsumedStreamReleasesConnectionOnClose() {
+        try (Stream<ResultMap> rows = clioneSqlTemplate.stream("sql/SelectStreamItems.sql")) {
+            assertThat(rows.limit(3)).hasSize(3);
+        }
+        assertThatCode(() -> clioneSqlTemplate.query("sql/SelectOne.sql")).doesNotThrowAnyException();
+    }
+
+    @Test
+    void eachPassesEveryRowToCallback() {
+        List<Object> ids = new ArrayList<>();
+        clioneSqlTemplate.each("sql/SelectStreamItems.sql", SQLManager.params(), row -> ids.add(row.get("ID")));
+
+        assertThat(ids).hasSize(ROWS);
+        assertThatCode(() -> clioneSqlTemplate.query("sql/SelectOne.sql")).doesNotThrowAnyException();
+    }
+
+    @SpringBootApplication
+    static class TestApplication {
+    }
+}
@@ -0,0 +1,130 @@
+package net.noworks.clionesql.boot.autoconfigure;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import tetz42.clione.SQLManager;
+
+import net.noworks.clionesql.boot.ClioneSqlTemplate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+/**
+ * {@link ClioneSqlTemplate#queryForList(String, java.util.Map, Class)} の統合テスト。
+ *
+ * <p>
+ * ResultMap を経由せずに record と JavaBean へマッピングできることを検証する。
+ */
+@SpringBootTest(properties = { "spring.datasource.url=jdbc:h2:mem:typedquery;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver" })
+class TypedQueryIntegrationTest {
+
+    @Autowired
+    private ClioneSqlTemplate clioneSqlTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS typed_item "
+                + "(id INT PRIMARY KEY, first_name VARCHAR(100), price DECIMAL(10, 2), created_on DATE)");
+        jdbcTemplate.execute("DELETE FROM typed_item");
+        jdbcTemplate.update("INSERT INTO typed_item VALUES (1, 'apple', 1.50, DATE '2024-01-02')");
+        jdbcTemplate.update("INSERT INTO typed_item VALUES (2, 'banana', NULL, NULL)");
+    }
+
+    @Test
+    void mapsRowsToRecords() {
+        List<ItemRecord> items = clioneSqlTemplate.queryForList("sql/SelectTypedItems.sql",
+                SQLManager.params("minId", 1), ItemRecord.class);
+
+        assertThat(items).containsExactly(new ItemRecord(1L, "apple", new BigDecimal("1.50"), LocalDate.of(2024, 1, 2)),
+                new ItemRecord(2L, "banana", null, null));
+    }
+
+    @Test
+    void mapsRowsToBeans() {
+        List<ItemBean> items = clioneSqlTemplate.queryForList("sql/SelectTypedItems.sql", SQLManager.params("minId", 2),
+                ItemBean.class);
+
+        assertThat(items).singleElement().satisfies(item -> {
+            assertThat(item.getId()).isEqualTo(2);
+            assertThat(item.getFirstName()).isEqualTo("banana");
+            assertThat(item.getPrice()).isNull();
+        });
+    }
+
+    @Test
+    void queryReturnsFirstRowOrNull() {
+        ItemRecord first = clioneSqlTemplate.query("sql/SelectTypedItems.sql", SQLManager.params("minId", 1),
+                ItemRecord.class);
+        ItemRecord none = clioneSqlTemplate.query("sql/SelectTypedItems.sql", SQLManager.params("minId", 3),
+                ItemRecord.class);
+
+        assertThat(first.firstName()).isEqualTo("apple");
+        assertThat(none).isNull();
+    }
+
+    @Test
+    void rejectsTypesWithoutNoArgumentConstructor() {
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> clioneSqlTemplate.queryForList("sql/SelectTypedItems.sql", null, Integer.class));
+    }
+
+    @Test
+    void untypedCallsWithNullParamsStillResolve() {
+        assertThat(clioneSqlTemplate.query("sql/SelectOne.sql", null)).isNotNull();
+        assertThat(clioneSqlTemplate.queryForList("sql/SelectOne.sql", null)).hasSize(1);
+    }
+
+    record ItemRecord(long id, String firstName, BigDecimal price, LocalDate createdOn) {
+    }
+
+    static class ItemBean {
+
+        private int id;
+
+        private String firstName;
+
+        private BigDecimal price;
+
+        public int getId() {
+            return id;
+        }
+
+        public void setId(int id) {
+            this.id = id;
+        }
+
+        public String getFirstName() {
+            return firstName;
+        }
+
+        public void setFirstName(String firstName) {
+            this.firstName = firstName;
+        }
+
+        public BigDecimal getPrice() {
+            return price;
+        }
+
+        public void setPrice(BigDecimal price) {
+            this.price = price;
+        }
+    }
+
+    @SpringBootApplication
+    static class TestApplication {
+    }
+}
@@ -0,0 +1 @@
+SELECT 1 FROM DUAL WHERE 1 = /* id 1
@@ -0,0 +1 @@
+INSERT INTO batch_item (id, name) VALUES (/* id */1, /* name */'dummy')
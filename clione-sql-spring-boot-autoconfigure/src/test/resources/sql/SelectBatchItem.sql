@@ -0,0 +1 @@
+SELECT id, name FROM batch_item WHERE id = /* id */1
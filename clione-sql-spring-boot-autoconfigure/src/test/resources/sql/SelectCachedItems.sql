@@ -0,0 +1 @@
+SELECT id, name FROM cached_item WHERE id >= /* minId */0 ORDER BY id
@@ -0,0 +1 @@
+SELECT id, name FROM stream_item ORDER BY id
@@ -0,0 +1 @@
+SELECT id, first_name, price, created_on FROM typed_item WHERE id >= /* minId */0 ORDER BY id
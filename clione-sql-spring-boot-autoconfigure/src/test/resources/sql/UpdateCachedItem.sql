@@ -0,0 +1 @@
+UPDATE cached_item SET name = /* name */'dummy' WHERE id = /* id */1
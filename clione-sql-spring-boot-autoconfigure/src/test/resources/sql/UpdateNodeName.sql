@@ -0,0 +1 @@
+UPDATE node SET name = name
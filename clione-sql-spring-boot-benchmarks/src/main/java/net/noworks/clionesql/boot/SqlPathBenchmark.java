@@ -0,0 +1,63 @@
+package net.noworks.clionesql.boot;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Normalization of SQL paths by {@link ClioneSqlTemplate#resolveSqlPath(String)} with
+ * {@code clione-sql.sql-file-prefix=sql}, for a relative path, an already prefixed path and a path that needs trimming.
+ *
+ * <p>
+ * Lives in the template's package because path resolution is package-private.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SqlPathBenchmark {
+
+    /** SQL path passed to the template. */
+    @Param({ "person/SelectAll.sql", "sql/person/SelectAll.sql", " /sql/person/SelectAll.sql/ " })
+    public String sqlPath;
+
+    private ClioneSqlTemplate template;
+
+    /** Creates a new {@code SqlPathBenchmark}. */
+    public SqlPathBenchmark() {
+    }
+
+    /** Creates a template; no connection is opened. */
+    @Setup
+    public void setUp() {
+        DataSource dataSource = new JdbcDataSource();
+        ClioneSqlProperties properties = new ClioneSqlProperties();
+        properties.setSqlFilePrefix("/sql/");
+        template = new ClioneSqlTemplate(dataSource, properties);
+    }
+
+    /**
+     * Resolves {@link #sqlPath}.
+     *
+     * @return the resolved path
+     */
+    @Benchmark
+    public String resolveSqlPath() {
+        return template.resolveSqlPath(sqlPath);
+    }
+}
@@ -0,0 +1,102 @@
+package net.noworks.clionesql.boot.benchmarks;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import net.noworks.clionesql.boot.ClioneSqlProperties;
+import net.noworks.clionesql.boot.ClioneSqlTemplate;
+
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Embedded H2 database shared by the benchmarks of one fork.
+ *
+ * <p>
+ * Holds a pooled data source with an {@code item} table of {@link #ROW_COUNT} rows and a {@link ClioneSqlTemplate} with
+ * {@code clione-sql.sql-file-prefix=sql} and no execution listeners.
+ */
+@State(Scope.Benchmark)
+public class BenchmarkDatabase {
+
+    /** Number of rows in the {@code item} table. */
+    public static final int ROW_COUNT = 100_000;
+
+    private JdbcConnectionPool dataSource;
+
+    private ClioneSqlTemplate template;
+
+    /** Creates a new {@code BenchmarkDatabase}; the database is created by {@link #setUp()}. */
+    public BenchmarkDatabase() {
+    }
+
+    /**
+     * Creates and fills the database.
+     *
+     * @throws SQLException
+     *             if the database cannot be created
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        dataSource = JdbcConnectionPool.create("jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1", "sa", "");
+        try (Connection con = dataSource.getConnection()) {
+            try (Statement statement = con.createStatement()) {
+                statement.execute("DROP TABLE IF EXISTS item");
+                statement.execute("CREATE TABLE item (id INT PRIMARY KEY, name VARCHAR(64), price DECIMAL(10, 2))");
+            }
+            try (PreparedStatement insert = con.prepareStatement("INSERT INTO item VALUES (?, ?, ?)")) {
+                for (int id = 1; id <= ROW_COUNT; id++) {
+                    insert.setInt(1, id);
+                    insert.setString(2, "item-" + id);
+                    insert.setInt(3, id % 1000);
+                    insert.addBatch();
+                    if (id % 1000 == 0) {
+                        insert.executeBatch();
+                    }
+                }
+            }
+        }
+        ClioneSqlProperties properties = new ClioneSqlProperties();
+        properties.setSqlFilePrefix("sql");
+        template = new ClioneSqlTemplate(dataSource, properties);
+    }
+
+    /**
+     * Drops the database and closes the pool.
+     *
+     * @throws SQLException
+     *             if the database cannot be dropped
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (Connection con = dataSource.getConnection(); Statement statement = con.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        } finally {
+            dataSource.dispose();
+        }
+    }
+
+    /**
+     * Returns the pooled data source.
+     *
+     * @return the data source
+     */
+    public JdbcConnectionPool getDataSource() {
+        return dataSource;
+    }
+
+    /**
+     * Returns the template backed by {@link #getDataSource()}.
+     *
+     * @return the template
+     */
+    public ClioneSqlTemplate getTemplate() {
+        return template;
+    }
+}
@@ -0,0 +1,64 @@
+package net.noworks.clionesql.boot.benchmarks;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+import tetz42.clione.common.exception.SQLRuntimeException;
+import tetz42.clione.exception.ClioneFormatException;
+
+import net.noworks.clionesql.boot.ClioneSqlPersistenceExceptionTranslator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.support.PersistenceExceptionTranslator;
+
+/**
+ * Translating clione-sql exceptions with {@link ClioneSqlPersistenceExceptionTranslator}: a JDBC failure translated by
+ * SQL state, and a clione-sql exception mapped by type. The exceptions are created once, so only translation is
+ * measured.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExceptionTranslationBenchmark {
+
+    private static final PersistenceExceptionTranslator TRANSLATOR = new ClioneSqlPersistenceExceptionTranslator();
+
+    private static final SQLRuntimeException SQL_FAILURE = new SQLRuntimeException(
+            new SQLException("Unique index or primary key violation", "23505", 23505));
+
+    private static final ClioneFormatException FORMAT_FAILURE = new ClioneFormatException("Unclosed comment");
+
+    /** Creates a new {@code ExceptionTranslationBenchmark}. */
+    public ExceptionTranslationBenchmark() {
+    }
+
+    /**
+     * Translates a JDBC failure by SQL state.
+     *
+     * @return the translated exception
+     */
+    @Benchmark
+    public DataAccessException sqlState() {
+        return TRANSLATOR.translateExceptionIfPossible(SQL_FAILURE);
+    }
+
+    /**
+     * Translates a clione-sql exception by type.
+     *
+     * @return the translated exception
+     */
+    @Benchmark
+    public DataAccessException clioneException() {
+        return TRANSLATOR.translateExceptionIfPossible(FORMAT_FAILURE);
+    }
+}
@@ -0,0 +1,72 @@
+package net.noworks.clionesql.boot.benchmarks;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import tetz42.clione.SQLManager;
+import tetz42.clione.util.ResultMap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of {@link net.noworks.clionesql.boot.ClioneSqlTemplate#execute(String, java.util.function.Function)} on top of
+ * raw clione-sql: both look up one row by primary key, the raw variant with a {@link SQLManager} on a connection taken
+ * directly from the pool.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExecuteBenchmark {
+
+    private static final Map<String, Object> PARAMS = Map.of("id", 42);
+
+    /** Creates a new {@code ExecuteBenchmark}. */
+    public ExecuteBenchmark() {
+    }
+
+    /**
+     * Finds a row through {@code ClioneSqlTemplate.execute}.
+     *
+     * @param database
+     *            the benchmark database
+     *
+     * @return the row
+     */
+    @Benchmark
+    public ResultMap templateExecute(BenchmarkDatabase database) {
+        return database.getTemplate().execute("SelectItemById.sql", executor -> executor.find(PARAMS));
+    }
+
+    /**
+     * Finds a row through a {@link SQLManager} on a pooled connection.
+     *
+     * @param database
+     *            the benchmark database
+     *
+     * @return the row
+     *
+     * @throws SQLException
+     *             if no connection can be obtained
+     */
+    @Benchmark
+    public ResultMap rawSqlManager(BenchmarkDatabase database) throws SQLException {
+        try (Connection con = database.getDataSource().getConnection()) {
+            SQLManager manager = SQLManager.sqlManager(con);
+            try {
+                return manager.useFile("sql/SelectItemById.sql").find(PARAMS);
+            } finally {
+                manager.closeStatement();
+            }
+        }
+    }
+}
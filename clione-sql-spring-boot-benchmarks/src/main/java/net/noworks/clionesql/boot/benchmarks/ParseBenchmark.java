@@ -0,0 +1,64 @@
+package net.noworks.clionesql.boot.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import tetz42.clione.SQLExecutor;
+import tetz42.clione.SQLManager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Loading a 2Way SQL template cold (parsed on every call) against cached (served from clione-sql's file cache).
+ *
+ * <p>
+ * No connection is used; the cold variant makes each SQL text unique so that no parse result can be reused.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseBenchmark {
+
+    private static final String SQL = """
+            SELECT id, name, price
+              FROM item
+             WHERE id = /* id */1
+               AND name LIKE /* %L name */'item%'
+               AND price >= /* minPrice */0
+             ORDER BY id
+            """;
+
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    /** Creates a new {@code ParseBenchmark}. */
+    public ParseBenchmark() {
+    }
+
+    /**
+     * Parses a template that has not been seen before.
+     *
+     * @return the parsed template
+     */
+    @Benchmark
+    public SQLExecutor cold() {
+        return SQLManager.sqlManager().useSQL(SQL + "-- " + SEQUENCE.incrementAndGet());
+    }
+
+    /**
+     * Loads a template from clione-sql's file cache.
+     *
+     * @return the parsed template
+     */
+    @Benchmark
+    public SQLExecutor cached() {
+        return SQLManager.sqlManager().useFile("sql/SelectItems.sql");
+    }
+}
@@ -0,0 +1,283 @@
+package net.noworks.clionesql.boot.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+import net.noworks.clionesql.boot.ClioneSqlExecution;
+import net.noworks.clionesql.boot.ClioneSqlExecutionListener;
+import net.noworks.clionesql.boot.ClioneSqlProperties;
+import net.noworks.clionesql.boot.ClioneSqlTemplate;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+/**
+ * Load-test harness for {@link ClioneSqlTemplate} under connection-pool contention.
+ *
+ * <p>
+ * For every combination of thread kind (platform or virtual), pool size and thread count, a fresh HikariCP pool on an
+ * in-memory H2 database with the sample {@code person} schema is created, and the worker threads run a mixed workload
+ * for a fixed duration: lookups by id, lookups by name and status updates, in the ratio given by
+ * {@code stress.write-ratio}. Operation latency and the time spent waiting for a pooled connection (reported through
+ * {@link ClioneSqlExecutionListener#connectionAcquired}) are recorded in HdrHistograms after a warm-up period.
+ *
+ * <p>
+ * The results, one row per combination with throughput and latency percentiles, are printed and written to
+ * {@code stress.report}. Settings are read from system properties:
+ * <ul>
+ * <li>{@code stress.threads} &mdash; comma-separated thread counts, default {@code 4,16,64}</li>
+ * <li>{@code stress.pool-sizes} &mdash; comma-separated pool sizes, default {@code 2,8}</li>
+ * <li>{@code stress.thread-kinds} &mdash; {@code platform}, {@code virtual} or both, default both; virtual runs are
+ * skipped on runtimes without virtual threads</li>
+ * <li>{@code stress.warmup} / {@code stress.duration} &mdash; seconds per run, default {@code 2} / {@code 10}</li>
+ * <li>{@code stress.write-ratio} &mdash; share of updates, default {@code 0.2}</li>
+ * <li>{@code stress.report} &mdash; report file, default {@code target/stress-report.txt}</li>
+ * </ul>
+ */
+public final class PoolContentionStress {
+
+    private static final int PERSON_COUNT = 10_000;
+
+    private static final int NAME_COUNT = 1_000;
+
+    private static final long MAX_LATENCY_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private static final String HEADER = String.format(Locale.ROOT,
+            "%-8s %7s %4s %10s %7s %9s %9s %9s %9s %9s %9s %9s %9s%n", "kind", "threads", "pool", "ops/s", "errors",
+            "p50(us)", "p90(us)", "p99(us)", "p99.9(us)", "max(us)", "wait-p50", "wait-p99", "wait-max");
+
+    private PoolContentionStress() {
+    }
+
+    /**
+     * Runs the configured sweep and writes the report.
+     *
+     * @param args
+     *            ignored; settings are read from system properties
+     *
+     * @throws Exception
+     *             if the database cannot be set up, the report cannot be written or a run is interrupted
+     */
+    public static void main(String[] args) throws Exception {
+        int[] threadCounts = ints(System.getProperty("stress.threads", "4,16,64"));
+        int[] poolSizes = ints(System.getProperty("stress.pool-sizes", "2,8"));
+        List<String> threadKinds = List.of(System.getProperty("stress.thread-kinds", "platform,virtual").split(","));
+        long warmupNanos = TimeUnit.SECONDS.toNanos(Long.getLong("stress.warmup", 2));
+        long durationNanos = TimeUnit.SECONDS.toNanos(Long.getLong("stress.duration", 10));
+        double writeRatio = Double.parseDouble(System.getProperty("stress.write-ratio", "0.2"));
+        Path report = Path.of(System.getProperty("stress.report", "target/stress-report.txt"));
+
+        StringBuilder out = new StringBuilder(String.format(Locale.ROOT,
+                "# clione-sql pool contention: warmup %ds, duration %ds, write ratio %.2f, %s%n",
+                TimeUnit.NANOSECONDS.toSeconds(warmupNanos), TimeUnit.NANOSECONDS.toSeconds(durationNanos), writeRatio,
+                Runtime.version())).append(HEADER);
+        System.out.print(out);
+        for (String threadKind : threadKinds) {
+            SimpleAsyncTaskExecutor executor = executor(threadKind.trim());
+            if (executor == null) {
+                String skipped = "# " + threadKind.trim() + " threads are not supported by this runtime; skipped"
+                        + System.lineSeparator();
+                System.out.print(skipped);
+                out.append(skipped);
+                continue;
+            }
+            for (int poolSize : poolSizes) {
+                for (int threads : threadCounts) {
+                    String row = new Run(threadKind.trim(), threads, poolSize, writeRatio).execute(executor,
+                            warmupNanos, durationNanos);
+                    System.out.print(row);
+                    out.append(row);
+                }
+            }
+        }
+        Path directory = report.toAbsolutePath().getParent();
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+        Files.writeString(report, out, StandardCharsets.UTF_8);
+        System.out.println("Report written to " + report.toAbsolutePath());
+    }
+
+    private static SimpleAsyncTaskExecutor executor(String threadKind) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("stress-" + threadKind + "-");
+        if ("virtual".equals(threadKind)) {
+            try {
+                executor.setVirtualThreads(true);
+            } catch (UnsupportedOperationException ex) {
+                return null;
+            }
+        } else if (!"platform".equals(threadKind)) {
+            throw new IllegalArgumentException("Unknown thread kind: " + threadKind);
+        }
+        return executor;
+    }
+
+    private static int[] ints(String value) {
+        return Arrays.stream(value.split(",")).map(String::trim).mapToInt(Integer::parseInt).toArray();
+    }
+
+    /**
+     * One combination of thread kind, thread count and pool size.
+     */
+    private static final class Run implements ClioneSqlExecutionListener {
+
+        private final String threadKind;
+
+        private final int threads;
+
+        private final int poolSize;
+
+        private final double writeRatio;
+
+        private final Recorder latency = new Recorder(MAX_LATENCY_NANOS, 3);
+
+        private final Recorder poolWait = new Recorder(MAX_LATENCY_NANOS, 3);
+
+        private final AtomicLong errors = new AtomicLong();
+
+        private volatile boolean measuring;
+
+        Run(String threadKind, int threads, int poolSize, double writeRatio) {
+            this.threadKind = threadKind;
+            this.threads = threads;
+            this.poolSize = poolSize;
+            this.writeRatio = writeRatio;
+        }
+
+        @Override
+        public void connectionAcquired(ClioneSqlExecution execution, long elapsedNanos) {
+            if (measuring) {
+                poolWait.recordValue(Math.min(elapsedNanos, MAX_LATENCY_NANOS));
+            }
+        }
+
+        String execute(SimpleAsyncTaskExecutor executor, long warmupNanos, long durationNanos)
+                throws SQLException, InterruptedException {
+            try (HikariDataSource dataSource = dataSource()) {
+                createSchema(dataSource);
+                ClioneSqlProperties properties = new ClioneSqlProperties();
+                properties.setSqlFilePrefix("sql");
+                ClioneSqlTemplate template = new ClioneSqlTemplate(dataSource, properties);
+                template.setExecutionListeners(List.of(this));
+
+                long start = System.nanoTime();
+                long measureStart = start + warmupNanos;
+                long end = measureStart + durationNanos;
+                CountDownLatch done = new CountDownLatch(threads);
+                for (int i = 0; i < threads; i++) {
+                    executor.execute(() -> {
+                        try {
+                            work(template, end);
+                        } finally {
+                            done.countDown();
+                        }
+                    });
+                }
+                TimeUnit.NANOSECONDS.sleep(warmupNanos);
+                latency.reset();
+                poolWait.reset();
+                errors.set(0);
+                measuring = true;
+                done.await();
+                measuring = false;
+                return row(latency.getIntervalHistogram(), poolWait.getIntervalHistogram(),
+                        System.nanoTime() - measureStart);
+            }
+        }
+
+        private void work(ClioneSqlTemplate template, long end) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            while (System.nanoTime() < end) {
+                long start = System.nanoTime();
+                try {
+                    double operation = random.nextDouble();
+                    if (operation < writeRatio) {
+                        template.update("person/UpdateStatus.sql", Map.of("id", random.nextInt(1, PERSON_COUNT + 1),
+                                "status", random.nextBoolean() ? "ACTIVE" : "INACTIVE"));
+                    } else if (operation < writeRatio + (1 - writeRatio) / 2) {
+                        template.query("person/SelectById.sql", Map.of("id", random.nextInt(1, PERSON_COUNT + 1)));
+                    } else {
+                        template.queryForList("person/SelectByName.sql",
+                                Map.of("name", "person-" + random.nextInt(NAME_COUNT)));
+                    }
+                } catch (RuntimeException ex) {
+                    errors.incrementAndGet();
+                }
+                latency.recordValue(Math.min(System.nanoTime() - start, MAX_LATENCY_NANOS));
+            }
+        }
+
+        private HikariDataSource dataSource() {
+            HikariConfig config = new HikariConfig();
+            config.setJdbcUrl("jdbc:h2:mem:stress-" + threadKind + "-" + threads + "-" + poolSize
+                    + ";DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000");
+            config.setUsername("sa");
+            config.setMaximumPoolSize(poolSize);
+            config.setMinimumIdle(poolSize);
+            config.setConnectionTimeout(TimeUnit.SECONDS.toMillis(30));
+            config.setPoolName("stress-" + poolSize);
+            return new HikariDataSource(config);
+        }
+
+        private static void createSchema(HikariDataSource dataSource) throws SQLException {
+            try (Connection con = dataSource.getConnection()) {
+                try (Statement statement = con.createStatement()) {
+                    statement.execute("CREATE TABLE person (id INT PRIMARY KEY, name VARCHAR(100) NOT NULL,"
+                            + " status VARCHAR(20) NOT NULL, created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+                    statement.execute("CREATE INDEX person_name ON person (name)");
+                }
+                try (PreparedStatement insert = con
+                        .prepareStatement("INSERT INTO person (id, name, status) VALUES (?, ?, ?)")) {
+                    for (int id = 1; id <= PERSON_COUNT; id++) {
+                        insert.setInt(1, id);
+                        insert.setString(2, "person-" + id % NAME_COUNT);
+                        insert.setString(3, id % 2 == 0 ? "ACTIVE" : "INACTIVE");
+                        insert.addBatch();
+                    }
+                    insert.executeBatch();
+                }
+            }
+        }
+
+        private String row(Histogram operations, Histogram waits, long elapsedNanos) {
+            List<Object> values = new ArrayList<>();
+            values.add(threadKind);
+            values.add(threads);
+            values.add(poolSize);
+            values.add(operations.getTotalCount() * 1e9 / elapsedNanos);
+            values.add(errors.get());
+            for (double percentile : new double[] { 50, 90, 99, 99.9 }) {
+                values.add(micros(operations.getValueAtPercentile(percentile)));
+            }
+            values.add(micros(operations.getMaxValue()));
+            values.add(micros(waits.getValueAtPercentile(50)));
+            values.add(micros(waits.getValueAtPercentile(99)));
+            values.add(micros(waits.getMaxValue()));
+            return String.format(Locale.ROOT,
+                    "%-8s %7d %4d %10.0f %7d %9.0f %9.0f %9.0f %9.0f %9.0f %9.0f %9.0f %9.0f%n", values.toArray());
+        }
+
+        private static double micros(long nanos) {
+            return nanos / 1e3;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package net.noworks.clionesql.boot.benchmarks;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import tetz42.clione.util.ResultMap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Materializing query results as {@link ResultMap} lists through
+ * {@link net.noworks.clionesql.boot.ClioneSqlTemplate#queryForList(String, Map)} for small, medium and large results.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResultMapBenchmark {
+
+    /** Number of rows returned by each query. */
+    @Param({ "10", "1000", "100000" })
+    public int rows;
+
+    private Map<String, Object> params;
+
+    /** Creates a new {@code ResultMapBenchmark}. */
+    public ResultMapBenchmark() {
+    }
+
+    /** Creates the query parameters. */
+    @Setup
+    public void setUp() {
+        params = Map.of("limit", rows);
+    }
+
+    /**
+     * Reads {@link #rows} rows.
+     *
+     * @param database
+     *            the benchmark database
+     *
+     * @return the rows
+     */
+    @Benchmark
+    public List<ResultMap> queryForList(BenchmarkDatabase database) {
+        return database.getTemplate().queryForList("SelectItems.sql", params);
+    }
+}
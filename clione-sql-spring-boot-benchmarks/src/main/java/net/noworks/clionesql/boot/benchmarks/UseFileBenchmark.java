@@ -0,0 +1,84 @@
+package net.noworks.clionesql.boot.benchmarks;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import tetz42.clione.util.ResultMap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * {@link net.noworks.clionesql.boot.ClioneSqlTemplate#useFile(String)} against
+ * {@link net.noworks.clionesql.boot.ClioneSqlTemplate#useSQL(String)} with the same SQL text.
+ *
+ * <p>
+ * Both run inside a transaction, which holds the connection that the returned executors are bound to, so the difference
+ * is SQL path resolution and the lookup of the parsed file.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UseFileBenchmark {
+
+    private static final String SQL = "SELECT id, name, price FROM item WHERE id = /* id */1";
+
+    private static final Map<String, Object> PARAMS = Map.of("id", 42);
+
+    private TransactionTemplate transactionTemplate;
+
+    /** Creates a new {@code UseFileBenchmark}. */
+    public UseFileBenchmark() {
+    }
+
+    /**
+     * Creates the transaction template.
+     *
+     * @param database
+     *            the benchmark database
+     */
+    @Setup
+    public void setUp(BenchmarkDatabase database) {
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(database.getDataSource()));
+    }
+
+    /**
+     * Finds a row through {@code useFile}.
+     *
+     * @param database
+     *            the benchmark database
+     *
+     * @return the row
+     */
+    @Benchmark
+    public ResultMap useFile(BenchmarkDatabase database) {
+        return transactionTemplate.execute(status -> database.getTemplate().useFile("SelectItemById.sql").find(PARAMS));
+    }
+
+    /**
+     * Finds a row through {@code useSQL}.
+     *
+     * @param database
+     *            the benchmark database
+     *
+     * @return the row
+     */
+    @Benchmark
+    public ResultMap useSql(BenchmarkDatabase database) {
+        return transactionTemplate.execute(status -> database.getTemplate().useSQL(SQL).find(PARAMS));
+    }
+}
@@ -0,0 +1 @@
+SELECT id, name, price FROM item WHERE id = /* id */1
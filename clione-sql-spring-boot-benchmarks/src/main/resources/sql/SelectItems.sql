@@ -0,0 +1 @@
+SELECT id, name, price FROM item WHERE id <= /* limit */10 ORDER BY id
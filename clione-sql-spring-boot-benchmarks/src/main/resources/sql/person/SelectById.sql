@@ -0,0 +1,6 @@
+SELECT
+  id, name, status, created_at
+FROM
+  person
+WHERE
+  id = /* id */1
@@ -0,0 +1,6 @@
+UPDATE
+  person
+SET
+  status = /* status */'ACTIVE'
+WHERE
+  id = /* id */'1'
@@ -0,0 +1,59 @@
+package net.noworks.clionesql.boot;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * Creates the default executor for the {@code *Async} methods of {@link ClioneSqlTemplate}.
+ *
+ * <p>
+ * On Java 21 and later every task runs on a new virtual thread; a task waiting for a connection permit then only parks
+ * its virtual thread. On older runtimes a pool of {@code concurrencyLimit} daemon platform threads is used instead, so
+ * pending tasks wait in the pool's queue rather than on threads of their own. Idle pool threads time out, so the
+ * executor needs no shutdown.
+ */
+final class AsyncExecutors {
+
+    /** Name prefix of threads created by the default executor. */
+    static final String THREAD_NAME_PREFIX = "clione-sql-async-";
+
+    private static final Log LOGGER = LogFactory.getLog(AsyncExecutors.class);
+
+    private AsyncExecutors() {
+    }
+
+    /**
+     * Creates a virtual-thread executor, or a bounded platform-thread pool if virtual threads are not supported.
+     *
+     * @param concurrencyLimit
+     *            the number of platform threads used when virtual threads are not supported
+     *
+     * @return a new executor
+     */
+    static Executor create(int concurrencyLimit) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(THREAD_NAME_PREFIX);
+        try {
+            executor.setVirtualThreads(true);
+            return executor;
+        } catch (UnsupportedOperationException ex) {
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Virtual threads are not supported; running async clione-sql executions on up to "
+                        + concurrencyLimit + " platform threads");
+            }
+        }
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(THREAD_NAME_PREFIX);
+        threadFactory.setDaemon(true);
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(concurrencyLimit, concurrencyLimit, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), threadFactory);
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+}
@@ -0,0 +1,211 @@
+package net.noworks.clionesql.boot;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.jdbc.support.JdbcUtils;
+
+/**
+ * Turns the single-row updates that clione-sql issues into JDBC batches.
+ *
+ * <p>
+ * The {@link #getConnection() connection proxy} hands out one reusable {@link PreparedStatement} per distinct SQL text.
+ * On that statement, {@code executeUpdate()} and {@code execute()} add the current parameters to the batch instead of
+ * executing, and {@code close()} only clears the parameters. The batch is flushed with {@code executeBatch()} every
+ * {@code batchSize} rows and whenever clione-sql renders a different SQL text (e.g. because a parameter was
+ * {@code null} and a 2Way {@code IF} block dropped out), so rows are always executed in the order they were added.
+ *
+ * <p>
+ * Instances are not thread-safe and must be {@link #close() closed} after {@link #finish()}.
+ */
+final class BatchingConnection {
+
+    private final Connection target;
+
+    private final int batchSize;
+
+    private final Connection proxy;
+
+    private final List<int[]> results = new ArrayList<>();
+
+    private int resultCount;
+
+    private String currentSql;
+
+    private PreparedStatement current;
+
+    private PreparedStatement currentProxy;
+
+    private int pending;
+
+    /**
+     * Creates a new {@code BatchingConnection}.
+     *
+     * @param target
+     *            the connection to execute batches on
+     * @param batchSize
+     *            the number of rows sent per {@code executeBatch()} call
+     */
+    BatchingConnection(Connection target, int batchSize) {
+        this.target = target;
+        this.batchSize = batchSize;
+        this.proxy = (Connection) Proxy.newProxyInstance(BatchingConnection.class.getClassLoader(),
+                new Class<?>[] { Connection.class }, this::invokeConnection);
+    }
+
+    /**
+     * Returns the connection proxy to pass to clione-sql.
+     *
+     * @return the batching connection proxy
+     */
+    Connection getConnection() {
+        return proxy;
+    }
+
+    /**
+     * Flushes the pending rows and returns the update counts of every row added so far.
+     *
+     * @return the update counts in the order the rows were added; entries may be
+     *         {@link java.sql.Statement#SUCCESS_NO_INFO}
+     *
+     * @throws SQLException
+     *             if the last batch fails
+     */
+    int[] finish() throws SQLException {
+        flush();
+        int[] counts = new int[resultCount];
+        int offset = 0;
+        for (int[] chunk : results) {
+            System.arraycopy(chunk, 0, counts, offset, chunk.length);
+            offset += chunk.length;
+        }
+        return counts;
+    }
+
+    /**
+     * Closes the current statement, ignoring any failure. Pending rows that were not flushed by {@link #finish()} are
+     * discarded.
+     */
+    void close() {
+        if (current != null) {
+            PreparedStatement statement = current;
+            current = null;
+            currentSql = null;
+            currentProxy = null;
+            pending = 0;
+            JdbcUtils.closeStatement(statement);
+        }
+    }
+
+    private void flush() throws SQLException {
+        if (pending > 0) {
+            int[] counts = current.executeBatch();
+            pending = 0;
+            results.add(counts);
+            resultCount += counts.length;
+        }
+    }
+
+    private Object invokeConnection(Object proxy, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+        case "equals":
+            return proxy == args[0];
+        case "hashCode":
+            return System.identityHashCode(proxy);
+        case "prepareStatement":
+            return prepareStatement(method, args);
+        default:
+            return invoke(target, method, args);
+        }
+    }
+
+    private PreparedStatement prepareStatement(Method method, Object[] args) throws Throwable {
+        String sql = (String) args[0];
+        if (current != null && sql.equals(currentSql)) {
+            return currentProxy;
+        }
+        flush();
+        close();
+        PreparedStatement statement = (PreparedStatement) invoke(target, method, args);
+        current = statement;
+        currentSql = sql;
+        currentProxy = (PreparedStatement) Proxy.newProxyInstance(BatchingConnection.class.getClassLoader(),
+                new Class<?>[] { PreparedStatement.class }, (statementProxy, statementMethod,
+                        statementArgs) -> invokeStatement(statement, statementProxy, statementMethod, statementArgs));
+        return currentProxy;
+    }
+
+    private Object invokeStatement(PreparedStatement statement, Object proxy, Method method, Object[] args)
+            throws Throwable {
+        if (statement != current) {
+            // Already flushed and closed because clione-sql moved on to a different SQL text
+            switch (method.getName()) {
+            case "close":
+                return null;
+            case "isClosed":
+                return true;
+            default:
+                return invoke(statement, method, args);
+            }
+        }
+        switch (method.getName()) {
+        case "equals":
+            return proxy == args[0];
+        case "hashCode":
+            return System.identityHashCode(proxy);
+        case "getConnection":
+            return this.proxy;
+        case "close":
+            current.clearParameters();
+            return null;
+        case "isClosed":
+            return false;
+        case "executeUpdate":
+        case "executeLargeUpdate":
+        case "execute":
+            if (args == null || args.length == 0) {
+                addBatch();
+                return deferredResult(method.getReturnType());
+            }
+            return invoke(current, method, args);
+        default:
+            return invoke(current, method, args);
+        }
+    }
+
+    /**
+     * Returns the value reported to clione-sql for a row that was added to the batch; the real update count is only
+     * known after {@code executeBatch()}.
+     */
+    private static Object deferredResult(Class<?> returnType) {
+        if (returnType == boolean.class) {
+            return Boolean.FALSE;
+        }
+        if (returnType == long.class) {
+            return 0L;
+        }
+        return 0;
+    }
+
+    private void addBatch() throws SQLException {
+        current.addBatch();
+        pending++;
+        if (pending >= batchSize) {
+            flush();
+        }
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getTargetException();
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package net.noworks.clionesql.boot;
+
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.RecordComponent;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Exposes the components of a record or the readable properties of a JavaBean as clione-sql parameters.
+ *
+ * <p>
+ * The type is introspected once: record accessors and bean getters are bound as {@link MethodHandle}s, and the
+ * parameter names are indexed. {@link #view(Object)} then returns a read-only {@link Map} backed by the object, so
+ * binding a row allocates neither a parameter map nor copies of its values; each value is read when clione-sql looks it
+ * up. Names match exactly first, then ignoring case and underscores (e.g. {@code first_name} finds {@code firstName}).
+ *
+ * <p>
+ * Instances are thread-safe.
+ */
+final class BeanParameters {
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private final Class<?> type;
+
+    private final String[] names;
+
+    private final MethodHandle[] getters;
+
+    private final Map<String, Integer> indexes = new HashMap<>();
+
+    private final Map<String, Integer> normalizedIndexes = new HashMap<>();
+
+    private BeanParameters(Class<?> type, List<String> names, List<MethodHandle> getters) {
+        this.type = type;
+        this.names = names.toArray(new String[0]);
+        this.getters = getters.toArray(new MethodHandle[0]);
+        for (int i = 0; i < this.names.length; i++) {
+            indexes.put(this.names[i], i);
+            normalizedIndexes.putIfAbsent(normalize(this.names[i]), i);
+        }
+    }
+
+    /**
+     * Introspects the given record or JavaBean type.
+     *
+     * @param type
+     *            the parameter source type
+     *
+     * @return the compiled accessors of {@code type}
+     *
+     * @throws IllegalArgumentException
+     *             if an accessor cannot be bound
+     */
+    static BeanParameters of(Class<?> type) {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        List<String> names = new ArrayList<>();
+        List<MethodHandle> getters = new ArrayList<>();
+        try {
+            if (type.isRecord()) {
+                for (RecordComponent component : type.getRecordComponents()) {
+                    Method accessor = component.getAccessor();
+                    ReflectionUtils.makeAccessible(accessor);
+                    names.add(component.getName());
+                    getters.add(lookup.unreflect(accessor).asType(GETTER_TYPE));
+                }
+            } else {
+                for (PropertyDescriptor property : BeanUtils.getPropertyDescriptors(type)) {
+                    Method readMethod = property.getReadMethod();
+                    if (readMethod != null && readMethod.getDeclaringClass() != Object.class) {
+                        ReflectionUtils.makeAccessible(readMethod);
+                        names.add(property.getName());
+                        getters.add(lookup.unreflect(readMethod).asType(GETTER_TYPE));
+                    }
+                }
+            }
+        } catch (IllegalAccessException ex) {
+            throw new IllegalArgumentException("Cannot read parameters from " + type.getName(), ex);
+        }
+        return new BeanParameters(type, names, getters);
+    }
+
+    /**
+     * Returns a read-only parameter map backed by {@code source}.
+     *
+     * @param source
+     *            an instance of the introspected type
+     *
+     * @return a map view of the components or properties of {@code source}
+     */
+    Map<String, Object> view(Object source) {
+        return new View(source);
+    }
+
+    private int index(Object name) {
+        if (!(name instanceof String key)) {
+            return -1;
+        }
+        Integer index = indexes.get(key);
+        if (index == null) {
+            index = normalizedIndexes.get(normalize(key));
+        }
+        return index != null ? index : -1;
+    }
+
+    private Object read(Object source, int index) {
+        try {
+            return (Object) getters[index].invokeExact(source);
+        } catch (RuntimeException | Error ex) {
+            throw ex;
+        } catch (Throwable ex) {
+            throw new IllegalStateException("Failed to read " + names[index] + " of " + type.getName(), ex);
+        }
+    }
+
+    private static String normalize(String name) {
+        return name.replace("_", "").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Read-only map view of one parameter source.
+     */
+    private final class View extends AbstractMap<String, Object> {
+
+        private final Object source;
+
+        View(Object source) {
+            this.source = source;
+        }
+
+        @Override
+        public Object get(Object key) {
+            int index = index(key);
+            return index >= 0 ? read(source, index) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return index(key) >= 0;
+        }
+
+        @Override
+        public int size() {
+            return names.length;
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return new AbstractSet<>() {
+
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    return new Iterator<>() {
+
+                        private int next;
+
+                        @Override
+                        public boolean hasNext() {
+                            return next < names.length;
+                        }
+
+                        @Override
+                        public Entry<String, Object> next() {
+                            if (next >= names.length) {
+                                throw new NoSuchElementException();
+                            }
+                            int index = next++;
+                            return new SimpleImmutableEntry<>(names[index], read(source, index));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return names.length;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,409 @@
+package net.noworks.clionesql.boot;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.ZonedDateTime;
+import java.util.Calendar;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+import org.springframework.jdbc.core.SqlTypeValue;
+import org.springframework.jdbc.core.StatementCreatorUtils;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Inserts a stream of rows into one table with the fastest strategy of the database.
+ *
+ * <ul>
+ * <li>{@link Strategy#COPY} &mdash; PostgreSQL {@code COPY ... FROM STDIN} in CSV format through the pgjdbc
+ * {@code CopyManager}, when the connection unwraps to {@code org.postgresql.PGConnection}</li>
+ * <li>{@link Strategy#MULTI_ROW_VALUES} &mdash; {@code INSERT ... VALUES (...), (...)} with as many rows per statement
+ * as the batch size and the bind-parameter limit of the database allow; the statement for full chunks is prepared
+ * once</li>
+ * <li>{@link Strategy#BATCH} &mdash; a single-row {@code INSERT} sent with JDBC batching, for databases without
+ * multi-row {@code VALUES} (Oracle, Firebird) and unknown products; one {@code INSERT} per row if the driver does not
+ * support batch updates</li>
+ * </ul>
+ *
+ * <p>
+ * Rows are read from the iterator one at a time and bound or written immediately, so memory use does not depend on the
+ * number of rows. A row is an {@code Object[]} or {@link List} of values in column order, a {@link Map} keyed by column
+ * name, or a record or JavaBean whose components or properties are looked up by column name.
+ *
+ * <p>
+ * Instances are not thread-safe.
+ */
+final class BulkInserter {
+
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_][A-Za-z0-9_$]*(\\.[A-Za-z_][A-Za-z0-9_$]*)?");
+
+    private static final String PG_CONNECTION = "org.postgresql.PGConnection";
+
+    private final Connection con;
+
+    private final Strategy strategy;
+
+    private final DatabaseProfile profile;
+
+    private final String table;
+
+    private final List<String> columns;
+
+    private final int batchSize;
+
+    private final Function<Object, Map<String, Object>> parameters;
+
+    /**
+     * Creates a new {@code BulkInserter}.
+     *
+     * @param con
+     *            the connection to insert on
+     * @param profile
+     *            the profile of the database
+     * @param table
+     *            the table name, optionally qualified with a schema
+     * @param columns
+     *            the column names
+     * @param batchSize
+     *            the maximum number of rows per statement or batch
+     * @param parameters
+     *            turns a record or JavaBean row into a map view
+     *
+     * @throws SQLException
+     *             if the connection cannot be inspected
+     */
+    BulkInserter(Connection con, DatabaseProfile profile, String table, List<String> columns, int batchSize,
+            Function<Object, Map<String, Object>> parameters) throws SQLException {
+        Assert.isTrue(table != null && IDENTIFIER.matcher(table).matches(), () -> "Invalid table name: " + table);
+        Assert.notEmpty(columns, "columns must not be empty");
+        for (String column : columns) {
+            Assert.isTrue(column != null && IDENTIFIER.matcher(column).matches(),
+                    () -> "Invalid column name: " + column);
+        }
+        Assert.isTrue(batchSize > 0, "batchSize must be greater than 0");
+        this.con = con;
+        this.strategy = Strategy.of(profile.getClioneProductName(), con);
+        this.profile = profile;
+        this.table = table;
+        this.columns = List.copyOf(columns);
+        this.batchSize = batchSize;
+        this.parameters = parameters;
+    }
+
+    /**
+     * Returns the strategy chosen for the database.
+     *
+     * @return the insert strategy
+     */
+    Strategy getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * Inserts all rows.
+     *
+     * @param rows
+     *            the rows to insert
+     *
+     * @return the number of inserted rows
+     *
+     * @throws SQLException
+     *             if an insert fails
+     */
+    long insert(Iterator<?> rows) throws SQLException {
+        switch (strategy) {
+        case COPY:
+            return copy(rows);
+        case MULTI_ROW_VALUES:
+            return insertValues(rows);
+        default:
+            return insertBatch(rows);
+        }
+    }
+
+    private long insertValues(Iterator<?> rows) throws SQLException {
+        int rowsPerStatement = Math.max(1, Math.min(Math.min(batchSize, profile.getMaxInsertRows()),
+                profile.getMaxBindParameters() / columns.size()));
+        long count = 0;
+        Object[] chunk = new Object[rowsPerStatement];
+        try (PreparedStatement full = con.prepareStatement(insertSql(rowsPerStatement))) {
+            while (rows.hasNext()) {
+                int size = 0;
+                while (size < rowsPerStatement && rows.hasNext()) {
+                    chunk[size++] = rows.next();
+                }
+                if (size == rowsPerStatement) {
+                    count += execute(full, chunk, size);
+                } else {
+                    try (PreparedStatement last = con.prepareStatement(insertSql(size))) {
+                        count += execute(last, chunk, size);
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    private int execute(PreparedStatement statement, Object[] chunk, int size) throws SQLException {
+        int index = 1;
+        for (int i = 0; i < size; i++) {
+            index = bind(statement, index, chunk[i]);
+            chunk[i] = null;
+        }
+        return statement.executeUpdate();
+    }
+
+    private long insertBatch(Iterator<?> rows) throws SQLException {
+        long count = 0;
+        try (PreparedStatement statement = con.prepareStatement(insertSql(1))) {
+            int pending = 0;
+            while (rows.hasNext()) {
+                bind(statement, 1, rows.next());
+                if (!profile.isBatchUpdatesSupported()) {
+                    count += statement.executeUpdate();
+                    continue;
+                }
+                statement.addBatch();
+                if (++pending == batchSize) {
+                    count += sum(statement.executeBatch(), pending);
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                count += sum(statement.executeBatch(), pending);
+            }
+        }
+        return count;
+    }
+
+    private static long sum(int[] counts, int rows) {
+        long sum = 0;
+        for (int count : counts) {
+            if (count < 0) {
+                return rows;
+            }
+            sum += count;
+        }
+        return sum;
+    }
+
+    private int bind(PreparedStatement statement, int start, Object row) throws SQLException {
+        Values values = values(row);
+        int index = start;
+        for (int i = 0; i < columns.size(); i++) {
+            StatementCreatorUtils.setParameterValue(statement, index++, SqlTypeValue.TYPE_UNKNOWN, values.get(i));
+        }
+        return index;
+    }
+
+    private long copy(Iterator<?> rows) throws SQLException {
+        String sql = "COPY " + table + " (" + String.join(", ", columns) + ") FROM STDIN WITH (FORMAT csv)";
+        try {
+            Class<?> pgConnection = ClassUtils.forName(PG_CONNECTION, con.getClass().getClassLoader());
+            Object copyApi = pgConnection.getMethod("getCopyAPI").invoke(con.unwrap(pgConnection));
+            Method copyIn = copyApi.getClass().getMethod("copyIn", String.class, Reader.class);
+            return (Long) copyIn.invoke(copyApi, sql, new CsvReader(rows));
+        } catch (InvocationTargetException ex) {
+            Throwable cause = ex.getTargetException();
+            if (cause instanceof SQLException sqlException) {
+                throw sqlException;
+            }
+            if (cause instanceof IOException ioException) {
+                throw new UncheckedIOException("COPY into " + table + " failed", ioException);
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("COPY into " + table + " failed", cause);
+        } catch (ReflectiveOperationException | LinkageError ex) {
+            throw new IllegalStateException("PostgreSQL CopyManager is not available", ex);
+        }
+    }
+
+    /**
+     * Returns {@code INSERT INTO table (columns) VALUES (?, ...), ...} for the given number of rows.
+     */
+    String insertSql(int rowCount) {
+        StringBuilder row = new StringBuilder("(");
+        for (int i = 0; i < columns.size(); i++) {
+            row.append(i > 0 ? ", ?" : "?");
+        }
+        row.append(')');
+        StringBuilder sql = new StringBuilder("INSERT INTO ").append(table).append(" (")
+                .append(String.join(", ", columns)).append(") VALUES ");
+        for (int i = 0; i < rowCount; i++) {
+            sql.append(i > 0 ? ", " : "").append(row);
+        }
+        return sql.toString();
+    }
+
+    private Values values(Object row) {
+        Assert.notNull(row, "rows must not contain null");
+        if (row instanceof Object[] array) {
+            Assert.isTrue(array.length == columns.size(), () -> "Expected " + columns.size() + " values per row");
+            return i -> array[i];
+        }
+        if (row instanceof List<?> list) {
+            Assert.isTrue(list.size() == columns.size(), () -> "Expected " + columns.size() + " values per row");
+            return list::get;
+        }
+        Map<String, Object> map = parameters.apply(row);
+        return i -> map.get(columns.get(i));
+    }
+
+    /**
+     * Column values of one row.
+     */
+    @FunctionalInterface
+    private interface Values {
+
+        Object get(int column);
+    }
+
+    /**
+     * Bulk insert strategy of a database.
+     */
+    enum Strategy {
+
+        /** PostgreSQL {@code COPY FROM STDIN}. */
+        COPY,
+
+        /** Multi-row {@code INSERT ... VALUES}. */
+        MULTI_ROW_VALUES,
+
+        /** JDBC batch of single-row inserts. */
+        BATCH;
+
+        /**
+         * Returns the strategy for a database.
+         *
+         * @param productName
+         *            the clione-sql or JDBC product name
+         * @param con
+         *            the connection, checked for the PostgreSQL copy API
+         *
+         * @return the fastest supported strategy
+         *
+         * @throws SQLException
+         *             if the connection cannot be inspected
+         */
+        static Strategy of(String productName, Connection con) throws SQLException {
+            String name = productName == null ? "" : productName.toLowerCase(Locale.ROOT);
+            if (name.contains("postgres")) {
+                return isCopySupported(con) ? COPY : MULTI_ROW_VALUES;
+            }
+            if (name.contains("mysql") || name.contains("mariadb") || name.contains("sqlite") || name.equals("h2")
+                    || name.contains("sql server") || name.equals("sqlserver") || name.startsWith("db2")) {
+                return MULTI_ROW_VALUES;
+            }
+            return BATCH;
+        }
+
+        private static boolean isCopySupported(Connection con) throws SQLException {
+            if (!ClassUtils.isPresent(PG_CONNECTION, con.getClass().getClassLoader())) {
+                return false;
+            }
+            try {
+                return con.isWrapperFor(ClassUtils.forName(PG_CONNECTION, con.getClass().getClassLoader()));
+            } catch (ClassNotFoundException | LinkageError ex) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Renders rows as PostgreSQL CSV on demand, one row at a time. {@code NULL} is an empty unquoted field; every other
+     * value is quoted, so empty strings stay distinct from {@code NULL}.
+     *
+     * <p>
+     * Values are written in a form PostgreSQL parses the way the JDBC driver would bind them: {@code byte[]} as
+     * {@code bytea} hex, a plain {@link java.util.Date} as a {@link Timestamp} in the JVM time zone, and a
+     * {@link Calendar} or {@link ZonedDateTime} as an ISO-8601 date-time with offset. Other values, including the
+     * {@code java.sql} and {@code java.time} types, already print in a form PostgreSQL accepts.
+     */
+    final class CsvReader extends Reader {
+
+        private final Iterator<?> rows;
+
+        private final StringBuilder buffer = new StringBuilder();
+
+        private int position;
+
+        CsvReader(Iterator<?> rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        public int read(char[] target, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            while (position == buffer.length()) {
+                if (!rows.hasNext()) {
+                    return -1;
+                }
+                buffer.setLength(0);
+                position = 0;
+                appendRow(rows.next());
+            }
+            int count = Math.min(length, buffer.length() - position);
+            buffer.getChars(position, position + count, target, offset);
+            position += count;
+            return count;
+        }
+
+        private void appendRow(Object row) {
+            Values values = values(row);
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0) {
+                    buffer.append(',');
+                }
+                Object value = values.get(i);
+                if (value != null) {
+                    buffer.append('"').append(format(value).replace("\"", "\"\"")).append('"');
+                }
+            }
+            buffer.append('\n');
+        }
+
+        private String format(Object value) {
+            if (value instanceof byte[] bytes) {
+                StringBuilder hex = new StringBuilder(2 + bytes.length * 2).append("\\x");
+                for (byte b : bytes) {
+                    hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+                }
+                return hex.toString();
+            }
+            if (value instanceof java.util.Date date && !(value instanceof java.sql.Date) && !(value instanceof Time)
+                    && !(value instanceof Timestamp)) {
+                return new Timestamp(date.getTime()).toString();
+            }
+            if (value instanceof Calendar calendar) {
+                return calendar.toInstant().atZone(calendar.getTimeZone().toZoneId()).toOffsetDateTime().toString();
+            }
+            if (value instanceof ZonedDateTime dateTime) {
+                return dateTime.toOffsetDateTime().toString();
+            }
+            return value.toString();
+        }
+
+        @Override
+        public void close() {
+            buffer.setLength(0);
+            position = 0;
+        }
+    }
+}
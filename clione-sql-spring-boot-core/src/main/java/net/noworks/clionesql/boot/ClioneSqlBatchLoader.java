@@ -0,0 +1,230 @@
+package net.noworks.clionesql.boot;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+
+import org.springframework.util.Assert;
+
+/**
+ * Collects point lookups of one SQL file and runs them as a few {@code IN}-list queries, in the manner of a DataLoader.
+ *
+ * <p>
+ * Callers {@link #load(Object) enqueue} keys and receive a future; {@link #dispatch()} then executes the SQL file with
+ * the queued keys as a list parameter, and completes each future with the row whose key matches, or with {@code null}
+ * if there is none. The SQL file selects the rows of a list of keys:
+ *
+ * <pre>
+ * SELECT * FROM person WHERE id IN /&#42; ids &#42;/(1, 2)
+ * </pre>
+ *
+ * <p>
+ * A chunk holds at most {@link ClioneSqlProperties#getBatchLoaderMaxBatchSize() batchLoaderMaxBatchSize} keys, and no
+ * more than the database allows in an {@code IN} list (see {@link DatabaseProfile#getMaxInListSize()}); a chunk is
+ * dispatched as soon as that many keys are queued. Each key is loaded once: loading it again returns the same future,
+ * so a loader is meant to live for one request or unit of work. Futures of a failed query complete exceptionally and
+ * their keys are forgotten, so that they can be loaded again. Instances are thread-safe; queries run on the thread that
+ * dispatches them.
+ *
+ * <pre>
+ * ClioneSqlBatchLoader&lt;Long, Person&gt; people = clioneSqlTemplate.batchLoader("person/SelectByIds.sql", "ids",
+ *         Person.class, Person::id);
+ * CompletableFuture&lt;Person&gt; author = people.load(authorId);
+ * CompletableFuture&lt;Person&gt; reviewer = people.load(reviewerId);
+ * people.dispatch();
+ * </pre>
+ *
+ * @param <K>
+ *            the key type
+ * @param <V>
+ *            the row type
+ *
+ * @see ClioneSqlTemplate#batchLoader(String, String, Function)
+ * @see ClioneSqlTemplate#batchLoader(String, String, Class, Function)
+ */
+public class ClioneSqlBatchLoader<K, V> {
+
+    private final String keysParameter;
+
+    private final Function<Map<String, Object>, List<V>> query;
+
+    private final Function<? super V, ? extends K> keyOf;
+
+    private final IntSupplier maxBatchSize;
+
+    private final Map<K, CompletableFuture<V>> futures = new HashMap<>();
+
+    private Map<K, CompletableFuture<V>> queue = new LinkedHashMap<>();
+
+    private int resolvedBatchSize;
+
+    /**
+     * Creates a new {@code ClioneSqlBatchLoader}.
+     *
+     * @param keysParameter
+     *            the name of the list parameter of the SQL file
+     * @param query
+     *            runs the SQL file with the given parameters
+     * @param keyOf
+     *            returns the key of a row
+     * @param maxBatchSize
+     *            returns the maximum number of keys per query; called once, on first use
+     */
+    ClioneSqlBatchLoader(String keysParameter, Function<Map<String, Object>, List<V>> query,
+            Function<? super V, ? extends K> keyOf, IntSupplier maxBatchSize) {
+        Assert.hasText(keysParameter, "keysParameter must not be empty");
+        Assert.notNull(keyOf, "keyOf must not be null");
+        this.keysParameter = keysParameter;
+        this.query = query;
+        this.keyOf = keyOf;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Enqueues a key and returns the future of its row. Returns the existing future if the key was loaded before.
+     * Dispatches the queued keys if they fill a chunk.
+     *
+     * @param key
+     *            the key to load
+     *
+     * @return the future of the row with the key, completed with {@code null} if there is none
+     */
+    public CompletableFuture<V> load(K key) {
+        Assert.notNull(key, "key must not be null");
+        Map<K, CompletableFuture<V>> full = null;
+        CompletableFuture<V> future;
+        synchronized (this) {
+            future = futures.get(key);
+            if (future != null) {
+                return future;
+            }
+            future = new CompletableFuture<>();
+            futures.put(key, future);
+            queue.put(key, future);
+            if (queue.size() >= batchSize()) {
+                full = takeQueue();
+            }
+        }
+        if (full != null) {
+            execute(full);
+        }
+        return future;
+    }
+
+    /**
+     * Loads the given keys, dispatches them together with any other queued keys, and returns the rows found.
+     *
+     * @param keys
+     *            the keys to load
+     *
+     * @return the rows keyed by key, in the order of {@code keys}; keys without a row are absent
+     *
+     * @throws RuntimeException
+     *             the exception of the first failed query
+     */
+    public Map<K, V> loadAll(Collection<? extends K> keys) {
+        Map<K, CompletableFuture<V>> loading = new LinkedHashMap<>();
+        for (K key : keys) {
+            loading.put(key, load(key));
+        }
+        dispatch();
+        Map<K, V> rows = new LinkedHashMap<>();
+        loading.forEach((key, future) -> {
+            V row = join(future);
+            if (row != null) {
+                rows.put(key, row);
+            }
+        });
+        return rows;
+    }
+
+    /**
+     * Runs the query for the queued keys, which never fill more than one chunk, and completes their futures. A failure
+     * completes the futures exceptionally and is not thrown.
+     */
+    public void dispatch() {
+        Map<K, CompletableFuture<V>> pending;
+        synchronized (this) {
+            if (queue.isEmpty()) {
+                return;
+            }
+            pending = takeQueue();
+        }
+        execute(pending);
+    }
+
+    /**
+     * Forgets every loaded key, so that loading it again queries the database. Queued keys stay queued.
+     */
+    public synchronized void clear() {
+        futures.keySet().retainAll(queue.keySet());
+    }
+
+    /**
+     * Returns the number of keys waiting to be dispatched.
+     *
+     * @return the number of queued keys
+     */
+    public synchronized int getQueueSize() {
+        return queue.size();
+    }
+
+    private static <V> V join(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    private Map<K, CompletableFuture<V>> takeQueue() {
+        Map<K, CompletableFuture<V>> taken = queue;
+        queue = new LinkedHashMap<>();
+        return taken;
+    }
+
+    private synchronized int batchSize() {
+        if (resolvedBatchSize == 0) {
+            resolvedBatchSize = Math.max(1, maxBatchSize.getAsInt());
+        }
+        return resolvedBatchSize;
+    }
+
+    /**
+     * Queries the rows of one chunk of keys and completes their futures; the first row of a key wins.
+     */
+    private void execute(Map<K, CompletableFuture<V>> chunk) {
+        Map<String, Object> params = new HashMap<>();
+        params.put(keysParameter, new ArrayList<>(chunk.keySet()));
+        List<V> rows;
+        try {
+            rows = query.apply(params);
+        } catch (RuntimeException | Error ex) {
+            synchronized (this) {
+                futures.keySet().removeAll(chunk.keySet());
+            }
+            chunk.values().forEach(future -> future.completeExceptionally(ex));
+            if (ex instanceof Error error) {
+                throw error;
+            }
+            return;
+        }
+        for (V row : rows) {
+            CompletableFuture<V> future = chunk.get(keyOf.apply(row));
+            if (future != null) {
+                future.complete(row);
+            }
+        }
+        chunk.values().forEach(future -> future.complete(null));
+    }
+}
@@ -0,0 +1,47 @@
+package net.noworks.clionesql.boot;
+
+import java.io.IOException;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Servlet filter that opens a {@link ConnectionLeakTracker.Scope} for each request, so that connections leaked through
+ * {@link ClioneSqlTemplate#useFile(String)} or {@link ClioneSqlTemplate#useSQL(String)} while handling the request are
+ * released when it completes.
+ *
+ * <p>
+ * Only connections acquired on the request thread are released; work handed to other threads, including async request
+ * processing, is covered by the tracker's garbage-collection fallback only.
+ *
+ * @see ClioneSqlProperties.LeakTracking
+ */
+public class ClioneSqlConnectionLeakFilter extends OncePerRequestFilter {
+
+    private final ConnectionLeakTracker tracker;
+
+    /**
+     * Creates a new {@code ClioneSqlConnectionLeakFilter}.
+     *
+     * @param tracker
+     *            the tracker the template registers its connections with
+     */
+    public ClioneSqlConnectionLeakFilter(ConnectionLeakTracker tracker) {
+        this.tracker = tracker;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        ConnectionLeakTracker.Scope scope = tracker.openScope(request.getMethod() + " " + request.getRequestURI());
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            scope.close();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package net.noworks.clionesql.boot;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Identifies a single SQL execution reported to a {@link ClioneSqlExecutionListener}.
+ *
+ * <p>
+ * Executions of the same SQL file through the same operation are equal, whatever their parameters, so instances can be
+ * used as map keys, e.g. to cache per-file meters.
+ *
+ * @param sqlPath
+ *            the resolved classpath path of the SQL file, or {@link #INLINE_SQL} for SQL passed to
+ *            {@link ClioneSqlTemplate#useSQL(String)}
+ * @param operation
+ *            the kind of execution, e.g. {@link #FIND}, {@link #FIND_ALL} or {@link #UPDATE}
+ * @param paramsFingerprint
+ *            the hash code of the named parameters, equal for executions with equal parameters, or {@code null} if the
+ *            parameters are not known, e.g. for {@link ClioneSqlTemplate#execute(String, java.util.function.Function)}
+ *            and batch executions; not part of {@link #equals(Object)}
+ *
+ * @see ClioneSqlExecutionListener
+ */
+public record ClioneSqlExecution(String sqlPath, String operation, Integer paramsFingerprint) {
+
+    /** SQL path reported for inline SQL strings. */
+    public static final String INLINE_SQL = "<inline>";
+
+    /**
+     * SQL path reported for connections that are not obtained for a single SQL file, e.g. by
+     * {@link ClioneSqlTemplate#inSession(java.util.function.Function)}.
+     */
+    public static final String NO_SQL = "<none>";
+
+    /** Operation of {@link ClioneSqlTemplate#query(String)}. */
+    public static final String FIND = "find";
+
+    /** Operation of {@link ClioneSqlTemplate#queryForList(String)}. */
+    public static final String FIND_ALL = "findAll";
+
+    /**
+     * Operation of {@link ClioneSqlTemplate#update(String)}, and of an {@code executeUpdate} or {@code executeBatch}
+     * call issued through a {@link tetz42.clione.SQLExecutor} returned by {@link ClioneSqlTemplate#useFile(String)} or
+     * {@link ClioneSqlTemplate#useSQL(String)}.
+     */
+    public static final String UPDATE = "update";
+
+    /** Operation of {@link ClioneSqlTemplate#batchUpdate(String, Iterable, int)}. */
+    public static final String BATCH_UPDATE = "batchUpdate";
+
+    /**
+     * Operation of {@link ClioneSqlTemplate#bulkInsert(String, java.util.List, Iterable)}, reported with
+     * {@link #INLINE_SQL} as the SQL path.
+     */
+    public static final String BULK_INSERT = "bulkInsert";
+
+    /** Operation of {@link ClioneSqlTemplate#page(String, java.util.Map, PageRequest)}. */
+    public static final String PAGE = "page";
+
+    /** Operation of {@link ClioneSqlTemplate#stream(String)} and {@link ClioneSqlTemplate#each}. */
+    public static final String EACH = "each";
+
+    /** Operation reported for the connection of {@link ClioneSqlTemplate#inSession(java.util.function.Function)}. */
+    public static final String SESSION = "session";
+
+    /**
+     * Operation of {@link ClioneSqlTemplate#execute(String, java.util.function.Function)}, and of a JDBC
+     * {@code execute} call issued through a {@link tetz42.clione.SQLExecutor} returned by
+     * {@link ClioneSqlTemplate#useFile(String)} or {@link ClioneSqlTemplate#useSQL(String)}.
+     */
+    public static final String EXECUTE = "execute";
+
+    /**
+     * Operation of a query ({@code executeQuery}) issued through a {@link tetz42.clione.SQLExecutor} returned by
+     * {@link ClioneSqlTemplate#useFile(String)} or {@link ClioneSqlTemplate#useSQL(String)}.
+     */
+    public static final String QUERY = "query";
+
+    /**
+     * Creates an execution whose parameters are not known.
+     *
+     * @param sqlPath
+     *            the resolved classpath path of the SQL file
+     * @param operation
+     *            the kind of execution
+     */
+    public ClioneSqlExecution(String sqlPath, String operation) {
+        this(sqlPath, operation, null);
+    }
+
+    /**
+     * Creates an execution with the fingerprint of the given parameters.
+     *
+     * @param sqlPath
+     *            the resolved classpath path of the SQL file
+     * @param operation
+     *            the kind of execution
+     * @param params
+     *            the named parameters, or {@code null} for none
+     *
+     * @return a new execution
+     */
+    public static ClioneSqlExecution of(String sqlPath, String operation, Map<String, ?> params) {
+        return new ClioneSqlExecution(sqlPath, operation, params == null ? 0 : params.hashCode());
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return this == obj || obj instanceof ClioneSqlExecution other && Objects.equals(sqlPath, other.sqlPath)
+                && Objects.equals(operation, other.operation);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(sqlPath, operation);
+    }
+}
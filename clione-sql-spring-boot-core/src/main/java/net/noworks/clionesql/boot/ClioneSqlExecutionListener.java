@@ -0,0 +1,103 @@
+package net.noworks.clionesql.boot;
+
+/**
+ * Callback interface notified by {@link ClioneSqlTemplate} around each SQL execution, e.g. to record metrics.
+ *
+ * <p>
+ * Listeners are invoked synchronously on the executing thread and must be thread-safe and cheap. All methods have empty
+ * default implementations. Exceptions thrown by a listener propagate to the caller; when several listeners are set, the
+ * others are still notified first. An exception thrown from {@link #executionSucceeded} does not undo the execution:
+ * outside a transaction, an update has already been committed.
+ *
+ * <p>
+ * For the {@code query}/{@code queryForList}/{@code update}/{@code batchUpdate}/{@code execute} helpers the elapsed
+ * time covers the whole clione-sql call (parameter binding, execution and result mapping); for streams it lasts until
+ * the stream is closed. For {@link tetz42.clione.SQLExecutor}s returned by {@link ClioneSqlTemplate#useFile(String)}
+ * and {@link ClioneSqlTemplate#useSQL(String)} each JDBC statement execution is reported separately, with operation
+ * {@link ClioneSqlExecution#QUERY}, {@link ClioneSqlExecution#UPDATE} or {@link ClioneSqlExecution#EXECUTE} depending
+ * on the JDBC method; the connection acquisition time is reported with the first execution.
+ *
+ * @see ClioneSqlTemplate#setExecutionListeners(java.util.List)
+ */
+public interface ClioneSqlExecutionListener {
+
+    /**
+     * Called after a connection has been obtained via
+     * {@link org.springframework.jdbc.datasource.DataSourceUtils#getConnection(javax.sql.DataSource)}.
+     *
+     * @param execution
+     *            the execution the connection was obtained for
+     * @param elapsedNanos
+     *            the time spent obtaining the connection, in nanoseconds
+     */
+    default void connectionAcquired(ClioneSqlExecution execution, long elapsedNanos) {
+    }
+
+    /**
+     * Called after an execution completed successfully.
+     *
+     * @param execution
+     *            the completed execution
+     * @param elapsedNanos
+     *            the execution time, in nanoseconds, excluding connection acquisition
+     * @param rowCount
+     *            the number of rows returned or affected, or {@code -1} if unknown
+     */
+    default void executionSucceeded(ClioneSqlExecution execution, long elapsedNanos, long rowCount) {
+    }
+
+    /**
+     * Called after an execution failed, before the exception is propagated to the caller.
+     *
+     * @param execution
+     *            the failed execution
+     * @param elapsedNanos
+     *            the time until the failure, in nanoseconds, excluding connection acquisition
+     * @param ex
+     *            the exception raised by clione-sql or the JDBC driver
+     */
+    default void executionFailed(ClioneSqlExecution execution, long elapsedNanos, RuntimeException ex) {
+    }
+
+    /**
+     * Called when a result was served from the query result cache; no execution is reported in that case.
+     *
+     * @param execution
+     *            the execution the cached result stands for
+     *
+     * @see ClioneSqlProperties#getQueries()
+     */
+    default void cacheHit(ClioneSqlExecution execution) {
+    }
+
+    /**
+     * Called when a cached SQL file's result was not found in the query result cache, before it is executed.
+     *
+     * @param execution
+     *            the execution that loads the result
+     */
+    default void cacheMiss(ClioneSqlExecution execution) {
+    }
+
+    /**
+     * Called when a cached result was removed from the query result cache because it expired or the cache of its SQL
+     * file was full. Removals caused by table invalidation are not reported.
+     *
+     * @param execution
+     *            the execution the evicted result belonged to
+     */
+    default void cacheEvicted(ClioneSqlExecution execution) {
+    }
+
+    /**
+     * Called when a call shared the result of an identical execution already in flight instead of executing the SQL
+     * file itself; no execution is reported for that call.
+     *
+     * @param execution
+     *            the execution whose result was shared
+     *
+     * @see ClioneSqlProperties.Query#isCoalesce()
+     */
+    default void executionCoalesced(ClioneSqlExecution execution) {
+    }
+}
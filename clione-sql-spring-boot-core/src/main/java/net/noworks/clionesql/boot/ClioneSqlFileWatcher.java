@@ -0,0 +1,237 @@
+package net.noworks.clionesql.boot;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternResolver;
+
+/**
+ * Reloads SQL files in {@link ClioneSqlProperties#isDevelopmentMode() development mode} when they change on disk.
+ *
+ * <p>
+ * Every classpath directory that contains {@link ClioneSqlProperties#getSqlFilePrefix() sql-file-prefix}, e.g.
+ * {@code target/classes/sql}, is watched recursively with a {@link WatchService}. When a file is created, modified or
+ * deleted, only that file's entry is dropped from the template's SQL file cache, so that its next use reads it again;
+ * all other files stay cached. Files under watched directories are therefore never re-read on a timer, and files that
+ * cannot be watched (e.g. inside jars) fall back to {@link ClioneSqlProperties#getSqlFileCacheTime() sqlFileCacheTime}.
+ *
+ * <p>
+ * Events are handled on a single daemon thread named {@value #THREAD_NAME}. Nothing is watched if no prefix is set.
+ */
+public class ClioneSqlFileWatcher implements SmartLifecycle {
+
+    private static final Log LOGGER = LogFactory.getLog(ClioneSqlFileWatcher.class);
+
+    private static final String THREAD_NAME = "clione-sql-file-watcher";
+
+    private final ClioneSqlTemplate template;
+
+    private final ClioneSqlProperties properties;
+
+    private final ResourcePatternResolver resourcePatternResolver;
+
+    private final Map<WatchKey, Path> directories = new ConcurrentHashMap<>();
+
+    private volatile WatchService watchService;
+
+    private volatile Thread thread;
+
+    /**
+     * Creates a new {@code ClioneSqlFileWatcher} that scans the default class loader.
+     *
+     * @param template
+     *            the template whose SQL file cache is invalidated
+     * @param properties
+     *            the clione-sql configuration properties
+     */
+    public ClioneSqlFileWatcher(ClioneSqlTemplate template, ClioneSqlProperties properties) {
+        this(template, properties, new PathMatchingResourcePatternResolver());
+    }
+
+    /**
+     * Creates a new {@code ClioneSqlFileWatcher}.
+     *
+     * @param template
+     *            the template whose SQL file cache is invalidated
+     * @param properties
+     *            the clione-sql configuration properties
+     * @param resourcePatternResolver
+     *            the resolver used to find the classpath directories to watch
+     */
+    public ClioneSqlFileWatcher(ClioneSqlTemplate template, ClioneSqlProperties properties,
+            ResourcePatternResolver resourcePatternResolver) {
+        this.template = template;
+        this.properties = properties;
+        this.resourcePatternResolver = resourcePatternResolver;
+    }
+
+    /**
+     * Starts watching the SQL directories on the classpath.
+     */
+    @Override
+    public synchronized void start() {
+        if (watchService != null) {
+            return;
+        }
+        String prefix = ClioneSqlTemplate.normalizePath(properties.getSqlFilePrefix());
+        if (prefix == null) {
+            LOGGER.info("Not watching clione-sql templates because clione-sql.sql-file-prefix is not set");
+            return;
+        }
+        List<Path> roots = findRoots(prefix);
+        if (roots.isEmpty()) {
+            LOGGER.info("Not watching clione-sql templates because no directory on the classpath contains '" + prefix
+                    + "'");
+            return;
+        }
+        WatchService service;
+        try {
+            service = FileSystems.getDefault().newWatchService();
+            for (Path root : roots) {
+                register(service, root);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to watch clione-sql templates under '" + prefix + "'", ex);
+        }
+        this.watchService = service;
+        Thread watcher = new Thread(() -> run(service, prefix, roots), THREAD_NAME);
+        watcher.setDaemon(true);
+        watcher.start();
+        this.thread = watcher;
+        if (LOGGER.isInfoEnabled()) {
+            LOGGER.info("Watching clione-sql templates in " + roots);
+        }
+    }
+
+    /**
+     * Stops watching and ends the watcher thread.
+     */
+    @Override
+    public synchronized void stop() {
+        WatchService service = this.watchService;
+        if (service == null) {
+            return;
+        }
+        this.watchService = null;
+        try {
+            service.close();
+        } catch (IOException ex) {
+            LOGGER.warn("Failed to close the clione-sql template watch service", ex);
+        }
+        directories.clear();
+        Thread watcher = this.thread;
+        this.thread = null;
+        if (watcher != null) {
+            watcher.interrupt();
+        }
+    }
+
+    /**
+     * Returns whether SQL directories are being watched.
+     *
+     * @return {@code true} if the watcher is running
+     */
+    @Override
+    public boolean isRunning() {
+        return watchService != null;
+    }
+
+    private List<Path> findRoots(String prefix) {
+        List<Path> roots = new ArrayList<>();
+        try {
+            for (Resource root : resourcePatternResolver.getResources("classpath*:" + prefix + "/")) {
+                if (root.isFile()) {
+                    Path path = root.getFile().toPath();
+                    if (Files.isDirectory(path)) {
+                        template.watchSqlFiles(root.getURL().toString());
+                        roots.add(path);
+                    }
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to scan clione-sql templates under '" + prefix + "'", ex);
+        }
+        return roots;
+    }
+
+    private void register(WatchService service, Path start) throws IOException {
+        Files.walkFileTree(start, new SimpleFileVisitor<>() {
+
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                WatchKey key = dir.register(service, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+                directories.put(key, dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private void run(WatchService service, String prefix, List<Path> roots) {
+        while (true) {
+            WatchKey key;
+            try {
+                key = service.take();
+            } catch (InterruptedException | ClosedWatchServiceException ex) {
+                return;
+            }
+            Path dir = directories.get(key);
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    LOGGER.debug("clione-sql template events were lost; reloading every template");
+                    template.reloadAllSqlFiles();
+                } else if (dir != null) {
+                    changed(service, prefix, roots, dir.resolve((Path) event.context()));
+                }
+            }
+            if (!key.reset()) {
+                directories.remove(key);
+            }
+        }
+    }
+
+    private void changed(WatchService service, String prefix, List<Path> roots, Path file) {
+        if (Files.isDirectory(file, LinkOption.NOFOLLOW_LINKS)) {
+            try {
+                register(service, file);
+            } catch (IOException | ClosedWatchServiceException ex) {
+                LOGGER.warn("Failed to watch clione-sql template directory " + file, ex);
+            }
+            return;
+        }
+        for (Path root : roots) {
+            if (file.startsWith(root)) {
+                StringBuilder path = new StringBuilder(prefix);
+                for (Path name : root.relativize(file)) {
+                    path.append('/').append(name);
+                }
+                if (template.reloadSqlFile(path.toString()) && LOGGER.isDebugEnabled()) {
+                    LOGGER.debug("Reloading changed clione-sql template " + path);
+                }
+                return;
+            }
+        }
+    }
+}
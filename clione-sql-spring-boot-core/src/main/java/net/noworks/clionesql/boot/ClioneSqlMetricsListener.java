@@ -0,0 +1,212 @@
+package net.noworks.clionesql.boot;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.support.PersistenceExceptionTranslator;
+
+/**
+ * {@link ClioneSqlExecutionListener} that records Micrometer metrics per SQL file and operation.
+ *
+ * <p>
+ * The following meters are registered, all tagged with {@code sql} (the resolved SQL path) and {@code operation}:
+ * <ul>
+ * <li>{@code clione.sql.execution} &mdash; timer of the execution latency with a percentile histogram, additionally
+ * tagged with {@code outcome} ({@code success} or {@code error})</li>
+ * <li>{@code clione.sql.connection.acquire} &mdash; timer of the time spent obtaining a connection</li>
+ * <li>{@code clione.sql.rows} &mdash; distribution summary of the rows returned or affected by successful
+ * executions</li>
+ * <li>{@code clione.sql.errors} &mdash; counter of failed executions, additionally tagged with {@code exception}, the
+ * simple class name of the exception after translation by the {@link PersistenceExceptionTranslator} (e.g.
+ * {@code DuplicateKeyException})</li>
+ * <li>{@code clione.sql.cache.requests} &mdash; counter of query result cache lookups, additionally tagged with
+ * {@code result} ({@code hit} or {@code miss})</li>
+ * <li>{@code clione.sql.cache.evictions} &mdash; counter of cached results removed because they expired or the cache
+ * was full</li>
+ * <li>{@code clione.sql.coalesced} &mdash; counter of calls that shared the result of an identical execution in
+ * flight</li>
+ * </ul>
+ *
+ * <p>
+ * Success meters are looked up once per SQL file and operation and cached, so recording an execution does not allocate
+ * meter IDs.
+ *
+ * @see ClioneSqlTemplate#setExecutionListeners(java.util.List)
+ */
+public class ClioneSqlMetricsListener implements ClioneSqlExecutionListener {
+
+    /** Name of the execution latency timer. */
+    public static final String EXECUTION_METRIC = "clione.sql.execution";
+
+    /** Name of the connection acquisition timer. */
+    public static final String CONNECTION_ACQUIRE_METRIC = "clione.sql.connection.acquire";
+
+    /** Name of the returned/affected rows distribution summary. */
+    public static final String ROWS_METRIC = "clione.sql.rows";
+
+    /** Name of the error counter. */
+    public static final String ERRORS_METRIC = "clione.sql.errors";
+
+    /** Name of the query result cache lookup counter. */
+    public static final String CACHE_REQUESTS_METRIC = "clione.sql.cache.requests";
+
+    /** Name of the query result cache eviction counter. */
+    public static final String CACHE_EVICTIONS_METRIC = "clione.sql.cache.evictions";
+
+    /** Name of the coalesced call counter. */
+    public static final String COALESCED_METRIC = "clione.sql.coalesced";
+
+    private final MeterRegistry registry;
+
+    private final PersistenceExceptionTranslator exceptionTranslator;
+
+    private final Map<ClioneSqlExecution, Meters> meters = new ConcurrentHashMap<>();
+
+    private final Map<ClioneSqlExecution, CacheMeters> cacheMeters = new ConcurrentHashMap<>();
+
+    private final Map<ClioneSqlExecution, Counter> coalescedCounters = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new {@code ClioneSqlMetricsListener} that tags errors with the exception type translated by a
+     * {@link ClioneSqlPersistenceExceptionTranslator}.
+     *
+     * @param registry
+     *            the registry to record metrics to
+     */
+    public ClioneSqlMetricsListener(MeterRegistry registry) {
+        this(registry, new ClioneSqlPersistenceExceptionTranslator());
+    }
+
+    /**
+     * Creates a new {@code ClioneSqlMetricsListener}.
+     *
+     * @param registry
+     *            the registry to record metrics to
+     * @param exceptionTranslator
+     *            the translator used to determine the {@code exception} tag of the error counter
+     */
+    public ClioneSqlMetricsListener(MeterRegistry registry, PersistenceExceptionTranslator exceptionTranslator) {
+        this.registry = registry;
+        this.exceptionTranslator = exceptionTranslator;
+    }
+
+    @Override
+    public void connectionAcquired(ClioneSqlExecution execution, long elapsedNanos) {
+        metersFor(execution).connectionAcquire().record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void executionSucceeded(ClioneSqlExecution execution, long elapsedNanos, long rowCount) {
+        Meters executionMeters = metersFor(execution);
+        executionMeters.success().record(elapsedNanos, TimeUnit.NANOSECONDS);
+        if (rowCount >= 0) {
+            executionMeters.rows().record(rowCount);
+        }
+    }
+
+    @Override
+    public void executionFailed(ClioneSqlExecution execution, long elapsedNanos, RuntimeException ex) {
+        Tags tags = tags(execution);
+        executionTimer(tags.and("outcome", "error")).record(elapsedNanos, TimeUnit.NANOSECONDS);
+        Counter.builder(ERRORS_METRIC).description("Number of failed clione-sql executions")
+                .tags(tags.and("exception", exceptionType(ex))).register(registry).increment();
+    }
+
+    @Override
+    public void cacheHit(ClioneSqlExecution execution) {
+        cacheMetersFor(execution).hits().increment();
+    }
+
+    @Override
+    public void cacheMiss(ClioneSqlExecution execution) {
+        cacheMetersFor(execution).misses().increment();
+    }
+
+    @Override
+    public void cacheEvicted(ClioneSqlExecution execution) {
+        cacheMetersFor(execution).evictions().increment();
+    }
+
+    @Override
+    public void executionCoalesced(ClioneSqlExecution execution) {
+        Counter counter = coalescedCounters.get(execution);
+        if (counter == null) {
+            counter = coalescedCounters.computeIfAbsent(execution,
+                    key -> Counter.builder(COALESCED_METRIC)
+                            .description("Calls that shared the result of an identical clione-sql execution in flight")
+                            .tags(tags(key)).register(registry));
+        }
+        counter.increment();
+    }
+
+    private String exceptionType(RuntimeException ex) {
+        DataAccessException translated = exceptionTranslator.translateExceptionIfPossible(ex);
+        return (translated != null ? translated : ex).getClass().getSimpleName();
+    }
+
+    private Meters metersFor(ClioneSqlExecution execution) {
+        Meters executionMeters = meters.get(execution);
+        if (executionMeters == null) {
+            executionMeters = meters.computeIfAbsent(execution, this::register);
+        }
+        return executionMeters;
+    }
+
+    private Meters register(ClioneSqlExecution execution) {
+        Tags tags = tags(execution);
+        Timer success = executionTimer(tags.and("outcome", "success"));
+        Timer connectionAcquire = Timer.builder(CONNECTION_ACQUIRE_METRIC)
+                .description("Time spent obtaining a connection for clione-sql executions").tags(tags)
+                .register(registry);
+        DistributionSummary rows = DistributionSummary.builder(ROWS_METRIC)
+                .description("Rows returned or affected by clione-sql executions").baseUnit("rows").tags(tags)
+                .register(registry);
+        return new Meters(success, connectionAcquire, rows);
+    }
+
+    private CacheMeters cacheMetersFor(ClioneSqlExecution execution) {
+        CacheMeters executionMeters = cacheMeters.get(execution);
+        if (executionMeters == null) {
+            executionMeters = cacheMeters.computeIfAbsent(execution, this::registerCache);
+        }
+        return executionMeters;
+    }
+
+    private CacheMeters registerCache(ClioneSqlExecution execution) {
+        Tags tags = tags(execution);
+        Counter hits = cacheRequests(tags.and("result", "hit"));
+        Counter misses = cacheRequests(tags.and("result", "miss"));
+        Counter evictions = Counter.builder(CACHE_EVICTIONS_METRIC)
+                .description("Cached clione-sql results removed because they expired or the cache was full").tags(tags)
+                .register(registry);
+        return new CacheMeters(hits, misses, evictions);
+    }
+
+    private Counter cacheRequests(Tags tags) {
+        return Counter.builder(CACHE_REQUESTS_METRIC).description("Lookups in the clione-sql query result cache")
+                .tags(tags).register(registry);
+    }
+
+    private Timer executionTimer(Tags tags) {
+        return Timer.builder(EXECUTION_METRIC).description("Latency of clione-sql executions").tags(tags)
+                .publishPercentileHistogram().register(registry);
+    }
+
+    private static Tags tags(ClioneSqlExecution execution) {
+        return Tags.of("sql", execution.sqlPath(), "operation", execution.operation());
+    }
+
+    private record Meters(Timer success, Timer connectionAcquire, DistributionSummary rows) {
+    }
+
+    private record CacheMeters(Counter hits, Counter misses, Counter evictions) {
+    }
+}
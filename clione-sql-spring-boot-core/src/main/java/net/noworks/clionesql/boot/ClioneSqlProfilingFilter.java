@@ -0,0 +1,78 @@
+package net.noworks.clionesql.boot;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Servlet filter that binds a new {@link ClioneSqlRequestProfile} to each request and reports it when the request
+ * completes.
+ *
+ * <p>
+ * SQL files executed with more distinct parameter sets than the repeat threshold are logged at {@code WARN} level as
+ * suspected N+1 queries, together with their execution count and time. With {@code DEBUG} enabled, every request's
+ * execution count and total SQL time are logged as well. The profile is stored in the request attribute
+ * {@link ClioneSqlRequestProfile#ATTRIBUTE} and is filled by {@link ClioneSqlProfilingListener}.
+ *
+ * @see ClioneSqlProperties.Profiling
+ */
+public class ClioneSqlProfilingFilter extends OncePerRequestFilter {
+
+    private static final Log LOGGER = LogFactory.getLog(ClioneSqlProfilingFilter.class);
+
+    private final int repeatThreshold;
+
+    /**
+     * Creates a new {@code ClioneSqlProfilingFilter}.
+     *
+     * @param repeatThreshold
+     *            the number of distinct parameter sets of one SQL file allowed per request before it is reported
+     */
+    public ClioneSqlProfilingFilter(int repeatThreshold) {
+        this.repeatThreshold = repeatThreshold;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        ClioneSqlRequestProfile profile = new ClioneSqlRequestProfile(repeatThreshold);
+        request.setAttribute(ClioneSqlRequestProfile.ATTRIBUTE, profile);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            report(request, profile);
+        }
+    }
+
+    private static void report(HttpServletRequest request, ClioneSqlRequestProfile profile) {
+        List<ClioneSqlRequestProfile.Entry> repeated = profile.getRepeatedEntries();
+        if (!repeated.isEmpty() && LOGGER.isWarnEnabled()) {
+            StringBuilder message = new StringBuilder("Suspected N+1 queries in ").append(describe(request));
+            for (ClioneSqlRequestProfile.Entry entry : repeated) {
+                message.append("; ").append(entry.sqlPath()).append(" executed ").append(entry.executionCount())
+                        .append(" times with ").append(entry.distinctParamsCount())
+                        .append(" distinct parameter sets in ")
+                        .append(TimeUnit.NANOSECONDS.toMillis(entry.elapsedNanos())).append(" ms");
+            }
+            LOGGER.warn(message);
+        }
+        if (LOGGER.isDebugEnabled() && profile.getExecutionCount() > 0) {
+            LOGGER.debug(describe(request) + " executed " + profile.getExecutionCount() + " SQL statements in "
+                    + TimeUnit.NANOSECONDS.toMillis(profile.getElapsedNanos()) + " ms: " + profile.getEntries());
+        }
+    }
+
+    private static String describe(HttpServletRequest request) {
+        return request.getMethod() + " " + request.getRequestURI();
+    }
+}
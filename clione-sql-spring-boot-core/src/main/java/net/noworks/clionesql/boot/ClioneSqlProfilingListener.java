@@ -0,0 +1,49 @@
+package net.noworks.clionesql.boot;
+
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+
+/**
+ * {@link ClioneSqlExecutionListener} that records each execution in the {@link ClioneSqlRequestProfile} of the current
+ * request.
+ *
+ * <p>
+ * Executions outside a profiled request are ignored. With {@code failOnRepeat}, an execution of a SQL file that exceeds
+ * the profile's repeat threshold of distinct parameter sets fails with an {@link InvalidDataAccessApiUsageException},
+ * so that N+1 queries break tests instead of only being logged by {@link ClioneSqlProfilingFilter}. The exception is
+ * thrown once the statement has executed, since the repeat count is only known then: within a transaction it rolls the
+ * work back, but outside of one an update has already been committed. Listeners after this one are still notified of
+ * the execution.
+ *
+ * @see ClioneSqlProperties.Profiling
+ */
+public class ClioneSqlProfilingListener implements ClioneSqlExecutionListener {
+
+    private final boolean failOnRepeat;
+
+    /**
+     * Creates a new {@code ClioneSqlProfilingListener}.
+     *
+     * @param failOnRepeat
+     *            whether to fail an execution that exceeds the repeat threshold
+     */
+    public ClioneSqlProfilingListener(boolean failOnRepeat) {
+        this.failOnRepeat = failOnRepeat;
+    }
+
+    @Override
+    public void executionSucceeded(ClioneSqlExecution execution, long elapsedNanos, long rowCount) {
+        ClioneSqlRequestProfile profile = ClioneSqlRequestProfile.current();
+        if (profile != null && profile.record(execution, elapsedNanos) && failOnRepeat) {
+            throw new InvalidDataAccessApiUsageException("SQL file " + execution.sqlPath() + " executed with more than "
+                    + profile.getRepeatThreshold() + " distinct parameter sets in one request; suspected N+1 query");
+        }
+    }
+
+    @Override
+    public void executionFailed(ClioneSqlExecution execution, long elapsedNanos, RuntimeException ex) {
+        ClioneSqlRequestProfile profile = ClioneSqlRequestProfile.current();
+        if (profile != null) {
+            profile.record(execution, elapsedNanos);
+        }
+    }
+}
@@ -1,6 +1,17 @@
 package net.noworks.clionesql.boot;
 
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.noworks.clionesql.boot.ReplicaRoutingDataSource.LoadBalancing;
+
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.convert.DurationUnit;
 
 /**
  * Configuration properties for clione-sql integration with Spring Boot.
@@ -26,7 +37,8 @@ public class ClioneSqlProperties {
     private String productName;
 
     /**
-     * Character encoding for SQL template files. Defaults to {@code "UTF-8"}.
+     * Character encoding for SQL template files read in {@link #isDevelopmentMode() development mode}; otherwise
+     * clione-sql's own setting applies. Defaults to {@code "UTF-8"}.
      */
     private String sqlFileEncoding = "UTF-8";
 
@@ -44,14 +56,16 @@ public class ClioneSqlProperties {
     private boolean exceptionTranslationEnabled = true;
 
     /**
-     * Whether to enable development mode, which disables SQL file caching so that changes to SQL files are picked up
-     * without restarting the application. Defaults to {@code false}.
+     * Whether to enable development mode, in which SQL files found in classpath directories are watched and reloaded
+     * when they change, so that edits are picked up without restarting the application. When {@code false}, parsed SQL
+     * files are cached for the lifetime of the application. Defaults to {@code false}.
      */
     private boolean developmentMode = false;
 
     /**
-     * SQL file cache duration in milliseconds. Only effective when {@link #isDevelopmentMode() developmentMode} is
-     * {@code true}. Defaults to {@code 0}.
+     * SQL file cache duration in milliseconds for files that cannot be watched, e.g. files inside jars; {@code 0}
+     * re-reads them on every use. Only effective when {@link #isDevelopmentMode() developmentMode} is {@code true}.
+     * Defaults to {@code 0}.
      */
     private int sqlFileCacheTime = 0;
 
@@ -60,6 +74,76 @@ public class ClioneSqlProperties {
      */
     private int entityDepthLimit = 8;
 
+    /**
+     * JDBC fetch size used by {@link ClioneSqlTemplate#stream(String, java.util.Map)}; {@code 0} leaves the driver
+     * default. Defaults to {@code 1000}.
+     */
+    private int streamFetchSize = 1000;
+
+    /**
+     * Whether to record Micrometer metrics for SQL executions when a {@code MeterRegistry} is available. Defaults to
+     * {@code true}.
+     */
+    private boolean metricsEnabled = true;
+
+    /**
+     * Maximum number of prepared statements cached per transaction (or {@link ClioneSqlTemplate#inSession session}) and
+     * reused for repeated executions of the same SQL text; {@code 0} disables the cache. Defaults to {@code 0}.
+     */
+    private int statementCacheSize = 0;
+
+    /**
+     * Maximum number of rows sent per statement by {@link ClioneSqlTemplate#bulkInsert}: rows per multi-row
+     * {@code INSERT} (further limited by the bind-parameter limit of the database) or per JDBC batch. Defaults to
+     * {@code 1000}.
+     */
+    private int bulkInsertBatchSize = 1000;
+
+    /**
+     * Maximum number of keys per query of a {@link ClioneSqlBatchLoader} (further limited by the {@code IN} list limit
+     * of the database). Defaults to {@code 1000}.
+     */
+    private int batchLoaderMaxBatchSize = 1000;
+
+    /**
+     * Maximum number of {@code *Async} executions of {@link ClioneSqlTemplate} that hold a connection at the same time;
+     * {@code 0} uses the maximum size of the connection pool if known, otherwise
+     * {@link ClioneSqlTemplate#DEFAULT_ASYNC_CONCURRENCY_LIMIT}. Defaults to {@code 0}.
+     */
+    private int asyncMaxConcurrency = 0;
+
+    /**
+     * Startup warm-up of SQL templates located under {@link #getSqlFilePrefix() sqlFilePrefix}.
+     */
+    private final Warmup warmup = new Warmup();
+
+    /**
+     * Routing of read-only transactions to replica data sources.
+     */
+    private final Routing routing = new Routing();
+
+    /**
+     * Per-request SQL execution profiling and N+1 query detection.
+     */
+    private final Profiling profiling = new Profiling();
+
+    /**
+     * Tracking and release of connections leaked through {@link ClioneSqlTemplate#useFile} and
+     * {@link ClioneSqlTemplate#useSQL}.
+     */
+    private final LeakTracking leakTracking = new LeakTracking();
+
+    /**
+     * Fetch sizes and result list capacities learned from the row counts of previous executions.
+     */
+    private final AdaptiveFetch adaptiveFetch = new AdaptiveFetch();
+
+    /**
+     * Per-SQL-file settings, keyed by the SQL path as passed to {@link ClioneSqlTemplate} (use bracket notation, e.g.
+     * {@code clione-sql.queries[status/SelectAll.sql].cache-ttl=5m}).
+     */
+    private final Map<String, Query> queries = new LinkedHashMap<>();
+
     /**
      * Returns the database product name.
      *
@@ -192,4 +276,979 @@ public class ClioneSqlProperties {
     public void setEntityDepthLimit(int entityDepthLimit) {
         this.entityDepthLimit = entityDepthLimit;
     }
+
+    /**
+     * Returns the default JDBC fetch size for streaming queries.
+     *
+     * @return the fetch size, or {@code 0} for the driver default
+     */
+    public int getStreamFetchSize() {
+        return streamFetchSize;
+    }
+
+    /**
+     * Sets the default JDBC fetch size for streaming queries.
+     *
+     * @param streamFetchSize
+     *            the fetch size, or {@code 0} for the driver default
+     */
+    public void setStreamFetchSize(int streamFetchSize) {
+        this.streamFetchSize = streamFetchSize;
+    }
+
+    /**
+     * Returns whether SQL execution metrics are enabled.
+     *
+     * @return {@code true} if metrics are enabled
+     */
+    public boolean isMetricsEnabled() {
+        return metricsEnabled;
+    }
+
+    /**
+     * Sets whether SQL execution metrics are enabled.
+     *
+     * @param metricsEnabled
+     *            {@code true} to enable, {@code false} to disable
+     */
+    public void setMetricsEnabled(boolean metricsEnabled) {
+        this.metricsEnabled = metricsEnabled;
+    }
+
+    /**
+     * Returns the maximum number of prepared statements cached per transaction or session.
+     *
+     * @return the cache size, or {@code 0} if the cache is disabled
+     */
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
+    /**
+     * Sets the maximum number of prepared statements cached per transaction or session.
+     *
+     * @param statementCacheSize
+     *            the cache size, or {@code 0} to disable the cache
+     */
+    public void setStatementCacheSize(int statementCacheSize) {
+        this.statementCacheSize = statementCacheSize;
+    }
+
+    /**
+     * Returns the maximum number of rows sent per bulk insert statement.
+     *
+     * @return the number of rows per statement
+     */
+    public int getBulkInsertBatchSize() {
+        return bulkInsertBatchSize;
+    }
+
+    /**
+     * Sets the maximum number of rows sent per bulk insert statement.
+     *
+     * @param bulkInsertBatchSize
+     *            the number of rows per statement; must be greater than {@code 0}
+     */
+    public void setBulkInsertBatchSize(int bulkInsertBatchSize) {
+        this.bulkInsertBatchSize = bulkInsertBatchSize;
+    }
+
+    /**
+     * Returns the maximum number of keys per batch loader query.
+     *
+     * @return the number of keys per query
+     */
+    public int getBatchLoaderMaxBatchSize() {
+        return batchLoaderMaxBatchSize;
+    }
+
+    /**
+     * Sets the maximum number of keys per batch loader query.
+     *
+     * @param batchLoaderMaxBatchSize
+     *            the number of keys per query; must be greater than {@code 0}
+     */
+    public void setBatchLoaderMaxBatchSize(int batchLoaderMaxBatchSize) {
+        this.batchLoaderMaxBatchSize = batchLoaderMaxBatchSize;
+    }
+
+    /**
+     * Returns the maximum number of concurrent async executions.
+     *
+     * @return the limit, or {@code 0} to derive it from the connection pool
+     */
+    public int getAsyncMaxConcurrency() {
+        return asyncMaxConcurrency;
+    }
+
+    /**
+     * Sets the maximum number of concurrent async executions.
+     *
+     * @param asyncMaxConcurrency
+     *            the limit, or {@code 0} to derive it from the connection pool
+     */
+    public void setAsyncMaxConcurrency(int asyncMaxConcurrency) {
+        this.asyncMaxConcurrency = asyncMaxConcurrency;
+    }
+
+    /**
+     * Returns the startup warm-up settings.
+     *
+     * @return the warm-up settings
+     */
+    public Warmup getWarmup() {
+        return warmup;
+    }
+
+    /**
+     * Returns the read/write routing settings.
+     *
+     * @return the routing settings
+     */
+    public Routing getRouting() {
+        return routing;
+    }
+
+    /**
+     * Returns the per-request profiling settings.
+     *
+     * @return the profiling settings
+     */
+    public Profiling getProfiling() {
+        return profiling;
+    }
+
+    /**
+     * Returns the connection leak tracking settings.
+     *
+     * @return the leak tracking settings
+     */
+    public LeakTracking getLeakTracking() {
+        return leakTracking;
+    }
+
+    /**
+     * Returns the adaptive fetch size settings.
+     *
+     * @return the adaptive fetch size settings
+     */
+    public AdaptiveFetch getAdaptiveFetch() {
+        return adaptiveFetch;
+    }
+
+    /**
+     * Returns the per-SQL-file settings.
+     *
+     * @return the settings keyed by SQL path; never {@code null}
+     */
+    public Map<String, Query> getQueries() {
+        return queries;
+    }
+
+    /**
+     * Settings for pre-parsing SQL templates at application startup.
+     *
+     * @see ClioneSqlWarmup
+     */
+    public static class Warmup {
+
+        /** Creates a new {@code Warmup} with default values. */
+        public Warmup() {
+        }
+
+        /**
+         * Whether to parse every SQL file under the SQL file prefix before the application reports ready. Defaults to
+         * {@code false}.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Maximum number of threads used to parse SQL files in parallel. Defaults to {@code 4}.
+         */
+        private int parallelism = 4;
+
+        /**
+         * Returns whether startup warm-up is enabled.
+         *
+         * @return {@code true} if startup warm-up is enabled
+         */
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        /**
+         * Sets whether startup warm-up is enabled.
+         *
+         * @param enabled
+         *            {@code true} to enable, {@code false} to disable
+         */
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        /**
+         * Returns the maximum number of parsing threads.
+         *
+         * @return the maximum number of parsing threads
+         */
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        /**
+         * Sets the maximum number of parsing threads.
+         *
+         * @param parallelism
+         *            the maximum number of parsing threads
+         */
+        public void setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+        }
+    }
+
+    /**
+     * Settings for profiling the SQL executions of each web request.
+     *
+     * @see ClioneSqlRequestProfile
+     * @see ClioneSqlProfilingFilter
+     */
+    public static class Profiling {
+
+        /** Creates a new {@code Profiling} with default values. */
+        public Profiling() {
+        }
+
+        /**
+         * Whether to record the SQL files executed by each servlet request. Defaults to {@code false}.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Number of distinct parameter sets a request may execute the same SQL file with before it is reported as a
+         * suspected N+1 query. Repeated executions with equal parameters count once. Defaults to {@code 10}.
+         */
+        private int repeatThreshold = 10;
+
+        /**
+         * Whether to fail the execution that exceeds the repeat threshold instead of logging a warning when the request
+         * completes. Defaults to {@code false}.
+         */
+        private boolean failOnRepeat = false;
+
+        /**
+         * Returns whether request profiling is enabled.
+         *
+         * @return {@code true} if request profiling is enabled
+         */
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        /**
+         * Sets whether request profiling is enabled.
+         *
+         * @param enabled
+         *            {@code true} to enable, {@code false} to disable
+         */
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        /**
+         * Returns the number of distinct parameter sets of one SQL file allowed per request.
+         *
+         * @return the repeat threshold
+         */
+        public int getRepeatThreshold() {
+            return repeatThreshold;
+        }
+
+        /**
+         * Sets the number of distinct parameter sets of one SQL file allowed per request.
+         *
+         * @param repeatThreshold
+         *            the repeat threshold
+         */
+        public void setRepeatThreshold(int repeatThreshold) {
+            this.repeatThreshold = repeatThreshold;
+        }
+
+        /**
+         * Returns whether exceeding the repeat threshold fails the execution. The failure is raised after the statement
+         * has executed, so outside a transaction an update is committed nonetheless.
+         *
+         * @return {@code true} to fail, {@code false} to log a warning
+         */
+        public boolean isFailOnRepeat() {
+            return failOnRepeat;
+        }
+
+        /**
+         * Sets whether exceeding the repeat threshold fails the execution.
+         *
+         * @param failOnRepeat
+         *            {@code true} to fail, {@code false} to log a warning
+         */
+        public void setFailOnRepeat(boolean failOnRepeat) {
+            this.failOnRepeat = failOnRepeat;
+        }
+    }
+
+    /**
+     * Settings for releasing connections that callers of {@link ClioneSqlTemplate#useFile} and
+     * {@link ClioneSqlTemplate#useSQL} never close.
+     *
+     * @see ConnectionLeakTracker
+     */
+    public static class LeakTracking {
+
+        /** Creates a new {@code LeakTracking} with default values. */
+        public LeakTracking() {
+        }
+
+        /**
+         * Whether to track the connections handed out by {@code useFile}/{@code useSQL} outside a transaction and
+         * release them at the end of the servlet request or when their {@code SQLExecutor} is garbage collected.
+         * Defaults to {@code false}.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Whether to record the stack trace of each tracked acquisition, so that leaks can be traced to their call
+         * site. Defaults to {@code true}.
+         */
+        private boolean captureStackTrace = true;
+
+        /**
+         * Returns whether leak tracking is enabled.
+         *
+         * @return {@code true} if leak tracking is enabled
+         */
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        /**
+         * Sets whether leak tracking is enabled.
+         *
+         * @param enabled
+         *            {@code true} to enable, {@code false} to disable
+         */
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        /**
+         * Returns whether the stack trace of each tracked acquisition is recorded.
+         *
+         * @return {@code true} if stack traces are recorded
+         */
+        public boolean isCaptureStackTrace() {
+            return captureStackTrace;
+        }
+
+        /**
+         * Sets whether the stack trace of each tracked acquisition is recorded.
+         *
+         * @param captureStackTrace
+         *            {@code true} to record stack traces
+         */
+        public void setCaptureStackTrace(boolean captureStackTrace) {
+            this.captureStackTrace = captureStackTrace;
+        }
+    }
+
+    /**
+     * Settings for sizing the fetch size and result list of {@link ClioneSqlTemplate#queryForList} from the row counts
+     * of previous executions of the same SQL file. A {@link Query#getFetchSize() fetch size} declared for an SQL file
+     * takes precedence.
+     *
+     * @see ResultSizeEstimator
+     */
+    public static class AdaptiveFetch {
+
+        /** Creates a new {@code AdaptiveFetch} with default values. */
+        public AdaptiveFetch() {
+        }
+
+        /**
+         * Whether to learn fetch sizes and result list capacities per SQL file. Defaults to {@code true}.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Smallest fetch size applied. Defaults to {@code 10}.
+         */
+        private int minFetchSize = 10;
+
+        /**
+         * Largest fetch size applied, which bounds the rows the driver buffers per round trip. Defaults to
+         * {@code 1000}.
+         */
+        private int maxFetchSize = 1000;
+
+        /**
+         * Largest initial capacity of a result list. Defaults to {@code 10000}.
+         */
+        private int maxInitialCapacity = 10000;
+
+        /**
+         * Returns whether adaptive fetch sizes are enabled.
+         *
+         * @return {@code true} if adaptive fetch sizes are enabled
+         */
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        /**
+         * Sets whether adaptive fetch sizes are enabled.
+         *
+         * @param enabled
+         *            {@code true} to enable, {@code false} to disable
+         */
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        /**
+         * Returns the smallest fetch size applied.
+         *
+         * @return the smallest fetch size applied
+         */
+        public int getMinFetchSize() {
+            return minFetchSize;
+        }
+
+        /**
+         * Sets the smallest fetch size applied.
+         *
+         * @param minFetchSize
+         *            the smallest fetch size applied
+         */
+        public void setMinFetchSize(int minFetchSize) {
+            this.minFetchSize = minFetchSize;
+        }
+
+        /**
+         * Returns the largest fetch size applied.
+         *
+         * @return the largest fetch size applied
+         */
+        public int getMaxFetchSize() {
+            return maxFetchSize;
+        }
+
+        /**
+         * Sets the largest fetch size applied.
+         *
+         * @param maxFetchSize
+         *            the largest fetch size applied
+         */
+        public void setMaxFetchSize(int maxFetchSize) {
+            this.maxFetchSize = maxFetchSize;
+        }
+
+        /**
+         * Returns the largest initial capacity of a result list.
+         *
+         * @return the largest initial capacity of a result list
+         */
+        public int getMaxInitialCapacity() {
+            return maxInitialCapacity;
+        }
+
+        /**
+         * Sets the largest initial capacity of a result list.
+         *
+         * @param maxInitialCapacity
+         *            the largest initial capacity of a result list
+         */
+        public void setMaxInitialCapacity(int maxInitialCapacity) {
+            this.maxInitialCapacity = maxInitialCapacity;
+        }
+    }
+
+    /**
+     * Settings for routing read-only transactions to replica data sources.
+     *
+     * @see ReplicaRoutingDataSource
+     */
+    public static class Routing {
+
+        /** Creates a new {@code Routing} with default values. */
+        public Routing() {
+        }
+
+        /**
+         * Whether to wrap the {@code dataSource} bean in a {@link ReplicaRoutingDataSource} that sends read-only
+         * transactions to the replicas. Defaults to {@code false}.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Connection settings of the replica data sources.
+         */
+        private List<Replica> replicas = new ArrayList<>();
+
+        /**
+         * How to pick a replica for each read-only connection. Defaults to {@code round-robin}.
+         */
+        private LoadBalancing loadBalancing = LoadBalancing.ROUND_ROBIN;
+
+        /**
+         * Whether to route a thread's read-only transactions to the primary for {@link #getReadYourWritesWindow()
+         * readYourWritesWindow} after it ran an update through {@link ClioneSqlTemplate}. Defaults to {@code false}.
+         */
+        private boolean readYourWrites = false;
+
+        /**
+         * How long a thread stays on the primary after an update when {@link #isReadYourWrites() readYourWrites} is
+         * enabled. Defaults to 1 second.
+         */
+        private Duration readYourWritesWindow = Duration.ofSeconds(1);
+
+        /**
+         * Returns whether read/write routing is enabled.
+         *
+         * @return {@code true} if routing is enabled
+         */
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        /**
+         * Sets whether read/write routing is enabled.
+         *
+         * @param enabled
+         *            {@code true} to enable, {@code false} to disable
+         */
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        /**
+         * Returns the replica connection settings.
+         *
+         * @return the replicas
+         */
+        public List<Replica> getReplicas() {
+            return replicas;
+        }
+
+        /**
+         * Sets the replica connection settings.
+         *
+         * @param replicas
+         *            the replicas
+         */
+        public void setReplicas(List<Replica> replicas) {
+            this.replicas = replicas;
+        }
+
+        /**
+         * Returns the replica load-balancing strategy.
+         *
+         * @return the load-balancing strategy
+         */
+        public LoadBalancing getLoadBalancing() {
+            return loadBalancing;
+        }
+
+        /**
+         * Sets the replica load-balancing strategy.
+         *
+         * @param loadBalancing
+         *            the load-balancing strategy
+         */
+        public void setLoadBalancing(LoadBalancing loadBalancing) {
+            this.loadBalancing = loadBalancing;
+        }
+
+        /**
+         * Returns whether threads are pinned to the primary after an update.
+         *
+         * @return {@code true} if read-your-writes is enabled
+         */
+        public boolean isReadYourWrites() {
+            return readYourWrites;
+        }
+
+        /**
+         * Sets whether threads are pinned to the primary after an update.
+         *
+         * @param readYourWrites
+         *            {@code true} to enable, {@code false} to disable
+         */
+        public void setReadYourWrites(boolean readYourWrites) {
+            this.readYourWrites = readYourWrites;
+        }
+
+        /**
+         * Returns how long a thread stays on the primary after an update.
+         *
+         * @return the read-your-writes window
+         */
+        public Duration getReadYourWritesWindow() {
+            return readYourWritesWindow;
+        }
+
+        /**
+         * Sets how long a thread stays on the primary after an update.
+         *
+         * @param readYourWritesWindow
+         *            the read-your-writes window
+         */
+        public void setReadYourWritesWindow(Duration readYourWritesWindow) {
+            this.readYourWritesWindow = readYourWritesWindow;
+        }
+    }
+
+    /**
+     * Connection settings of a replica data source.
+     */
+    public static class Replica {
+
+        /** Creates a new {@code Replica}. */
+        public Replica() {
+        }
+
+        /**
+         * JDBC URL of the replica.
+         */
+        private String url;
+
+        /**
+         * Login username of the replica. Defaults to the primary's username when not set.
+         */
+        private String username;
+
+        /**
+         * Login password of the replica. Defaults to the primary's password when not set.
+         */
+        private String password;
+
+        /**
+         * Fully qualified name of the JDBC driver. Auto-detected from the URL when not set.
+         */
+        private String driverClassName;
+
+        /**
+         * Returns the JDBC URL.
+         *
+         * @return the JDBC URL
+         */
+        public String getUrl() {
+            return url;
+        }
+
+        /**
+         * Sets the JDBC URL.
+         *
+         * @param url
+         *            the JDBC URL
+         */
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        /**
+         * Returns the login username.
+         *
+         * @return the username, or {@code null} if not set
+         */
+        public String getUsername() {
+            return username;
+        }
+
+        /**
+         * Sets the login username.
+         *
+         * @param username
+         *            the username
+         */
+        public void setUsername(String username) {
+            this.username = username;
+        }
+
+        /**
+         * Returns the login password.
+         *
+         * @return the password, or {@code null} if not set
+         */
+        public String getPassword() {
+            return password;
+        }
+
+        /**
+         * Sets the login password.
+         *
+         * @param password
+         *            the password
+         */
+        public void setPassword(String password) {
+            this.password = password;
+        }
+
+        /**
+         * Returns the JDBC driver class name.
+         *
+         * @return the driver class name, or {@code null} if not set
+         */
+        public String getDriverClassName() {
+            return driverClassName;
+        }
+
+        /**
+         * Sets the JDBC driver class name.
+         *
+         * @param driverClassName
+         *            the driver class name
+         */
+        public void setDriverClassName(String driverClassName) {
+            this.driverClassName = driverClassName;
+        }
+    }
+
+    /**
+     * Settings of a single SQL file.
+     *
+     * @see ClioneSqlProperties#getQueries()
+     */
+    public static class Query {
+
+        /** Creates a new {@code Query} with default values. */
+        public Query() {
+        }
+
+        /**
+         * How long results of this SQL file are cached by the {@code query}/{@code queryForList} methods of
+         * {@link ClioneSqlTemplate}; results are not cached when unset.
+         */
+        private Duration cacheTtl;
+
+        /**
+         * Maximum number of results (distinct parameter sets) of this SQL file kept in the cache. Defaults to
+         * {@code 1000}.
+         */
+        private int cacheMaxSize = 1000;
+
+        /**
+         * Tables this SQL file reads or writes. Running it through {@code update}/{@code batchUpdate} invalidates the
+         * cached results of every SQL file that declares one of these tables.
+         */
+        private List<String> tables = new ArrayList<>();
+
+        /**
+         * Whether concurrent {@code query}/{@code queryForList} calls of this SQL file with equal parameters share one
+         * execution while it is in flight. Calls in a read-write transaction always execute on their own. Defaults to
+         * {@code false}.
+         */
+        private boolean coalesce = false;
+
+        /**
+         * JDBC fetch size of statements of this SQL file; overrides the {@code @fetch-size} hint of the file.
+         */
+        private Integer fetchSize;
+
+        /**
+         * Maximum number of rows returned by statements of this SQL file; overrides the {@code @max-rows} hint of the
+         * file.
+         */
+        private Integer maxRows;
+
+        /**
+         * Query timeout of statements of this SQL file, rounded up to whole seconds; overrides the
+         * {@code @query-timeout} hint of the file. Values without a unit are in seconds.
+         */
+        @DurationUnit(ChronoUnit.SECONDS)
+        private Duration queryTimeout;
+
+        /**
+         * Result-set type of statements of this SQL file; overrides the {@code @result-set-type} hint of the file.
+         */
+        private ResultSetType resultSetType;
+
+        /**
+         * Returns whether concurrent identical calls share one execution.
+         *
+         * @return {@code true} if concurrent identical calls are coalesced
+         */
+        public boolean isCoalesce() {
+            return coalesce;
+        }
+
+        /**
+         * Sets whether concurrent identical calls share one execution.
+         *
+         * @param coalesce
+         *            {@code true} to coalesce concurrent identical calls
+         */
+        public void setCoalesce(boolean coalesce) {
+            this.coalesce = coalesce;
+        }
+
+        /**
+         * Returns the cache time-to-live.
+         *
+         * @return the time-to-live, or {@code null} if results are not cached
+         */
+        public Duration getCacheTtl() {
+            return cacheTtl;
+        }
+
+        /**
+         * Sets the cache time-to-live.
+         *
+         * @param cacheTtl
+         *            the time-to-live, or {@code null} to not cache results
+         */
+        public void setCacheTtl(Duration cacheTtl) {
+            this.cacheTtl = cacheTtl;
+        }
+
+        /**
+         * Returns the maximum number of cached results.
+         *
+         * @return the maximum number of cached results
+         */
+        public int getCacheMaxSize() {
+            return cacheMaxSize;
+        }
+
+        /**
+         * Sets the maximum number of cached results.
+         *
+         * @param cacheMaxSize
+         *            the maximum number of cached results
+         */
+        public void setCacheMaxSize(int cacheMaxSize) {
+            this.cacheMaxSize = cacheMaxSize;
+        }
+
+        /**
+         * Returns the tables this SQL file reads or writes.
+         *
+         * @return the table names
+         */
+        public List<String> getTables() {
+            return tables;
+        }
+
+        /**
+         * Sets the tables this SQL file reads or writes.
+         *
+         * @param tables
+         *            the table names
+         */
+        public void setTables(List<String> tables) {
+            this.tables = tables;
+        }
+
+        /**
+         * Returns the JDBC fetch size.
+         *
+         * @return the fetch size, or {@code null} to use the hint of the file
+         */
+        public Integer getFetchSize() {
+            return fetchSize;
+        }
+
+        /**
+         * Sets the JDBC fetch size.
+         *
+         * @param fetchSize
+         *            the fetch size, or {@code null} to use the hint of the file
+         */
+        public void setFetchSize(Integer fetchSize) {
+            this.fetchSize = fetchSize;
+        }
+
+        /**
+         * Returns the maximum number of rows.
+         *
+         * @return the maximum number of rows ({@code 0} for no limit), or {@code null} to use the hint of the file
+         */
+        public Integer getMaxRows() {
+            return maxRows;
+        }
+
+        /**
+         * Sets the maximum number of rows.
+         *
+         * @param maxRows
+         *            the maximum number of rows ({@code 0} for no limit), or {@code null} to use the hint of the file
+         */
+        public void setMaxRows(Integer maxRows) {
+            this.maxRows = maxRows;
+        }
+
+        /**
+         * Returns the query timeout.
+         *
+         * @return the timeout ({@code 0} for none), or {@code null} to use the hint of the file
+         */
+        public Duration getQueryTimeout() {
+            return queryTimeout;
+        }
+
+        /**
+         * Sets the query timeout.
+         *
+         * @param queryTimeout
+         *            the timeout ({@code 0} for none), or {@code null} to use the hint of the file
+         */
+        public void setQueryTimeout(Duration queryTimeout) {
+            this.queryTimeout = queryTimeout;
+        }
+
+        /**
+         * Returns the result-set type.
+         *
+         * @return the result-set type, or {@code null} to use the hint of the file
+         */
+        public ResultSetType getResultSetType() {
+            return resultSetType;
+        }
+
+        /**
+         * Sets the result-set type.
+         *
+         * @param resultSetType
+         *            the result-set type, or {@code null} to use the hint of the file
+         */
+        public void setResultSetType(ResultSetType resultSetType) {
+            this.resultSetType = resultSetType;
+        }
+    }
+
+    /**
+     * JDBC result-set type of the statements of an SQL file.
+     */
+    public enum ResultSetType {
+
+        /** Cursor moves forward only ({@link ResultSet#TYPE_FORWARD_ONLY}). */
+        FORWARD_ONLY(ResultSet.TYPE_FORWARD_ONLY),
+
+        /** Scrollable, not sensitive to concurrent changes ({@link ResultSet#TYPE_SCROLL_INSENSITIVE}). */
+        SCROLL_INSENSITIVE(ResultSet.TYPE_SCROLL_INSENSITIVE),
+
+        /** Scrollable, sensitive to concurrent changes ({@link ResultSet#TYPE_SCROLL_SENSITIVE}). */
+        SCROLL_SENSITIVE(ResultSet.TYPE_SCROLL_SENSITIVE);
+
+        private final int jdbcType;
+
+        ResultSetType(int jdbcType) {
+            this.jdbcType = jdbcType;
+        }
+
+        /**
+         * Returns the matching {@link ResultSet} type constant.
+         *
+         * @return the JDBC result-set type
+         */
+        public int getJdbcType() {
+            return jdbcType;
+        }
+    }
 }
@@ -0,0 +1,186 @@
+package net.noworks.clionesql.boot;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * SQL executions recorded for one web request: how often each SQL file was executed and how long the executions took.
+ *
+ * <p>
+ * A profile is bound to the current request by {@link ClioneSqlProfilingFilter} and filled by
+ * {@link ClioneSqlProfilingListener}. A SQL file that is executed with more distinct parameter sets than the repeat
+ * threshold within one request, typically once per item of a loop, is reported as a suspected N+1 query. Repeated
+ * executions with equal parameters, such as the same lookup from several places, are counted but not reported.
+ * Parameters are compared by {@link ClioneSqlExecution#paramsFingerprint() fingerprint}, which executions through
+ * {@link ClioneSqlTemplate#useFile(String)} take from their bind values; executions without one, such as batches,
+ * count as distinct. Executions of inline SQL are counted in the totals but never reported, since all inline SQL shares
+ * the path {@link ClioneSqlExecution#INLINE_SQL}.
+ *
+ * <p>
+ * Only executions on threads bound to the request, e.g. through {@link RequestContextHolder}, are recorded; async
+ * executions on the template's executor are not. Instances are thread-safe.
+ *
+ * @see ClioneSqlProperties.Profiling
+ */
+public final class ClioneSqlRequestProfile {
+
+    /** Name of the request attribute holding the profile of the current request. */
+    public static final String ATTRIBUTE = ClioneSqlRequestProfile.class.getName();
+
+    private final int repeatThreshold;
+
+    private final Map<String, Executions> executions = new HashMap<>();
+
+    private long executionCount;
+
+    private long elapsedNanos;
+
+    /**
+     * Creates a new, empty {@code ClioneSqlRequestProfile}.
+     *
+     * @param repeatThreshold
+     *            the number of distinct parameter sets of one SQL file allowed before it is reported
+     */
+    public ClioneSqlRequestProfile(int repeatThreshold) {
+        this.repeatThreshold = repeatThreshold;
+    }
+
+    /**
+     * Returns the profile of the request bound to the current thread.
+     *
+     * @return the profile, or {@code null} if no request is bound or the request is not profiled
+     */
+    public static ClioneSqlRequestProfile current() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        Object profile = attributes.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        return profile instanceof ClioneSqlRequestProfile ? (ClioneSqlRequestProfile) profile : null;
+    }
+
+    /**
+     * Records an execution.
+     *
+     * @param execution
+     *            the execution
+     * @param nanos
+     *            the execution time, in nanoseconds
+     *
+     * @return {@code true} if the execution's SQL file has now been executed with more distinct parameter sets than the
+     *         repeat threshold
+     */
+    public synchronized boolean record(ClioneSqlExecution execution, long nanos) {
+        executionCount++;
+        elapsedNanos += nanos;
+        Executions entry = executions.computeIfAbsent(execution.sqlPath(), path -> new Executions());
+        entry.record(execution.paramsFingerprint(), nanos);
+        return entry.distinctParamsCount() > repeatThreshold && isRepeatable(execution.sqlPath());
+    }
+
+    /**
+     * Returns the number of distinct parameter sets of one SQL file allowed before it is reported.
+     *
+     * @return the repeat threshold
+     */
+    public int getRepeatThreshold() {
+        return repeatThreshold;
+    }
+
+    /**
+     * Returns the total number of recorded executions.
+     *
+     * @return the number of executions
+     */
+    public synchronized long getExecutionCount() {
+        return executionCount;
+    }
+
+    /**
+     * Returns the total time spent executing SQL.
+     *
+     * @return the time, in nanoseconds, excluding connection acquisition
+     */
+    public synchronized long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Returns the recorded executions per SQL file.
+     *
+     * @return a snapshot of the entries, most executed first
+     */
+    public synchronized List<Entry> getEntries() {
+        List<Entry> entries = new ArrayList<>(executions.size());
+        executions.forEach((path, entry) -> entries
+                .add(new Entry(path, entry.count, entry.distinctParamsCount(), entry.elapsedNanos)));
+        entries.sort(Comparator.comparingLong(Entry::executionCount).reversed().thenComparing(Entry::sqlPath));
+        return entries;
+    }
+
+    /**
+     * Returns the SQL files executed with more distinct parameter sets than the repeat threshold.
+     *
+     * @return a snapshot of the suspected N+1 queries, most executed first
+     */
+    public List<Entry> getRepeatedEntries() {
+        return getEntries().stream()
+                .filter(entry -> entry.distinctParamsCount() > repeatThreshold && isRepeatable(entry.sqlPath()))
+                .toList();
+    }
+
+    private static boolean isRepeatable(String sqlPath) {
+        return !ClioneSqlExecution.INLINE_SQL.equals(sqlPath) && !ClioneSqlExecution.NO_SQL.equals(sqlPath);
+    }
+
+    /**
+     * Executions of one SQL file within a request.
+     *
+     * @param sqlPath
+     *            the resolved classpath path of the SQL file
+     * @param executionCount
+     *            the number of executions
+     * @param distinctParamsCount
+     *            the number of distinct parameter sets, counting each execution without a fingerprint as distinct
+     * @param elapsedNanos
+     *            the total execution time, in nanoseconds
+     */
+    public record Entry(String sqlPath, long executionCount, long distinctParamsCount, long elapsedNanos) {
+    }
+
+    /**
+     * Mutable counters of one SQL file, guarded by the profile's lock.
+     */
+    private static final class Executions {
+
+        private final Set<Integer> fingerprints = new HashSet<>();
+
+        private long count;
+
+        private long unfingerprinted;
+
+        private long elapsedNanos;
+
+        void record(Integer fingerprint, long nanos) {
+            count++;
+            elapsedNanos += nanos;
+            if (fingerprint == null) {
+                unfingerprinted++;
+            } else {
+                fingerprints.add(fingerprint);
+            }
+        }
+
+        long distinctParamsCount() {
+            return fingerprints.size() + unfingerprinted;
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package net.noworks.clionesql.boot;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import tetz42.clione.SQLExecutor;
+import tetz42.clione.SQLManager;
+import tetz42.clione.util.ResultMap;
+
+import org.springframework.util.Assert;
+
+/**
+ * A unit of work that runs many statements on one connection and one {@link SQLManager}.
+ *
+ * <p>
+ * Sessions are created by {@link ClioneSqlTemplate#inSession(Function)}. The connection is obtained once when the
+ * session starts and released when the callback returns; each helper method closes its statement before returning, so
+ * the same {@link SQLManager} is reused for the next call. The helpers behave like their {@link ClioneSqlTemplate}
+ * counterparts and report to the same execution listeners. When {@link ClioneSqlProperties#getStatementCacheSize()
+ * statement-cache-size} is set, prepared statements are cached for the lifetime of the session (or of the surrounding
+ * transaction). The {@link StatementHints statement hints} of each SQL file apply to the statements the session
+ * prepares for it.
+ *
+ * <p>
+ * A session is not thread-safe and must not be used after the callback has returned.
+ *
+ * @see ClioneSqlTemplate#inSession(Function)
+ */
+public final class ClioneSqlSession {
+
+    private final ClioneSqlTemplate template;
+
+    private final Connection connection;
+
+    private final StatementCache statementCache;
+
+    private final SQLManager manager;
+
+    private final String productName;
+
+    private final int recommendedFetchSize;
+
+    private StatementHints hints;
+
+    private ResultSetInterceptingConnection.ResultSetHandler resultSetHandler;
+
+    /**
+     * Creates a new {@code ClioneSqlSession}.
+     *
+     * @param template
+     *            the template that owns the session
+     * @param connection
+     *            the connection obtained for the session
+     */
+    ClioneSqlSession(ClioneSqlTemplate template, Connection connection) {
+        this.template = template;
+        this.connection = connection;
+        StatementCache transactionCache = template.transactionStatementCache();
+        this.statementCache = transactionCache != null ? null : template.sessionStatementCache();
+        StatementCache cache = transactionCache != null ? transactionCache : statementCache;
+        Connection con = StatementCustomizingConnection.wrap(cache != null ? cache.wrap(connection) : connection,
+                () -> hints.getJdbcResultSetType(), statement -> hints.apply(statement));
+        this.manager = template.createSQLManager(ResultSetInterceptingConnection.wrap(con, this::handle));
+        DatabaseProfile profile = template.databaseProfile(connection);
+        this.productName = profile.getClioneProductName();
+        this.recommendedFetchSize = profile.getRecommendedFetchSize();
+        this.hints = StatementHints.NONE.withDefaultFetchSize(recommendedFetchSize);
+    }
+
+    /**
+     * Loads a 2Way SQL template from the specified file path on the session's {@link SQLManager}.
+     *
+     * <p>
+     * The statement opened by the returned executor is closed by the next helper call or when the session ends.
+     *
+     * @param sqlPath
+     *            the classpath-relative path to the SQL file
+     *
+     * @return a {@link SQLExecutor} ready to bind parameters and execute the query
+     */
+    public SQLExecutor useFile(String sqlPath) {
+        manager.closeStatement();
+        String path = template.resolveSqlPath(sqlPath);
+        hints = statementHints(path);
+        return template.openFile(manager, productName, path);
+    }
+
+    /**
+     * Uses an inline 2Way SQL string on the session's {@link SQLManager}.
+     *
+     * <p>
+     * The statement opened by the returned executor is closed by the next helper call or when the session ends.
+     *
+     * @param sql
+     *            the 2Way SQL string with clione-sql parameter placeholders
+     *
+     * @return a {@link SQLExecutor} ready to bind parameters and execute the query
+     */
+    public SQLExecutor useSQL(String sql) {
+        manager.closeStatement();
+        hints = statementHints(null);
+        return manager.useSQL(sql);
+    }
+
+    /**
+     * Executes the SQL file and returns a single result.
+     *
+     * @param sqlPath
+     *            the classpath-relative path to the SQL file
+     *
+     * @return the single matching row, or {@code null} if none
+     */
+    public ResultMap query(String sqlPath) {
+        return execute(sqlPath, ClioneSqlExecution.FIND, null, ex -> ex.find());
+    }
+
+    /**
+     * Executes the SQL file with the given parameters and returns a single result.
+     *
+     * @param sqlPath
+     *            the classpath-relative path to the SQL file
+     * @param params
+     *            the named parameters (e.g. created via {@link SQLManager#params(String, Object)})
+     *
+     * @return the single matching row, or {@code null} if none
+     */
+    public ResultMap query(String sqlPath, Map<String, Object> params) {
+        return execute(sqlPath, ClioneSqlExecution.FIND, params, ex -> ex.find(params));
+    }
+
+    /**
+     * Executes the SQL file with the given parameters and maps the first row to the given record or JavaBean type.
+     *
+     * @param sqlPath
+     *            the classpath-relative path to the SQL file
+     * @param params
+     *            the named parameters (e.g. created via {@link SQLManager#params(String, Object)})
+     * @param type
+     *            the record or JavaBean type to map the row to
+     * @param <T>
+     *            the target type
+     *
+     * @return the first matching row, or {@code null} if none
+     *
+     * @see ClioneSqlTemplate#queryForList(String, Map, Class)
+     */
+    public <T> T query(String sqlPath, Map<String, Object> params, Class<T> type) {
+        List<T> rows = queryForObjects(sqlPath, params, type, ClioneSqlExecution.FIND, 1);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    /**
+     * Executes the SQL file and returns all results.
+     *
+     * @param sqlPath
+     *            the classpath-relative path to the SQL file
+     *
+     * @return the list of matching rows
+     */
+    public List<ResultMap> queryForList(String sqlPath) {
+        return execute(sqlPath, ClioneSqlExecution.FIND_ALL, null, ex -> ex.findAll());
+    }
+
+    /**
+     * Executes the SQL file with the given parameters and returns all results.
+     *
+     * @param sqlPath
+     *            the classpath-relative path to the SQL file
+     * @param params
+     *            the named parameters (e.g. created via {@link SQLManager#params(String, Object)})
+     *
+     * @return the list of matching rows
+     */
+    public List<ResultMap> queryForList(String sqlPath, Map<String, Object> params) {
+        return execute(sqlPath, ClioneSqlExecution.FIND_ALL, params, ex -> ex.findAll(params));
+    }
+
+    /**
+     * Executes the SQL file with the given parameters and maps all rows to the given record or JavaBean type.
+     *
+     * @param sqlPath
+     *            the classpath-relative path to the SQL file
+     * @param params
+     *            the named parameters (e.g. created via {@link SQLManager#params(String, Object)})
+     * @param type
+     *            the record or JavaBean type to map the rows to
+     * @param <T>
+     *            the target type
+     *
+     * @return the mapped rows
+     *
+     * @see ClioneSqlTemplate#queryForList(String, Map, Class)
+     */
+    public <T> List<T> queryForList(String sqlPath, Map<String, Object> params, Class<T> type) {
+        return queryForObjects(sqlPath, params, type, ClioneSqlExecution.FIND_ALL, 0);
+    }
+
+    /**
+     * Executes the SQL file as an update (INSERT/UPDATE/DELETE).
+     *
+     * @param sqlPath
+     *            the classpath-relative path to the SQL file
+     *
+     * @return the number of affected rows
+     */
+    public int update(String sqlPath) {
+        int count = execute(sqlPath, ClioneSqlExecution.UPDATE, null, ex -> ex.update());
+        template.afterUpdate(sqlPath);
+        return count;
+    }
+
+    /**
+     * Executes the SQL file as an update (INSERT/UPDATE/DELETE) with the given parameters.
+     *
+     * @param sqlPath
+     *            the classpath-relative path to the SQL file
+     * @param params
+     *            the named parameters (e.g. created via {@link SQLManager#params(String, Object)})
+     *
+     * @return the number of affected rows
+     */
+    public int update(String sqlPath, Map<String, Object> params) {
+        int count = execute(sqlPath, ClioneSqlExecution.UPDATE, params, ex -> ex.update(params));
+        template.afterUpdate(sqlPath);
+        return count;
+    }
+
+    private <T> List<T> queryForObjects(String sqlPath, Map<String, Object> params, Class<T> type, String operation,
+            int maxRows) {
+        Assert.notNull(type, "type must not be null");
+        String path = template.resolveSqlPath(sqlPath);
+        CompiledRowMapper<T> mapper = template.rowMapper(path, type);
+        List<T> rows = new ArrayList<>();
+        resultSetHandler = rs -> {
+            mapper.extract(rs, maxRows, rows);
+            return true;
+        };
+        try {
+            return run(path, operation, params, ex -> {
+                ex.findAll(params);
+                return rows;
+            });
+        } finally {
+            resultSetHandler = null;
+        }
+    }
+
+    private <R> R execute(String sqlPath, String operation, Map<String, Object> params,
+            Function<SQLExecutor, R> action) {
+        return run(template.resolveSqlPath(sqlPath), operation, params, action);
+    }
+
+    private <R> R run(String path, String operation, Map<String, Object> params, Function<SQLExecutor, R> action) {
+        manager.closeStatement();
+        hints = statementHints(path);
+        try {
+            return template.observe(ClioneSqlExecution.of(path, operation, params),
+                    () -> action.apply(template.openFile(manager, productName, path)));
+        } finally {
+            manager.closeStatement();
+        }
+    }
+
+    /**
+     * Returns the hints of the SQL file at the resolved {@code path}, with the fetch size recommended for the database
+     * as the default.
+     */
+    private StatementHints statementHints(String path) {
+        return template.statementHints(path, productName).withDefaultFetchSize(recommendedFetchSize);
+    }
+
+    private boolean handle(ResultSet rs) throws SQLException {
+        return resultSetHandler != null && resultSetHandler.handle(rs);
+    }
+
+    /**
+     * Closes the current statement and the session's statement cache, and releases the session's connection.
+     */
+    void close() {
+        try {
+            manager.closeStatement();
+            if (statementCache != null) {
+                statementCache.close();
+            }
+        } finally {
+            template.release(manager, connection);
+        }
+    }
+}
@@ -1,18 +1,46 @@
 package net.noworks.clionesql.boot;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
 import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import javax.sql.DataSource;
 
 import tetz42.clione.SQLExecutor;
 import tetz42.clione.SQLManager;
+import tetz42.clione.common.exception.SQLRuntimeException;
+import tetz42.clione.exception.SQLFileNotFoundException;
 import tetz42.clione.util.ResultMap;
 
+import org.springframework.dao.TransientDataAccessResourceException;
 import org.springframework.jdbc.datasource.DataSourceUtils;
 import org.springframework.jdbc.datasource.TransactionAwareDataSourceProxy;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
 
 /**
  * Spring-integrated facade for clione-sql's {@link SQLManager}.
@@ -24,6 +52,24 @@ import org.springframework.jdbc.datasource.TransactionAwareDataSourceProxy;
  *
  * <p>
  * A new {@link SQLManager} instance is created for each operation because {@code SQLManager} is not thread-safe.
+ * Connections are always handed to the {@code SQLManager} explicitly; clione-sql's thread-bound connection
+ * ({@code SQLManager.setThreadConnection}) is never used, so executions leave no thread-local state behind and behave
+ * the same on virtual threads (see {@link #queryAsync(String)}).
+ *
+ * <p>
+ * Results of the {@code query}/{@code queryForList} methods can be cached per SQL file with
+ * {@link ClioneSqlProperties#getQueries()}. Cached results are shared between callers: lists are unmodifiable, and rows
+ * must not be modified. Queries run through a {@link ClioneSqlSession} always go to the database. Concurrent identical
+ * calls of an SQL file configured to {@link ClioneSqlProperties.Query#isCoalesce() coalesce} share one execution,
+ * unless they run in a read-write transaction; each waiting call gets its own copy of the result.
+ *
+ * <p>
+ * JDBC statement settings (fetch size, maximum rows, query timeout and result-set type) can be declared per SQL file in
+ * a header comment ({@code -- @fetch-size 5000}, {@code -- @query-timeout 30s}, ...) or with
+ * {@link ClioneSqlProperties#getQueries()}, and are applied to every statement the file prepares, also within a
+ * {@link ClioneSqlSession}. Without a declared fetch size, {@code queryForList} learns the fetch size and result list
+ * capacity of each SQL file from the row counts of its previous executions (see
+ * {@link ClioneSqlProperties#getAdaptiveFetch()}).
  *
  * <p>
  * Usage examples:
@@ -42,8 +88,34 @@ import org.springframework.jdbc.datasource.TransactionAwareDataSourceProxy;
  */
 public class ClioneSqlTemplate {
 
+    /**
+     * Number of concurrent async executions allowed when neither {@link ClioneSqlProperties#getAsyncMaxConcurrency()}
+     * nor {@link #setAsyncConcurrencyLimit(int)} is set; matches HikariCP's default maximum pool size.
+     */
+    public static final int DEFAULT_ASYNC_CONCURRENCY_LIMIT = 10;
+
+    private static final ClioneSqlExecutionListener NO_LISTENER = new ClioneSqlExecutionListener() {
+    };
+
     private final DataSource dataSource;
     private final ClioneSqlProperties properties;
+    private final Map<RowMapperKey, CompiledRowMapper<?>> rowMappers = new ConcurrentHashMap<>();
+    private final Map<Class<?>, BeanParameters> beanParameters = new ConcurrentHashMap<>();
+    private final Object statementCacheKey = new Object();
+    private final QueryResultCache queryCache;
+    private final QueryCoalescer coalescer;
+    private final SqlFileLoader sqlFileLoader;
+    private final ClassLoader sqlBundleClassLoader;
+    private final Map<String, ClioneSqlProperties.Query> queriesByPath = new HashMap<>();
+    private final Map<String, StatementHints> statementHints = new ConcurrentHashMap<>();
+    private final Map<String, String> sqlTexts = new ConcurrentHashMap<>();
+    private final ResultSizeEstimator resultSizes;
+    private volatile DatabaseProfile databaseProfile;
+    private ClioneSqlExecutionListener executionListener = NO_LISTENER;
+    private volatile int asyncConcurrencyLimit;
+    private volatile Semaphore asyncPermits;
+    private volatile Executor asyncExecutor;
+    private volatile ConnectionLeakTracker connectionLeakTracker;
 
     /**
      * Creates a new {@code ClioneSqlTemplate}.
@@ -64,6 +136,130 @@ public class ClioneSqlTemplate {
             this.dataSource = new TransactionAwareDataSourceProxy(dataSource);
         }
         this.properties = properties;
+        setAsyncConcurrencyLimit(properties.getAsyncMaxConcurrency() > 0 ? properties.getAsyncMaxConcurrency()
+                : DEFAULT_ASYNC_CONCURRENCY_LIMIT);
+        this.queryCache = new QueryResultCache(properties.getQueries(), this::resolveSqlPath);
+        this.coalescer = new QueryCoalescer(properties.getQueries(), this::resolveSqlPath);
+        this.sqlFileLoader = properties.isDevelopmentMode()
+                ? new SqlFileLoader(Charset.forName(properties.getSqlFileEncoding()), properties.getSqlFileCacheTime())
+                : null;
+        this.sqlBundleClassLoader = properties.isDevelopmentMode() ? null : loadSqlBundle();
+        properties.getQueries().forEach((sqlPath, query) -> queriesByPath.put(resolveSqlPath(sqlPath), query));
+        ClioneSqlProperties.AdaptiveFetch adaptiveFetch = properties.getAdaptiveFetch();
+        this.resultSizes = adaptiveFetch.isEnabled() ? new ResultSizeEstimator(adaptiveFetch.getMinFetchSize(),
+                adaptiveFetch.getMaxFetchSize(), adaptiveFetch.getMaxInitialCapacity()) : null;
+    }
+
+    /**
+     * Sets the listeners notified around each SQL execution, e.g. to record metrics. Replaces any previously set
+     * listeners; an empty list disables notification.
+     *
+     * @param executionListeners
+     *            the listeners to notify, in order
+     */
+    public void setExecutionListeners(List<? extends ClioneSqlExecutionListener> executionListeners) {
+        Assert.notNull(executionListeners, "executionListeners must not be null");
+        if (executionListeners.isEmpty()) {
+            this.executionListener = NO_LISTENER;
+        } else if (executionListeners.size() == 1) {
+            this.executionListener = executionListeners.get(0);
+        } else {
+            this.executionListener = new CompositeExecutionListener(executionListeners);
+        }
+    }
+
+    /**
+     * Sets the maximum number of {@code *Async} executions that hold a connection at the same time. Further async
+     * executions wait in memory until a permit is free instead of queueing in the connection pool. Usually set to the
+     * pool's maximum size.
+     *
+     * @param asyncConcurrencyLimit
+     *            the maximum number of concurrent async executions; must be greater than {@code 0}
+     */
+    public void setAsyncConcurrencyLimit(int asyncConcurrencyLimit) {
+        Assert.isTrue(asyncConcurrencyLimit > 0, "asyncConcurrencyLimit must be greater than 0");
+        this.asyncConcurrencyLimit = asyncConcurrencyLimit;
+        this.asyncPermits = new Semaphore(asyncConcurrencyLimit, true);
+    }
+
+    /**
+     * Sets the executor that runs {@code *Async} executions. Defaults to a new virtual thread per execution on Java 21
+     * and later, and to a pool of {@link #setAsyncConcurrencyLimit(int) asyncConcurrencyLimit} daemon threads
+     * otherwise.
+     *
+     * @param asyncExecutor
+     *            the executor to use
+     */
+    public void setAsyncExecutor(Executor asyncExecutor) {
+        Assert.notNull(asyncExecutor, "asyncExecutor must not be null");
+        this.asyncExecutor = asyncExecutor;
+    }
+
+    /**
+     * Sets the tracker that releases connections leaked through {@link #useFile(String)},
+     * {@link #useFile(Class, String)} and {@link #useSQL(String)} outside a transaction.
+     *
+     * @param connectionLeakTracker
+     *            the tracker to register connections with, or {@code null} to stop tracking
+     */
+    public void setConnectionLeakTracker(ConnectionLeakTracker connectionLeakTracker) {
+        this.connectionLeakTracker = connectionLeakTracker;
+    }
+
+    /**
+     * Returns the product, version and driver capabilities of the database. The profile is read from the connection
+     * metadata once, on the first connection the template obtains; if no connection has been obtained yet, one is
+     * obtained to read it.
+     *
+     * @return the database profile
+     */
+    public DatabaseProfile getDatabaseProfile() {
+        DatabaseProfile profile = this.databaseProfile;
+        if (profile != null) {
+            return profile;
+        }
+        Connection con = DataSourceUtils.getConnection(this.dataSource);
+        try {
+            return databaseProfile(con);
+        } finally {
+            DataSourceUtils.releaseConnection(con, this.dataSource);
+        }
+    }
+
+    /**
+     * Invalidates the cached results of every SQL file that declares one of the given tables, after commit if a
+     * transaction is active. {@code update} and {@code batchUpdate} do this automatically for the tables declared for
+     * their SQL file; call this method after writes issued by other means.
+     *
+     * @param tables
+     *            the tables that were written
+     *
+     * @see ClioneSqlProperties.Query#getTables()
+     */
+    public void invalidateTables(String... tables) {
+        queryCache.invalidate(List.of(tables));
+    }
+
+    /**
+     * Returns the query result cache statistics of every cached SQL file.
+     *
+     * @return a snapshot of the statistics keyed by resolved SQL path; empty if no SQL file is cached
+     *
+     * @see ClioneSqlProperties#getQueries()
+     */
+    public Map<String, QueryCacheStatistics> getQueryCacheStatistics() {
+        return queryCache.statistics();
+    }
+
+    /**
+     * Returns the request coalescing statistics of every coalesced SQL file.
+     *
+     * @return a snapshot of the statistics keyed by resolved SQL path; empty if no SQL file is coalesced
+     *
+     * @see ClioneSqlProperties.Query#isCoalesce()
+     */
+    public Map<String, CoalescingStatistics> getCoalescingStatistics() {
+        return coalescer.statistics();
     }
 
     /**
@@ -76,7 +272,8 @@ public class ClioneSqlTemplate {
      * @return a {@link SQLExecutor} ready to bind parameters and execute the query
      */
     public SQLExecutor useFile(String sqlPath) {
-        return createSQLManager().useFile(resolveSqlPath(sqlPath));
+        String path = resolveSqlPath(sqlPath);
+        return openExecutor(path, (manager, productName) -> openFile(manager, productName, path));
     }
 
     /**
@@ -90,7 +287,13 @@ public class ClioneSqlTemplate {
      * @return a {@link SQLExecutor} ready to bind parameters and execute the query
      */
     public SQLExecutor useFile(Class<?> clazz, String sqlFile) {
-        return createSQLManager().useFile(clazz, sqlFile);
+        String path = clazz.getPackageName().replace('.', '/') + "/sql/" + clazz.getSimpleName() + "/" + sqlFile;
+        return openExecutor(path, (manager, productName) -> {
+            if (sqlFileLoader != null) {
+                return manager.useSQL(sqlFileLoader.load(path, productName));
+            }
+            return withSqlBundle(() -> manager.useFile(clazz, sqlFile));
+        });
     }
 
     /**
@@ -102,7 +305,7 @@ public class ClioneSqlTemplate {
      * @return a {@link SQLExecutor} ready to bind parameters and execute the query
      */
     public SQLExecutor useSQL(String sql) {
-        return createSQLManager().useSQL(sql);
+        return openExecutor(ClioneSqlExecution.INLINE_SQL, (manager, productName) -> manager.useSQL(sql));
     }
 
     /**
@@ -128,7 +331,8 @@ public class ClioneSqlTemplate {
      * @return the result of applying {@code action}
      */
     public <R> R execute(String sqlPath, Function<SQLExecutor, R> action) {
-        return executeInternal(manager -> manager.useFile(resolveSqlPath(sqlPath)), action);
+        return executeInternal(new ClioneSqlExecution(resolveSqlPath(sqlPath), ClioneSqlExecution.EXECUTE),
+                UnaryOperator.identity(), action);
     }
 
     /**
@@ -140,7 +344,8 @@ public class ClioneSqlTemplate {
      * @return the single matching row, or {@code null} if none
      */
     public ResultMap query(String sqlPath) {
-        return execute(sqlPath, ex -> ex.find());
+        return cached(sqlPath, ClioneSqlExecution.FIND, null, null,
+                () -> executeInternal(sqlPath, ClioneSqlExecution.FIND, null, ex -> ex.find()));
     }
 
     /**
@@ -154,7 +359,38 @@ public class ClioneSqlTemplate {
      * @return the single matching row, or {@code null} if none
      */
     public ResultMap query(String sqlPath, Map<String, Object> params) {
-        return execute(sqlPath, ex -> ex.find(params));
+        return cached(sqlPath, ClioneSqlExecution.FIND, params, null,
+                () -> executeInternal(sqlPath, ClioneSqlExecution.FIND, params, ex -> ex.find(params)));
+    }
+
+    /**
+     * Executes the SQL file with the components of a record or the properties of a JavaBean as parameters and returns a
+     * single result, releasing the connection afterward.
+     *
+     * <p>
+     * The accessors of the parameter type are bound once and values are read from the object as clione-sql looks them
+     * up, without copying them into a parameter map. A {@link Map} is used as is.
+     *
+     * <pre>
+     * record PersonQuery(long id, String status) {
+     * }
+     *
+     * ResultMap person = clioneSqlTemplate.query("person/SelectById.sql", new PersonQuery(id, "ACTIVE"));
+     * </pre>
+     *
+     * @param sqlPath
+     *            the classpath-relative path to the SQL file
+     * @param params
+     *            the record, JavaBean or parameter map
+     *
+     * @return the single matching row, or {@code null} if none
+     *
+     * @throws IllegalArgumentException
+     *             if {@code params} is a {@link Class}, a simple value, an enum or an array; to map the row to a type,
+     *             use {@link #query(String, Object, Class)}
+     */
+    public ResultMap query(String sqlPath, Object params) {
+        return query(sqlPath, parameters(params));
     }
 
     /**
@@ -166,7 +402,8 @@ public class ClioneSqlTemplate {
      * @return the list of matching rows
      */
     public List<ResultMap> queryForList(String sqlPath) {
-        return execute(sqlPath, ex -> ex.findAll());
+        return cached(sqlPath, ClioneSqlExecution.FIND_ALL, null, null,
+                () -> executeInternal(sqlPath, ClioneSqlExecution.FIND_ALL, null, ex -> ex.findAll()));
     }
 
     /**
@@ -180,7 +417,169 @@ public class ClioneSqlTemplate {
      * @return the list of matching rows
      */
     public List<ResultMap> queryForList(String sqlPath, Map<String, Object> params) {
-        return execute(sqlPath, ex -> ex.findAll(params));
+        return cached(sqlPath, ClioneSqlExecution.FIND_ALL, params, null,
+                () -> executeInternal(sqlPath, ClioneSqlExecution.FIND_ALL, params, ex -> ex.findAll(params)));
+    }
+
+    /**
+     * Executes the SQL file with the components of a record or the properties of a JavaBean as parameters and returns
+     * all results, releasing the connection afterward.
+     *
+     * @param sqlPath
+     *            the classpath-relative path to the SQL file
+     * @param params
+     *            the record, JavaBean or parameter map
+     *
+     * @return the list of matching rows
+     *
+     * @see #query(String, Object)
+     */
+    public List<ResultMap> queryForList(String sqlPath, Object params) {
+        return queryForList(sqlPath, parameters(params));
+    }
+
+    /**
+     * Executes the SQL file with the given parameters and maps the first row to the given record or JavaBean type,
+     * releasing the connection afterward.
+     *
+     * @param sqlPath
+     *            the classpath-relative path to the SQL file
+     * @param params
+     *            the named parameters (e.g. created via {@link SQLManager#params(String, Object)})
+     * @param type
+     *            the record or JavaBean type to map the row to
+     * @param <T>
+     *            the target type
+     *
+     * @return the first matching row, or {@code null} if none
+     *
+     * @see #queryForList(String, Map, Class)
+     */
+    public <T> T query(String sqlPath, Map<String, Object> params, Class<T> type) {
+        List<T> rows = queryForObjects(sqlPath, params, type, ClioneSqlExecution.FIND, 1);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    /**
+     * Executes the SQL file with the components of a record or the properties of a JavaBean as parameters and maps the
+     * first row to the given record or JavaBean type, releasing the connection afterward.
+     *
+     * @param sqlPath
+     *            the classpath-relative path to the SQL file
+     * @param params
+     *            the record, JavaBean or parameter map
+     * @param type
+     *            the record or JavaBean type to map the row to
+     * @param <T>
+     *            the target type
+     *
+     * @return the first matching row, or {@code null} if none
+     *
+     * @see #query(String, Object)
+     * @see #queryForList(String, Map, Class)
+     */
+    public <T> T query(String sqlPath, Object params, Class<T> type) {
+        return query(sqlPath, parameters(params), type);
+    }
+
+    /**
+     * Executes the SQL file with the given parameters and maps all rows to the given record or JavaBean type, releasing
+     * the connection afterward.
+     *
+     * <p>
+     * Rows are read directly from the JDBC {@code ResultSet} without building a {@link ResultMap} first. A record is
+     * created through its canonical constructor; any other type needs a no-argument constructor and is populated
+     * through its setters. Columns are matched by name, ignoring case and underscores, so {@code FIRST_NAME} maps to
+     * {@code firstName}; values are converted to the component or property type where necessary. The constructor and
+     * setters are bound once per SQL file and target type, and the column indexes are resolved from the first result
+     * and reused afterward.
+     *
+     * <pre>
+     * record Person(long id, String firstName) {
+     * }
+     *
+     * List&lt;Person&gt; people = clioneSqlTemplate.queryForList("person/SelectAll.sql", params, Person.class);
+     * </pre>
+     *
+     * @param sqlPath
+     *            the classpath-relative path to the SQL file
+     * @param params
+     *            the named parameters (e.g. created via {@link SQLManager#params(String, Object)})
+     * @param type
+     *            the record or JavaBean type to map the rows to
+     * @param <T>
+     *            the target type
+     *
+     * @return the mapped rows
+     *
+     * @throws IllegalArgumentException
+     *             if {@code type} is neither a record nor a class with a no-argument constructor
+     */
+    public <T> List<T> queryForList(String sqlPath, Map<String, Object> params, Class<T> type) {
+        return queryForObjects(sqlPath, params, type, ClioneSqlExecution.FIND_ALL, 0);
+    }
+
+    /**
+     * Executes the SQL file with the components of a record or the properties of a JavaBean as parameters and maps all
+     * rows to the given record or JavaBean type, releasing the connection afterward.
+     *
+     * @param sqlPath
+     *            the classpath-relative path to the SQL file
+     * @param params
+     *            the record, JavaBean or parameter map
+     * @param type
+     *            the record or JavaBean type to map the rows to
+     * @param <T>
+     *            the target type
+     *
+     * @return the mapped rows
+     *
+     * @see #query(String, Object)
+     * @see #queryForList(String, Map, Class)
+     */
+    public <T> List<T> queryForList(String sqlPath, Object params, Class<T> type) {
+        return queryForList(sqlPath, parameters(params), type);
+    }
+
+    /**
+     * Executes the SQL file with the given parameters and returns one page of its rows, releasing the connection
+     * afterward.
+     *
+     * <p>
+     * The 2Way SQL of the file is wrapped with the row-limiting syntax of the configured
+     * {@link ClioneSqlProperties#getProductName() product name} (or of the database, if none is configured):
+     * {@code LIMIT ... OFFSET} for PostgreSQL, MySQL, SQLite and H2, and
+     * {@code OFFSET ... ROWS FETCH NEXT ... ROWS ONLY} for Oracle 12c+, SQL Server 2012+, DB2 and Firebird 3+. A
+     * {@link PageRequest#keyset(int, String...) keyset} request filters on the key of the previous page instead of
+     * skipping rows, and a request {@link PageRequest#withTotal() with total} reads the total row count with
+     * {@code COUNT(*) OVER ()} in the same statement and needs sort columns. Sorting, counting and keyset filtering run
+     * the SQL file as a derived table, so it must not end with clauses that are invalid there (SQL Server, for example,
+     * rejects {@code ORDER BY}); pass the order with {@link PageRequest#sortedBy(String...)} instead.
+     *
+     * <pre>
+     * Page page = clioneSqlTemplate.page("person/SelectAll.sql", params, PageRequest.of(2, 20).sortedBy("id")
+     *         .withTotal());
+     * </pre>
+     *
+     * @param sqlPath
+     *            the classpath-relative path to the SQL file
+     * @param params
+     *            the named parameters (e.g. created via {@link SQLManager#params(String, Object)}), or {@code null}
+     * @param pageRequest
+     *            the page to read
+     *
+     * @return the page
+     */
+    public Page page(String sqlPath, Map<String, Object> params, PageRequest pageRequest) {
+        Assert.notNull(pageRequest, "pageRequest must not be null");
+        String path = resolveSqlPath(sqlPath);
+        Map<String, Object> pageParams = PageDialect.bind(params, pageRequest);
+        List<ResultMap> rows = executeInternal(ClioneSqlExecution.of(path, ClioneSqlExecution.PAGE, pageParams),
+                UnaryOperator.identity(),
+                (manager, profile) -> manager.useSQL(
+                        profile.getPageDialect().paginate(sqlText(path, profile.getClioneProductName()), pageRequest)),
+                ex -> ex.findAll(pageParams));
+        return PageDialect.toPage(pageRequest, rows);
     }
 
     /**
@@ -192,7 +591,9 @@ public class ClioneSqlTemplate {
      * @return the number of affected rows
      */
     public int update(String sqlPath) {
-        return execute(sqlPath, ex -> ex.update());
+        int count = executeInternal(sqlPath, ClioneSqlExecution.UPDATE, null, ex -> ex.update());
+        afterUpdate(sqlPath);
+        return count;
     }
 
     /**
@@ -207,83 +608,1120 @@ public class ClioneSqlTemplate {
      * @return the number of affected rows
      */
     public int update(String sqlPath, Map<String, Object> params) {
-        return execute(sqlPath, ex -> ex.update(params));
+        int count = executeInternal(sqlPath, ClioneSqlExecution.UPDATE, params, ex -> ex.update(params));
+        afterUpdate(sqlPath);
+        return count;
     }
 
     /**
-     * Runs the given action with a freshly created {@link SQLManager}, ensuring the statement is closed and the
-     * connection is released in a {@code finally} block.
+     * Executes the SQL file as an update (INSERT/UPDATE/DELETE) with the components of a record or the properties of a
+     * JavaBean as parameters, releasing the connection afterward.
      *
-     * @param open
-     *            opens a {@link SQLExecutor} from the manager (e.g. {@code useFile})
-     * @param action
-     *            the action to apply to the opened {@link SQLExecutor}
-     * @param <R>
-     *            the result type produced by {@code action}
+     * @param sqlPath
+     *            the classpath-relative path to the SQL file
+     * @param params
+     *            the record, JavaBean or parameter map
      *
-     * @return the result of applying {@code action}
+     * @return the number of affected rows
+     *
+     * @see #query(String, Object)
      */
-    private <R> R executeInternal(Function<SQLManager, SQLExecutor> open, Function<SQLExecutor, R> action) {
-        Connection con = DataSourceUtils.getConnection(this.dataSource);
-        SQLManager manager = createSQLManager(con);
+    public int update(String sqlPath, Object params) {
+        return update(sqlPath, parameters(params));
+    }
+
+    /**
+     * Executes the SQL file once per parameter map, record or JavaBean as a JDBC batch (INSERT/UPDATE/DELETE),
+     * releasing the connection afterward.
+     *
+     * <p>
+     * Each parameter map is bound through the 2Way SQL template as in {@link #update(String, Map)}, but the rendered
+     * statement is added to a batch on a single reused {@code PreparedStatement} instead of being executed. The batch
+     * is sent with {@code executeBatch()} every {@code batchSize} rows. When parameters of a different shape render a
+     * different SQL text (for example, because a 2Way {@code IF} block drops out), the current batch is flushed and a
+     * new statement is prepared, so rows are always executed in order.
+     *
+     * <p>
+     * Records and JavaBeans are bound as in {@link #query(String, Object)}: the accessors of each type are bound once,
+     * and no parameter map is built per row.
+     *
+     * <p>
+     * The connection is obtained the same way as in {@link #execute(String, Function)}, so the batch joins the current
+     * Spring-managed transaction. Outside a transaction, each flushed chunk is committed by the driver's auto-commit.
+     *
+     * @param sqlPath
+     *            the classpath-relative path to the SQL file
+     * @param batchParams
+     *            the named parameters of each row, as parameter maps, records or JavaBeans
+     * @param batchSize
+     *            the maximum number of rows per {@code executeBatch()} call; must be greater than {@code 0}
+     *
+     * @return the update count of each row, in iteration order; drivers may report
+     *         {@link java.sql.Statement#SUCCESS_NO_INFO} instead of an exact count
+     */
+    public int[] batchUpdate(String sqlPath, Iterable<?> batchParams, int batchSize) {
+        Assert.isTrue(batchSize > 0, "batchSize must be greater than 0");
+        String path = resolveSqlPath(sqlPath);
+        ClioneSqlExecution execution = new ClioneSqlExecution(path, ClioneSqlExecution.BATCH_UPDATE);
+        Connection con = getConnection(execution);
+        int[] counts;
+        try {
+            DatabaseProfile profile = databaseProfile(con);
+            String productName = profile.getClioneProductName();
+            Connection hinted = statementHints(path, productName).wrap(con);
+            counts = profile.isBatchUpdatesSupported()
+                    ? updateBatch(execution, new BatchingConnection(hinted, batchSize), productName, batchParams)
+                    : updateEach(execution, createSQLManager(hinted), productName, batchParams);
+        } finally {
+            DataSourceUtils.releaseConnection(con, this.dataSource);
+        }
+        afterUpdate(path);
+        return counts;
+    }
+
+    /**
+     * Executes the SQL file once per row on a batching connection, closing its statements afterward.
+     */
+    private int[] updateBatch(ClioneSqlExecution execution, BatchingConnection batching, String productName,
+            Iterable<?> batchParams) {
+        try {
+            SQLManager manager = createSQLManager(batching.getConnection());
+            try {
+                return observe(execution, () -> {
+                    try {
+                        for (Object params : batchParams) {
+                            openFile(manager, productName, execution.sqlPath()).update(parameters(params));
+                        }
+                        return batching.finish();
+                    } catch (SQLException ex) {
+                        throw new SQLRuntimeException(ex);
+                    }
+                });
+            } finally {
+                manager.closeStatement();
+            }
+        } finally {
+            batching.close();
+        }
+    }
+
+    /**
+     * Executes the SQL file once per row without batching, for drivers that do not support batch updates.
+     */
+    private int[] updateEach(ClioneSqlExecution execution, SQLManager manager, String productName,
+            Iterable<?> batchParams) {
         try {
-            return action.apply(open.apply(manager));
+            return observe(execution, () -> {
+                List<Integer> results = new ArrayList<>();
+                for (Object params : batchParams) {
+                    results.add(openFile(manager, productName, execution.sqlPath()).update(parameters(params)));
+                }
+                return results.stream().mapToInt(Integer::intValue).toArray();
+            });
         } finally {
             manager.closeStatement();
+        }
+    }
+
+    /**
+     * Inserts rows into a table with the fastest bulk path of the database, releasing the connection afterward.
+     *
+     * <p>
+     * The strategy is chosen from the configured {@link ClioneSqlProperties#getProductName() product name} (or the
+     * database, if none is configured):
+     * <ul>
+     * <li>PostgreSQL: {@code COPY ... FROM STDIN} through the pgjdbc {@code CopyManager} if the connection unwraps to a
+     * pgjdbc connection, otherwise multi-row {@code VALUES}</li>
+     * <li>MySQL, MariaDB, SQL Server, DB2, SQLite and H2: multi-row {@code INSERT ... VALUES (...), (...)}, each
+     * statement carrying up to {@link ClioneSqlProperties#getBulkInsertBatchSize()} rows, no more bind parameters than
+     * the database allows and, on SQL Server, no more than 1000 rows</li>
+     * <li>Oracle, Firebird and other databases: a single-row {@code INSERT} sent as JDBC batches of
+     * {@link ClioneSqlProperties#getBulkInsertBatchSize()} rows</li>
+     * </ul>
+     *
+     * <p>
+     * Rows are taken from {@code rows} one at a time and sent in chunks, so a lazily produced source (e.g.
+     * {@code stream::iterator}) is inserted with flat memory use. Each row is an {@code Object[]} or {@link List} of
+     * values in column order, a {@link Map} keyed by column name, or a record or JavaBean as in
+     * {@link #query(String, Object)}. The connection is obtained the same way as in {@link #execute(String, Function)},
+     * so the insert joins the current Spring-managed transaction, and the cached results of SQL files that declare
+     * {@code table} are invalidated afterward.
+     *
+     * <pre>
+     * long count = clioneSqlTemplate.bulkInsert("person", List.of("id", "name", "status"), people);
+     * </pre>
+     *
+     * @param table
+     *            the table name, optionally qualified with a schema; must be a plain identifier
+     * @param columns
+     *            the column names; must be plain identifiers
+     * @param rows
+     *            the rows to insert
+     *
+     * @return the number of inserted rows
+     */
+    public long bulkInsert(String table, List<String> columns, Iterable<?> rows) {
+        Assert.notNull(rows, "rows must not be null");
+        ClioneSqlExecution execution = new ClioneSqlExecution(ClioneSqlExecution.INLINE_SQL,
+                ClioneSqlExecution.BULK_INSERT);
+        Connection con = getConnection(execution);
+        long count;
+        try {
+            count = observe(execution, () -> {
+                try {
+                    return new BulkInserter(con, databaseProfile(con), table, columns,
+                            properties.getBulkInsertBatchSize(), this::parameters).insert(rows.iterator());
+                } catch (SQLException ex) {
+                    throw new SQLRuntimeException(ex);
+                }
+            });
+        } finally {
             DataSourceUtils.releaseConnection(con, this.dataSource);
         }
+        invalidateTables(table);
+        return count;
     }
 
     /**
-     * Creates a new {@link SQLManager} instance with a connection obtained from the Spring-managed data source.
+     * Creates a loader that batches lookups of rows by key into {@code IN}-list queries of the SQL file.
+     *
+     * <p>
+     * The SQL file takes the keys of a batch as the list parameter {@code keysParameter}, e.g.
+     * {@code SELECT * FROM person WHERE id IN /&#42; ids &#42;/(1, 2)}, and is run through
+     * {@link #queryForList(String, Map)}. Rows are matched to keys with {@code keyOf}, so it must return keys equal to
+     * the loaded ones, e.g. of the same numeric type.
      *
-     * @return a new {@link SQLManager} bound to the current transaction's connection
+     * @param sqlPath
+     *            the classpath-relative path to the SQL file
+     * @param keysParameter
+     *            the name of the list parameter of the SQL file
+     * @param keyOf
+     *            returns the key of a row, e.g. {@code row -> row.get("ID")}
+     * @param <K>
+     *            the key type
+     *
+     * @return a new loader, to be used for one request or unit of work
+     *
+     * @see ClioneSqlBatchLoader
      */
-    private SQLManager createSQLManager() {
-        return createSQLManager(DataSourceUtils.getConnection(this.dataSource));
+    public <K> ClioneSqlBatchLoader<K, ResultMap> batchLoader(String sqlPath, String keysParameter,
+            Function<ResultMap, ? extends K> keyOf) {
+        return new ClioneSqlBatchLoader<>(keysParameter, params -> queryForList(sqlPath, params), keyOf,
+                this::batchLoaderMaxBatchSize);
     }
 
     /**
-     * Creates a new {@link SQLManager} instance bound to the given connection.
+     * Creates a loader that batches lookups of rows by key into {@code IN}-list queries of the SQL file and maps the
+     * rows to the given record or JavaBean type.
      *
-     * @param con
-     *            the connection to bind
+     * @param sqlPath
+     *            the classpath-relative path to the SQL file
+     * @param keysParameter
+     *            the name of the list parameter of the SQL file
+     * @param type
+     *            the record or JavaBean type to map the rows to
+     * @param keyOf
+     *            returns the key of a mapped row, e.g. {@code Person::id}
+     * @param <K>
+     *            the key type
+     * @param <T>
+     *            the target type
      *
-     * @return a new {@link SQLManager}
+     * @return a new loader, to be used for one request or unit of work
+     *
+     * @see #batchLoader(String, String, Function)
+     * @see #queryForList(String, Map, Class)
      */
-    private SQLManager createSQLManager(Connection con) {
-        String productName = properties.getProductName();
-        if (productName != null) {
-            return SQLManager.sqlManager(con, productName);
-        }
-        return SQLManager.sqlManager(con);
+    public <K, T> ClioneSqlBatchLoader<K, T> batchLoader(String sqlPath, String keysParameter, Class<T> type,
+            Function<? super T, ? extends K> keyOf) {
+        Assert.notNull(type, "type must not be null");
+        return new ClioneSqlBatchLoader<>(keysParameter, params -> queryForList(sqlPath, params, type), keyOf,
+                this::batchLoaderMaxBatchSize);
     }
 
-    private String resolveSqlPath(String sqlPath) {
-        String prefix = normalizePath(properties.getSqlFilePrefix());
-        String path = normalizePath(sqlPath);
-        if (prefix == null || path == null || path.startsWith(prefix + "/") || path.equals(prefix)) {
-            return path;
-        }
-        return prefix + "/" + path;
+    private int batchLoaderMaxBatchSize() {
+        return Math.min(properties.getBatchLoaderMaxBatchSize(), getDatabaseProfile().getMaxInListSize());
     }
 
-    private String normalizePath(String path) {
-        if (path == null) {
-            return null;
-        }
-        String normalized = path.trim();
-        if (normalized.isEmpty()) {
-            return null;
-        }
-        int start = 0;
-        int end = normalized.length();
-        while (start < end && normalized.charAt(start) == '/') {
-            start++;
-        }
-        while (end > start && normalized.charAt(end - 1) == '/') {
-            end--;
-        }
-        return normalized.substring(start, end);
+    /**
+     * Executes the SQL file and returns its rows as a lazily populated {@link Stream}, using the fetch size hint of the
+     * SQL file or else the default fetch size ({@link ClioneSqlProperties#getStreamFetchSize()}).
+     *
+     * @param sqlPath
+     *            the classpath-relative path to the SQL file
+     *
+     * @return a stream of rows that must be closed after use
+     *
+     * @see #stream(String, Map, int)
+     */
+    public Stream<ResultMap> stream(String sqlPath) {
+        return openStream(sqlPath, null, ex -> ex.each(), null);
+    }
+
+    /**
+     * Executes the SQL file with the given parameters and returns its rows as a lazily populated {@link Stream}, using
+     * the fetch size hint of the SQL file or else the default fetch size
+     * ({@link ClioneSqlProperties#getStreamFetchSize()}).
+     *
+     * @param sqlPath
+     *            the classpath-relative path to the SQL file
+     * @param params
+     *            the named parameters (e.g. created via {@link SQLManager#params(String, Object)})
+     *
+     * @return a stream of rows that must be closed after use
+     *
+     * @see #stream(String, Map, int)
+     */
+    public Stream<ResultMap> stream(String sqlPath, Map<String, Object> params) {
+        return openStream(sqlPath, params, ex -> ex.each(params), null);
+    }
+
+    /**
+     * Executes the SQL file with the given parameters and returns its rows as a lazily populated {@link Stream}.
+     *
+     * <p>
+     * Rows are read from the open {@code ResultSet} one at a time through {@link SQLExecutor#each(Map)}, so memory use
+     * does not grow with the size of the result. The statement and the connection stay open until the stream is closed;
+     * closing it releases the connection the same way as {@link #execute(String, Function)}. Always close the stream,
+     * preferably with a try-with-resources block:
+     *
+     * <pre>
+     * try (Stream&lt;ResultMap&gt; rows = clioneSqlTemplate.stream("report/SelectAll.sql", params, 500)) {
+     *     rows.forEach(writer::write);
+     * }
+     * </pre>
+     *
+     * <p>
+     * Some drivers only honor the fetch size under specific conditions; PostgreSQL, for example, reads the whole result
+     * unless the connection is not in auto-commit mode (i.e. inside a transaction).
+     *
+     * @param sqlPath
+     *            the classpath-relative path to the SQL file
+     * @param params
+     *            the named parameters (e.g. created via {@link SQLManager#params(String, Object)})
+     * @param fetchSize
+     *            the JDBC fetch size hint, or {@code 0} to use the driver default
+     *
+     * @return a stream of rows that must be closed after use
+     */
+    public Stream<ResultMap> stream(String sqlPath, Map<String, Object> params, int fetchSize) {
+        return openStream(sqlPath, params, ex -> ex.each(params), fetchSize);
+    }
+
+    /**
+     * Executes the SQL file with the given parameters and passes each row to {@code action} as it is read, releasing
+     * the connection afterward.
+     *
+     * <p>
+     * This is a callback-style variant of {@link #stream(String, Map)} that takes care of closing the stream.
+     *
+     * @param sqlPath
+     *            the classpath-relative path to the SQL file
+     * @param params
+     *            the named parameters (e.g. created via {@link SQLManager#params(String, Object)})
+     * @param action
+     *            the callback invoked for each row
+     */
+    public void each(String sqlPath, Map<String, Object> params, Consumer<? super ResultMap> action) {
+        try (Stream<ResultMap> rows = stream(sqlPath, params)) {
+            rows.forEach(action);
+        }
+    }
+
+    /**
+     * Runs the callback with a {@link ClioneSqlSession} that executes all its statements on one connection and one
+     * {@link SQLManager}, releasing the connection once the callback returns.
+     *
+     * <p>
+     * Each {@code query}/{@code update} helper of this template obtains and releases a connection. Outside a
+     * Spring-managed transaction that means one pool checkout per statement; a session checks the connection out once
+     * for the whole callback. Within a transaction the session uses the transaction's connection.
+     *
+     * <pre>
+     * Report report = clioneSqlTemplate.inSession(session -&gt; {
+     *     ResultMap header = session.query("report/SelectHeader.sql", params);
+     *     List&lt;ResultMap&gt; lines = session.queryForList("report/SelectLines.sql", params);
+     *     return new Report(header, lines);
+     * });
+     * </pre>
+     *
+     * @param callback
+     *            the work to run with the session; the session must not be used after it returns
+     * @param <R>
+     *            the result type produced by {@code callback}
+     *
+     * @return the result of the callback
+     */
+    public <R> R inSession(Function<? super ClioneSqlSession, R> callback) {
+        Connection con = getConnection(new ClioneSqlExecution(ClioneSqlExecution.NO_SQL, ClioneSqlExecution.SESSION));
+        ClioneSqlSession session;
+        try {
+            session = new ClioneSqlSession(this, con);
+        } catch (RuntimeException | Error ex) {
+            DataSourceUtils.releaseConnection(con, this.dataSource);
+            throw ex;
+        }
+        try {
+            return callback.apply(session);
+        } finally {
+            session.close();
+        }
+    }
+
+    /**
+     * Asynchronously executes the SQL file and returns the first row.
+     *
+     * <p>
+     * All {@code *Async} methods run on the {@link #setAsyncExecutor(Executor) async executor}, at most
+     * {@link #setAsyncConcurrencyLimit(int) asyncConcurrencyLimit} at a time. They obtain their own connection and do
+     * not take part in a transaction of the calling thread. Failures complete the returned future exceptionally with
+     * the exception the synchronous method would have thrown.
+     *
+     * @param sqlPath
+     *            the classpath-relative path to the SQL file
+     *
+     * @return a future completed with the first row, or {@code null} if no rows match
+     */
+    public CompletableFuture<ResultMap> queryAsync(String sqlPath) {
+        return supplyAsync(() -> query(sqlPath));
+    }
+
+    /**
+     * Asynchronously executes the SQL file with the given parameters and returns the first row.
+     *
+     * @param sqlPath
+     *            the classpath-relative path to the SQL file
+     * @param params
+     *            the named parameters (e.g. created via {@link SQLManager#params(String, Object)})
+     *
+     * @return a future completed with the first row, or {@code null} if no rows match
+     *
+     * @see #queryAsync(String)
+     */
+    public CompletableFuture<ResultMap> queryAsync(String sqlPath, Map<String, Object> params) {
+        return supplyAsync(() -> query(sqlPath, params));
+    }
+
+    /**
+     * Asynchronously executes the SQL file with the given parameters and maps the first row to {@code type}.
+     *
+     * @param sqlPath
+     *            the classpath-relative path to the SQL file
+     * @param params
+     *            the named parameters (e.g. created via {@link SQLManager#params(String, Object)})
+     * @param type
+     *            the record or JavaBean class to map the row to
+     * @param <T>
+     *            the target type
+     *
+     * @return a future completed with the mapped first row, or {@code null} if no rows match
+     *
+     * @see #query(String, Map, Class)
+     * @see #queryAsync(String)
+     */
+    public <T> CompletableFuture<T> queryAsync(String sqlPath, Map<String, Object> params, Class<T> type) {
+        return supplyAsync(() -> query(sqlPath, params, type));
+    }
+
+    /**
+     * Asynchronously executes the SQL file and returns all rows.
+     *
+     * @param sqlPath
+     *            the classpath-relative path to the SQL file
+     *
+     * @return a future completed with the rows
+     *
+     * @see #queryAsync(String)
+     */
+    public CompletableFuture<List<ResultMap>> queryForListAsync(String sqlPath) {
+        return supplyAsync(() -> queryForList(sqlPath));
+    }
+
+    /**
+     * Asynchronously executes the SQL file with the given parameters and returns all rows.
+     *
+     * @param sqlPath
+     *            the classpath-relative path to the SQL file
+     * @param params
+     *            the named parameters (e.g. created via {@link SQLManager#params(String, Object)})
+     *
+     * @return a future completed with the rows
+     *
+     * @see #queryAsync(String)
+     */
+    public CompletableFuture<List<ResultMap>> queryForListAsync(String sqlPath, Map<String, Object> params) {
+        return supplyAsync(() -> queryForList(sqlPath, params));
+    }
+
+    /**
+     * Asynchronously executes the SQL file with the given parameters and maps every row to {@code type}.
+     *
+     * @param sqlPath
+     *            the classpath-relative path to the SQL file
+     * @param params
+     *            the named parameters (e.g. created via {@link SQLManager#params(String, Object)})
+     * @param type
+     *            the record or JavaBean class to map the rows to
+     * @param <T>
+     *            the target type
+     *
+     * @return a future completed with the mapped rows
+     *
+     * @see #queryForList(String, Map, Class)
+     * @see #queryAsync(String)
+     */
+    public <T> CompletableFuture<List<T>> queryForListAsync(String sqlPath, Map<String, Object> params, Class<T> type) {
+        return supplyAsync(() -> queryForList(sqlPath, params, type));
+    }
+
+    /**
+     * Asynchronously executes the SQL file as an update (INSERT/UPDATE/DELETE).
+     *
+     * @param sqlPath
+     *            the classpath-relative path to the SQL file
+     *
+     * @return a future completed with the number of affected rows
+     *
+     * @see #queryAsync(String)
+     */
+    public CompletableFuture<Integer> updateAsync(String sqlPath) {
+        return supplyAsync(() -> update(sqlPath));
+    }
+
+    /**
+     * Asynchronously executes the SQL file as an update (INSERT/UPDATE/DELETE) with the given parameters.
+     *
+     * @param sqlPath
+     *            the classpath-relative path to the SQL file
+     * @param params
+     *            the named parameters (e.g. created via {@link SQLManager#params(String, Object)})
+     *
+     * @return a future completed with the number of affected rows
+     *
+     * @see #queryAsync(String)
+     */
+    public CompletableFuture<Integer> updateAsync(String sqlPath, Map<String, Object> params) {
+        return supplyAsync(() -> update(sqlPath, params));
+    }
+
+    /**
+     * Runs {@code action} on the async executor once a permit of the async concurrency limit is free.
+     */
+    private <T> CompletableFuture<T> supplyAsync(Supplier<T> action) {
+        Semaphore permits = this.asyncPermits;
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                permits.acquire();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new TransientDataAccessResourceException("Interrupted while waiting for a free connection", ex);
+            }
+            try {
+                return action.get();
+            } finally {
+                permits.release();
+            }
+        }, asyncExecutor());
+    }
+
+    private Executor asyncExecutor() {
+        Executor executor = this.asyncExecutor;
+        if (executor == null) {
+            synchronized (this) {
+                executor = this.asyncExecutor;
+                if (executor == null) {
+                    executor = AsyncExecutors.create(this.asyncConcurrencyLimit);
+                    this.asyncExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * Opens a {@link SQLExecutor} on a connection whose statements use the SQL file's hints and the given fetch size
+     * ({@code null} for the hinted or default fetch size) and exposes its row iterator as a {@link Stream} that
+     * releases the statement and the connection when closed.
+     */
+    private Stream<ResultMap> openStream(String sqlPath, Map<String, Object> params,
+            Function<SQLExecutor, Iterable<ResultMap>> each, Integer fetchSize) {
+        String path = resolveSqlPath(sqlPath);
+        ClioneSqlExecution execution = ClioneSqlExecution.of(path, ClioneSqlExecution.EACH, params);
+        Connection con = getConnection(execution);
+        SQLManager manager = null;
+        try {
+            String productName = databaseProfile(con).getClioneProductName();
+            StatementHints hints = statementHints(path, productName);
+            int streamFetchSize = fetchSize != null ? fetchSize
+                    : hints.getFetchSize() != null ? hints.getFetchSize() : properties.getStreamFetchSize();
+            SQLManager opened = createSQLManager(StatementCustomizingConnection.wrap(hints.wrap(con),
+                    statement -> statement.setFetchSize(streamFetchSize)));
+            manager = opened;
+            if (executionListener == NO_LISTENER) {
+                Iterator<ResultMap> rows = each.apply(openFile(opened, productName, path)).iterator();
+                return stream(rows).onClose(() -> release(opened, con));
+            }
+            ObservingIterator<ResultMap> rows = new ObservingIterator<>(execution, executionListener,
+                    () -> each.apply(openFile(opened, productName, path)).iterator());
+            return stream(rows).onClose(() -> {
+                try {
+                    rows.close();
+                } finally {
+                    release(opened, con);
+                }
+            });
+        } catch (RuntimeException | Error ex) {
+            release(manager, con);
+            throw ex;
+        }
+    }
+
+    /**
+     * Executes the SQL file and maps up to {@code maxRows} rows ({@code 0} for all) straight from the {@code ResultSet}
+     * with the compiled mapper for the SQL file and {@code type}.
+     */
+    private <T> List<T> queryForObjects(String sqlPath, Map<String, Object> params, Class<T> type, String operation,
+            int maxRows) {
+        Assert.notNull(type, "type must not be null");
+        String path = resolveSqlPath(sqlPath);
+        CompiledRowMapper<T> mapper = rowMapper(path, type);
+        return cached(path, operation, params, type, () -> {
+            List<T> rows = maxRows == 0 && resultSizes != null ? new ArrayList<>(resultSizes.initialCapacity(path))
+                    : new ArrayList<>();
+            return executeInternal(ClioneSqlExecution.of(path, operation, params),
+                    con -> ResultSetInterceptingConnection.wrap(con, rs -> {
+                        mapper.extract(rs, maxRows, rows);
+                        return true;
+                    }), ex -> {
+                        ex.findAll(params);
+                        return rows;
+                    });
+        });
+    }
+
+    /**
+     * Returns the result of {@code loader} through the query result cache if the SQL file is cached, and shares one run
+     * of {@code loader} between concurrent identical calls if the SQL file is coalesced; otherwise runs {@code loader}
+     * directly.
+     */
+    private <T> T cached(String sqlPath, String operation, Map<String, Object> params, Class<?> type,
+            Supplier<T> loader) {
+        if (queryCache.isEmpty() && coalescer.isEmpty()) {
+            return loader.get();
+        }
+        String path = resolveSqlPath(sqlPath);
+        QueryResultCache.Region region = queryCache.isEmpty() ? null : queryCache.region(path);
+        QueryCoalescer.Flights flights = coalescer.isEmpty() ? null : coalescer.flights(path);
+        if (region == null && flights == null) {
+            return loader.get();
+        }
+        QueryResultCache.Key key = QueryResultCache.Key.of(operation, params, type);
+        Supplier<T> load = flights != null ? () -> flights.execute(key, executionListener, loader) : loader;
+        return region != null ? region.get(key, executionListener, load) : load.get();
+    }
+
+    /**
+     * Invalidates the cached results of the tables declared for an SQL file that was just executed as an update.
+     */
+    void afterUpdate(String sqlPath) {
+        if (!queryCache.isEmpty()) {
+            queryCache.invalidate(queryCache.tables(resolveSqlPath(sqlPath)));
+        }
+    }
+
+    /**
+     * Returns the parameters of {@code params} as a map: a map as is, or a view of the components or properties of a
+     * record or JavaBean, whose accessors are bound on first use of its type.
+     *
+     * @throws IllegalArgumentException
+     *             if {@code params} is a {@link Class}, a primitive wrapper, a {@link CharSequence}, an enum or an
+     *             array, which have no parameter properties; a {@code Class} usually means that a target type was
+     *             passed without parameters
+     */
+    @SuppressWarnings("unchecked")
+    Map<String, Object> parameters(Object params) {
+        if (params == null || params instanceof Map) {
+            return (Map<String, Object>) params;
+        }
+        if (params instanceof Class<?> type) {
+            throw new IllegalArgumentException("Parameters must be a record, JavaBean or Map, not the class "
+                    + type.getName() + "; to map rows to it, use query(sqlPath, params, " + type.getSimpleName()
+                    + ".class) or queryForList(sqlPath, params, " + type.getSimpleName() + ".class)");
+        }
+        if (ClassUtils.isPrimitiveOrWrapper(params.getClass()) || params instanceof CharSequence
+                || params instanceof Enum || params.getClass().isArray()) {
+            throw new IllegalArgumentException("Parameters must be a record, JavaBean or Map, not "
+                    + params.getClass().getName() + "; bind single values with SQLManager.params(name, value)");
+        }
+        return beanParameters.computeIfAbsent(params.getClass(), BeanParameters::of).view(params);
+    }
+
+    /**
+     * Returns the compiled row mapper for the resolved SQL path and target type, creating it on first use.
+     */
+    @SuppressWarnings("unchecked")
+    <T> CompiledRowMapper<T> rowMapper(String path, Class<T> type) {
+        return (CompiledRowMapper<T>) rowMappers.computeIfAbsent(new RowMapperKey(path, type),
+                key -> CompiledRowMapper.of(type));
+    }
+
+    private static Stream<ResultMap> stream(Iterator<ResultMap> rows) {
+        return StreamSupport
+                .stream(Spliterators.spliteratorUnknownSize(rows, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Runs the given action against the SQL file with a freshly created {@link SQLManager}, ensuring the statement is
+     * closed and the connection is released in a {@code finally} block.
+     *
+     * @param sqlPath
+     *            the classpath-relative path to the SQL file
+     * @param operation
+     *            the operation reported to the execution listener
+     * @param params
+     *            the named parameters {@code action} binds, or {@code null}; fingerprinted for the execution listener
+     * @param action
+     *            the action to apply to the opened {@link SQLExecutor}
+     * @param <R>
+     *            the result type produced by {@code action}
+     *
+     * @return the result of applying {@code action}
+     */
+    private <R> R executeInternal(String sqlPath, String operation, Map<String, Object> params,
+            Function<SQLExecutor, R> action) {
+        return executeInternal(ClioneSqlExecution.of(resolveSqlPath(sqlPath), operation, params),
+                UnaryOperator.identity(), action);
+    }
+
+    /**
+     * Runs the given action against the SQL file at the already resolved path of {@code execution}, applying the file's
+     * {@link StatementHints} and passing the connection through {@code decorator} before binding it to the
+     * {@link SQLManager}.
+     */
+    private <R> R executeInternal(ClioneSqlExecution execution, UnaryOperator<Connection> decorator,
+            Function<SQLExecutor, R> action) {
+        return executeInternal(execution, decorator,
+                (manager, profile) -> openFile(manager, profile.getClioneProductName(), execution.sqlPath()), action);
+    }
+
+    /**
+     * Runs the given action against the {@link SQLExecutor} created by {@code opener} from the manager and the database
+     * profile, e.g. for a rewritten SQL template of the file at the resolved path of {@code execution}.
+     */
+    private <R> R executeInternal(ClioneSqlExecution execution, UnaryOperator<Connection> decorator,
+            BiFunction<SQLManager, DatabaseProfile, SQLExecutor> opener, Function<SQLExecutor, R> action) {
+        String path = execution.sqlPath();
+        Connection con = getConnection(execution);
+        boolean adaptive = resultSizes != null && ClioneSqlExecution.FIND_ALL.equals(execution.operation());
+        R result;
+        try {
+            DatabaseProfile profile = databaseProfile(con);
+            int learnedFetchSize = adaptive ? resultSizes.fetchSize(path) : 0;
+            StatementHints hints = statementHints(path, profile.getClioneProductName())
+                    .withDefaultFetchSize(learnedFetchSize > 0 ? learnedFetchSize : profile.getRecommendedFetchSize());
+            StatementCache statementCache = transactionStatementCache();
+            SQLManager manager = createSQLManager(
+                    decorator.apply(hints.wrap(statementCache != null ? statementCache.wrap(con) : con)));
+            try {
+                result = observe(execution, () -> action.apply(opener.apply(manager, profile)));
+            } finally {
+                manager.closeStatement();
+            }
+        } finally {
+            DataSourceUtils.releaseConnection(con, this.dataSource);
+        }
+        if (adaptive) {
+            resultSizes.record(path, rowCount(result));
+        }
+        return result;
+    }
+
+    /**
+     * Runs {@code action} and reports its outcome, elapsed time and row count to the execution listener.
+     */
+    <R> R observe(ClioneSqlExecution execution, Supplier<R> action) {
+        long start = System.nanoTime();
+        R result;
+        try {
+            result = action.get();
+        } catch (RuntimeException ex) {
+            executionListener.executionFailed(execution, System.nanoTime() - start, ex);
+            throw ex;
+        }
+        executionListener.executionSucceeded(execution, System.nanoTime() - start, rowCount(result));
+        return result;
+    }
+
+    /**
+     * Returns the number of rows represented by an execution result: the size of a list, {@code 1} for a single row,
+     * {@code 0} for {@code null}, the value of an update count, or the sum of batch update counts (counting
+     * {@link java.sql.Statement#SUCCESS_NO_INFO} as one row). Returns {@code -1} for any other result.
+     */
+    static long rowCount(Object result) {
+        if (result == null) {
+            return 0;
+        }
+        if (result instanceof Collection<?> rows) {
+            return rows.size();
+        }
+        if (result instanceof Map<?, ?>) {
+            return 1;
+        }
+        if (result instanceof Number count) {
+            return count.longValue();
+        }
+        if (result instanceof int[] counts) {
+            long sum = 0;
+            for (int count : counts) {
+                sum += batchRowCount(count);
+            }
+            return sum;
+        }
+        if (result instanceof long[] counts) {
+            long sum = 0;
+            for (long count : counts) {
+                sum += batchRowCount(count);
+            }
+            return sum;
+        }
+        return -1;
+    }
+
+    private static long batchRowCount(long count) {
+        if (count == Statement.SUCCESS_NO_INFO) {
+            return 1;
+        }
+        return Math.max(count, 0);
+    }
+
+    /**
+     * Returns the statement cache of the current transaction, or {@code null} if the cache is disabled or no
+     * transaction synchronization is active.
+     */
+    StatementCache transactionStatementCache() {
+        int size = properties.getStatementCacheSize();
+        return size > 0 ? StatementCache.forTransaction(statementCacheKey, size) : null;
+    }
+
+    /**
+     * Returns a statement cache for a session outside a transaction, or {@code null} if the cache is disabled or a
+     * transaction synchronization is active (in which case the transaction's cache applies).
+     */
+    StatementCache sessionStatementCache() {
+        int size = properties.getStatementCacheSize();
+        if (size <= 0 || TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        return new StatementCache(size);
+    }
+
+    /**
+     * Obtains a connection via {@link DataSourceUtils#getConnection(DataSource)}, reporting the time spent to the
+     * execution listener.
+     */
+    Connection getConnection(ClioneSqlExecution execution) {
+        if (executionListener == NO_LISTENER) {
+            return DataSourceUtils.getConnection(this.dataSource);
+        }
+        long start = System.nanoTime();
+        try {
+            Connection con = DataSourceUtils.getConnection(this.dataSource);
+            executionListener.connectionAcquired(execution, System.nanoTime() - start);
+            return con;
+        } catch (RuntimeException ex) {
+            executionListener.executionFailed(execution, System.nanoTime() - start, ex);
+            throw ex;
+        }
+    }
+
+    /**
+     * Closes the statement held by {@code manager}, if any, and releases {@code con} via
+     * {@link DataSourceUtils#releaseConnection(Connection, DataSource)}, even if closing the statement fails.
+     */
+    void release(SQLManager manager, Connection con) {
+        try {
+            if (manager != null) {
+                manager.closeStatement();
+            }
+        } finally {
+            DataSourceUtils.releaseConnection(con, this.dataSource);
+        }
+    }
+
+    /**
+     * Creates a new {@link SQLManager} instance bound to a connection obtained from the Spring-managed data source.
+     * When an execution listener is set, the connection reports every statement execution for {@code sqlPath} to it.
+     */
+    private SQLManager createSQLManager(String sqlPath, Connection con, long acquireNanos) {
+        if (executionListener == NO_LISTENER) {
+            return createSQLManager(con);
+        }
+        return createSQLManager(ExecutionObservingConnection.wrap(con, sqlPath, executionListener, acquireNanos));
+    }
+
+    /**
+     * Opens a {@link SQLExecutor} for the legacy {@code useFile}/{@code useSQL} API, which leaves the connection to the
+     * caller. The connection is released right away if the executor cannot be opened. With a
+     * {@link ConnectionLeakTracker}, a connection that is not bound to a transaction is registered with it.
+     *
+     * @param sqlPath
+     *            the SQL path reported to the execution listener and the tracker
+     * @param opener
+     *            opens the executor on a new manager, given the clione-sql product name of the database
+     *
+     * @return the executor
+     */
+    private SQLExecutor openExecutor(String sqlPath, BiFunction<SQLManager, String, SQLExecutor> opener) {
+        ConnectionLeakTracker tracker = this.connectionLeakTracker;
+        long start = System.nanoTime();
+        Connection con = DataSourceUtils.getConnection(this.dataSource);
+        SQLExecutor executor;
+        try {
+            SQLManager manager = createSQLManager(sqlPath, con, System.nanoTime() - start);
+            executor = opener.apply(manager, databaseProfile(con).getClioneProductName());
+        } catch (RuntimeException | Error ex) {
+            DataSourceUtils.releaseConnection(con, this.dataSource);
+            throw ex;
+        }
+        if (tracker != null && !DataSourceUtils.isConnectionTransactional(con, this.dataSource)) {
+            tracker.track(executor, con, sqlPath, () -> DataSourceUtils.releaseConnection(con, this.dataSource));
+        }
+        return executor;
+    }
+
+    /**
+     * Creates a new {@link SQLManager} instance bound to the given connection, with the product name of the
+     * {@link DatabaseProfile} so that clione-sql does not read the connection metadata.
+     *
+     * @param con
+     *            the connection to bind
+     *
+     * @return a new {@link SQLManager}
+     */
+    SQLManager createSQLManager(Connection con) {
+        return SQLManager.sqlManager(con, databaseProfile(con).getClioneProductName());
+    }
+
+    /**
+     * Returns the profile of the database, reading it from the metadata of {@code con} if it is not known yet.
+     *
+     * @param con
+     *            a connection of the template's data source
+     *
+     * @return the database profile
+     */
+    DatabaseProfile databaseProfile(Connection con) {
+        DatabaseProfile profile = this.databaseProfile;
+        if (profile == null) {
+            try {
+                profile = DatabaseProfile.detect(con, properties.getProductName());
+            } catch (SQLException ex) {
+                throw new SQLRuntimeException(ex);
+            }
+            this.databaseProfile = profile;
+        }
+        return profile;
+    }
+
+    /**
+     * Opens the SQL file at the resolved {@code path} on the given manager. In development mode the file is read
+     * through the template's {@link SqlFileLoader}; otherwise clione-sql loads and caches it, from the
+     * {@link SqlBundle} if one is on the classpath.
+     *
+     * @param manager
+     *            the manager to open the file on
+     * @param productName
+     *            the clione-sql product name of the database, which selects the dialect variant of the file
+     * @param path
+     *            the resolved classpath path of the SQL file
+     *
+     * @return a {@link SQLExecutor} for the file
+     *
+     * @see DatabaseProfile#getClioneProductName()
+     */
+    SQLExecutor openFile(SQLManager manager, String productName, String path) {
+        if (sqlFileLoader != null) {
+            return manager.useSQL(sqlFileLoader.load(path, productName));
+        }
+        return withSqlBundle(() -> manager.useFile(path));
+    }
+
+    /**
+     * Opens the SQL file at the resolved {@code path} the way executions do, without executing it, so that its template
+     * and statement hints are cached before first use.
+     *
+     * @param path
+     *            the resolved classpath path of the SQL file
+     *
+     * @throws tetz42.clione.exception.ClioneFormatException
+     *             if the file has a 2Way SQL syntax error
+     */
+    void preloadSqlFile(String path) {
+        String productName = getDatabaseProfile().getClioneProductName();
+        openFile(productName != null ? SQLManager.sqlManager(productName) : SQLManager.sqlManager(), productName, path);
+        statementHints(path, productName);
+    }
+
+    /**
+     * Runs {@code loader} with the {@link SqlBundle} class loader as the thread context class loader, which clione-sql
+     * uses to look up SQL files.
+     */
+    private SQLExecutor withSqlBundle(Supplier<SQLExecutor> loader) {
+        if (sqlBundleClassLoader == null) {
+            return loader.get();
+        }
+        Thread thread = Thread.currentThread();
+        ClassLoader original = thread.getContextClassLoader();
+        thread.setContextClassLoader(sqlBundleClassLoader);
+        try {
+            return loader.get();
+        } finally {
+            thread.setContextClassLoader(original);
+        }
+    }
+
+    /**
+     * Returns the statement hints of the SQL file at the resolved {@code path}: the hints declared in its header,
+     * overridden by its {@link ClioneSqlProperties#getQueries() query settings}. The hints are read once per file,
+     * except in development mode, where they follow the reloaded text of the file.
+     *
+     * @param path
+     *            the resolved classpath path of the SQL file
+     * @param productName
+     *            the clione-sql product name of the database, which selects the dialect variant of the file
+     *
+     * @return the hints; {@link StatementHints#NONE} if none are set or the file does not exist
+     */
+    StatementHints statementHints(String path, String productName) {
+        if (path == null) {
+            return StatementHints.NONE;
+        }
+        if (sqlFileLoader != null) {
+            return readStatementHints(path, productName);
+        }
+        return statementHints.computeIfAbsent(path, key -> readStatementHints(key, productName));
+    }
+
+    private StatementHints readStatementHints(String path, String productName) {
+        String sql;
+        try {
+            sql = sqlFileLoader != null ? sqlFileLoader.load(path, productName) : readSqlFile(path, productName);
+        } catch (SQLFileNotFoundException ex) {
+            sql = null;
+        }
+        StatementHints hints = sql != null ? StatementHints.parse(path, sql) : StatementHints.NONE;
+        return hints.override(queriesByPath.get(path));
+    }
+
+    /**
+     * Returns the template text of the SQL file at the resolved {@code path}, for rewriting it. Outside development
+     * mode the text is read once per file.
+     *
+     * @throws SQLFileNotFoundException
+     *             if the file does not exist
+     */
+    private String sqlText(String path, String productName) {
+        if (sqlFileLoader != null) {
+            return sqlFileLoader.load(path, productName);
+        }
+        String sql = sqlTexts.computeIfAbsent(path, key -> readSqlFile(key, productName));
+        if (sql == null) {
+            throw new SQLFileNotFoundException(path);
+        }
+        return sql;
+    }
+
+    /**
+     * Reads an SQL file the way clione-sql finds it: from the {@link SqlBundle} if one is on the classpath, preferring
+     * the dialect variant of the given product name.
+     */
+    private String readSqlFile(String path, String productName) {
+        ClassLoader classLoader = sqlBundleClassLoader != null ? sqlBundleClassLoader
+                : ClassUtils.getDefaultClassLoader();
+        try (InputStream in = SqlFileLoader.open(classLoader, path, productName)) {
+            return in != null ? new String(in.readAllBytes(), Charset.forName(properties.getSqlFileEncoding())) : null;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to read SQL file " + path, ex);
+        }
+    }
+
+    private static ClassLoader loadSqlBundle() {
+        ClassLoader classLoader = ClassUtils.getDefaultClassLoader();
+        SqlBundle bundle = SqlBundle.load(classLoader);
+        return bundle != null ? bundle.getClassLoader(classLoader) : null;
+    }
+
+    /**
+     * Keeps SQL files under the given classpath root cached until {@link #reloadSqlFile(String) reloaded}. Has no
+     * effect unless development mode is enabled.
+     *
+     * @param rootUrl
+     *            the URL of a watched classpath directory
+     */
+    void watchSqlFiles(String rootUrl) {
+        if (sqlFileLoader != null) {
+            sqlFileLoader.watch(rootUrl);
+        }
+    }
+
+    /**
+     * Drops the cached text of a changed SQL file so that its next use reads it again. Has no effect unless development
+     * mode is enabled.
+     *
+     * @param path
+     *            the classpath path of the changed file
+     *
+     * @return {@code true} if a cached entry was dropped
+     */
+    boolean reloadSqlFile(String path) {
+        return sqlFileLoader != null && sqlFileLoader.invalidate(path) > 0;
+    }
+
+    /**
+     * Drops the cached text of every SQL file. Has no effect unless development mode is enabled.
+     */
+    void reloadAllSqlFiles() {
+        if (sqlFileLoader != null) {
+            sqlFileLoader.invalidateAll();
+        }
+    }
+
+    final String resolveSqlPath(String sqlPath) {
+        String prefix = normalizePath(properties.getSqlFilePrefix());
+        String path = normalizePath(sqlPath);
+        if (prefix == null || path == null || path.startsWith(prefix + "/") || path.equals(prefix)) {
+            return path;
+        }
+        return prefix + "/" + path;
+    }
+
+    static String normalizePath(String path) {
+        if (path == null) {
+            return null;
+        }
+        String normalized = path.trim();
+        if (normalized.isEmpty()) {
+            return null;
+        }
+        int start = 0;
+        int end = normalized.length();
+        while (start < end && normalized.charAt(start) == '/') {
+            start++;
+        }
+        while (end > start && normalized.charAt(end - 1) == '/') {
+            end--;
+        }
+        return normalized.substring(start, end);
+    }
+
+    /**
+     * Cache key of a compiled row mapper: column layouts differ between SQL files, so mappers are kept per file.
+     *
+     * @param sqlPath
+     *            the resolved SQL file path
+     * @param type
+     *            the target type
+     */
+    private record RowMapperKey(String sqlPath, Class<?> type) {
     }
 }
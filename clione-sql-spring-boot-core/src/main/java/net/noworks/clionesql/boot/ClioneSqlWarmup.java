@@ -0,0 +1,249 @@
+package net.noworks.clionesql.boot;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import tetz42.clione.SQLManager;
+import tetz42.clione.exception.ClioneFormatException;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * Pre-parses every SQL file under {@link ClioneSqlProperties#getSqlFilePrefix() sql-file-prefix} so that the template
+ * cache is populated before the application starts serving requests.
+ *
+ * <p>
+ * With a {@link ClioneSqlTemplate}, each {@code *.sql} file is opened the way the template opens it for execution:
+ * through its SQL bundle, or its reloading file loader in development mode, with the product name of its
+ * {@link DatabaseProfile} (which reads the connection metadata once if no product name is configured), so that the
+ * dialect variant the template uses is the one parsed and cached. Without a template, e.g. to validate templates at
+ * build time, each {@code *.sql} file is loaded through {@link SQLManager#useFile(String)} with the configured
+ * {@link ClioneSqlProperties#getProductName() product name}, and every dialect variant ({@code *.sql-<productName>}) is
+ * loaded once with its own product name. Files are parsed in parallel on a pool bounded by
+ * {@link ClioneSqlProperties.Warmup#getParallelism() parallelism}. The first {@link ClioneFormatException} aborts the
+ * warm-up and is rethrown, so that broken templates fail application startup instead of the first request.
+ *
+ * <p>
+ * The parse time of each file is logged at {@code DEBUG} level and the total warm-up time at {@code INFO} level.
+ *
+ * @see ClioneSqlProperties.Warmup
+ */
+public class ClioneSqlWarmup implements SmartInitializingSingleton {
+
+    private static final Log LOGGER = LogFactory.getLog(ClioneSqlWarmup.class);
+
+    private static final String SQL_SUFFIX = ".sql";
+
+    private static final String VARIANT_SEPARATOR = SQL_SUFFIX + "-";
+
+    private final ClioneSqlTemplate template;
+
+    private final ClioneSqlProperties properties;
+
+    private final ResourcePatternResolver resourcePatternResolver;
+
+    /**
+     * Creates a new {@code ClioneSqlWarmup} that scans the default class loader.
+     *
+     * @param properties
+     *            the clione-sql configuration properties
+     */
+    public ClioneSqlWarmup(ClioneSqlProperties properties) {
+        this(properties, new PathMatchingResourcePatternResolver());
+    }
+
+    /**
+     * Creates a new {@code ClioneSqlWarmup}.
+     *
+     * @param properties
+     *            the clione-sql configuration properties
+     * @param resourcePatternResolver
+     *            the resolver used to scan the classpath for SQL files
+     */
+    public ClioneSqlWarmup(ClioneSqlProperties properties, ResourcePatternResolver resourcePatternResolver) {
+        this(null, properties, resourcePatternResolver);
+    }
+
+    /**
+     * Creates a new {@code ClioneSqlWarmup} that populates the cache of the given template.
+     *
+     * @param template
+     *            the template whose SQL files are opened, or {@code null} to only parse them
+     * @param properties
+     *            the clione-sql configuration properties
+     * @param resourcePatternResolver
+     *            the resolver used to scan the classpath for SQL files
+     */
+    public ClioneSqlWarmup(ClioneSqlTemplate template, ClioneSqlProperties properties,
+            ResourcePatternResolver resourcePatternResolver) {
+        this.template = template;
+        this.properties = properties;
+        this.resourcePatternResolver = resourcePatternResolver;
+    }
+
+    /**
+     * Runs the warm-up once all singletons have been instantiated.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        warmUp();
+    }
+
+    /**
+     * Parses every SQL file under the configured prefix.
+     *
+     * @return the parse time of each file and the total warm-up time
+     *
+     * @throws ClioneFormatException
+     *             if any SQL file has a 2Way SQL syntax error
+     */
+    public Result warmUp() {
+        long start = System.nanoTime();
+        String prefix = ClioneSqlTemplate.normalizePath(properties.getSqlFilePrefix());
+        if (prefix == null) {
+            LOGGER.info("Skipping clione-sql warm-up because clione-sql.sql-file-prefix is not set");
+            return new Result(Collections.emptyMap(), Duration.ZERO);
+        }
+
+        Map<String, String> templates = findTemplates(prefix);
+        Map<String, Duration> parseTimes = parseAll(templates);
+        Duration total = Duration.ofNanos(System.nanoTime() - start);
+        if (LOGGER.isInfoEnabled()) {
+            LOGGER.info("Warmed up " + parseTimes.size() + " clione-sql templates under '" + prefix + "' in "
+                    + total.toMillis() + " ms");
+        }
+        return new Result(Collections.unmodifiableMap(parseTimes), total);
+    }
+
+    /**
+     * Finds SQL files under the given prefix.
+     *
+     * @return a map of file path (as reported in {@link Result#parseTimes()}) to the product name used to load it; with
+     *         a template, dialect variants are left to the template and only {@code *.sql} files are returned
+     */
+    private Map<String, String> findTemplates(String prefix) {
+        try {
+            List<String> roots = new ArrayList<>();
+            for (Resource root : resourcePatternResolver.getResources("classpath*:" + prefix + "/")) {
+                roots.add(root.getURL().toString());
+            }
+            Map<String, String> templates = new TreeMap<>();
+            for (Resource resource : resourcePatternResolver.getResources("classpath*:" + prefix + "/**/*.sql*")) {
+                String path = relativePath(prefix, roots, resource);
+                if (path == null) {
+                    continue;
+                }
+                if (path.endsWith(SQL_SUFFIX)) {
+                    templates.putIfAbsent(path, properties.getProductName());
+                } else if (template == null) {
+                    int index = path.lastIndexOf(VARIANT_SEPARATOR);
+                    if (index > 0) {
+                        templates.put(path, path.substring(index + VARIANT_SEPARATOR.length()));
+                    }
+                }
+            }
+            return templates;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to scan clione-sql templates under '" + prefix + "'", ex);
+        }
+    }
+
+    private static String relativePath(String prefix, List<String> roots, Resource resource) throws IOException {
+        if (!resource.isReadable()) {
+            return null;
+        }
+        String url = resource.getURL().toString();
+        for (String root : roots) {
+            if (url.startsWith(root)) {
+                String relative = url.substring(root.length());
+                return relative.startsWith("/") ? prefix + relative : prefix + "/" + relative;
+            }
+        }
+        return null;
+    }
+
+    private Map<String, Duration> parseAll(Map<String, String> templates) {
+        Map<String, Duration> parseTimes = new LinkedHashMap<>();
+        if (templates.isEmpty()) {
+            return parseTimes;
+        }
+        int threads = Math.max(1, Math.min(properties.getWarmup().getParallelism(), templates.size()));
+        ExecutorService executor = Executors.newFixedThreadPool(threads,
+                new CustomizableThreadFactory("clione-sql-warmup-"));
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        try {
+            CompletionService<Map.Entry<String, Duration>> completionService = new ExecutorCompletionService<>(
+                    executor);
+            templates.forEach((path, productName) -> completionService
+                    .submit(() -> Map.entry(path, parse(template, classLoader, path, productName))));
+            for (int i = 0; i < templates.size(); i++) {
+                Map.Entry<String, Duration> parsed = completionService.take().get();
+                parseTimes.put(parsed.getKey(), parsed.getValue());
+                if (LOGGER.isDebugEnabled()) {
+                    LOGGER.debug("Parsed clione-sql template '" + parsed.getKey() + "' in "
+                            + parsed.getValue().toNanos() / 1_000 + " us");
+                }
+            }
+            return parseTimes;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while warming up clione-sql templates", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException runtimeEx) {
+                throw runtimeEx;
+            }
+            throw new IllegalStateException("Failed to warm up clione-sql templates", ex.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Duration parse(ClioneSqlTemplate template, ClassLoader classLoader, String path,
+            String productName) {
+        Thread.currentThread().setContextClassLoader(classLoader);
+        if (template != null) {
+            long start = System.nanoTime();
+            template.preloadSqlFile(path);
+            return Duration.ofNanos(System.nanoTime() - start);
+        }
+        String sqlPath = path;
+        int variant = path.lastIndexOf(VARIANT_SEPARATOR);
+        if (variant > 0) {
+            sqlPath = path.substring(0, variant + SQL_SUFFIX.length());
+        }
+        long start = System.nanoTime();
+        SQLManager manager = productName != null ? SQLManager.sqlManager(productName) : SQLManager.sqlManager();
+        manager.useFile(sqlPath);
+        return Duration.ofNanos(System.nanoTime() - start);
+    }
+
+    /**
+     * Outcome of a warm-up run.
+     *
+     * @param parseTimes
+     *            the parse time of each SQL file, in completion order
+     * @param totalTime
+     *            the wall-clock time of the whole warm-up
+     */
+    public record Result(Map<String, Duration> parseTimes, Duration totalTime) {
+    }
+}
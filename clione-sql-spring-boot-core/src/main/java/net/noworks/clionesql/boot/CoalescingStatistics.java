@@ -0,0 +1,26 @@
+package net.noworks.clionesql.boot;
+
+/**
+ * Snapshot of the request coalescing statistics of one SQL file.
+ *
+ * @param executionCount
+ *            the number of calls that executed the SQL file
+ * @param coalescedCount
+ *            the number of calls that shared the result of an identical execution in flight instead
+ * @param inFlightCount
+ *            the number of executions currently in flight
+ *
+ * @see ClioneSqlTemplate#getCoalescingStatistics()
+ */
+public record CoalescingStatistics(long executionCount, long coalescedCount, int inFlightCount) {
+
+    /**
+     * Returns the ratio of coalesced calls to all calls.
+     *
+     * @return the coalesced ratio between {@code 0.0} and {@code 1.0}, or {@code 0.0} if there were no calls
+     */
+    public double coalescedRatio() {
+        long calls = executionCount + coalescedCount;
+        return calls == 0 ? 0.0 : (double) coalescedCount / calls;
+    }
+}
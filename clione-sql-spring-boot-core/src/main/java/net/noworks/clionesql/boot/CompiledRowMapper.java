@@ -0,0 +1,243 @@
+package net.noworks.clionesql.boot;
+
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.RecordComponent;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Maps JDBC rows directly into instances of a record or JavaBean type.
+ *
+ * <p>
+ * The target type is introspected once: a record is created through its canonical constructor, a bean through its
+ * no-argument constructor and property setters. Constructors and setters are bound as {@link MethodHandle}s, so no
+ * reflection is involved per row. Columns are matched to record components or bean properties by name, ignoring case
+ * and underscores (e.g. {@code FIRST_NAME} matches {@code firstName}). The resulting column indexes are cached with the
+ * column labels they were resolved from, and reused as long as later result sets have the same labels in the same
+ * order, so a 2Way {@code IF} block or a reloaded SQL file that changes the select list is bound again.
+ *
+ * <p>
+ * Column values are read with {@link JdbcUtils#getResultSetValue(ResultSet, int, Class)} and converted with the shared
+ * {@link DefaultConversionService} when the driver returns a different type. SQL {@code NULL} and unmatched record
+ * components become {@code null}, or the default value for primitives; unmatched bean properties are left untouched.
+ *
+ * <p>
+ * Instances are thread-safe.
+ *
+ * @param <T>
+ *            the target type
+ */
+final class CompiledRowMapper<T> {
+
+    private static final MethodType RECORD_CONSTRUCTOR_TYPE = MethodType.methodType(Object.class, Object[].class);
+
+    private static final MethodType BEAN_CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private final Class<T> type;
+
+    private final String[] names;
+
+    private final Class<?>[] types;
+
+    private final Object[] defaults;
+
+    private final MethodHandle constructor;
+
+    private final MethodHandle[] setters;
+
+    private volatile Binding binding;
+
+    private CompiledRowMapper(Class<T> type, String[] names, Class<?>[] types, MethodHandle constructor,
+            MethodHandle[] setters) {
+        this.type = type;
+        this.names = names;
+        this.types = types;
+        this.defaults = new Object[types.length];
+        for (int i = 0; i < types.length; i++) {
+            if (types[i].isPrimitive()) {
+                this.defaults[i] = Array.get(Array.newInstance(types[i], 1), 0);
+            }
+        }
+        this.constructor = constructor;
+        this.setters = setters;
+    }
+
+    /**
+     * Creates a mapper for the given record or JavaBean type.
+     *
+     * @param type
+     *            the target type; must be a record or have a no-argument constructor
+     * @param <T>
+     *            the target type
+     *
+     * @return a new mapper
+     *
+     * @throws IllegalArgumentException
+     *             if {@code type} is neither a record nor a class with a no-argument constructor
+     */
+    static <T> CompiledRowMapper<T> of(Class<T> type) {
+        try {
+            if (type.isRecord()) {
+                return forRecord(type);
+            }
+            return forBean(type);
+        } catch (NoSuchMethodException | IllegalAccessException ex) {
+            throw new IllegalArgumentException("Cannot map rows to " + type.getName()
+                    + ": a record or a class with a no-argument constructor " + "is required", ex);
+        }
+    }
+
+    private static <T> CompiledRowMapper<T> forRecord(Class<T> type)
+            throws NoSuchMethodException, IllegalAccessException {
+        RecordComponent[] components = type.getRecordComponents();
+        String[] names = new String[components.length];
+        Class<?>[] types = new Class<?>[components.length];
+        for (int i = 0; i < components.length; i++) {
+            names[i] = normalize(components[i].getName());
+            types[i] = components[i].getType();
+        }
+        Constructor<T> canonical = type.getDeclaredConstructor(types);
+        ReflectionUtils.makeAccessible(canonical);
+        MethodHandle constructor = MethodHandles.lookup().unreflectConstructor(canonical)
+                .asSpreader(Object[].class, types.length).asType(RECORD_CONSTRUCTOR_TYPE);
+        return new CompiledRowMapper<>(type, names, types, constructor, null);
+    }
+
+    private static <T> CompiledRowMapper<T> forBean(Class<T> type)
+            throws NoSuchMethodException, IllegalAccessException {
+        Constructor<T> noArg = type.getDeclaredConstructor();
+        ReflectionUtils.makeAccessible(noArg);
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        List<String> names = new ArrayList<>();
+        List<Class<?>> types = new ArrayList<>();
+        List<MethodHandle> setters = new ArrayList<>();
+        for (PropertyDescriptor property : BeanUtils.getPropertyDescriptors(type)) {
+            Method writeMethod = property.getWriteMethod();
+            if (writeMethod != null) {
+                ReflectionUtils.makeAccessible(writeMethod);
+                names.add(normalize(property.getName()));
+                types.add(property.getPropertyType());
+                setters.add(lookup.unreflect(writeMethod).asType(SETTER_TYPE));
+            }
+        }
+        MethodHandle constructor = lookup.unreflectConstructor(noArg).asType(BEAN_CONSTRUCTOR_TYPE);
+        return new CompiledRowMapper<>(type, names.toArray(new String[0]), types.toArray(new Class<?>[0]), constructor,
+                setters.toArray(new MethodHandle[0]));
+    }
+
+    /**
+     * Maps the remaining rows of the given result set and adds them to {@code rows}.
+     *
+     * @param rs
+     *            the result set, positioned before the first row to map
+     * @param maxRows
+     *            the maximum number of rows to map, or {@code 0} for all rows
+     * @param rows
+     *            the list to add the mapped rows to
+     *
+     * @throws SQLException
+     *             if reading the result set fails
+     */
+    void extract(ResultSet rs, int maxRows, List<? super T> rows) throws SQLException {
+        int[] columnIndexes = bind(rs);
+        int count = 0;
+        while ((maxRows <= 0 || count < maxRows) && rs.next()) {
+            rows.add(mapRow(rs, columnIndexes));
+            count++;
+        }
+    }
+
+    /**
+     * Returns the column index of each record component or bean property ({@code 0} if unmatched), resolving them again
+     * only if the column labels differ from those of the cached binding.
+     */
+    private int[] bind(ResultSet rs) throws SQLException {
+        ResultSetMetaData metaData = rs.getMetaData();
+        String[] labels = new String[metaData.getColumnCount()];
+        for (int index = 1; index <= labels.length; index++) {
+            labels[index - 1] = JdbcUtils.lookupColumnName(metaData, index);
+        }
+        Binding current = this.binding;
+        if (current != null && Arrays.equals(current.labels(), labels)) {
+            return current.columnIndexes();
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int index = 1; index <= labels.length; index++) {
+            columns.putIfAbsent(normalize(labels[index - 1]), index);
+        }
+        int[] columnIndexes = new int[names.length];
+        for (int i = 0; i < names.length; i++) {
+            columnIndexes[i] = columns.getOrDefault(names[i], 0);
+        }
+        this.binding = new Binding(labels, columnIndexes);
+        return columnIndexes;
+    }
+
+    private T mapRow(ResultSet rs, int[] columnIndexes) throws SQLException {
+        try {
+            if (setters == null) {
+                Object[] args = new Object[names.length];
+                for (int i = 0; i < args.length; i++) {
+                    args[i] = value(rs, i, columnIndexes[i]);
+                }
+                return type.cast((Object) constructor.invokeExact(args));
+            }
+            Object bean = (Object) constructor.invokeExact();
+            for (int i = 0; i < setters.length; i++) {
+                if (columnIndexes[i] > 0) {
+                    setters[i].invokeExact(bean, value(rs, i, columnIndexes[i]));
+                }
+            }
+            return type.cast(bean);
+        } catch (SQLException | RuntimeException | Error ex) {
+            throw ex;
+        } catch (Throwable ex) {
+            throw new IllegalStateException("Failed to map row to " + type.getName(), ex);
+        }
+    }
+
+    private Object value(ResultSet rs, int property, int columnIndex) throws SQLException {
+        if (columnIndex == 0) {
+            return defaults[property];
+        }
+        Class<?> requiredType = types[property];
+        Object value = JdbcUtils.getResultSetValue(rs, columnIndex, requiredType);
+        if (value == null) {
+            return defaults[property];
+        }
+        if (!ClassUtils.isAssignableValue(requiredType, value)) {
+            ConversionService conversionService = DefaultConversionService.getSharedInstance();
+            value = conversionService.convert(value, requiredType);
+        }
+        return value;
+    }
+
+    private static String normalize(String name) {
+        return name.replace("_", "").toLowerCase(Locale.ROOT);
+    }
+
+    private record Binding(String[] labels, int[] columnIndexes) {
+    }
+}
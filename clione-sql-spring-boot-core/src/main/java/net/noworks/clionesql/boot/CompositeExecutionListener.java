@@ -0,0 +1,79 @@
+package net.noworks.clionesql.boot;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * {@link ClioneSqlExecutionListener} that notifies a fixed list of delegates in order.
+ *
+ * <p>
+ * Every delegate is notified even if an earlier one throws, so that, for example, metrics and replica pinning still see
+ * an execution that a profiling listener rejects; the first exception is then rethrown, with any later ones suppressed.
+ */
+final class CompositeExecutionListener implements ClioneSqlExecutionListener {
+
+    private final ClioneSqlExecutionListener[] delegates;
+
+    /**
+     * Creates a new {@code CompositeExecutionListener}.
+     *
+     * @param delegates
+     *            the listeners to notify, in order
+     */
+    CompositeExecutionListener(List<? extends ClioneSqlExecutionListener> delegates) {
+        this.delegates = delegates.toArray(new ClioneSqlExecutionListener[0]);
+    }
+
+    @Override
+    public void connectionAcquired(ClioneSqlExecution execution, long elapsedNanos) {
+        notifyEach(delegate -> delegate.connectionAcquired(execution, elapsedNanos));
+    }
+
+    @Override
+    public void executionSucceeded(ClioneSqlExecution execution, long elapsedNanos, long rowCount) {
+        notifyEach(delegate -> delegate.executionSucceeded(execution, elapsedNanos, rowCount));
+    }
+
+    @Override
+    public void executionFailed(ClioneSqlExecution execution, long elapsedNanos, RuntimeException ex) {
+        notifyEach(delegate -> delegate.executionFailed(execution, elapsedNanos, ex));
+    }
+
+    @Override
+    public void cacheHit(ClioneSqlExecution execution) {
+        notifyEach(delegate -> delegate.cacheHit(execution));
+    }
+
+    @Override
+    public void cacheMiss(ClioneSqlExecution execution) {
+        notifyEach(delegate -> delegate.cacheMiss(execution));
+    }
+
+    @Override
+    public void cacheEvicted(ClioneSqlExecution execution) {
+        notifyEach(delegate -> delegate.cacheEvicted(execution));
+    }
+
+    @Override
+    public void executionCoalesced(ClioneSqlExecution execution) {
+        notifyEach(delegate -> delegate.executionCoalesced(execution));
+    }
+
+    private void notifyEach(Consumer<ClioneSqlExecutionListener> notification) {
+        RuntimeException failure = null;
+        for (ClioneSqlExecutionListener delegate : delegates) {
+            try {
+                notification.accept(delegate);
+            } catch (RuntimeException ex) {
+                if (failure == null) {
+                    failure = ex;
+                } else {
+                    failure.addSuppressed(ex);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
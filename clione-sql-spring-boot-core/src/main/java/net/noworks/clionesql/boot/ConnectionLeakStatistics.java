@@ -0,0 +1,31 @@
+package net.noworks.clionesql.boot;
+
+/**
+ * Snapshot of the statistics of a {@link ConnectionLeakTracker}.
+ *
+ * @param trackedCount
+ *            the number of connections handed out by {@code useFile}/{@code useSQL} outside a transaction
+ * @param scopeLeakCount
+ *            the number of connections found open, and released, when their scope (e.g. the web request) ended
+ * @param unreachableLeakCount
+ *            the number of connections found open, and released, after their {@code SQLExecutor} became unreachable
+ * @param maxLeakHeldNanos
+ *            the longest time a leaked connection was held before it was released, in nanoseconds
+ * @param pendingCount
+ *            the number of tracked connections whose scope has not ended and whose {@code SQLExecutor} is still
+ *            reachable
+ *
+ * @see ConnectionLeakTracker#getStatistics()
+ */
+public record ConnectionLeakStatistics(long trackedCount, long scopeLeakCount, long unreachableLeakCount,
+        long maxLeakHeldNanos, int pendingCount) {
+
+    /**
+     * Returns the total number of leaked connections.
+     *
+     * @return the number of connections released by the tracker instead of their caller
+     */
+    public long leakCount() {
+        return scopeLeakCount + unreachableLeakCount;
+    }
+}
@@ -0,0 +1,234 @@
+package net.noworks.clionesql.boot;
+
+import java.lang.ref.Cleaner;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.util.Assert;
+
+/**
+ * Releases connections leaked through {@link ClioneSqlTemplate#useFile(String)} and
+ * {@link ClioneSqlTemplate#useSQL(String)}.
+ *
+ * <p>
+ * Outside a transaction, the {@code SQLExecutor} returned by these methods holds its connection until the caller closes
+ * it, which callers usually never do. When a tracker is {@link ClioneSqlTemplate#setConnectionLeakTracker set}, every
+ * such connection is registered and released by the tracker at the latest
+ * <ul>
+ * <li>when the {@link Scope} open on the acquiring thread is closed; {@link ClioneSqlConnectionLeakFilter} opens one
+ * per servlet request, or</li>
+ * <li>when the {@code SQLExecutor} becomes unreachable and is garbage collected.</li>
+ * </ul>
+ * A connection found still open is logged at {@code WARN} level with the SQL path, how long it was held and, if
+ * enabled, the stack trace of the call that acquired it, and counted in the {@link #getStatistics() statistics}.
+ * Connections of a Spring-managed transaction are released by the transaction and are not tracked.
+ *
+ * <p>
+ * Do not share a tracked {@code SQLExecutor} with other threads, and keep it reachable while iterating the result of
+ * {@code each()}. Instances are thread-safe.
+ *
+ * @see ClioneSqlProperties.LeakTracking
+ */
+public class ConnectionLeakTracker {
+
+    private static final Log LOGGER = LogFactory.getLog(ConnectionLeakTracker.class);
+
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private final boolean captureStackTrace;
+
+    private final ThreadLocal<Scope> currentScope = new ThreadLocal<>();
+
+    private final Set<Lease> pending = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder trackedCount = new LongAdder();
+
+    private final LongAdder scopeLeakCount = new LongAdder();
+
+    private final LongAdder unreachableLeakCount = new LongAdder();
+
+    private final AtomicLong maxLeakHeldNanos = new AtomicLong();
+
+    /**
+     * Creates a new {@code ConnectionLeakTracker}.
+     *
+     * @param captureStackTrace
+     *            whether to record the stack trace of each acquisition, to be logged if the connection leaks
+     */
+    public ConnectionLeakTracker(boolean captureStackTrace) {
+        this.captureStackTrace = captureStackTrace;
+    }
+
+    /**
+     * Opens a scope on the current thread. Connections acquired on this thread until the scope is closed are released
+     * when it is closed, if their caller did not close them. Scopes may be nested; closing one restores the enclosing
+     * scope.
+     *
+     * @param name
+     *            a description of the scope used in log messages, e.g. the request URI
+     *
+     * @return the new scope, to be closed on the same thread
+     */
+    public Scope openScope(String name) {
+        Assert.notNull(name, "name must not be null");
+        Scope scope = new Scope(name, currentScope.get());
+        currentScope.set(scope);
+        return scope;
+    }
+
+    /**
+     * Returns the statistics of this tracker.
+     *
+     * @return a snapshot of the statistics
+     */
+    public ConnectionLeakStatistics getStatistics() {
+        return new ConnectionLeakStatistics(trackedCount.sum(), scopeLeakCount.sum(), unreachableLeakCount.sum(),
+                maxLeakHeldNanos.get(), pending.size());
+    }
+
+    /**
+     * Registers a connection handed out with {@code owner}.
+     *
+     * @param owner
+     *            the object holding the connection; the connection is released once it becomes unreachable
+     * @param con
+     *            the connection to track
+     * @param sqlPath
+     *            the SQL path the connection was acquired for
+     * @param release
+     *            releases the connection; must not reference {@code owner}
+     */
+    void track(Object owner, Connection con, String sqlPath, Runnable release) {
+        Lease lease = new Lease(this, con, sqlPath, release,
+                captureStackTrace ? new Throwable("Connection acquired for " + sqlPath) : null);
+        trackedCount.increment();
+        pending.add(lease);
+        Scope scope = currentScope.get();
+        if (scope != null) {
+            scope.leases.add(lease);
+        }
+        lease.cleanable = CLEANER.register(owner, lease);
+    }
+
+    /**
+     * Releases the connection of a lease unless its caller closed it. Runs at most once per lease.
+     *
+     * @param scope
+     *            the scope that ended, or {@code null} if the owner of the lease became unreachable
+     */
+    private void release(Lease lease, Scope scope) {
+        if (!lease.done.compareAndSet(false, true)) {
+            return;
+        }
+        pending.remove(lease);
+        if (isClosed(lease.con)) {
+            return;
+        }
+        long heldNanos = System.nanoTime() - lease.acquiredNanos;
+        (scope != null ? scopeLeakCount : unreachableLeakCount).increment();
+        maxLeakHeldNanos.accumulateAndGet(heldNanos, Math::max);
+        if (LOGGER.isWarnEnabled()) {
+            LOGGER.warn(
+                    "Connection leaked by " + lease.sqlPath + " on thread " + lease.threadName + " was held for "
+                            + TimeUnit.NANOSECONDS.toMillis(heldNanos) + " ms; releasing it " + (scope != null
+                                    ? "at the end of " + scope.name : "after its SQLExecutor became unreachable"),
+                    lease.acquiredAt);
+        }
+        try {
+            lease.release.run();
+        } catch (RuntimeException ex) {
+            LOGGER.warn("Failed to release the connection leaked by " + lease.sqlPath, ex);
+        }
+    }
+
+    private static boolean isClosed(Connection con) {
+        try {
+            return con.isClosed();
+        } catch (SQLException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Connections acquired on one thread while the scope is open. Obtained from {@link #openScope(String)}.
+     */
+    public final class Scope implements AutoCloseable {
+
+        private final String name;
+
+        private final Scope enclosing;
+
+        private final List<Lease> leases = new ArrayList<>();
+
+        private Scope(String name, Scope enclosing) {
+            this.name = name;
+            this.enclosing = enclosing;
+        }
+
+        /**
+         * Closes this scope, releasing every connection acquired in it that is still open.
+         */
+        @Override
+        public void close() {
+            if (enclosing != null) {
+                currentScope.set(enclosing);
+            } else {
+                currentScope.remove();
+            }
+            for (Lease lease : leases) {
+                release(lease, this);
+                lease.cleanable.clean();
+            }
+            leases.clear();
+        }
+    }
+
+    /**
+     * A tracked connection; also the cleaning action run when its owner becomes unreachable, so it must not reference
+     * the owner.
+     */
+    private static final class Lease implements Runnable {
+
+        private final ConnectionLeakTracker tracker;
+
+        private final Connection con;
+
+        private final String sqlPath;
+
+        private final Runnable release;
+
+        private final Throwable acquiredAt;
+
+        private final String threadName = Thread.currentThread().getName();
+
+        private final long acquiredNanos = System.nanoTime();
+
+        private final AtomicBoolean done = new AtomicBoolean();
+
+        private Cleaner.Cleanable cleanable;
+
+        Lease(ConnectionLeakTracker tracker, Connection con, String sqlPath, Runnable release, Throwable acquiredAt) {
+            this.tracker = tracker;
+            this.con = con;
+            this.sqlPath = sqlPath;
+            this.release = release;
+            this.acquiredAt = acquiredAt;
+        }
+
+        @Override
+        public void run() {
+            tracker.release(this, null);
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package net.noworks.clionesql.boot;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.util.Locale;
+
+/**
+ * Product, version and driver capabilities of the database behind a {@link ClioneSqlTemplate}'s data source.
+ *
+ * <p>
+ * The profile is read from {@link DatabaseMetaData} once, on the first connection the template obtains, and is then
+ * used instead of the metadata: to create each {@code SQLManager} with a fixed product name, to choose the
+ * {@link ClioneSqlTemplate#page pagination} syntax and {@link ClioneSqlTemplate#bulkInsert bulk insert} strategy, and
+ * to tune statements (see {@link #getRecommendedFetchSize()}). Instances are immutable.
+ *
+ * @see ClioneSqlTemplate#getDatabaseProfile()
+ */
+public final class DatabaseProfile {
+
+    private static final int DEFAULT_MAX_BIND_PARAMETERS = Short.MAX_VALUE;
+
+    private final String productName;
+
+    private final String productVersion;
+
+    private final int majorVersion;
+
+    private final int minorVersion;
+
+    private final String driverName;
+
+    private final String driverVersion;
+
+    private final String clioneProductName;
+
+    private final boolean batchUpdatesSupported;
+
+    private final boolean generatedKeysSupported;
+
+    private final int maxBindParameters;
+
+    private final int maxInListSize;
+
+    private final int maxInsertRows;
+
+    private final int recommendedFetchSize;
+
+    private final PageDialect pageDialect;
+
+    private DatabaseProfile(Builder builder) {
+        this.productName = builder.productName;
+        this.productVersion = builder.productVersion;
+        this.majorVersion = builder.majorVersion;
+        this.minorVersion = builder.minorVersion;
+        this.driverName = builder.driverName;
+        this.driverVersion = builder.driverVersion;
+        this.clioneProductName = builder.clioneProductName != null ? builder.clioneProductName
+                : clioneProductName(builder.productName);
+        this.batchUpdatesSupported = builder.batchUpdatesSupported;
+        this.generatedKeysSupported = builder.generatedKeysSupported;
+        String name = (builder.productName != null ? builder.productName
+                : clioneProductName != null ? clioneProductName : "").toLowerCase(Locale.ROOT);
+        this.maxBindParameters = maxBindParameters(name, majorVersion, minorVersion);
+        this.maxInListSize = name.contains("oracle") ? Math.min(1000, maxBindParameters) : maxBindParameters;
+        this.maxInsertRows = isSqlServer(name) ? 1000 : Integer.MAX_VALUE;
+        this.recommendedFetchSize = name.contains("oracle") ? 100 : 0;
+        this.pageDialect = PageDialect.of(clioneProductName);
+    }
+
+    /**
+     * Reads the profile of the database behind the given connection.
+     *
+     * @param con
+     *            an open connection
+     * @param configuredProductName
+     *            the configured clione-sql product name, which takes precedence over the detected one; or {@code null}
+     *
+     * @return the profile; with unknown product and default capabilities if the driver exposes no metadata
+     *
+     * @throws SQLException
+     *             if the metadata cannot be read
+     */
+    static DatabaseProfile detect(Connection con, String configuredProductName) throws SQLException {
+        Builder builder = new Builder();
+        builder.clioneProductName = configuredProductName;
+        DatabaseMetaData metaData = con.getMetaData();
+        if (metaData != null) {
+            builder.productName = metaData.getDatabaseProductName();
+            builder.productVersion = metaData.getDatabaseProductVersion();
+            builder.majorVersion = metaData.getDatabaseMajorVersion();
+            builder.minorVersion = metaData.getDatabaseMinorVersion();
+            builder.driverName = metaData.getDriverName();
+            builder.driverVersion = metaData.getDriverVersion();
+            builder.batchUpdatesSupported = metaData.supportsBatchUpdates();
+            builder.generatedKeysSupported = metaData.supportsGetGeneratedKeys();
+        }
+        return new DatabaseProfile(builder);
+    }
+
+    /**
+     * Returns a profile for a product name alone, assuming JDBC batch support and no generated keys.
+     *
+     * @param productName
+     *            the clione-sql or JDBC product name
+     *
+     * @return the profile
+     */
+    static DatabaseProfile of(String productName) {
+        Builder builder = new Builder();
+        builder.clioneProductName = productName;
+        return new DatabaseProfile(builder);
+    }
+
+    /**
+     * Maps a JDBC database product name to the clione-sql product name of the same database: {@code oracle},
+     * {@code mysql}, {@code postgres}, {@code db2}, {@code sqlserver}, {@code sqlite} or {@code firebird}; other
+     * products keep their lower-cased JDBC name.
+     */
+    static String clioneProductName(String jdbcProductName) {
+        if (jdbcProductName == null) {
+            return null;
+        }
+        String name = jdbcProductName.toLowerCase(Locale.ROOT);
+        if (name.contains("oracle")) {
+            return "oracle";
+        }
+        if (name.contains("mysql") || name.contains("mariadb")) {
+            return "mysql";
+        }
+        if (name.contains("postgres")) {
+            return "postgres";
+        }
+        if (name.contains("db2")) {
+            return "db2";
+        }
+        if (isSqlServer(name)) {
+            return "sqlserver";
+        }
+        if (name.contains("sqlite")) {
+            return "sqlite";
+        }
+        if (name.contains("firebird")) {
+            return "firebird";
+        }
+        return name;
+    }
+
+    /**
+     * Returns the maximum number of bind parameters per statement: 2099 on SQL Server, which allows at most 2100
+     * parameters per request and so keeps one in reserve, 999 on SQLite before 3.32 and 32766 after, 65535 on MySQL
+     * and MariaDB, and 32767 elsewhere.
+     */
+    private static int maxBindParameters(String name, int majorVersion, int minorVersion) {
+        if (isSqlServer(name)) {
+            return 2099;
+        }
+        if (name.contains("sqlite")) {
+            return majorVersion > 3 || majorVersion == 3 && minorVersion >= 32 ? 32766 : 999;
+        }
+        if (name.contains("mysql") || name.contains("mariadb")) {
+            return 65535;
+        }
+        return DEFAULT_MAX_BIND_PARAMETERS;
+    }
+
+    private static boolean isSqlServer(String name) {
+        return name.contains("sql server") || name.equals("sqlserver");
+    }
+
+    /**
+     * Returns the database product name reported by the driver.
+     *
+     * @return the product name, e.g. {@code PostgreSQL}; {@code null} if unknown
+     */
+    public String getProductName() {
+        return productName;
+    }
+
+    /**
+     * Returns the database product version reported by the driver.
+     *
+     * @return the product version; {@code null} if unknown
+     */
+    public String getProductVersion() {
+        return productVersion;
+    }
+
+    /**
+     * Returns the major version of the database.
+     *
+     * @return the major version; {@code 0} if unknown
+     */
+    public int getMajorVersion() {
+        return majorVersion;
+    }
+
+    /**
+     * Returns the minor version of the database.
+     *
+     * @return the minor version; {@code 0} if unknown
+     */
+    public int getMinorVersion() {
+        return minorVersion;
+    }
+
+    /**
+     * Returns the name of the JDBC driver.
+     *
+     * @return the driver name; {@code null} if unknown
+     */
+    public String getDriverName() {
+        return driverName;
+    }
+
+    /**
+     * Returns the version of the JDBC driver.
+     *
+     * @return the driver version; {@code null} if unknown
+     */
+    public String getDriverVersion() {
+        return driverVersion;
+    }
+
+    /**
+     * Returns the product name passed to clione-sql, which selects {@code *.sql-<productName>} dialect variants: the
+     * configured {@link ClioneSqlProperties#getProductName() product name}, or else the product name of the driver
+     * mapped to clione-sql's product names, e.g. {@code postgres} for {@code PostgreSQL} and {@code sqlserver} for
+     * {@code Microsoft SQL Server}.
+     *
+     * @return the clione-sql product name; {@code null} if unknown
+     */
+    public String getClioneProductName() {
+        return clioneProductName;
+    }
+
+    /**
+     * Returns whether the driver supports JDBC batch updates. Without them, {@link ClioneSqlTemplate#batchUpdate} and
+     * {@link ClioneSqlTemplate#bulkInsert} execute one statement per row.
+     *
+     * @return {@code true} if batch updates are supported
+     */
+    public boolean isBatchUpdatesSupported() {
+        return batchUpdatesSupported;
+    }
+
+    /**
+     * Returns whether the driver can return generated keys.
+     *
+     * @return {@code true} if {@code Statement.getGeneratedKeys()} is supported
+     */
+    public boolean isGeneratedKeysSupported() {
+        return generatedKeysSupported;
+    }
+
+    /**
+     * Returns the maximum number of bind parameters one statement may carry.
+     *
+     * @return the bind parameter limit
+     */
+    public int getMaxBindParameters() {
+        return maxBindParameters;
+    }
+
+    /**
+     * Returns the maximum number of values in one {@code IN} list: 1000 on Oracle, which rejects longer lists, and the
+     * bind parameter limit elsewhere.
+     *
+     * @return the {@code IN} list limit
+     */
+    public int getMaxInListSize() {
+        return maxInListSize;
+    }
+
+    /**
+     * Returns the maximum number of rows one multi-row {@code INSERT ... VALUES} statement may carry: 1000 on SQL
+     * Server, which rejects more row value expressions, and no limit besides the bind parameters elsewhere.
+     *
+     * @return the row limit of a multi-row insert
+     */
+    public int getMaxInsertRows() {
+        return maxInsertRows;
+    }
+
+    /**
+     * Returns the fetch size applied to statements of SQL files that declare none: {@code 100} on Oracle, whose driver
+     * fetches only 10 rows per round trip by default, and {@code 0} (the driver default) elsewhere.
+     *
+     * @return the recommended fetch size; {@code 0} to keep the driver default
+     */
+    public int getRecommendedFetchSize() {
+        return recommendedFetchSize;
+    }
+
+    /**
+     * Returns the row-limiting syntax of the database.
+     *
+     * @return the page dialect
+     */
+    PageDialect getPageDialect() {
+        return pageDialect;
+    }
+
+    @Override
+    public String toString() {
+        return "DatabaseProfile[" + productName + " " + productVersion + ", driver " + driverName + " " + driverVersion
+                + ", clioneProductName=" + clioneProductName + ", batchUpdates=" + batchUpdatesSupported
+                + ", generatedKeys=" + generatedKeysSupported + ", maxBindParameters=" + maxBindParameters
+                + ", maxInListSize=" + maxInListSize + ", maxInsertRows=" + maxInsertRows + ", recommendedFetchSize="
+                + recommendedFetchSize + "]";
+    }
+
+    /**
+     * Collects the detected values before the profile derives its settings from them.
+     */
+    private static final class Builder {
+
+        private String productName;
+
+        private String productVersion;
+
+        private int majorVersion;
+
+        private int minorVersion;
+
+        private String driverName;
+
+        private String driverVersion;
+
+        private String clioneProductName;
+
+        private boolean batchUpdatesSupported = true;
+
+        private boolean generatedKeysSupported;
+    }
+}
@@ -0,0 +1,177 @@
+package net.noworks.clionesql.boot;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+import tetz42.clione.common.exception.SQLRuntimeException;
+
+/**
+ * {@link InvocationHandler} for a {@link Connection} proxy that reports every statement execution to a
+ * {@link ClioneSqlExecutionListener}.
+ *
+ * <p>
+ * This is used for the {@link tetz42.clione.SQLExecutor}s returned by {@link ClioneSqlTemplate#useFile(String)} and
+ * {@link ClioneSqlTemplate#useSQL(String)}, whose {@code find}/{@code findAll}/{@code update} calls happen outside the
+ * template. Statements created by the connection are proxied and their {@code execute*} methods are timed. The
+ * connection acquisition time is reported together with the first execution, since the operation is not known before.
+ *
+ * <p>
+ * The values bound through the {@code setXxx} methods of a {@link PreparedStatement} are recorded, so that each single
+ * execution is reported with a {@link ClioneSqlExecution#paramsFingerprint() fingerprint} of its bind values; batch
+ * executions and plain statements are reported without one.
+ */
+final class ExecutionObservingConnection implements InvocationHandler {
+
+    private final Connection target;
+
+    private final String sqlPath;
+
+    private final ClioneSqlExecutionListener listener;
+
+    private long acquireNanos;
+
+    private ExecutionObservingConnection(Connection target, String sqlPath, ClioneSqlExecutionListener listener,
+            long acquireNanos) {
+        this.target = target;
+        this.sqlPath = sqlPath;
+        this.listener = listener;
+        this.acquireNanos = acquireNanos;
+    }
+
+    /**
+     * Wraps the given connection so that every statement execution is reported to {@code listener}.
+     *
+     * @param target
+     *            the connection to wrap
+     * @param sqlPath
+     *            the SQL path reported for all executions
+     * @param listener
+     *            the listener to notify
+     * @param acquireNanos
+     *            the time spent obtaining {@code target}, reported with the first execution
+     *
+     * @return a proxy for {@code target}
+     */
+    static Connection wrap(Connection target, String sqlPath, ClioneSqlExecutionListener listener, long acquireNanos) {
+        return (Connection) Proxy.newProxyInstance(ExecutionObservingConnection.class.getClassLoader(),
+                new Class<?>[] { Connection.class },
+                new ExecutionObservingConnection(target, sqlPath, listener, acquireNanos));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+        case "equals":
+            return proxy == args[0];
+        case "hashCode":
+            return System.identityHashCode(proxy);
+        case "toString":
+            return "Execution-observing proxy for [" + target + "]";
+        default:
+            break;
+        }
+        Object result = delegate(target, method, args);
+        if (result instanceof Statement statement && Statement.class.isAssignableFrom(method.getReturnType())) {
+            Map<Integer, Object> bindValues = new TreeMap<>();
+            return Proxy.newProxyInstance(ExecutionObservingConnection.class.getClassLoader(),
+                    new Class<?>[] { method.getReturnType() },
+                    (statementProxy, statementMethod, statementArgs) -> invokeStatement(statement, bindValues, proxy,
+                            statementProxy, statementMethod, statementArgs));
+        }
+        return result;
+    }
+
+    private Object invokeStatement(Statement statement, Map<Integer, Object> bindValues, Object connectionProxy,
+            Object proxy, Method method, Object[] args) throws Throwable {
+        if (isBindValueSetter(statement, method, args)) {
+            bindValues.put((Integer) args[0], "setNull".equals(method.getName()) ? null : args[1]);
+            return delegate(statement, method, args);
+        }
+        String operation;
+        switch (method.getName()) {
+        case "clearParameters":
+            bindValues.clear();
+            return delegate(statement, method, args);
+        case "equals":
+            return proxy == args[0];
+        case "hashCode":
+            return System.identityHashCode(proxy);
+        case "getConnection":
+            return connectionProxy;
+        case "executeQuery":
+            operation = ClioneSqlExecution.QUERY;
+            break;
+        case "executeUpdate":
+        case "executeLargeUpdate":
+        case "executeBatch":
+        case "executeLargeBatch":
+            operation = ClioneSqlExecution.UPDATE;
+            break;
+        case "execute":
+            operation = ClioneSqlExecution.EXECUTE;
+            break;
+        default:
+            return delegate(statement, method, args);
+        }
+
+        boolean single = statement instanceof PreparedStatement && (args == null || args.length == 0)
+                && !method.getName().contains("Batch");
+        ClioneSqlExecution execution = new ClioneSqlExecution(sqlPath, operation,
+                single ? fingerprint(bindValues) : null);
+        if (acquireNanos >= 0) {
+            listener.connectionAcquired(execution, acquireNanos);
+            acquireNanos = -1;
+        }
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = delegate(statement, method, args);
+        } catch (SQLException ex) {
+            listener.executionFailed(execution, System.nanoTime() - start, new SQLRuntimeException(ex));
+            throw ex;
+        } catch (RuntimeException ex) {
+            listener.executionFailed(execution, System.nanoTime() - start, ex);
+            throw ex;
+        }
+        listener.executionSucceeded(execution, System.nanoTime() - start, ClioneSqlTemplate.rowCount(result));
+        return result;
+    }
+
+    /**
+     * Returns whether the call binds a parameter value, i.e. is a {@code PreparedStatement.setXxx(int, value, ...)}.
+     */
+    private static boolean isBindValueSetter(Statement statement, Method method, Object[] args) {
+        return statement instanceof PreparedStatement && method.getName().startsWith("set") && args != null
+                && args.length >= 2 && method.getParameterTypes()[0] == int.class;
+    }
+
+    /**
+     * Returns a hash code of the bind values by parameter index, equal for executions with equal values.
+     */
+    private static int fingerprint(Map<Integer, Object> bindValues) {
+        Object[] values = new Object[bindValues.size() * 2];
+        int i = 0;
+        for (Map.Entry<Integer, Object> entry : bindValues.entrySet()) {
+            values[i++] = entry.getKey();
+            values[i++] = entry.getValue();
+        }
+        return Arrays.deepHashCode(values);
+    }
+
+    private static Object delegate(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getTargetException();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package net.noworks.clionesql.boot;
+
+import java.util.Iterator;
+import java.util.function.Supplier;
+
+/**
+ * {@link Iterator} decorator that counts the rows read from a streaming query and reports the outcome to a
+ * {@link ClioneSqlExecutionListener}: a failure as soon as the target throws, or a success with the number of rows read
+ * when {@link #close() closed}.
+ *
+ * @param <T>
+ *            the element type
+ */
+final class ObservingIterator<T> implements Iterator<T> {
+
+    private final ClioneSqlExecution execution;
+
+    private final ClioneSqlExecutionListener listener;
+
+    private final long start;
+
+    private final Iterator<T> target;
+
+    private long rowCount;
+
+    private boolean reported;
+
+    /**
+     * Creates a new {@code ObservingIterator}, timing the execution from now on.
+     *
+     * @param execution
+     *            the streaming execution
+     * @param listener
+     *            the listener to notify
+     * @param target
+     *            opens the iterator to decorate; a failure is reported and rethrown
+     */
+    ObservingIterator(ClioneSqlExecution execution, ClioneSqlExecutionListener listener, Supplier<Iterator<T>> target) {
+        this.execution = execution;
+        this.listener = listener;
+        this.start = System.nanoTime();
+        try {
+            this.target = target.get();
+        } catch (RuntimeException ex) {
+            failed(ex);
+            throw ex;
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        try {
+            return target.hasNext();
+        } catch (RuntimeException ex) {
+            failed(ex);
+            throw ex;
+        }
+    }
+
+    @Override
+    public T next() {
+        T next;
+        try {
+            next = target.next();
+        } catch (RuntimeException ex) {
+            failed(ex);
+            throw ex;
+        }
+        rowCount++;
+        return next;
+    }
+
+    /**
+     * Reports a successful execution with the number of rows read, unless a failure has already been reported.
+     */
+    void close() {
+        if (!reported) {
+            reported = true;
+            listener.executionSucceeded(execution, System.nanoTime() - start, rowCount);
+        }
+    }
+
+    private void failed(RuntimeException ex) {
+        if (!reported) {
+            reported = true;
+            listener.executionFailed(execution, System.nanoTime() - start, ex);
+        }
+    }
+}
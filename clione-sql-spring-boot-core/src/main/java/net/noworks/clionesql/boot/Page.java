@@ -0,0 +1,77 @@
+package net.noworks.clionesql.boot;
+
+import java.util.List;
+
+import tetz42.clione.util.ResultMap;
+
+/**
+ * One page of rows read by {@link ClioneSqlTemplate#page(String, java.util.Map, PageRequest)}.
+ */
+public final class Page {
+
+    private final List<ResultMap> content;
+
+    private final PageRequest request;
+
+    private final PageRequest nextRequest;
+
+    private final Long total;
+
+    Page(List<ResultMap> content, PageRequest request, PageRequest nextRequest, Long total) {
+        this.content = List.copyOf(content);
+        this.request = request;
+        this.nextRequest = nextRequest;
+        this.total = total;
+    }
+
+    /**
+     * Returns the rows of this page.
+     *
+     * @return the rows, at most {@link PageRequest#getSize()}; unmodifiable
+     */
+    public List<ResultMap> getContent() {
+        return content;
+    }
+
+    /**
+     * Returns the request this page was read with.
+     *
+     * @return the page request
+     */
+    public PageRequest getRequest() {
+        return request;
+    }
+
+    /**
+     * Returns whether more rows follow this page.
+     *
+     * @return {@code true} if there is a next page
+     */
+    public boolean hasNext() {
+        return nextRequest != null;
+    }
+
+    /**
+     * Returns the request for the next page: the following offset, or the key of the last row for keyset requests.
+     *
+     * @return the next page request, or {@code null} if this is the last page
+     */
+    public PageRequest nextPageRequest() {
+        return nextRequest;
+    }
+
+    /**
+     * Returns the total number of rows of the query, ignoring pagination (for keyset requests, ignoring the key).
+     *
+     * @return the total, or {@code null} unless {@link PageRequest#withTotal()} was requested; also {@code null} for an
+     *         empty page past the end of the result, which cannot report the total
+     */
+    public Long getTotal() {
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        return "Page[" + content.size() + " rows of " + request + ", total=" + total + ", hasNext=" + hasNext() + "]";
+    }
+}
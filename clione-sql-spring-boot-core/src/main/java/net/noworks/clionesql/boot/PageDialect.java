@@ -0,0 +1,234 @@
+package net.noworks.clionesql.boot;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import tetz42.clione.util.ResultMap;
+
+/**
+ * Row-limiting syntax of a database, used to wrap a 2Way SQL template for {@link ClioneSqlTemplate#page}.
+ *
+ * <p>
+ * The page size, offset and keyset values are bound as clione-sql parameters, so the statement text of a page does not
+ * depend on the page number. One row more than the page size is read to tell whether another page follows.
+ */
+enum PageDialect {
+
+    /** {@code LIMIT n OFFSET m}: PostgreSQL, MySQL, MariaDB, SQLite and H2. */
+    LIMIT_OFFSET {
+
+        @Override
+        String limit() {
+            return "LIMIT /* $" + LIMIT_PARAM + " */1 OFFSET /* $" + OFFSET_PARAM + " */0";
+        }
+    },
+
+    /**
+     * SQL:2008 {@code OFFSET m ROWS FETCH NEXT n ROWS ONLY}: Oracle 12c+, SQL Server 2012+, DB2 and Firebird 3+; also
+     * used for unknown products.
+     */
+    OFFSET_FETCH {
+
+        @Override
+        String limit() {
+            return "OFFSET /* $" + OFFSET_PARAM + " */0 ROWS FETCH NEXT /* $" + LIMIT_PARAM + " */1 ROWS ONLY";
+        }
+    };
+
+    /** Column alias of the {@code COUNT(*) OVER ()} total; removed from the returned rows. */
+    static final String TOTAL_COLUMN = "clione_total_count";
+
+    static final String LIMIT_PARAM = "clionePageLimit";
+
+    static final String OFFSET_PARAM = "clionePageOffset";
+
+    static final String KEY_PARAM = "clionePageKey";
+
+    /**
+     * Returns the row-limiting clause with the {@link #LIMIT_PARAM} and {@link #OFFSET_PARAM} parameters.
+     *
+     * @return the clause appended to the paged query
+     */
+    abstract String limit();
+
+    /**
+     * Returns the dialect of a clione-sql product name or JDBC database product name.
+     *
+     * @param productName
+     *            the product name, e.g. {@code postgres} or {@code PostgreSQL}
+     *
+     * @return the matching dialect; {@link #OFFSET_FETCH} for unknown products
+     */
+    static PageDialect of(String productName) {
+        String name = productName == null ? "" : productName.toLowerCase(Locale.ROOT);
+        if (name.contains("postgres") || name.contains("mysql") || name.contains("mariadb") || name.contains("sqlite")
+                || name.equals("h2")) {
+            return LIMIT_OFFSET;
+        }
+        return OFFSET_FETCH;
+    }
+
+    /**
+     * Wraps an SQL template so that it reads the requested page.
+     *
+     * <p>
+     * The template runs as a derived table whenever rows are counted, sorted or filtered by key; otherwise the limit
+     * clause is appended to it so that its own {@code ORDER BY} stays in effect.
+     *
+     * @param sql
+     *            the 2Way SQL template of the query
+     * @param request
+     *            the page to read
+     *
+     * @return the paged 2Way SQL template
+     *
+     * @throws IllegalArgumentException
+     *             if the total is requested without sort columns, since the derived table would lose the file's own
+     *             order
+     */
+    String paginate(String sql, PageRequest request) {
+        if (request.isWithTotal() && request.getSort().isEmpty()) {
+            throw new IllegalArgumentException(
+                    "Reading the total needs sort columns, since the SQL file runs as a derived table whose own "
+                            + "ORDER BY does not order the page: use PageRequest.sortedBy(...)");
+        }
+        String query = stripTerminator(sql);
+        if (request.isWithTotal()) {
+            query = "SELECT page_count_.*, COUNT(*) OVER () AS " + TOTAL_COLUMN + " FROM (\n" + query
+                    + "\n) page_count_";
+        }
+        boolean wrap = !request.getSort().isEmpty() || request.isKeyset();
+        StringBuilder paged = new StringBuilder();
+        if (wrap) {
+            paged.append("SELECT * FROM (\n").append(query).append("\n) page_");
+            if (!request.getAfter().isEmpty()) {
+                paged.append("\nWHERE ").append(keysetPredicate(request.getSort()));
+            }
+            paged.append("\nORDER BY ");
+            for (int i = 0; i < request.getSort().size(); i++) {
+                paged.append(i > 0 ? ", " : "").append(request.getSort().get(i));
+            }
+        } else {
+            paged.append(query);
+        }
+        return paged.append('\n').append(limit()).toString();
+    }
+
+    /**
+     * Returns the clione-sql parameters of a page: the query parameters plus the limit, offset and key values.
+     *
+     * @param params
+     *            the query parameters, or {@code null}
+     * @param request
+     *            the page to read
+     *
+     * @return a new parameter map
+     */
+    static Map<String, Object> bind(Map<String, Object> params, PageRequest request) {
+        Map<String, Object> bound = params != null ? new HashMap<>(params) : new HashMap<>();
+        bound.put(LIMIT_PARAM, request.getSize() + 1);
+        bound.put(OFFSET_PARAM, request.getOffset());
+        for (int i = 0; i < request.getAfter().size(); i++) {
+            bound.put(KEY_PARAM + i, request.getAfter().get(i));
+        }
+        return bound;
+    }
+
+    /**
+     * Turns the rows read for a page into a {@link Page}, dropping the look-ahead row and the total column.
+     *
+     * @param request
+     *            the page that was read
+     * @param rows
+     *            the rows read, at most one more than the page size
+     *
+     * @return the page
+     */
+    static Page toPage(PageRequest request, List<ResultMap> rows) {
+        boolean hasNext = rows.size() > request.getSize();
+        List<ResultMap> content = new ArrayList<>(hasNext ? rows.subList(0, request.getSize()) : rows);
+        Long total = null;
+        if (request.isWithTotal()) {
+            for (ResultMap row : content) {
+                Object count = removeColumn(row, TOTAL_COLUMN);
+                if (total == null && count instanceof Number number) {
+                    total = number.longValue();
+                }
+            }
+            if (content.isEmpty() && request.getOffset() == 0 && request.getAfter().isEmpty()) {
+                total = 0L;
+            }
+        }
+        PageRequest next = null;
+        if (hasNext) {
+            ResultMap last = content.get(content.size() - 1);
+            Object[] key = new Object[request.getSort().size()];
+            for (int i = 0; i < key.length; i++) {
+                key[i] = column(last, request.getSort().get(i).column());
+            }
+            next = request.next(key);
+        }
+        return new Page(content, request, next, total);
+    }
+
+    /**
+     * Returns {@code (a > :k0) OR (a = :k0 AND b > :k1) ...} for the sort columns, with {@code <} for descending ones.
+     */
+    private static String keysetPredicate(List<PageRequest.Order> sort) {
+        StringBuilder predicate = new StringBuilder();
+        for (int i = 0; i < sort.size(); i++) {
+            predicate.append(i > 0 ? " OR (" : "(");
+            for (int j = 0; j < i; j++) {
+                predicate.append(sort.get(j).column()).append(" = ").append(key(j)).append(" AND ");
+            }
+            PageRequest.Order order = sort.get(i);
+            predicate.append(order.column()).append(order.descending() ? " < " : " > ").append(key(i)).append(')');
+        }
+        return predicate.toString();
+    }
+
+    private static String key(int index) {
+        return "/* $" + KEY_PARAM + index + " */0";
+    }
+
+    /**
+     * Removes trailing whitespace and statement terminators, which cannot appear inside a derived table.
+     */
+    private static String stripTerminator(String sql) {
+        int end = sql.length();
+        while (end > 0 && (Character.isWhitespace(sql.charAt(end - 1)) || sql.charAt(end - 1) == ';')) {
+            end--;
+        }
+        return sql.substring(0, end);
+    }
+
+    /**
+     * Returns a column of a row; drivers differ in the case of column labels, so the name is matched ignoring case.
+     */
+    private static Object column(ResultMap row, String name) {
+        if (row.containsKey(name)) {
+            return row.get(name);
+        }
+        for (Map.Entry<String, Object> entry : row.entrySet()) {
+            if (entry.getKey().equalsIgnoreCase(name)) {
+                return entry.getValue();
+            }
+        }
+        throw new IllegalArgumentException("Sort column " + name + " is not in the result " + row.keySet());
+    }
+
+    private static Object removeColumn(ResultMap row, String name) {
+        for (Iterator<Map.Entry<String, Object>> it = row.entrySet().iterator(); it.hasNext();) {
+            Map.Entry<String, Object> entry = it.next();
+            if (entry.getKey().equalsIgnoreCase(name)) {
+                it.remove();
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,249 @@
+package net.noworks.clionesql.boot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.util.Assert;
+
+/**
+ * A page to read with {@link ClioneSqlTemplate#page(String, java.util.Map, PageRequest)}.
+ *
+ * <p>
+ * An <em>offset</em> request skips a number of rows and reads the next {@link #getSize() size} rows; the SQL file's own
+ * {@code ORDER BY} decides the order unless {@link #sortedBy(String...)} is given. A <em>keyset</em> request (also
+ * known as seek pagination) instead reads the rows that sort after the key of the last row of the previous page, so
+ * deep pages cost the same as the first one when the sort columns are indexed:
+ *
+ * <pre>
+ * Page page = clioneSqlTemplate.page("person/SelectAll.sql", params, PageRequest.keyset(50, "name", "id"));
+ * while (page.hasNext()) {
+ *     page = clioneSqlTemplate.page("person/SelectAll.sql", params, page.nextPageRequest());
+ * }
+ * </pre>
+ *
+ * <p>
+ * Sort columns are result column names of the SQL file, optionally followed by {@code ASC} or {@code DESC}. Keyset sort
+ * columns must identify a row uniquely and must not be {@code NULL}. Instances are immutable.
+ */
+public final class PageRequest {
+
+    private static final Pattern ORDER = Pattern.compile("([A-Za-z_][A-Za-z0-9_$]*)(?:\\s+(?i:(ASC|DESC)))?");
+
+    private final int size;
+
+    private final long offset;
+
+    private final List<Order> sort;
+
+    private final boolean keyset;
+
+    private final List<Object> after;
+
+    private final boolean withTotal;
+
+    private PageRequest(int size, long offset, List<Order> sort, boolean keyset, List<Object> after,
+            boolean withTotal) {
+        Assert.isTrue(size > 0, "size must be greater than 0");
+        Assert.isTrue(offset >= 0, "offset must not be negative");
+        this.size = size;
+        this.offset = offset;
+        this.sort = sort;
+        this.keyset = keyset;
+        this.after = after;
+        this.withTotal = withTotal;
+    }
+
+    /**
+     * Returns an offset request for the given zero-based page number.
+     *
+     * @param page
+     *            the zero-based page number
+     * @param size
+     *            the number of rows per page
+     *
+     * @return the page request
+     */
+    public static PageRequest of(int page, int size) {
+        Assert.isTrue(page >= 0, "page must not be negative");
+        return new PageRequest(size, (long) page * size, List.of(), false, List.of(), false);
+    }
+
+    /**
+     * Returns an offset request that skips {@code offset} rows.
+     *
+     * @param offset
+     *            the number of rows to skip
+     * @param size
+     *            the number of rows per page
+     *
+     * @return the page request
+     */
+    public static PageRequest ofOffset(long offset, int size) {
+        return new PageRequest(size, offset, List.of(), false, List.of(), false);
+    }
+
+    /**
+     * Returns a keyset request for the first page, sorted by the given columns.
+     *
+     * @param size
+     *            the number of rows per page
+     * @param sort
+     *            the sort columns, e.g. {@code "created_at DESC", "id DESC"}; together they must be unique
+     *
+     * @return the page request
+     */
+    public static PageRequest keyset(int size, String... sort) {
+        Assert.notEmpty(sort, "keyset pagination needs at least one sort column");
+        return new PageRequest(size, 0, parse(sort), true, List.of(), false);
+    }
+
+    /**
+     * Returns a copy of this request that sorts the rows by the given columns instead of the SQL file's own order.
+     *
+     * @param sort
+     *            the sort columns, e.g. {@code "name", "id DESC"}
+     *
+     * @return the page request
+     */
+    public PageRequest sortedBy(String... sort) {
+        Assert.isTrue(!keyset || sort.length > 0, "keyset pagination needs at least one sort column");
+        List<Order> orders = parse(sort);
+        Assert.isTrue(after.isEmpty() || after.size() == orders.size(), "sort columns must match the keyset values");
+        return new PageRequest(size, offset, orders, keyset, after, withTotal);
+    }
+
+    /**
+     * Returns a copy of this keyset request that reads the rows after the given key.
+     *
+     * @param keyValues
+     *            the values of the sort columns of the last row of the previous page, in sort column order
+     *
+     * @return the page request
+     */
+    public PageRequest after(Object... keyValues) {
+        Assert.state(keyset, "after(...) is only supported for keyset requests");
+        Assert.isTrue(keyValues.length == sort.size(), "expected one key value per sort column " + sort);
+        Assert.noNullElements(keyValues, "keyset values must not be null");
+        return new PageRequest(size, offset, sort, true, Collections.unmodifiableList(Arrays.asList(keyValues.clone())),
+                withTotal);
+    }
+
+    /**
+     * Returns a copy of this request that also reads the total number of rows of the query, with a
+     * {@code COUNT(*) OVER ()} window function in the same statement. The database must support window functions, and
+     * the request must be {@link #sortedBy(String...) sorted}: the SQL file then runs as a derived table, whose own
+     * {@code ORDER BY} does not order the page.
+     *
+     * @return the page request
+     */
+    public PageRequest withTotal() {
+        return new PageRequest(size, offset, sort, keyset, after, true);
+    }
+
+    /**
+     * Returns the number of rows per page.
+     *
+     * @return the page size
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the number of rows skipped; always {@code 0} for keyset requests.
+     *
+     * @return the offset
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * Returns the sort columns.
+     *
+     * @return the sort columns; empty to keep the order of the SQL file
+     */
+    public List<Order> getSort() {
+        return sort;
+    }
+
+    /**
+     * Returns whether this is a keyset request.
+     *
+     * @return {@code true} for keyset pagination, {@code false} for offset pagination
+     */
+    public boolean isKeyset() {
+        return keyset;
+    }
+
+    /**
+     * Returns the key after which a keyset request reads.
+     *
+     * @return the values of the sort columns; empty for the first page and for offset requests
+     */
+    public List<Object> getAfter() {
+        return after;
+    }
+
+    /**
+     * Returns whether the total number of rows is read.
+     *
+     * @return {@code true} if the total is read in the same statement
+     */
+    public boolean isWithTotal() {
+        return withTotal;
+    }
+
+    /**
+     * Returns the request for the page following one that ended with the given key.
+     *
+     * @param lastKey
+     *            the sort column values of the last row, used by keyset requests
+     *
+     * @return the next page request
+     */
+    PageRequest next(Object[] lastKey) {
+        if (keyset) {
+            return after(lastKey);
+        }
+        return new PageRequest(size, offset + size, sort, false, after, withTotal);
+    }
+
+    private static List<Order> parse(String... sort) {
+        List<Order> orders = new ArrayList<>();
+        for (String column : sort) {
+            Matcher matcher = ORDER.matcher(column == null ? "" : column.strip());
+            Assert.isTrue(matcher.matches(), () -> "Invalid sort column: " + column);
+            orders.add(new Order(matcher.group(1),
+                    matcher.group(2) != null && "DESC".equals(matcher.group(2).toUpperCase(Locale.ROOT))));
+        }
+        return List.copyOf(orders);
+    }
+
+    @Override
+    public String toString() {
+        return "PageRequest[size=" + size + (keyset ? ", keyset after " + after : ", offset=" + offset) + ", sort="
+                + sort + ", withTotal=" + withTotal + "]";
+    }
+
+    /**
+     * A sort column.
+     *
+     * @param column
+     *            the result column name
+     * @param descending
+     *            whether the column is sorted in descending order
+     */
+    public record Order(String column, boolean descending) {
+
+        @Override
+        public String toString() {
+            return descending ? column + " DESC" : column;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package net.noworks.clionesql.boot;
+
+/**
+ * Snapshot of the query result cache statistics of one SQL file.
+ *
+ * @param hitCount
+ *            the number of lookups served from the cache
+ * @param missCount
+ *            the number of lookups that executed the SQL file
+ * @param evictionCount
+ *            the number of results removed because they expired or the cache was full
+ * @param invalidationCount
+ *            the number of times the cache was cleared because one of its tables was written
+ * @param size
+ *            the number of results currently cached
+ *
+ * @see ClioneSqlTemplate#getQueryCacheStatistics()
+ */
+public record QueryCacheStatistics(long hitCount, long missCount, long evictionCount, long invalidationCount,
+        int size) {
+
+    /**
+     * Returns the ratio of hits to lookups.
+     *
+     * @return the hit ratio between {@code 0.0} and {@code 1.0}, or {@code 0.0} if there were no lookups
+     */
+    public double hitRatio() {
+        long lookups = hitCount + missCount;
+        return lookups == 0 ? 0.0 : (double) hitCount / lookups;
+    }
+}
@@ -0,0 +1,219 @@
+package net.noworks.clionesql.boot;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+import tetz42.clione.util.ResultMap;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Single-flight execution of the SQL files configured to {@link ClioneSqlProperties.Query#isCoalesce() coalesce}.
+ *
+ * <p>
+ * While a {@code query}/{@code queryForList} call of such a file is executing, further calls with the same operation,
+ * parameters and target type wait for it and return its result instead of taking a connection of their own. An
+ * execution that nobody joined returns the result as loaded, without copying it; otherwise every call, the executing
+ * one included, receives its own copy, an unmodifiable list of copied {@link ResultMap} rows or JavaBeans, so no call
+ * sees changes made by another. Records are shared, as they cannot be
+ * modified. Rows and beans are copied shallowly, so column values themselves must not be modified. A failed execution
+ * throws the same exception to every waiting call.
+ *
+ * <p>
+ * Calls within a read-write transaction are never coalesced, since they must see the transaction's own writes; calls
+ * within a read-only transaction or outside of one are.
+ */
+final class QueryCoalescer {
+
+    private final Map<String, Flights> flights = new HashMap<>();
+
+    /**
+     * Creates a new {@code QueryCoalescer}.
+     *
+     * @param queries
+     *            the per-SQL-file settings, keyed by SQL path
+     * @param pathResolver
+     *            resolves configured SQL paths the same way as the paths passed to the template
+     */
+    QueryCoalescer(Map<String, ClioneSqlProperties.Query> queries, UnaryOperator<String> pathResolver) {
+        queries.forEach((sqlPath, query) -> {
+            if (query.isCoalesce()) {
+                String path = pathResolver.apply(sqlPath);
+                flights.put(path, new Flights(path));
+            }
+        });
+    }
+
+    /**
+     * Returns whether no SQL file is coalesced.
+     *
+     * @return {@code true} if coalescing is disabled for every SQL file
+     */
+    boolean isEmpty() {
+        return flights.isEmpty();
+    }
+
+    /**
+     * Returns the in-flight executions of the given SQL file, unless it is not coalesced or a read-write transaction is
+     * active.
+     *
+     * @param path
+     *            the resolved SQL path
+     *
+     * @return the flights to join, or {@code null} to execute directly
+     */
+    Flights flights(String path) {
+        Flights pathFlights = flights.get(path);
+        if (pathFlights == null || TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return null;
+        }
+        return pathFlights;
+    }
+
+    /**
+     * Returns a snapshot of the statistics of every coalesced SQL file.
+     *
+     * @return the statistics keyed by resolved SQL path, in path order
+     */
+    Map<String, CoalescingStatistics> statistics() {
+        Map<String, CoalescingStatistics> statistics = new TreeMap<>();
+        flights.forEach((path, pathFlights) -> statistics.put(path, pathFlights.statistics()));
+        return Collections.unmodifiableMap(statistics);
+    }
+
+    /**
+     * In-flight executions of one SQL file.
+     */
+    static final class Flights {
+
+        private final String sqlPath;
+
+        private final Map<QueryResultCache.Key, Flight> inFlight = new ConcurrentHashMap<>();
+
+        private final LongAdder executions = new LongAdder();
+
+        private final LongAdder coalesced = new LongAdder();
+
+        Flights(String sqlPath) {
+            this.sqlPath = sqlPath;
+        }
+
+        /**
+         * Returns a copy of the result of the identical execution in flight, or runs {@code loader} and shares its
+         * result with the calls arriving meanwhile. The loaded result is copied for the executing call only if another
+         * call joined it.
+         *
+         * @param key
+         *            the operation, parameters and target type of the call
+         * @param listener
+         *            the listener notified if the call is coalesced
+         * @param loader
+         *            executes the SQL file
+         * @param <T>
+         *            the result type
+         *
+         * @return the loaded result, or a copy of the shared one
+         */
+        @SuppressWarnings("unchecked")
+        <T> T execute(QueryResultCache.Key key, ClioneSqlExecutionListener listener, Supplier<T> loader) {
+            Flight flight = new Flight();
+            Flight leader = inFlight.compute(key, (k, current) -> {
+                if (current == null) {
+                    return flight;
+                }
+                current.joined = true;
+                return current;
+            });
+            if (leader != flight) {
+                coalesced.increment();
+                listener.executionCoalesced(new ClioneSqlExecution(sqlPath, key.operation()));
+                return (T) copy(await(leader.result));
+            }
+            executions.increment();
+            T value;
+            try {
+                value = loader.get();
+            } catch (RuntimeException | Error ex) {
+                inFlight.remove(key, flight);
+                flight.result.completeExceptionally(ex);
+                throw ex;
+            }
+            inFlight.remove(key, flight);
+            flight.result.complete(value);
+            return flight.joined ? (T) copy(value) : value;
+        }
+
+        /**
+         * Returns a copy of a result: a list as an unmodifiable list of copied rows, or a single row as a copy.
+         */
+        static Object copy(Object value) {
+            if (value instanceof List<?> list) {
+                List<Object> rows = new ArrayList<>(list.size());
+                for (Object row : list) {
+                    rows.add(copyRow(row));
+                }
+                return Collections.unmodifiableList(rows);
+            }
+            return copyRow(value);
+        }
+
+        /**
+         * Returns a shallow copy of a {@link ResultMap} row or mapped JavaBean. {@code null} and records are returned
+         * as is.
+         */
+        private static Object copyRow(Object row) {
+            if (row == null || row.getClass().isRecord()) {
+                return row;
+            }
+            if (row instanceof ResultMap map) {
+                ResultMap copy = new ResultMap();
+                copy.putAll(map);
+                return copy;
+            }
+            Object copy = BeanUtils.instantiateClass(row.getClass());
+            BeanUtils.copyProperties(row, copy);
+            return copy;
+        }
+
+        private static Object await(CompletableFuture<Object> leader) {
+            try {
+                return leader.join();
+            } catch (CompletionException ex) {
+                if (ex.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                if (ex.getCause() instanceof Error cause) {
+                    throw cause;
+                }
+                throw ex;
+            }
+        }
+
+        private CoalescingStatistics statistics() {
+            return new CoalescingStatistics(executions.sum(), coalesced.sum(), inFlight.size());
+        }
+    }
+
+    /**
+     * One execution in flight: its result and whether another call joined it.
+     */
+    private static final class Flight {
+
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+
+        /** Set while the flight is registered; read by the executing call once it has removed the flight. */
+        private volatile boolean joined;
+    }
+}
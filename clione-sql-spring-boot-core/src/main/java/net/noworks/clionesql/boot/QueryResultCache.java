@@ -0,0 +1,362 @@
+package net.noworks.clionesql.boot;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Time-to-live result cache for the SQL files configured with a {@link ClioneSqlProperties.Query#getCacheTtl() cache
+ * TTL}.
+ *
+ * <p>
+ * Each cached SQL file has its own least-recently-used region of at most
+ * {@link ClioneSqlProperties.Query#getCacheMaxSize() cacheMaxSize} results, keyed by operation, parameters and target
+ * type. Parameter values must implement {@code equals}/{@code hashCode}; arrays only match themselves.
+ *
+ * <p>
+ * A region is cleared when a table it {@link ClioneSqlProperties.Query#getTables() declares} is
+ * {@link #invalidate(Collection) invalidated}. Within a transaction the invalidation is deferred until after commit;
+ * until then the transaction bypasses the affected regions, so it neither sees results cached before its own writes nor
+ * caches results that include them. A load that overlaps an invalidation is not cached.
+ */
+final class QueryResultCache {
+
+    private final Map<String, Region> regions = new HashMap<>();
+
+    private final Map<String, Set<String>> tablesByPath = new HashMap<>();
+
+    /**
+     * Creates a new {@code QueryResultCache}.
+     *
+     * @param queries
+     *            the per-SQL-file settings, keyed by SQL path
+     * @param pathResolver
+     *            resolves configured SQL paths the same way as the paths passed to the template
+     */
+    QueryResultCache(Map<String, ClioneSqlProperties.Query> queries, UnaryOperator<String> pathResolver) {
+        queries.forEach((sqlPath, query) -> {
+            String path = pathResolver.apply(sqlPath);
+            Set<String> tables = new HashSet<>();
+            for (String table : query.getTables()) {
+                tables.add(normalizeTable(table));
+            }
+            tablesByPath.put(path, Set.copyOf(tables));
+            Duration ttl = query.getCacheTtl();
+            if (ttl != null && !ttl.isZero() && !ttl.isNegative() && query.getCacheMaxSize() > 0) {
+                regions.put(path, new Region(path, ttl.toNanos(), query.getCacheMaxSize(), Set.copyOf(tables)));
+            }
+        });
+    }
+
+    /**
+     * Returns whether no SQL file is cached.
+     *
+     * @return {@code true} if the cache is disabled for every SQL file
+     */
+    boolean isEmpty() {
+        return regions.isEmpty();
+    }
+
+    /**
+     * Returns the region of the given SQL file, unless it is not cached or the current transaction has pending
+     * invalidations for one of its tables.
+     *
+     * @param path
+     *            the resolved SQL path
+     *
+     * @return the region to use, or {@code null} to bypass the cache
+     */
+    Region region(String path) {
+        Region region = regions.get(path);
+        if (region == null) {
+            return null;
+        }
+        PendingInvalidation pending = (PendingInvalidation) TransactionSynchronizationManager.getResource(this);
+        if (pending != null && !Collections.disjoint(pending.tables, region.tables)) {
+            return null;
+        }
+        return region;
+    }
+
+    /**
+     * Returns the tables declared for the given SQL file.
+     *
+     * @param path
+     *            the resolved SQL path
+     *
+     * @return the normalized table names; empty if none are declared
+     */
+    Set<String> tables(String path) {
+        return tablesByPath.getOrDefault(path, Set.of());
+    }
+
+    /**
+     * Clears every region that declares one of the given tables, after commit if a transaction is active.
+     *
+     * @param tables
+     *            the tables that were written
+     */
+    void invalidate(Collection<String> tables) {
+        if (tables.isEmpty() || regions.isEmpty()) {
+            return;
+        }
+        Set<String> normalized = new HashSet<>();
+        for (String table : tables) {
+            normalized.add(normalizeTable(table));
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            PendingInvalidation pending = (PendingInvalidation) TransactionSynchronizationManager.getResource(this);
+            if (pending == null) {
+                pending = new PendingInvalidation();
+                TransactionSynchronizationManager.bindResource(this, pending);
+                TransactionSynchronizationManager.registerSynchronization(pending);
+            }
+            pending.tables.addAll(normalized);
+        } else {
+            invalidateNow(normalized);
+        }
+    }
+
+    private void invalidateNow(Set<String> tables) {
+        for (Region region : regions.values()) {
+            if (!Collections.disjoint(tables, region.tables)) {
+                region.clear();
+            }
+        }
+    }
+
+    /**
+     * Returns a snapshot of the statistics of every region.
+     *
+     * @return the statistics keyed by resolved SQL path, in path order
+     */
+    Map<String, QueryCacheStatistics> statistics() {
+        Map<String, QueryCacheStatistics> statistics = new TreeMap<>();
+        regions.forEach((path, region) -> statistics.put(path, region.statistics()));
+        return Collections.unmodifiableMap(statistics);
+    }
+
+    /**
+     * Returns a result that can be shared between callers: an unmodifiable copy of a list, any other value as is.
+     *
+     * @param value
+     *            the result of an execution
+     *
+     * @return the shareable result
+     */
+    private static Object shareable(Object value) {
+        if (value instanceof List<?> list) {
+            return Collections.unmodifiableList(new ArrayList<>(list));
+        }
+        return value;
+    }
+
+    private static String normalizeTable(String table) {
+        return table.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Cache key of a result within a region.
+     *
+     * @param operation
+     *            the template operation that produced the result
+     * @param params
+     *            a copy of the named parameters
+     * @param type
+     *            the mapped type, or {@code null} for {@code ResultMap} results
+     */
+    record Key(String operation, Map<String, Object> params, Class<?> type) {
+
+        /**
+         * Creates a key, copying {@code params} so later changes by the caller do not affect it.
+         *
+         * @param operation
+         *            the template operation
+         * @param params
+         *            the named parameters, or {@code null}
+         * @param type
+         *            the mapped type, or {@code null}
+         *
+         * @return a new key
+         */
+        static Key of(String operation, Map<String, Object> params, Class<?> type) {
+            return new Key(operation, params == null ? Map.of() : new HashMap<>(params), type);
+        }
+    }
+
+    /**
+     * Cached results of one SQL file.
+     */
+    static final class Region {
+
+        private static final Object NULL = new Object();
+
+        private final String sqlPath;
+
+        private final long ttlNanos;
+
+        private final int maxSize;
+
+        private final Set<String> tables;
+
+        private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+        private long generation;
+
+        private long hits;
+
+        private long misses;
+
+        private long evictions;
+
+        private long invalidations;
+
+        Region(String sqlPath, long ttlNanos, int maxSize, Set<String> tables) {
+            this.sqlPath = sqlPath;
+            this.ttlNanos = ttlNanos;
+            this.maxSize = maxSize;
+            this.tables = tables;
+        }
+
+        /**
+         * Returns the cached result for {@code key}, or loads, caches and returns it.
+         *
+         * @param key
+         *            the result key
+         * @param listener
+         *            the listener notified of the hit or miss and of evicted entries
+         * @param loader
+         *            loads the result on a miss
+         * @param <T>
+         *            the result type
+         *
+         * @return the cached or loaded result
+         */
+        @SuppressWarnings("unchecked")
+        <T> T get(Key key, ClioneSqlExecutionListener listener, Supplier<T> loader) {
+            ClioneSqlExecution execution = new ClioneSqlExecution(sqlPath, key.operation());
+            Object cached = null;
+            long loadGeneration;
+            boolean expired = false;
+            synchronized (this) {
+                Entry entry = entries.get(key);
+                if (entry != null && entry.expiresAt - System.nanoTime() > 0) {
+                    hits++;
+                    cached = entry.value;
+                } else {
+                    if (entry != null) {
+                        entries.remove(key);
+                        evictions++;
+                        expired = true;
+                    }
+                    misses++;
+                }
+                loadGeneration = generation;
+            }
+            if (expired) {
+                listener.cacheEvicted(execution);
+            }
+            if (cached != null) {
+                listener.cacheHit(execution);
+                return cached == NULL ? null : (T) cached;
+            }
+            listener.cacheMiss(execution);
+            T value = (T) shareable(loader.get());
+            List<Key> evicted = put(key, value, loadGeneration);
+            for (Key evictedKey : evicted) {
+                listener.cacheEvicted(new ClioneSqlExecution(sqlPath, evictedKey.operation()));
+            }
+            return value;
+        }
+
+        private synchronized List<Key> put(Key key, Object value, long loadGeneration) {
+            if (loadGeneration != generation) {
+                return List.of();
+            }
+            entries.put(key, new Entry(value == null ? NULL : value, System.nanoTime() + ttlNanos));
+            List<Key> evicted = new ArrayList<>();
+            Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+            while (entries.size() > maxSize && it.hasNext()) {
+                evicted.add(it.next().getKey());
+                it.remove();
+                evictions++;
+            }
+            return evicted;
+        }
+
+        private synchronized void clear() {
+            generation++;
+            invalidations++;
+            entries.clear();
+        }
+
+        private synchronized QueryCacheStatistics statistics() {
+            return new QueryCacheStatistics(hits, misses, evictions, invalidations, entries.size());
+        }
+    }
+
+    /**
+     * A cached result and its expiry time.
+     *
+     * @param value
+     *            the result, or {@code Region.NULL} for {@code null}
+     * @param expiresAt
+     *            the {@link System#nanoTime()} after which the entry is stale
+     */
+    private record Entry(Object value, long expiresAt) {
+    }
+
+    /**
+     * Collects the tables written by a transaction and invalidates them after commit.
+     */
+    private final class PendingInvalidation implements TransactionSynchronization {
+
+        private final Set<String> tables = new HashSet<>();
+
+        private boolean bound = true;
+
+        @Override
+        public void suspend() {
+            if (bound) {
+                TransactionSynchronizationManager.unbindResource(QueryResultCache.this);
+                bound = false;
+            }
+        }
+
+        @Override
+        public void resume() {
+            if (!bound) {
+                TransactionSynchronizationManager.bindResource(QueryResultCache.this, this);
+                bound = true;
+            }
+        }
+
+        @Override
+        public void afterCommit() {
+            invalidateNow(tables);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            if (bound) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(QueryResultCache.this);
+                bound = false;
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package net.noworks.clionesql.boot;
+
+import java.time.Duration;
+
+/**
+ * {@link ClioneSqlExecutionListener} that {@link ReplicaRoutingDataSource#pinToPrimary(Duration) pins} the current
+ * thread to the primary data source after each successful update, so that its following read-only transactions read
+ * their own writes instead of a possibly lagging replica.
+ *
+ * <p>
+ * Updates are executions with operation {@link ClioneSqlExecution#UPDATE}, {@link ClioneSqlExecution#BATCH_UPDATE} or
+ * {@link ClioneSqlExecution#BULK_INSERT}. Writes issued outside {@link ClioneSqlTemplate} are not seen by this
+ * listener.
+ *
+ * @see ClioneSqlProperties.Routing#isReadYourWrites()
+ */
+public class ReadYourWritesListener implements ClioneSqlExecutionListener {
+
+    private final ReplicaRoutingDataSource dataSource;
+
+    private final Duration window;
+
+    /**
+     * Creates a new {@code ReadYourWritesListener}.
+     *
+     * @param dataSource
+     *            the routing data source to pin threads on
+     * @param window
+     *            how long a thread stays on the primary after its last update
+     */
+    public ReadYourWritesListener(ReplicaRoutingDataSource dataSource, Duration window) {
+        this.dataSource = dataSource;
+        this.window = window;
+    }
+
+    @Override
+    public void executionSucceeded(ClioneSqlExecution execution, long elapsedNanos, long rowCount) {
+        String operation = execution.operation();
+        if (ClioneSqlExecution.UPDATE.equals(operation) || ClioneSqlExecution.BATCH_UPDATE.equals(operation)
+                || ClioneSqlExecution.BULK_INSERT.equals(operation)) {
+            dataSource.pinToPrimary(window);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package net.noworks.clionesql.boot;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.Assert;
+
+/**
+ * {@link DataSource} that sends read-only transactions to replica data sources and everything else to the primary.
+ *
+ * <p>
+ * This is a {@link LazyConnectionDataSourceProxy} whose {@link #setReadOnlyDataSource(DataSource) read-only data
+ * source} balances across the replicas. Because the physical connection is only fetched on the first statement, the
+ * {@code readOnly} flag that a transaction manager sets for {@code @Transactional(readOnly = true)} is already known
+ * when the target is chosen. Replicas are picked {@link LoadBalancing#ROUND_ROBIN round-robin} or
+ * {@link LoadBalancing#RANDOM at random}; a replica that fails to hand out a connection is skipped, and the primary is
+ * used if no replica is available.
+ *
+ * <p>
+ * A thread can be {@link #pinToPrimary(Duration) pinned} to the primary for a while, so that reads issued right after a
+ * write see that write even if the replicas lag behind (see {@link ReadYourWritesListener}).
+ *
+ * @see ClioneSqlProperties.Routing
+ */
+public class ReplicaRoutingDataSource extends LazyConnectionDataSourceProxy {
+
+    private static final Log LOGGER = LogFactory.getLog(ReplicaRoutingDataSource.class);
+
+    private final List<DataSource> replicas;
+
+    private final LoadBalancing loadBalancing;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final ThreadLocal<Long> pinnedUntil = new ThreadLocal<>();
+
+    /**
+     * Creates a new {@code ReplicaRoutingDataSource}.
+     *
+     * @param primary
+     *            the data source for read-write work
+     * @param replicas
+     *            the data sources for read-only transactions; may be empty
+     * @param loadBalancing
+     *            how to pick a replica for each connection
+     */
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, LoadBalancing loadBalancing) {
+        super(primary);
+        Assert.notNull(replicas, "replicas must not be null");
+        Assert.notNull(loadBalancing, "loadBalancing must not be null");
+        this.replicas = List.copyOf(replicas);
+        this.loadBalancing = loadBalancing;
+        setReadOnlyDataSource(new ReplicaDataSource());
+    }
+
+    /**
+     * Returns the replica data sources.
+     *
+     * @return the replicas, in configuration order
+     */
+    public List<DataSource> getReplicas() {
+        return replicas;
+    }
+
+    /**
+     * Routes read-only connections obtained by the current thread to the primary for the given period.
+     *
+     * @param window
+     *            how long to keep the thread on the primary
+     */
+    public void pinToPrimary(Duration window) {
+        pinnedUntil.set(System.nanoTime() + window.toNanos());
+    }
+
+    /**
+     * Returns whether read-only connections obtained by the current thread are currently routed to the primary.
+     *
+     * @return {@code true} if the thread is pinned to the primary
+     */
+    public boolean isPinnedToPrimary() {
+        Long until = pinnedUntil.get();
+        if (until == null) {
+            return false;
+        }
+        if (until - System.nanoTime() > 0) {
+            return true;
+        }
+        pinnedUntil.remove();
+        return false;
+    }
+
+    private int firstReplica() {
+        if (loadBalancing == LoadBalancing.RANDOM) {
+            return ThreadLocalRandom.current().nextInt(replicas.size());
+        }
+        return Math.floorMod(next.getAndIncrement(), replicas.size());
+    }
+
+    /**
+     * Strategy for picking a replica.
+     */
+    public enum LoadBalancing {
+
+        /** Cycle through the replicas in configuration order. */
+        ROUND_ROBIN,
+
+        /** Pick a replica at random for each connection. */
+        RANDOM
+    }
+
+    /**
+     * Read-only target that hands out replica connections, or primary connections when the thread is pinned or no
+     * replica is available.
+     */
+    private final class ReplicaDataSource extends AbstractDataSource {
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return getConnection(null, null);
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            if (!replicas.isEmpty() && !isPinnedToPrimary()) {
+                int first = firstReplica();
+                for (int i = 0; i < replicas.size(); i++) {
+                    DataSource replica = replicas.get((first + i) % replicas.size());
+                    try {
+                        return username != null ? replica.getConnection(username, password) : replica.getConnection();
+                    } catch (SQLException ex) {
+                        LOGGER.warn("Failed to obtain a connection from replica " + replica + "; trying the next one",
+                                ex);
+                    }
+                }
+            }
+            DataSource primary = obtainTargetDataSource();
+            return username != null ? primary.getConnection(username, password) : primary.getConnection();
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package net.noworks.clionesql.boot;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * {@link InvocationHandler} for a {@link Connection} proxy that hands every query result to a {@link ResultSetHandler}
+ * before clione-sql sees it.
+ *
+ * <p>
+ * Statements created by the connection are proxied. When {@code executeQuery} returns, the result set is passed to the
+ * handler. If the handler reads the rows itself, clione-sql receives a view of the same result set whose {@code next()}
+ * always returns {@code false}, so it does not build a {@code ResultMap} for any row; otherwise it receives the result
+ * set unchanged. All other calls are delegated unchanged.
+ */
+final class ResultSetInterceptingConnection implements InvocationHandler {
+
+    private final Connection target;
+
+    private final ResultSetHandler handler;
+
+    private ResultSetInterceptingConnection(Connection target, ResultSetHandler handler) {
+        this.target = target;
+        this.handler = handler;
+    }
+
+    /**
+     * Wraps the given connection so that every query result is passed to {@code handler}.
+     *
+     * @param target
+     *            the connection to wrap
+     * @param handler
+     *            the handler that reads each query result
+     *
+     * @return a proxy for {@code target}
+     */
+    static Connection wrap(Connection target, ResultSetHandler handler) {
+        return (Connection) Proxy.newProxyInstance(ResultSetInterceptingConnection.class.getClassLoader(),
+                new Class<?>[] { Connection.class }, new ResultSetInterceptingConnection(target, handler));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+        case "equals":
+            return proxy == args[0];
+        case "hashCode":
+            return System.identityHashCode(proxy);
+        case "toString":
+            return "Result-set-intercepting proxy for [" + target + "]";
+        default:
+            break;
+        }
+        Object result = delegate(target, method, args);
+        if (result instanceof Statement statement && Statement.class.isAssignableFrom(method.getReturnType())) {
+            return Proxy.newProxyInstance(ResultSetInterceptingConnection.class.getClassLoader(),
+                    new Class<?>[] { method.getReturnType() },
+                    (statementProxy, statementMethod, statementArgs) -> invokeStatement(statement, proxy,
+                            statementProxy, statementMethod, statementArgs));
+        }
+        return result;
+    }
+
+    private Object invokeStatement(Statement statement, Object connectionProxy, Object proxy, Method method,
+            Object[] args) throws Throwable {
+        switch (method.getName()) {
+        case "equals":
+            return proxy == args[0];
+        case "hashCode":
+            return System.identityHashCode(proxy);
+        case "getConnection":
+            return connectionProxy;
+        case "executeQuery":
+            ResultSet rs = (ResultSet) delegate(statement, method, args);
+            return handler.handle(rs) ? exhausted(rs) : rs;
+        default:
+            return delegate(statement, method, args);
+        }
+    }
+
+    private static ResultSet exhausted(ResultSet rs) {
+        return (ResultSet) Proxy.newProxyInstance(ResultSetInterceptingConnection.class.getClassLoader(),
+                new Class<?>[] { ResultSet.class }, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "next":
+                        return false;
+                    default:
+                        return delegate(rs, method, args);
+                    }
+                });
+    }
+
+    private static Object delegate(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getTargetException();
+        }
+    }
+
+    /**
+     * Callback that reads a query result before it is returned to clione-sql.
+     */
+    @FunctionalInterface
+    interface ResultSetHandler {
+
+        /**
+         * Reads the given result set, or leaves it to clione-sql.
+         *
+         * @param rs
+         *            the result set returned by {@code executeQuery}, positioned before the first row
+         *
+         * @return {@code true} if the rows have been read and must be hidden from clione-sql, {@code false} to pass the
+         *         result set through
+         *
+         * @throws SQLException
+         *             if reading the result set fails
+         */
+        boolean handle(ResultSet rs) throws SQLException;
+    }
+}
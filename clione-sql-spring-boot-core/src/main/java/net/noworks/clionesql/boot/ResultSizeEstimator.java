@@ -0,0 +1,116 @@
+package net.noworks.clionesql.boot;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.util.Assert;
+
+/**
+ * Rolling estimate of the number of rows each SQL file returns to {@link ClioneSqlTemplate#queryForList}, used to size
+ * the JDBC fetch size and the result list of its next execution.
+ *
+ * <p>
+ * The estimate of a file is an exponentially weighted moving average of its row counts, in which each execution counts
+ * for a quarter, so that a few unusual results do not swing it. Instances are thread-safe.
+ *
+ * @see ClioneSqlProperties.AdaptiveFetch
+ */
+final class ResultSizeEstimator {
+
+    private static final double WEIGHT = 0.25;
+
+    private static final long UNKNOWN = Double.doubleToRawLongBits(-1);
+
+    private final int minFetchSize;
+
+    private final int maxFetchSize;
+
+    private final int maxInitialCapacity;
+
+    private final Map<String, AtomicLong> estimates = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new {@code ResultSizeEstimator}.
+     *
+     * @param minFetchSize
+     *            the smallest fetch size to suggest
+     * @param maxFetchSize
+     *            the largest fetch size to suggest
+     * @param maxInitialCapacity
+     *            the largest initial list capacity to suggest
+     */
+    ResultSizeEstimator(int minFetchSize, int maxFetchSize, int maxInitialCapacity) {
+        Assert.isTrue(minFetchSize > 0, "minFetchSize must be greater than 0");
+        Assert.isTrue(maxFetchSize >= minFetchSize, "maxFetchSize must not be less than minFetchSize");
+        Assert.isTrue(maxInitialCapacity >= 0, "maxInitialCapacity must not be negative");
+        this.minFetchSize = minFetchSize;
+        this.maxFetchSize = maxFetchSize;
+        this.maxInitialCapacity = maxInitialCapacity;
+    }
+
+    /**
+     * Records the row count of an execution of an SQL file.
+     *
+     * @param path
+     *            the resolved SQL path
+     * @param rows
+     *            the number of rows returned; negative values are ignored
+     */
+    void record(String path, long rows) {
+        if (rows < 0) {
+            return;
+        }
+        estimates.computeIfAbsent(path, key -> new AtomicLong(UNKNOWN)).updateAndGet(bits -> {
+            double estimate = Double.longBitsToDouble(bits);
+            return Double.doubleToRawLongBits(estimate < 0 ? rows : estimate + WEIGHT * (rows - estimate));
+        });
+    }
+
+    /**
+     * Returns the estimated row count of an SQL file.
+     *
+     * @param path
+     *            the resolved SQL path
+     *
+     * @return the estimate; {@code -1} if the file has not been recorded yet
+     */
+    double estimate(String path) {
+        AtomicLong estimate = estimates.get(path);
+        return estimate != null ? Double.longBitsToDouble(estimate.get()) : -1;
+    }
+
+    /**
+     * Returns the fetch size for the next execution of an SQL file: one more than the estimated row count, so that a
+     * result of the usual size is read in a single round trip, bounded by the minimum and maximum fetch size.
+     *
+     * @param path
+     *            the resolved SQL path
+     *
+     * @return the fetch size; {@code 0} if the file has not been recorded yet
+     */
+    int fetchSize(String path) {
+        double estimate = estimate(path);
+        if (estimate < 0) {
+            return 0;
+        }
+        return (int) Math.max(minFetchSize, Math.min(maxFetchSize, Math.ceil(estimate) + 1));
+    }
+
+    /**
+     * Returns the initial capacity of the result list for the next execution of an SQL file: the estimated row count,
+     * bounded by the maximum initial capacity.
+     *
+     * @param path
+     *            the resolved SQL path
+     *
+     * @return the initial capacity; {@code 10}, the default of {@code ArrayList}, if the file has not been recorded yet
+     */
+    int initialCapacity(String path) {
+        double estimate = estimate(path);
+        if (estimate < 0) {
+            return Math.min(10, maxInitialCapacity);
+        }
+        return (int) Math.min(maxInitialCapacity, Math.ceil(estimate));
+    }
+}
@@ -0,0 +1,239 @@
+package net.noworks.clionesql.boot;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.springframework.util.ResourceUtils;
+
+/**
+ * Index of SQL files packed into a single classpath resource at build time.
+ *
+ * <p>
+ * The {@code clione-sql-spring-boot-maven-plugin} writes every SQL file under the configured prefix, including its
+ * dialect variants ({@code *.sql-<productName>}), to {@value #LOCATION}. {@link ClioneSqlTemplate} then
+ * {@link #getClassLoader(ClassLoader) serves} clione-sql's file lookups from the bundle instead of searching the
+ * classpath once per file and variant. A variant that is absent from the bundle although its base file is present is
+ * known not to exist, so no classpath lookup is made for it either.
+ *
+ * <p>
+ * A bundle in a directory is memory-mapped; a bundle inside a jar is read into memory once. File contents are kept as
+ * raw bytes, so clione-sql decodes them with its own configured encoding.
+ *
+ * <p>
+ * The format is a header ({@code int} magic, {@code int} version, {@code int} entry count), one index record per file
+ * ({@code short} length and UTF-8 bytes of the path, {@code int} offset, {@code int} length) and the file contents,
+ * with offsets relative to the end of the index.
+ */
+public final class SqlBundle {
+
+    /** Classpath location of the bundle. */
+    public static final String LOCATION = "META-INF/clione-sql/sql.bundle";
+
+    private static final int MAGIC = 0x43534231;
+
+    private static final int VERSION = 1;
+
+    private static final String VARIANT_SEPARATOR = ".sql-";
+
+    private final Map<String, ByteBuffer> entries;
+
+    private SqlBundle(Map<String, ByteBuffer> entries) {
+        this.entries = entries;
+    }
+
+    /**
+     * Loads every bundle on the given class loader's classpath. When several bundles contain the same path, the first
+     * one on the classpath wins.
+     *
+     * @param classLoader
+     *            the class loader to search, or {@code null} for the system class loader
+     *
+     * @return the merged bundle, or {@code null} if there is none
+     *
+     * @throws UncheckedIOException
+     *             if a bundle cannot be read or is malformed
+     */
+    public static SqlBundle load(ClassLoader classLoader) {
+        try {
+            Enumeration<URL> urls = classLoader != null ? classLoader.getResources(LOCATION)
+                    : ClassLoader.getSystemResources(LOCATION);
+            if (!urls.hasMoreElements()) {
+                return null;
+            }
+            Map<String, ByteBuffer> entries = new LinkedHashMap<>();
+            while (urls.hasMoreElements()) {
+                URL url = urls.nextElement();
+                read(url).forEach(entries::putIfAbsent);
+            }
+            return new SqlBundle(Collections.unmodifiableMap(entries));
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to load clione-sql bundle " + LOCATION, ex);
+        }
+    }
+
+    /**
+     * Writes a bundle of the given files.
+     *
+     * @param files
+     *            the raw contents of each file, keyed by classpath path
+     * @param out
+     *            the stream to write to; not closed
+     *
+     * @throws IOException
+     *             if writing fails
+     */
+    public static void write(Map<String, byte[]> files, OutputStream out) throws IOException {
+        Map<String, byte[]> sorted = new TreeMap<>(files);
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(sorted.size());
+        int offset = 0;
+        for (Map.Entry<String, byte[]> file : sorted.entrySet()) {
+            byte[] path = file.getKey().getBytes(StandardCharsets.UTF_8);
+            data.writeShort(path.length);
+            data.write(path);
+            data.writeInt(offset);
+            data.writeInt(file.getValue().length);
+            offset += file.getValue().length;
+        }
+        for (byte[] content : sorted.values()) {
+            data.write(content);
+        }
+        data.flush();
+    }
+
+    /**
+     * Returns the paths of the bundled files.
+     *
+     * @return the classpath paths, including dialect variants
+     */
+    public Set<String> getPaths() {
+        return entries.keySet();
+    }
+
+    /**
+     * Opens a bundled file.
+     *
+     * @param path
+     *            the classpath path of the file
+     *
+     * @return the raw contents, or {@code null} if the file is not bundled
+     */
+    public InputStream open(String path) {
+        ByteBuffer content = entries.get(path);
+        if (content == null) {
+            return null;
+        }
+        byte[] bytes = new byte[content.remaining()];
+        content.duplicate().get(bytes);
+        return new ByteArrayInputStream(bytes);
+    }
+
+    /**
+     * Returns whether the bundle knows if the given file exists, i.e. the file is bundled or it is a dialect variant of
+     * a bundled file.
+     *
+     * @param path
+     *            the classpath path of the file
+     *
+     * @return {@code true} if no classpath lookup is needed for {@code path}
+     */
+    public boolean isResolved(String path) {
+        if (entries.containsKey(path)) {
+            return true;
+        }
+        int variant = path.lastIndexOf(VARIANT_SEPARATOR);
+        return variant > 0 && entries.containsKey(path.substring(0, variant + VARIANT_SEPARATOR.length() - 1));
+    }
+
+    /**
+     * Returns a class loader whose {@code getResourceAsStream} answers bundled paths from this bundle and delegates
+     * everything else to {@code parent}.
+     *
+     * @param parent
+     *            the class loader to delegate to
+     *
+     * @return a class loader for clione-sql's SQL file lookups
+     */
+    public ClassLoader getClassLoader(ClassLoader parent) {
+        return new BundleClassLoader(parent, this);
+    }
+
+    private static Map<String, ByteBuffer> read(URL url) throws IOException {
+        ByteBuffer buffer = map(url);
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("Unsupported clione-sql bundle format: " + url);
+            }
+            int count = buffer.getInt();
+            Map<String, int[]> positions = new LinkedHashMap<>();
+            for (int i = 0; i < count; i++) {
+                byte[] path = new byte[buffer.getShort() & 0xFFFF];
+                buffer.get(path);
+                positions.put(new String(path, StandardCharsets.UTF_8), new int[] { buffer.getInt(), buffer.getInt() });
+            }
+            int dataStart = buffer.position();
+            Map<String, ByteBuffer> entries = new LinkedHashMap<>();
+            for (Map.Entry<String, int[]> position : positions.entrySet()) {
+                entries.put(position.getKey(),
+                        buffer.slice(dataStart + position.getValue()[0], position.getValue()[1]).asReadOnlyBuffer());
+            }
+            return entries;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException ex) {
+            throw new IOException("Truncated clione-sql bundle: " + url, ex);
+        }
+    }
+
+    private static ByteBuffer map(URL url) throws IOException {
+        if (ResourceUtils.isFileURL(url)) {
+            try (FileChannel channel = FileChannel.open(Path.of(url.toURI()), StandardOpenOption.READ)) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            } catch (URISyntaxException ex) {
+                throw new IOException("Invalid clione-sql bundle location: " + url, ex);
+            }
+        }
+        try (InputStream in = url.openStream()) {
+            return ByteBuffer.wrap(in.readAllBytes());
+        }
+    }
+
+    /**
+     * Serves SQL file lookups from the bundle.
+     */
+    private static final class BundleClassLoader extends ClassLoader {
+
+        private final SqlBundle bundle;
+
+        BundleClassLoader(ClassLoader parent, SqlBundle bundle) {
+            super(parent);
+            this.bundle = bundle;
+        }
+
+        @Override
+        public InputStream getResourceAsStream(String name) {
+            if (bundle.isResolved(name)) {
+                return bundle.open(name);
+            }
+            return super.getResourceAsStream(name);
+        }
+    }
+}
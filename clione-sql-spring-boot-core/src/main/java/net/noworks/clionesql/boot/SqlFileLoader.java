@@ -0,0 +1,231 @@
+package net.noworks.clionesql.boot;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import tetz42.clione.exception.SQLFileNotFoundException;
+
+import org.springframework.util.ClassUtils;
+
+/**
+ * Loads SQL template text from the classpath for {@link ClioneSqlProperties#isDevelopmentMode() development mode}.
+ *
+ * <p>
+ * clione-sql caches SQL files according to its own {@code clione.properties}, which Spring properties cannot reach. In
+ * development mode {@link ClioneSqlTemplate} therefore reads the files itself, with
+ * {@link ClioneSqlProperties#getSqlFileEncoding() sqlFileEncoding}, and hands the text to clione-sql. The dialect
+ * variant {@code <path>-<productName>} is preferred over {@code <path>} when a product name is configured.
+ *
+ * <p>
+ * Files under a {@link #watch(String) watched} root stay cached until {@link #invalidate(String) invalidated}, which
+ * {@link ClioneSqlFileWatcher} does when a file changes. Other files (e.g. inside jars) are re-read once
+ * {@link ClioneSqlProperties#getSqlFileCacheTime() sqlFileCacheTime} milliseconds have passed since they were loaded.
+ */
+final class SqlFileLoader {
+
+    private static final String VARIANT_SEPARATOR = "-";
+
+    private static final String VARIANT_SUFFIX = ".sql" + VARIANT_SEPARATOR;
+
+    private final Charset encoding;
+
+    private final long cacheTimeNanos;
+
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+
+    private final List<String> watchedRoots = new CopyOnWriteArrayList<>();
+
+    /**
+     * Creates a new {@code SqlFileLoader}.
+     *
+     * @param encoding
+     *            the encoding of SQL files
+     * @param cacheTimeMillis
+     *            how long files outside watched roots are cached, in milliseconds
+     */
+    SqlFileLoader(Charset encoding, long cacheTimeMillis) {
+        this.encoding = encoding;
+        this.cacheTimeNanos = TimeUnit.MILLISECONDS.toNanos(cacheTimeMillis);
+    }
+
+    /**
+     * Returns the text of the SQL file, reading it if it is not cached or its cache time has passed.
+     *
+     * @param path
+     *            the resolved classpath path of the SQL file
+     * @param productName
+     *            the product name whose dialect variant is preferred, or {@code null}
+     *
+     * @return the SQL template text
+     *
+     * @throws SQLFileNotFoundException
+     *             if neither the variant nor the file exists
+     */
+    String load(String path, String productName) {
+        Key key = new Key(path, productName);
+        Entry entry = entries.get(key);
+        if (entry == null || !entry.isValid(cacheTimeNanos)) {
+            entry = read(path, productName);
+            entries.put(key, entry);
+        }
+        return entry.text();
+    }
+
+    /**
+     * Keeps files under the given root cached until they are invalidated.
+     *
+     * @param rootUrl
+     *            the URL of a watched directory, as returned by {@link URL#toString()}
+     */
+    void watch(String rootUrl) {
+        watchedRoots.add(rootUrl.endsWith("/") ? rootUrl : rootUrl + "/");
+    }
+
+    /**
+     * Removes the cached text of a changed SQL file.
+     *
+     * @param path
+     *            the classpath path of the changed file; for a dialect variant ({@code *.sql-<productName>}), every
+     *            entry of the base path is removed
+     *
+     * @return the number of cache entries removed
+     */
+    int invalidate(String path) {
+        int variant = path.lastIndexOf(VARIANT_SUFFIX);
+        String basePath = variant > 0 ? path.substring(0, variant + VARIANT_SUFFIX.length() - 1) : path;
+        int removed = 0;
+        for (Key key : entries.keySet()) {
+            if (key.path().equals(basePath) && entries.remove(key) != null) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Removes the cached text of every SQL file, e.g. after file system events were lost.
+     */
+    void invalidateAll() {
+        entries.clear();
+    }
+
+    /**
+     * Finds an SQL file on the class path, preferring its dialect variant.
+     *
+     * @param classLoader
+     *            the class loader to search, or {@code null} for the system class loader
+     * @param path
+     *            the resolved classpath path of the SQL file
+     * @param productName
+     *            the product name whose dialect variant is preferred, or {@code null}
+     *
+     * @return the URL of the variant or the file, or {@code null} if neither exists
+     */
+    static URL locate(ClassLoader classLoader, String path, String productName) {
+        URL url = null;
+        if (productName != null) {
+            url = getResource(classLoader, path + VARIANT_SEPARATOR + productName);
+        }
+        if (url == null) {
+            url = getResource(classLoader, path);
+        }
+        return url;
+    }
+
+    /**
+     * Opens an SQL file through the class loader's resource streams, preferring its dialect variant. Unlike
+     * {@link #locate}, this is answered by a {@link SqlBundle#getClassLoader(ClassLoader) bundle class loader} without
+     * a classpath search.
+     *
+     * @param classLoader
+     *            the class loader to search, or {@code null} for the system class loader
+     * @param path
+     *            the resolved classpath path of the SQL file
+     * @param productName
+     *            the product name whose dialect variant is preferred, or {@code null}
+     *
+     * @return the raw contents of the variant or the file, or {@code null} if neither exists
+     */
+    static InputStream open(ClassLoader classLoader, String path, String productName) {
+        InputStream in = null;
+        if (productName != null) {
+            in = getResourceAsStream(classLoader, path + VARIANT_SEPARATOR + productName);
+        }
+        if (in == null) {
+            in = getResourceAsStream(classLoader, path);
+        }
+        return in;
+    }
+
+    private Entry read(String path, String productName) {
+        URL url = locate(ClassUtils.getDefaultClassLoader(), path, productName);
+        if (url == null) {
+            throw new SQLFileNotFoundException(path);
+        }
+        try {
+            URLConnection connection = url.openConnection();
+            connection.setUseCaches(false);
+            try (InputStream in = connection.getInputStream()) {
+                String text = new String(in.readAllBytes(), encoding);
+                return new Entry(text, isWatched(url.toString()), System.nanoTime());
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to read SQL file " + url, ex);
+        }
+    }
+
+    private boolean isWatched(String url) {
+        for (String root : watchedRoots) {
+            if (url.startsWith(root)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static URL getResource(ClassLoader classLoader, String name) {
+        return classLoader != null ? classLoader.getResource(name) : ClassLoader.getSystemResource(name);
+    }
+
+    private static InputStream getResourceAsStream(ClassLoader classLoader, String name) {
+        return classLoader != null ? classLoader.getResourceAsStream(name)
+                : ClassLoader.getSystemResourceAsStream(name);
+    }
+
+    /**
+     * Cache key of a loaded file.
+     *
+     * @param path
+     *            the resolved SQL path
+     * @param productName
+     *            the preferred dialect, or {@code null}
+     */
+    private record Key(String path, String productName) {
+    }
+
+    /**
+     * A loaded file.
+     *
+     * @param text
+     *            the SQL template text
+     * @param watched
+     *            whether the file lies under a watched root
+     * @param loadedAt
+     *            the {@link System#nanoTime()} the file was read at
+     */
+    private record Entry(String text, boolean watched, long loadedAt) {
+
+        boolean isValid(long cacheTimeNanos) {
+            return watched || System.nanoTime() - loadedAt < cacheTimeNanos;
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package net.noworks.clionesql.boot;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Least-recently-used cache of {@link PreparedStatement}s keyed by SQL text, for repeated executions on one physical
+ * connection.
+ *
+ * <p>
+ * A {@link #wrap(Connection) wrapped} connection returns a cached statement from {@code prepareStatement} when the same
+ * SQL text (and the same result set type, concurrency or key-generation arguments, if any) was prepared before. Closing
+ * such a statement clears its parameters, resets any fetch size, maximum row count or query timeout set on it to the
+ * driver defaults, and returns it to the cache. If the cached statement is still in use, for example by an open stream,
+ * a new uncached statement is prepared instead. Statements beyond {@code maxSize} are closed in least-recently-used
+ * order once they are no longer in use.
+ *
+ * <p>
+ * The cache must only be used while the underlying connection stays open, i.e. within one transaction or one
+ * {@link ClioneSqlSession}, and must be {@link #close() closed} before the connection is released.
+ * {@link #forTransaction(Object, int)} takes care of that for transactions. Instances are not thread-safe.
+ */
+final class StatementCache {
+
+    private final int maxSize;
+
+    private final LinkedHashMap<List<Object>, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Creates a new {@code StatementCache}.
+     *
+     * @param maxSize
+     *            the maximum number of statements kept open
+     */
+    StatementCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the cache bound to the current transaction under {@code key}, creating and binding it on first use. The
+     * cache is closed before the transaction's connection is released and is suspended together with the transaction.
+     *
+     * @param key
+     *            the transaction resource key, unique per cache owner
+     * @param maxSize
+     *            the maximum number of statements kept open
+     *
+     * @return the transaction's statement cache, or {@code null} if no transaction synchronization is active
+     */
+    static StatementCache forTransaction(Object key, int maxSize) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        StatementCache cache = (StatementCache) TransactionSynchronizationManager.getResource(key);
+        if (cache == null) {
+            cache = new StatementCache(maxSize);
+            TransactionSynchronizationManager.bindResource(key, cache);
+            TransactionSynchronizationManager.registerSynchronization(new CacheSynchronization(key, cache));
+        }
+        return cache;
+    }
+
+    /**
+     * Wraps the given connection so that its {@code prepareStatement} calls go through this cache.
+     *
+     * @param target
+     *            the connection to wrap; must share the physical connection of earlier wrapped connections
+     *
+     * @return a proxy for {@code target}
+     */
+    Connection wrap(Connection target) {
+        return (Connection) Proxy.newProxyInstance(StatementCache.class.getClassLoader(),
+                new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "toString":
+                        return "Statement-caching proxy for [" + target + "]";
+                    case "prepareStatement":
+                        return prepareStatement(target, method, args);
+                    default:
+                        return delegate(target, method, args);
+                    }
+                });
+    }
+
+    /**
+     * Closes every cached statement, ignoring failures, and empties the cache.
+     */
+    void close() {
+        List<Entry> closing = new ArrayList<>(entries.values());
+        entries.clear();
+        for (Entry entry : closing) {
+            entry.cached = false;
+            JdbcUtils.closeStatement(entry.statement);
+        }
+    }
+
+    private Object prepareStatement(Connection target, Method method, Object[] args) throws Throwable {
+        for (Class<?> parameterType : method.getParameterTypes()) {
+            if (parameterType.isArray()) {
+                // Column index/name arrays do not make usable keys
+                return delegate(target, method, args);
+            }
+        }
+        List<Object> key = Arrays.asList(args);
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            if (entry.inUse) {
+                return delegate(target, method, args);
+            }
+            entry.inUse = true;
+            return entry.proxy;
+        }
+        entry = new Entry((PreparedStatement) delegate(target, method, args));
+        entry.inUse = true;
+        entries.put(key, entry);
+        evict();
+        return entry.proxy;
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<List<Object>, Entry>> it = entries.entrySet().iterator();
+        while (entries.size() > maxSize && it.hasNext()) {
+            Entry eldest = it.next().getValue();
+            if (!eldest.inUse) {
+                it.remove();
+                eldest.cached = false;
+                JdbcUtils.closeStatement(eldest.statement);
+            }
+        }
+    }
+
+    private static Object delegate(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getTargetException();
+        }
+    }
+
+    /**
+     * A cached statement and the proxy handed out for it.
+     */
+    private static final class Entry {
+
+        private final PreparedStatement statement;
+
+        private final PreparedStatement proxy;
+
+        private boolean cached = true;
+
+        private boolean inUse;
+
+        /** Fetch size, maximum row count and query timeout before the first change, or {@code null} if unchanged. */
+        private int[] defaults;
+
+        Entry(PreparedStatement statement) {
+            this.statement = statement;
+            this.proxy = (PreparedStatement) Proxy.newProxyInstance(StatementCache.class.getClassLoader(),
+                    new Class<?>[] { PreparedStatement.class }, (proxy, method, args) -> {
+                        switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "close":
+                            release();
+                            return null;
+                        case "isClosed":
+                            return !inUse || statement.isClosed();
+                        case "setFetchSize":
+                        case "setMaxRows":
+                        case "setLargeMaxRows":
+                        case "setQueryTimeout":
+                            saveDefaults();
+                            return delegate(statement, method, args);
+                        default:
+                            return delegate(statement, method, args);
+                        }
+                    });
+        }
+
+        private void saveDefaults() throws SQLException {
+            if (defaults == null) {
+                defaults = new int[] { statement.getFetchSize(), statement.getMaxRows(), statement.getQueryTimeout() };
+            }
+        }
+
+        private void release() throws SQLException {
+            if (!inUse) {
+                return;
+            }
+            inUse = false;
+            if (!cached) {
+                statement.close();
+                return;
+            }
+            statement.clearParameters();
+            if (defaults != null) {
+                // Settings of one SQL file must not leak into the next one with the same SQL text. The maximum row
+                // count goes first, as some drivers reject a fetch size above it.
+                statement.setMaxRows(defaults[1]);
+                statement.setQueryTimeout(defaults[2]);
+                statement.setFetchSize(defaults[0]);
+                defaults = null;
+            }
+        }
+    }
+
+    /**
+     * Closes the transaction's cache before its connection is released, and unbinds it while the transaction is
+     * suspended.
+     */
+    private static final class CacheSynchronization implements TransactionSynchronization {
+
+        private final Object key;
+
+        private final StatementCache cache;
+
+        private boolean bound = true;
+
+        CacheSynchronization(Object key, StatementCache cache) {
+            this.key = key;
+            this.cache = cache;
+        }
+
+        @Override
+        public int getOrder() {
+            return DataSourceUtils.CONNECTION_SYNCHRONIZATION_ORDER - 1;
+        }
+
+        @Override
+        public void suspend() {
+            if (bound) {
+                TransactionSynchronizationManager.unbindResource(key);
+                bound = false;
+            }
+        }
+
+        @Override
+        public void resume() {
+            if (!bound) {
+                TransactionSynchronizationManager.bindResource(key, cache);
+                bound = true;
+            }
+        }
+
+        @Override
+        public void beforeCompletion() {
+            complete();
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            complete();
+        }
+
+        private void complete() {
+            if (bound) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(key);
+                bound = false;
+            }
+            cache.close();
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package net.noworks.clionesql.boot;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.function.Supplier;
+
+/**
+ * {@link InvocationHandler} for a {@link Connection} proxy that passes every {@link Statement} it creates to a
+ * {@link StatementCustomizer} before handing it to clione-sql.
+ *
+ * <p>
+ * clione-sql prepares its statements internally and does not expose them, so JDBC statement settings such as the fetch
+ * size can only be applied by intercepting {@code createStatement}, {@code prepareStatement} and {@code prepareCall}.
+ * All other calls are delegated unchanged to the target connection.
+ *
+ * <p>
+ * A result-set type can be set as well: {@code createStatement()}, {@code prepareStatement(String)} and
+ * {@code prepareCall(String)} are then redirected to the overloads taking a result-set type, with
+ * {@link ResultSet#CONCUR_READ_ONLY} concurrency.
+ */
+final class StatementCustomizingConnection implements InvocationHandler {
+
+    private final Connection target;
+
+    private final Supplier<Integer> resultSetType;
+
+    private final StatementCustomizer customizer;
+
+    private StatementCustomizingConnection(Connection target, Supplier<Integer> resultSetType,
+            StatementCustomizer customizer) {
+        this.target = target;
+        this.resultSetType = resultSetType;
+        this.customizer = customizer;
+    }
+
+    /**
+     * Wraps the given connection so that every statement it creates is passed to {@code customizer}.
+     *
+     * @param target
+     *            the connection to wrap
+     * @param customizer
+     *            the customizer applied to each new statement
+     *
+     * @return a proxy for {@code target}
+     */
+    static Connection wrap(Connection target, StatementCustomizer customizer) {
+        return wrap(target, (Integer) null, customizer);
+    }
+
+    /**
+     * Wraps the given connection so that every statement it creates has the given result-set type and is passed to
+     * {@code customizer}.
+     *
+     * @param target
+     *            the connection to wrap
+     * @param resultSetType
+     *            the {@link ResultSet} type constant for statements created without one, or {@code null} to keep the
+     *            driver default
+     * @param customizer
+     *            the customizer applied to each new statement
+     *
+     * @return a proxy for {@code target}
+     */
+    static Connection wrap(Connection target, Integer resultSetType, StatementCustomizer customizer) {
+        return wrap(target, () -> resultSetType, customizer);
+    }
+
+    /**
+     * Wraps the given connection so that every statement it creates has the result-set type supplied at creation time
+     * and is passed to {@code customizer}, e.g. to apply the settings of whichever SQL file is executed next on a
+     * long-lived connection.
+     *
+     * @param target
+     *            the connection to wrap
+     * @param resultSetType
+     *            supplies the {@link ResultSet} type constant for statements created without one, or {@code null} to
+     *            keep the driver default
+     * @param customizer
+     *            the customizer applied to each new statement
+     *
+     * @return a proxy for {@code target}
+     */
+    static Connection wrap(Connection target, Supplier<Integer> resultSetType, StatementCustomizer customizer) {
+        return (Connection) Proxy.newProxyInstance(StatementCustomizingConnection.class.getClassLoader(),
+                new Class<?>[] { Connection.class },
+                new StatementCustomizingConnection(target, resultSetType, customizer));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+        case "equals":
+            return proxy == args[0];
+        case "hashCode":
+            return System.identityHashCode(proxy);
+        case "toString":
+            return "Statement-customizing proxy for [" + target + "]";
+        default:
+            break;
+        }
+        Method delegate = method;
+        Object[] delegateArgs = args;
+        Integer resultSetType = this.resultSetType.get();
+        if (resultSetType != null && isUntypedStatementFactory(method)) {
+            delegate = Connection.class.getMethod(method.getName(), String.class, int.class, int.class);
+            delegateArgs = new Object[] { args[0], resultSetType, ResultSet.CONCUR_READ_ONLY };
+        } else if (resultSetType != null && "createStatement".equals(method.getName())
+                && method.getParameterCount() == 0) {
+            delegate = Connection.class.getMethod("createStatement", int.class, int.class);
+            delegateArgs = new Object[] { resultSetType, ResultSet.CONCUR_READ_ONLY };
+        }
+        Object result;
+        try {
+            result = delegate.invoke(target, delegateArgs);
+        } catch (InvocationTargetException ex) {
+            throw ex.getTargetException();
+        }
+        if (result instanceof Statement statement) {
+            customizer.customize(statement);
+        }
+        return result;
+    }
+
+    /**
+     * Returns whether {@code method} is {@code prepareStatement(String)} or {@code prepareCall(String)}.
+     */
+    private static boolean isUntypedStatementFactory(Method method) {
+        return ("prepareStatement".equals(method.getName()) || "prepareCall".equals(method.getName()))
+                && method.getParameterCount() == 1;
+    }
+
+    /**
+     * Callback applied to each statement created through a customizing connection.
+     */
+    @FunctionalInterface
+    interface StatementCustomizer {
+
+        /**
+         * Applies settings to a newly created statement.
+         *
+         * @param statement
+         *            the statement to customize
+         *
+         * @throws SQLException
+         *             if a setting cannot be applied
+         */
+        void customize(Statement statement) throws SQLException;
+    }
+}
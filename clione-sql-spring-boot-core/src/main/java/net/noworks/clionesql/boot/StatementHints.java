@@ -0,0 +1,227 @@
+package net.noworks.clionesql.boot;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+
+import tetz42.clione.exception.ClioneFormatException;
+
+import org.springframework.boot.convert.DurationStyle;
+
+/**
+ * JDBC statement settings of one SQL file: fetch size, maximum row count, query timeout and result-set type.
+ *
+ * <p>
+ * Hints are declared in the header of the SQL file, i.e. the {@code --} comment lines before the first line of SQL:
+ *
+ * <pre>
+ * -- @fetch-size 5000
+ * -- @max-rows 100000
+ * -- @query-timeout 30s
+ * -- @result-set-type scroll-insensitive
+ * SELECT ...
+ * </pre>
+ *
+ * <p>
+ * Timeouts without a unit are in seconds. Other comments in the header, including unknown {@code @} names, are ignored.
+ * Each hint can be overridden with the matching {@link ClioneSqlProperties.Query} property.
+ */
+final class StatementHints {
+
+    /** Hints of an SQL file that declares none. */
+    static final StatementHints NONE = new StatementHints(null, null, null, null);
+
+    private final Integer fetchSize;
+
+    private final Integer maxRows;
+
+    private final Duration queryTimeout;
+
+    private final ClioneSqlProperties.ResultSetType resultSetType;
+
+    private StatementHints(Integer fetchSize, Integer maxRows, Duration queryTimeout,
+            ClioneSqlProperties.ResultSetType resultSetType) {
+        this.fetchSize = fetchSize;
+        this.maxRows = maxRows;
+        this.queryTimeout = queryTimeout;
+        this.resultSetType = resultSetType;
+    }
+
+    /**
+     * Parses the hints declared in the header of an SQL file.
+     *
+     * @param path
+     *            the resolved SQL path, used in error messages
+     * @param sql
+     *            the SQL template text
+     *
+     * @return the declared hints; {@link #NONE} if there are none
+     *
+     * @throws ClioneFormatException
+     *             if a hint has an invalid value
+     */
+    static StatementHints parse(String path, String sql) {
+        Integer fetchSize = null;
+        Integer maxRows = null;
+        Duration queryTimeout = null;
+        ClioneSqlProperties.ResultSetType resultSetType = null;
+        for (String line : sql.split("\r?\n")) {
+            String trimmed = line.strip();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            if (!trimmed.startsWith("--")) {
+                break;
+            }
+            String comment = trimmed.substring(2).strip();
+            if (!comment.startsWith("@")) {
+                continue;
+            }
+            String[] hint = comment.substring(1).split("\\s+", 2);
+            String value = hint.length > 1 ? hint[1].strip() : "";
+            try {
+                switch (hint[0]) {
+                case "fetch-size":
+                    fetchSize = nonNegative(Integer.parseInt(value));
+                    break;
+                case "max-rows":
+                    maxRows = nonNegative(Integer.parseInt(value));
+                    break;
+                case "query-timeout":
+                    queryTimeout = DurationStyle.detectAndParse(value, ChronoUnit.SECONDS);
+                    break;
+                case "result-set-type":
+                    resultSetType = ClioneSqlProperties.ResultSetType
+                            .valueOf(value.replace('-', '_').toUpperCase(Locale.ROOT));
+                    break;
+                default:
+                    break;
+                }
+            } catch (IllegalArgumentException | DateTimeParseException ex) {
+                throw new ClioneFormatException("Invalid hint '" + trimmed + "' in SQL file " + path);
+            }
+        }
+        if (fetchSize == null && maxRows == null && queryTimeout == null && resultSetType == null) {
+            return NONE;
+        }
+        return new StatementHints(fetchSize, maxRows, queryTimeout, resultSetType);
+    }
+
+    private static int nonNegative(int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Negative value: " + value);
+        }
+        return value;
+    }
+
+    /**
+     * Returns these hints with the values set on {@code query} taking precedence.
+     *
+     * @param query
+     *            the per-SQL-file settings, or {@code null}
+     *
+     * @return the merged hints
+     */
+    StatementHints override(ClioneSqlProperties.Query query) {
+        if (query == null) {
+            return this;
+        }
+        StatementHints merged = new StatementHints(query.getFetchSize() != null ? query.getFetchSize() : fetchSize,
+                query.getMaxRows() != null ? query.getMaxRows() : maxRows,
+                query.getQueryTimeout() != null ? query.getQueryTimeout() : queryTimeout,
+                query.getResultSetType() != null ? query.getResultSetType() : resultSetType);
+        return merged.isEmpty() ? NONE : merged;
+    }
+
+    /**
+     * Returns these hints with the given fetch size if they declare none. The fetch size is capped at the maximum row
+     * count, if one is set, since some drivers (e.g. H2) reject a larger fetch size.
+     *
+     * @param defaultFetchSize
+     *            the fetch size to use; {@code 0} keeps the driver default
+     *
+     * @return the hints with a fetch size
+     */
+    StatementHints withDefaultFetchSize(int defaultFetchSize) {
+        if (fetchSize != null || defaultFetchSize <= 0) {
+            return this;
+        }
+        int capped = maxRows != null && maxRows > 0 ? Math.min(defaultFetchSize, maxRows) : defaultFetchSize;
+        return new StatementHints(capped, maxRows, queryTimeout, resultSetType);
+    }
+
+    /**
+     * Returns whether no hint is set.
+     *
+     * @return {@code true} if statements are left unchanged
+     */
+    boolean isEmpty() {
+        return fetchSize == null && maxRows == null && queryTimeout == null && resultSetType == null;
+    }
+
+    /**
+     * Returns the fetch size hint.
+     *
+     * @return the fetch size, or {@code null} if not set
+     */
+    Integer getFetchSize() {
+        return fetchSize;
+    }
+
+    /**
+     * Returns the JDBC result-set type hint.
+     *
+     * @return the {@link java.sql.ResultSet} type constant, or {@code null} if not set
+     */
+    Integer getJdbcResultSetType() {
+        return resultSetType != null ? resultSetType.getJdbcType() : null;
+    }
+
+    /**
+     * Wraps the given connection so that every statement it creates gets these hints.
+     *
+     * @param con
+     *            the connection to wrap
+     *
+     * @return a customizing proxy, or {@code con} itself if no hint is set
+     */
+    Connection wrap(Connection con) {
+        if (isEmpty()) {
+            return con;
+        }
+        return StatementCustomizingConnection.wrap(con, getJdbcResultSetType(), this::apply);
+    }
+
+    /**
+     * Applies the fetch size, maximum row count and query timeout to a statement. Timeouts are rounded up to whole
+     * seconds, the resolution of {@link Statement#setQueryTimeout(int)}.
+     *
+     * @param statement
+     *            the statement to customize
+     *
+     * @throws SQLException
+     *             if the driver rejects a setting
+     */
+    void apply(Statement statement) throws SQLException {
+        if (maxRows != null) {
+            statement.setMaxRows(maxRows);
+        }
+        if (fetchSize != null) {
+            statement.setFetchSize(fetchSize);
+        }
+        if (queryTimeout != null) {
+            long seconds = queryTimeout.getSeconds() + (queryTimeout.getNano() > 0 ? 1 : 0);
+            statement.setQueryTimeout((int) Math.min(Math.max(seconds, 0), Integer.MAX_VALUE));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "StatementHints[fetchSize=" + fetchSize + ", maxRows=" + maxRows + ", queryTimeout=" + queryTimeout
+                + ", resultSetType=" + resultSetType + "]";
+    }
+}
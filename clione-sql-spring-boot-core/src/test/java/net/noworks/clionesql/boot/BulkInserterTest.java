@@ -0,0 +1,168 @@
+package net.noworks.clionesql.boot;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+class BulkInserterTest {
+
+    private static final List<String> COLUMNS = List.of("id", "name", "price");
+
+    private final JdbcDataSource dataSource = new JdbcDataSource();
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        dataSource.setURL("jdbc:h2:mem:bulk;DB_CLOSE_DELAY=-1");
+        execute("CREATE TABLE item (id INT PRIMARY KEY, name VARCHAR(20), price INT)");
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    void insertsMultiRowValuesInChunks() {
+        ClioneSqlProperties properties = new ClioneSqlProperties();
+        properties.setBulkInsertBatchSize(1000);
+        ClioneSqlTemplate template = new ClioneSqlTemplate(dataSource, properties);
+        Iterable<Object[]> rows = () -> IntStream.rangeClosed(1, 2500)
+                .mapToObj(id -> new Object[] { id, "item-" + id, id % 2 == 0 ? null : id }).iterator();
+
+        assertThat(template.bulkInsert("item", COLUMNS, rows)).isEqualTo(2500);
+
+        assertThat(template.queryForList("sql/test/SelectItems.sql", Map.of("minPrice", 0))).hasSize(1250);
+    }
+
+    @Test
+    void capsRowsPerStatementOnSqlServer() throws SQLException {
+        execute("CREATE TABLE tag (name VARCHAR(20))");
+        try (Connection con = dataSource.getConnection()) {
+            Connection spied = spy(con);
+            BulkInserter inserter = new BulkInserter(spied, DatabaseProfile.of("sqlserver"), "tag", List.of("name"),
+                    5000, row -> Map.of());
+            Iterator<Object[]> rows = IntStream.rangeClosed(1, 2500).mapToObj(id -> new Object[] { "tag-" + id })
+                    .iterator();
+
+            assertThat(inserter.insert(rows)).isEqualTo(2500);
+
+            verify(spied).prepareStatement(inserter.insertSql(1000));
+            verify(spied).prepareStatement(inserter.insertSql(500));
+        }
+    }
+
+    @Test
+    void fallsBackToJdbcBatchAndJoinsTransaction() {
+        ClioneSqlProperties properties = new ClioneSqlProperties();
+        properties.setProductName("oracle");
+        properties.setBulkInsertBatchSize(10);
+        ClioneSqlTemplate template = new ClioneSqlTemplate(dataSource, properties);
+        List<Item> rows = IntStream.rangeClosed(1, 25).mapToObj(id -> new Item(id, "item-" + id, id)).toList();
+
+        new TransactionTemplate(new DataSourceTransactionManager(dataSource)).executeWithoutResult(status -> {
+            assertThat(template.bulkInsert("item", COLUMNS, rows)).isEqualTo(25);
+            status.setRollbackOnly();
+        });
+        assertThat(template.bulkInsert("item", COLUMNS, rows.subList(0, 5))).isEqualTo(5);
+
+        assertThat(template.queryForList("sql/test/SelectItems.sql", Map.of("minPrice", 0))).hasSize(5);
+    }
+
+    @Test
+    void choosesStrategyByProductName() throws SQLException {
+        try (Connection con = dataSource.getConnection()) {
+            assertThat(BulkInserter.Strategy.of("postgres", con)).isEqualTo(BulkInserter.Strategy.MULTI_ROW_VALUES);
+            assertThat(BulkInserter.Strategy.of("Microsoft SQL Server", con))
+                    .isEqualTo(BulkInserter.Strategy.MULTI_ROW_VALUES);
+            assertThat(BulkInserter.Strategy.of("H2", con)).isEqualTo(BulkInserter.Strategy.MULTI_ROW_VALUES);
+            assertThat(BulkInserter.Strategy.of("firebird", con)).isEqualTo(BulkInserter.Strategy.BATCH);
+        }
+    }
+
+    @Test
+    void rendersRowsAsPostgresCsv() throws IOException, SQLException {
+        BulkInserter inserter = new BulkInserter(mock(Connection.class), DatabaseProfile.of("oracle"), "item", COLUMNS,
+                10, row -> Map.of());
+        Iterator<Object> rows = List.<Object> of(Arrays.asList(1, "a \"quoted\", value", null),
+                new Object[] { 2, "", new byte[] { 0x0f, (byte) 0xa0 } }).iterator();
+
+        StringWriter csv = new StringWriter();
+        try (Reader reader = inserter.new CsvReader(rows)) {
+            reader.transferTo(csv);
+        }
+
+        assertThat(csv).hasToString("\"1\",\"a \"\"quoted\"\", value\",\n\"2\",\"\",\"\\x0fa0\"\n");
+    }
+
+    @Test
+    void rendersDateAndTimeValuesAsPostgresCsv() throws IOException, SQLException {
+        BulkInserter inserter = new BulkInserter(mock(Connection.class), DatabaseProfile.of("oracle"), "event",
+                List.of("at"), 10, row -> Map.of());
+        LocalDateTime dateTime = LocalDateTime.of(2024, 1, 2, 3, 4, 5);
+        ZonedDateTime tokyo = dateTime.atZone(ZoneId.of("Asia/Tokyo"));
+        Calendar calendar = GregorianCalendar.from(tokyo);
+        Date date = Date.from(dateTime.atZone(ZoneId.systemDefault()).toInstant());
+        Iterator<Object> rows = List.<Object> of(new Object[] { date }, new Object[] { Timestamp.valueOf(dateTime) },
+                new Object[] { java.sql.Date.valueOf("2024-01-02") }, new Object[] { Time.valueOf("03:04:05") },
+                new Object[] { calendar }, new Object[] { tokyo }, new Object[] { dateTime },
+                new Object[] { LocalDate.of(2024, 1, 2) }).iterator();
+
+        StringWriter csv = new StringWriter();
+        try (Reader reader = inserter.new CsvReader(rows)) {
+            reader.transferTo(csv);
+        }
+
+        assertThat(csv.toString().split("\n")).containsExactly("\"2024-01-02 03:04:05.0\"", "\"2024-01-02 03:04:05.0\"",
+                "\"2024-01-02\"", "\"03:04:05\"", "\"2024-01-02T03:04:05+09:00\"", "\"2024-01-02T03:04:05+09:00\"",
+                "\"2024-01-02T03:04:05\"", "\"2024-01-02\"");
+    }
+
+    @Test
+    void rejectsInvalidIdentifiers() {
+        Connection con = mock(Connection.class);
+        assertThatIllegalArgumentException().isThrownBy(() -> new BulkInserter(con, DatabaseProfile.of("h2"),
+                "item; DROP TABLE item", COLUMNS, 10, row -> Map.of()));
+        assertThatIllegalArgumentException().isThrownBy(
+                () -> new BulkInserter(con, DatabaseProfile.of("h2"), "item", List.of("id)"), 10, row -> Map.of()));
+    }
+
+    private void execute(String sql) throws SQLException {
+        try (Connection con = dataSource.getConnection(); Statement statement = con.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private record Item(int id, String name, int price) {
+    }
+}
@@ -0,0 +1,97 @@
+package net.noworks.clionesql.boot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+class ClioneSqlBatchLoaderTest {
+
+    private final List<List<Integer>> queries = new ArrayList<>();
+
+    @Test
+    void dispatchRunsOneQueryAndCompletesFuturesByKey() {
+        ClioneSqlBatchLoader<Integer, Item> loader = loader(10);
+
+        List<CompletableFuture<Item>> futures = new ArrayList<>();
+        for (int id : new int[] { 5, 1, 404, 5, 2 }) {
+            futures.add(loader.load(id));
+        }
+        assertThat(queries).isEmpty();
+        assertThat(loader.getQueueSize()).isEqualTo(4);
+        loader.dispatch();
+
+        assertThat(queries).containsExactly(List.of(5, 1, 404, 2));
+        assertThat(futures.get(0)).isCompletedWithValue(new Item(5, "item-5")).isSameAs(futures.get(3));
+        assertThat(futures.get(1)).isCompletedWithValue(new Item(1, "item-1"));
+        assertThat(futures.get(2)).isCompletedWithValue(null);
+        assertThat(futures.get(4)).isCompletedWithValue(new Item(2, "item-2"));
+        assertThat(loader.getQueueSize()).isZero();
+    }
+
+    @Test
+    void fullChunkIsDispatchedWhenQueued() {
+        ClioneSqlBatchLoader<Integer, Item> loader = loader(2);
+
+        CompletableFuture<Item> first = loader.load(1);
+        assertThat(first).isNotDone();
+        loader.load(2);
+        assertThat(queries).containsExactly(List.of(1, 2));
+        assertThat(first).isCompletedWithValue(new Item(1, "item-1"));
+
+        assertThat(loader.loadAll(List.of(3, 4, 5, 6, 7))).hasSize(5);
+        assertThat(queries).containsExactly(List.of(1, 2), List.of(3, 4), List.of(5, 6), List.of(7));
+    }
+
+    @Test
+    void loadedKeysAreQueriedOnceUntilCleared() {
+        ClioneSqlBatchLoader<Integer, Item> loader = loader(10);
+
+        assertThat(loader.loadAll(List.of(1, 2, 404))).containsOnlyKeys(1, 2);
+        assertThat(loader.loadAll(List.of(2, 3))).containsOnlyKeys(2, 3);
+        loader.clear();
+        assertThat(loader.loadAll(List.of(1))).containsOnlyKeys(1);
+
+        assertThat(queries).containsExactly(List.of(1, 2, 404), List.of(3), List.of(1));
+    }
+
+    @Test
+    void failedQueryFailsItsFuturesAndForgetsTheirKeys() {
+        AtomicBoolean fail = new AtomicBoolean(true);
+        AtomicInteger calls = new AtomicInteger();
+        ClioneSqlBatchLoader<Integer, Item> loader = new ClioneSqlBatchLoader<>("ids", params -> {
+            calls.incrementAndGet();
+            if (fail.get()) {
+                throw new IllegalStateException("database down");
+            }
+            return List.of(new Item(1, "item-1"));
+        }, Item::id, () -> 10);
+
+        CompletableFuture<Item> future = loader.load(1);
+        loader.dispatch();
+        assertThat(future).isCompletedExceptionally();
+        assertThatIllegalStateException().isThrownBy(() -> loader.loadAll(List.of(1))).withMessage("database down");
+
+        fail.set(false);
+        assertThat(loader.loadAll(List.of(1))).containsEntry(1, new Item(1, "item-1"));
+        assertThat(calls).hasValue(3);
+    }
+
+    @SuppressWarnings("unchecked")
+    private ClioneSqlBatchLoader<Integer, Item> loader(int maxBatchSize) {
+        return new ClioneSqlBatchLoader<>("ids", params -> {
+            List<Integer> ids = (List<Integer>) params.get("ids");
+            queries.add(ids);
+            return ids.stream().filter(id -> id < 100).map(id -> new Item(id, "item-" + id)).toList();
+        }, Item::id, () -> maxBatchSize);
+    }
+
+    private record Item(int id, String name) {
+    }
+}
@@ -0,0 +1,145 @@
+package net.noworks.clionesql.boot;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ClioneSqlFileWatcherTest {
+
+    @TempDir
+    Path classpathRoot;
+
+    private Path sqlDir;
+
+    private URLClassLoader classLoader;
+
+    private ClassLoader originalClassLoader;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        sqlDir = Files.createDirectories(classpathRoot.resolve("sql/dev"));
+        classLoader = new URLClassLoader(new URL[] { classpathRoot.toUri().toURL() }, null);
+        originalClassLoader = Thread.currentThread().getContextClassLoader();
+        Thread.currentThread().setContextClassLoader(classLoader);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Thread.currentThread().setContextClassLoader(originalClassLoader);
+        classLoader.close();
+    }
+
+    @Test
+    void reloadsChangedSqlFile() throws Exception {
+        write("Select.sql", "SELECT 1", StandardCharsets.UTF_8);
+        ClioneSqlProperties properties = developmentProperties();
+        ClioneSqlTemplate template = createTemplate(properties);
+        ClioneSqlFileWatcher watcher = new ClioneSqlFileWatcher(template, properties,
+                new PathMatchingResourcePatternResolver(classLoader));
+        watcher.start();
+        try {
+            assertThat(watcher.isRunning()).isTrue();
+            assertThat(template.useFile("dev/Select.sql").genSql()).isEqualTo("SELECT 1");
+
+            write("Select.sql", "SELECT 2", StandardCharsets.UTF_8);
+
+            long deadline = System.nanoTime() + 10_000_000_000L;
+            String sql = template.useFile("dev/Select.sql").genSql();
+            while (!"SELECT 2".equals(sql) && System.nanoTime() < deadline) {
+                Thread.sleep(50);
+                sql = template.useFile("dev/Select.sql").genSql();
+            }
+            assertThat(sql).isEqualTo("SELECT 2");
+        } finally {
+            watcher.stop();
+        }
+        assertThat(watcher.isRunning()).isFalse();
+    }
+
+    @Test
+    void keepsWatchedFilesUntilReloaded() throws Exception {
+        write("Select.sql", "SELECT 1", StandardCharsets.UTF_8);
+        write("Select.sql-postgres", "SELECT 1 /* postgres */", StandardCharsets.UTF_8);
+        ClioneSqlProperties properties = developmentProperties();
+        properties.setProductName("postgres");
+        ClioneSqlTemplate template = createTemplate(properties);
+        template.watchSqlFiles(classpathRoot.resolve("sql").toUri().toURL().toString());
+
+        assertThat(template.useFile("dev/Select.sql").genSql()).isEqualTo("SELECT 1 /* postgres */");
+        write("Select.sql-postgres", "SELECT 2 /* postgres */", StandardCharsets.UTF_8);
+        assertThat(template.useFile("dev/Select.sql").genSql()).isEqualTo("SELECT 1 /* postgres */");
+
+        assertThat(template.reloadSqlFile("sql/dev/Other.sql")).isFalse();
+        assertThat(template.reloadSqlFile("sql/dev/Select.sql-postgres")).isTrue();
+        assertThat(template.useFile("dev/Select.sql").genSql()).isEqualTo("SELECT 2 /* postgres */");
+    }
+
+    @Test
+    void rereadsUnwatchedFilesAfterCacheTime() throws Exception {
+        write("Select.sql", "SELECT 1", StandardCharsets.UTF_8);
+        ClioneSqlTemplate template = createTemplate(developmentProperties());
+
+        assertThat(template.useFile("dev/Select.sql").genSql()).isEqualTo("SELECT 1");
+        write("Select.sql", "SELECT 2", StandardCharsets.UTF_8);
+        assertThat(template.useFile("dev/Select.sql").genSql()).isEqualTo("SELECT 2");
+    }
+
+    @Test
+    void readsSqlFilesWithConfiguredEncoding() throws Exception {
+        write("Select.sql", "SELECT '氏名'", Charset.forName("Shift_JIS"));
+        ClioneSqlProperties properties = developmentProperties();
+        properties.setSqlFileEncoding("Shift_JIS");
+        ClioneSqlTemplate template = createTemplate(properties);
+
+        assertThat(template.useFile("dev/Select.sql").genSql()).isEqualTo("SELECT '氏名'");
+    }
+
+    @Test
+    void doesNotWatchWithoutPrefix() throws SQLException {
+        ClioneSqlProperties properties = new ClioneSqlProperties();
+        properties.setDevelopmentMode(true);
+        ClioneSqlFileWatcher watcher = new ClioneSqlFileWatcher(createTemplate(properties), properties,
+                new PathMatchingResourcePatternResolver(classLoader));
+
+        watcher.start();
+
+        assertThat(watcher.isRunning()).isFalse();
+    }
+
+    private void write(String name, String sql, Charset charset) throws IOException {
+        Files.writeString(sqlDir.resolve(name), sql, charset);
+    }
+
+    private static ClioneSqlProperties developmentProperties() {
+        ClioneSqlProperties properties = new ClioneSqlProperties();
+        properties.setDevelopmentMode(true);
+        properties.setSqlFilePrefix("sql");
+        return properties;
+    }
+
+    private static ClioneSqlTemplate createTemplate(ClioneSqlProperties properties) throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        return new ClioneSqlTemplate(dataSource, properties);
+    }
+}
@@ -0,0 +1,90 @@
+package net.noworks.clionesql.boot;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+import tetz42.clione.common.exception.SQLRuntimeException;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClioneSqlMetricsListenerTest {
+
+    private static final ClioneSqlExecution FIND_ALL = new ClioneSqlExecution("sql/person/SelectAll.sql",
+            ClioneSqlExecution.FIND_ALL);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final ClioneSqlMetricsListener listener = new ClioneSqlMetricsListener(registry);
+
+    @Test
+    void recordsLatencyConnectionAcquisitionAndRows() {
+        listener.connectionAcquired(FIND_ALL, 2_000_000);
+        listener.executionSucceeded(FIND_ALL, 5_000_000, 3);
+        listener.executionSucceeded(FIND_ALL, 7_000_000, 4);
+
+        Timer execution = registry.get(ClioneSqlMetricsListener.EXECUTION_METRIC)
+                .tags("sql", "sql/person/SelectAll.sql", "operation", "findAll", "outcome", "success").timer();
+        assertThat(execution.count()).isEqualTo(2);
+        assertThat(execution.totalTime(TimeUnit.MILLISECONDS)).isEqualTo(12.0);
+        Timer acquire = registry.get(ClioneSqlMetricsListener.CONNECTION_ACQUIRE_METRIC)
+                .tags("sql", "sql/person/SelectAll.sql", "operation", "findAll").timer();
+        assertThat(acquire.totalTime(TimeUnit.MILLISECONDS)).isEqualTo(2.0);
+        DistributionSummary rows = registry.get(ClioneSqlMetricsListener.ROWS_METRIC)
+                .tags("sql", "sql/person/SelectAll.sql", "operation", "findAll").summary();
+        assertThat(rows.count()).isEqualTo(2);
+        assertThat(rows.totalAmount()).isEqualTo(7.0);
+    }
+
+    @Test
+    void skipsRowsWhenUnknown() {
+        listener.executionSucceeded(FIND_ALL, 1_000, -1);
+
+        assertThat(registry.get(ClioneSqlMetricsListener.ROWS_METRIC).summary().count()).isZero();
+    }
+
+    @Test
+    void countsErrorsByTranslatedExceptionType() {
+        RuntimeException duplicate = new SQLRuntimeException(new SQLException("duplicate", "23505"));
+
+        listener.executionFailed(FIND_ALL, 1_000_000, duplicate);
+        listener.executionFailed(FIND_ALL, 1_000_000, duplicate);
+        listener.executionFailed(FIND_ALL, 1_000_000, new IllegalStateException());
+
+        assertThat(registry.get(ClioneSqlMetricsListener.ERRORS_METRIC)
+                .tags("operation", "findAll", "exception", "DuplicateKeyException").counter().count()).isEqualTo(2.0);
+        assertThat(registry.get(ClioneSqlMetricsListener.ERRORS_METRIC).tags("exception", "IllegalStateException")
+                .counter().count()).isEqualTo(1.0);
+        assertThat(registry.get(ClioneSqlMetricsListener.EXECUTION_METRIC).tags("outcome", "error").timer().count())
+                .isEqualTo(3);
+    }
+
+    @Test
+    void countsCacheLookupsAndEvictions() {
+        listener.cacheMiss(FIND_ALL);
+        listener.cacheHit(FIND_ALL);
+        listener.cacheHit(FIND_ALL);
+        listener.cacheEvicted(FIND_ALL);
+
+        assertThat(registry.get(ClioneSqlMetricsListener.CACHE_REQUESTS_METRIC)
+                .tags("sql", "sql/person/SelectAll.sql", "result", "hit").counter().count()).isEqualTo(2.0);
+        assertThat(
+                registry.get(ClioneSqlMetricsListener.CACHE_REQUESTS_METRIC).tags("result", "miss").counter().count())
+                        .isEqualTo(1.0);
+        assertThat(registry.get(ClioneSqlMetricsListener.CACHE_EVICTIONS_METRIC).counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void countsCoalescedCalls() {
+        listener.executionCoalesced(FIND_ALL);
+        listener.executionCoalesced(FIND_ALL);
+
+        assertThat(registry.get(ClioneSqlMetricsListener.COALESCED_METRIC)
+                .tags("sql", "sql/person/SelectAll.sql", "operation", "findAll").counter().count()).isEqualTo(2.0);
+    }
+}
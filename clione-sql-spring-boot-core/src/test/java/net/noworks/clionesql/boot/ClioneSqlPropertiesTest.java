@@ -1,5 +1,8 @@
 package net.noworks.clionesql.boot;
 
+import java.time.Duration;
+import java.util.List;
+
 import org.junit.jupiter.api.Test;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -16,6 +19,23 @@ class ClioneSqlPropertiesTest {
         assertThat(properties.isDevelopmentMode()).isFalse();
         assertThat(properties.getSqlFileCacheTime()).isZero();
         assertThat(properties.getEntityDepthLimit()).isEqualTo(8);
+        assertThat(properties.getStreamFetchSize()).isEqualTo(1000);
+        assertThat(properties.isMetricsEnabled()).isTrue();
+        assertThat(properties.getStatementCacheSize()).isZero();
+        assertThat(properties.getAsyncMaxConcurrency()).isZero();
+        assertThat(properties.getWarmup().isEnabled()).isFalse();
+        assertThat(properties.getWarmup().getParallelism()).isEqualTo(4);
+        assertThat(properties.getRouting().isEnabled()).isFalse();
+        assertThat(properties.getRouting().getReplicas()).isEmpty();
+        assertThat(properties.getRouting().getLoadBalancing())
+                .isEqualTo(ReplicaRoutingDataSource.LoadBalancing.ROUND_ROBIN);
+        assertThat(properties.getRouting().isReadYourWrites()).isFalse();
+        assertThat(properties.getRouting().getReadYourWritesWindow()).isEqualTo(Duration.ofSeconds(1));
+        assertThat(properties.getAdaptiveFetch().isEnabled()).isTrue();
+        assertThat(properties.getAdaptiveFetch().getMinFetchSize()).isEqualTo(10);
+        assertThat(properties.getAdaptiveFetch().getMaxFetchSize()).isEqualTo(1000);
+        assertThat(properties.getAdaptiveFetch().getMaxInitialCapacity()).isEqualTo(10000);
+        assertThat(properties.getQueries()).isEmpty();
     }
 
     @Test
@@ -42,5 +62,53 @@ class ClioneSqlPropertiesTest {
 
         properties.setEntityDepthLimit(4);
         assertThat(properties.getEntityDepthLimit()).isEqualTo(4);
+
+        properties.setStreamFetchSize(100);
+        assertThat(properties.getStreamFetchSize()).isEqualTo(100);
+
+        properties.setMetricsEnabled(false);
+        assertThat(properties.isMetricsEnabled()).isFalse();
+
+        properties.setStatementCacheSize(32);
+        assertThat(properties.getStatementCacheSize()).isEqualTo(32);
+
+        properties.setAsyncMaxConcurrency(16);
+        assertThat(properties.getAsyncMaxConcurrency()).isEqualTo(16);
+
+        properties.getWarmup().setEnabled(true);
+        assertThat(properties.getWarmup().isEnabled()).isTrue();
+
+        properties.getWarmup().setParallelism(2);
+        assertThat(properties.getWarmup().getParallelism()).isEqualTo(2);
+
+        properties.getRouting().setEnabled(true);
+        assertThat(properties.getRouting().isEnabled()).isTrue();
+
+        properties.getRouting().setLoadBalancing(ReplicaRoutingDataSource.LoadBalancing.RANDOM);
+        assertThat(properties.getRouting().getLoadBalancing()).isEqualTo(ReplicaRoutingDataSource.LoadBalancing.RANDOM);
+
+        properties.getRouting().setReadYourWrites(true);
+        assertThat(properties.getRouting().isReadYourWrites()).isTrue();
+
+        properties.getRouting().setReadYourWritesWindow(Duration.ofMillis(500));
+        assertThat(properties.getRouting().getReadYourWritesWindow()).isEqualTo(Duration.ofMillis(500));
+    }
+
+    @Test
+    void queryDefaultsAndValues() {
+        ClioneSqlProperties.Query query = new ClioneSqlProperties.Query();
+        assertThat(query.getCacheTtl()).isNull();
+        assertThat(query.getCacheMaxSize()).isEqualTo(1000);
+        assertThat(query.getTables()).isEmpty();
+        assertThat(query.isCoalesce()).isFalse();
+
+        query.setCacheTtl(Duration.ofMinutes(5));
+        query.setCacheMaxSize(10);
+        query.setTables(List.of("status_code"));
+        query.setCoalesce(true);
+        assertThat(query.getCacheTtl()).isEqualTo(Duration.ofMinutes(5));
+        assertThat(query.getCacheMaxSize()).isEqualTo(10);
+        assertThat(query.getTables()).containsExactly("status_code");
+        assertThat(query.isCoalesce()).isTrue();
     }
 }
@@ -0,0 +1,134 @@
+package net.noworks.clionesql.boot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import jakarta.servlet.FilterChain;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class ClioneSqlRequestProfileTest {
+
+    private static final ClioneSqlExecution FIND_PERSON = new ClioneSqlExecution("sql/person/SelectById.sql",
+            ClioneSqlExecution.FIND);
+
+    private static final ClioneSqlExecution FIND_ALL = new ClioneSqlExecution("sql/person/SelectAll.sql",
+            ClioneSqlExecution.FIND_ALL);
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void reportsSqlFilesExecutedMoreThanThreshold() {
+        ClioneSqlRequestProfile profile = new ClioneSqlRequestProfile(2);
+
+        assertThat(profile.record(FIND_ALL, 5)).isFalse();
+        assertThat(profile.record(FIND_PERSON, 10)).isFalse();
+        assertThat(profile.record(FIND_PERSON, 10)).isFalse();
+        assertThat(profile.record(FIND_PERSON, 10)).isTrue();
+        for (int i = 0; i < 3; i++) {
+            assertThat(profile.record(new ClioneSqlExecution(ClioneSqlExecution.INLINE_SQL, "query"), 1)).isFalse();
+        }
+
+        assertThat(profile.getExecutionCount()).isEqualTo(7);
+        assertThat(profile.getElapsedNanos()).isEqualTo(38);
+        assertThat(profile.getEntries()).containsExactly(new ClioneSqlRequestProfile.Entry("<inline>", 3, 3, 3),
+                new ClioneSqlRequestProfile.Entry("sql/person/SelectById.sql", 3, 3, 30),
+                new ClioneSqlRequestProfile.Entry("sql/person/SelectAll.sql", 1, 1, 5));
+        assertThat(profile.getRepeatedEntries())
+                .containsExactly(new ClioneSqlRequestProfile.Entry("sql/person/SelectById.sql", 3, 3, 30));
+    }
+
+    @Test
+    void repeatedIdenticalParametersAreNotReported() {
+        ClioneSqlRequestProfile profile = new ClioneSqlRequestProfile(2);
+        String path = "sql/person/SelectById.sql";
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(profile.record(ClioneSqlExecution.of(path, ClioneSqlExecution.FIND, Map.of("id", 1)), 1))
+                    .isFalse();
+        }
+        assertThat(profile.record(ClioneSqlExecution.of(path, ClioneSqlExecution.FIND, Map.of("id", 2)), 1)).isFalse();
+        assertThat(profile.getRepeatedEntries()).isEmpty();
+
+        assertThat(profile.record(ClioneSqlExecution.of(path, ClioneSqlExecution.FIND, Map.of("id", 3)), 1)).isTrue();
+        assertThat(profile.getRepeatedEntries()).containsExactly(new ClioneSqlRequestProfile.Entry(path, 7, 3, 7));
+    }
+
+    @Test
+    void filterBindsProfileToRequest() throws Exception {
+        ClioneSqlProfilingListener listener = new ClioneSqlProfilingListener(false);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/persons");
+        FilterChain chain = (req, res) -> {
+            RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+            listener.executionSucceeded(FIND_ALL, 100, 3);
+            for (int i = 0; i < 3; i++) {
+                listener.executionSucceeded(FIND_PERSON, 10, 1);
+            }
+            listener.executionFailed(FIND_PERSON, 10, new IllegalStateException());
+        };
+
+        new ClioneSqlProfilingFilter(2).doFilter(request, new MockHttpServletResponse(), chain);
+
+        ClioneSqlRequestProfile profile = (ClioneSqlRequestProfile) request
+                .getAttribute(ClioneSqlRequestProfile.ATTRIBUTE);
+        assertThat(profile.getExecutionCount()).isEqualTo(5);
+        assertThat(profile.getRepeatedEntries())
+                .containsExactly(new ClioneSqlRequestProfile.Entry("sql/person/SelectById.sql", 4, 4, 40));
+    }
+
+    @Test
+    void listenerFailsOnRepeatWhenConfigured() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAttribute(ClioneSqlRequestProfile.ATTRIBUTE, new ClioneSqlRequestProfile(1));
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        ClioneSqlProfilingListener listener = new ClioneSqlProfilingListener(true);
+
+        listener.executionSucceeded(FIND_PERSON, 10, 1);
+        assertThatExceptionOfType(InvalidDataAccessApiUsageException.class)
+                .isThrownBy(() -> listener.executionSucceeded(FIND_PERSON, 10, 1))
+                .withMessageContaining("sql/person/SelectById.sql");
+    }
+
+    @Test
+    void failureOnRepeatStillNotifiesLaterListeners() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAttribute(ClioneSqlRequestProfile.ATTRIBUTE, new ClioneSqlRequestProfile(0));
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        List<ClioneSqlExecution> succeeded = new ArrayList<>();
+        CompositeExecutionListener listener = new CompositeExecutionListener(
+                List.of(new ClioneSqlProfilingListener(true), new ClioneSqlExecutionListener() {
+                    @Override
+                    public void executionSucceeded(ClioneSqlExecution execution, long elapsedNanos, long rowCount) {
+                        succeeded.add(execution);
+                    }
+                }));
+
+        assertThatExceptionOfType(InvalidDataAccessApiUsageException.class)
+                .isThrownBy(() -> listener.executionSucceeded(FIND_PERSON, 10, 1));
+        assertThat(succeeded).containsExactly(FIND_PERSON);
+    }
+
+    @Test
+    void listenerIgnoresExecutionsOutsideRequest() {
+        ClioneSqlProfilingListener listener = new ClioneSqlProfilingListener(true);
+
+        listener.executionSucceeded(FIND_PERSON, 10, 1);
+        listener.executionSucceeded(FIND_PERSON, 10, 1);
+
+        assertThat(ClioneSqlRequestProfile.current()).isNull();
+    }
+}
@@ -1,18 +1,53 @@
 package net.noworks.clionesql.boot;
 
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 
 import javax.sql.DataSource;
 
 import tetz42.clione.SQLExecutor;
+import tetz42.clione.SQLManager;
+import tetz42.clione.common.exception.SQLRuntimeException;
+import tetz42.clione.exception.ClioneFormatException;
+import tetz42.clione.util.ResultMap;
 
+import org.h2.jdbcx.JdbcDataSource;
 import org.junit.jupiter.api.Test;
 
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
 import org.springframework.jdbc.datasource.TransactionAwareDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 class ClioneSqlTemplateTest {
@@ -70,10 +105,758 @@ class ClioneSqlTemplateTest {
         assertThat(executor).isNotNull();
     }
 
+    @Test
+    void streamAppliesFetchSizeAndReleasesConnectionOnClose() throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(resultSet);
+        ClioneSqlTemplate template = new ClioneSqlTemplate(dataSource, new ClioneSqlProperties());
+
+        try (Stream<ResultMap> rows = template.stream("sql/test/SelectOne.sql", SQLManager.params(), 250)) {
+            assertThat(rows.iterator().hasNext()).isFalse();
+            verify(statement).setFetchSize(250);
+            verify(connection, never()).close();
+        }
+        verify(connection).close();
+    }
+
+    @Test
+    void batchUpdateReusesOneStatementAndFlushesInChunks() throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(statement.executeBatch()).thenReturn(new int[] { 1, 1, 1, 1, 1, 1, 1, 1, 1, 1 },
+                new int[] { 1, 1, 1, 1, 1, 1, 1, 1, 1, 1 }, new int[] { 1, 1, 1, 1, 1 });
+        ClioneSqlTemplate template = new ClioneSqlTemplate(dataSource, new ClioneSqlProperties());
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            rows.add(SQLManager.params("id", i).$("name", "name" + i));
+        }
+
+        int[] counts = template.batchUpdate("sql/test/InsertItem.sql", rows, 10);
+
+        assertThat(counts).hasSize(25).containsOnly(1);
+        verify(connection).prepareStatement(anyString());
+        verify(statement, times(25)).addBatch();
+        verify(statement, times(3)).executeBatch();
+        verify(statement, never()).executeUpdate();
+        verify(statement).close();
+        verify(connection).close();
+    }
+
+    @Test
+    void batchUpdateExecutesRowsOneByOneWithoutDriverBatchSupport() throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        DatabaseMetaData metaData = mock(DatabaseMetaData.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.getMetaData()).thenReturn(metaData);
+        when(metaData.getDatabaseProductName()).thenReturn("Legacy");
+        when(metaData.supportsBatchUpdates()).thenReturn(false);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(statement.executeUpdate()).thenReturn(1);
+        ClioneSqlTemplate template = new ClioneSqlTemplate(dataSource, new ClioneSqlProperties());
+
+        int[] counts = template.batchUpdate("sql/test/InsertItem.sql",
+                List.of(SQLManager.params("id", 1), SQLManager.params("id", 2), SQLManager.params("id", 3)), 10);
+
+        assertThat(counts).containsExactly(1, 1, 1);
+        verify(statement, times(3)).executeUpdate();
+        verify(statement, never()).addBatch();
+        verify(connection).close();
+    }
+
+    @Test
+    void databaseProfileIsReadOnceAndTunesFetchSize() throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        DatabaseMetaData metaData = mock(DatabaseMetaData.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.getMetaData()).thenReturn(metaData);
+        when(metaData.getDatabaseProductName()).thenReturn("Oracle");
+        when(metaData.supportsBatchUpdates()).thenReturn(true);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(resultSet);
+        ClioneSqlProperties properties = new ClioneSqlProperties();
+        properties.getAdaptiveFetch().setEnabled(false);
+        ClioneSqlTemplate template = new ClioneSqlTemplate(dataSource, properties);
+
+        for (int i = 0; i < 3; i++) {
+            template.queryForList("sql/test/SelectOne.sql");
+        }
+        template.useSQL("SELECT 1 FROM dual").findAll();
+
+        assertThat(template.getDatabaseProfile().getClioneProductName()).isEqualTo("oracle");
+        verify(connection, times(1)).getMetaData();
+        verify(statement, times(3)).setFetchSize(100);
+    }
+
+    @Test
+    void queryForListLearnsFetchSizeFromPreviousRowCounts() throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        DatabaseMetaData metaData = mock(DatabaseMetaData.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.getMetaData()).thenReturn(metaData);
+        when(metaData.getDatabaseProductName()).thenReturn("Oracle");
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(resultSet);
+        ClioneSqlProperties properties = new ClioneSqlProperties();
+        properties.getAdaptiveFetch().setMinFetchSize(5);
+        ClioneSqlTemplate template = new ClioneSqlTemplate(dataSource, properties);
+
+        assertThat(template.queryForList("sql/test/SelectOne.sql")).isEmpty();
+        verify(statement).setFetchSize(100);
+
+        template.queryForList("sql/test/SelectOne.sql");
+        template.query("sql/test/SelectOne.sql");
+        verify(statement).setFetchSize(5);
+        verify(statement, times(2)).setFetchSize(100);
+    }
+
+    @Test
+    void queryAppliesStatementHintsOverriddenByProperties() throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString(), anyInt(), anyInt())).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(resultSet);
+        ClioneSqlProperties properties = new ClioneSqlProperties();
+        ClioneSqlProperties.Query query = new ClioneSqlProperties.Query();
+        query.setMaxRows(100);
+        query.setQueryTimeout(Duration.ofSeconds(10));
+        properties.getQueries().put("sql/test/SelectReport.sql", query);
+        ClioneSqlTemplate template = new ClioneSqlTemplate(dataSource, properties);
+
+        assertThat(template.queryForList("sql/test/SelectReport.sql")).isEmpty();
+        assertThat(template.queryForList("sql/test/SelectReport.sql")).isEmpty();
+
+        verify(connection, times(2)).prepareStatement(anyString(), eq(ResultSet.TYPE_SCROLL_INSENSITIVE),
+                eq(ResultSet.CONCUR_READ_ONLY));
+        verify(connection, never()).prepareStatement(anyString());
+        verify(statement, times(2)).setFetchSize(500);
+        verify(statement, times(2)).setMaxRows(100);
+        verify(statement, times(2)).setQueryTimeout(10);
+    }
+
+    @Test
+    void streamUsesFetchSizeHintOfSqlFile() throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString(), anyInt(), anyInt())).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(resultSet);
+        ClioneSqlTemplate template = new ClioneSqlTemplate(dataSource, new ClioneSqlProperties());
+
+        try (Stream<ResultMap> rows = template.stream("sql/test/SelectReport.sql")) {
+            assertThat(rows.iterator().hasNext()).isFalse();
+        }
+        verify(statement, times(2)).setFetchSize(500);
+        verify(statement).setQueryTimeout(2);
+    }
+
+    @Test
+    void sqlFilesWithoutHintsUseDriverDefaults() throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(resultSet);
+        ClioneSqlTemplate template = new ClioneSqlTemplate(dataSource, new ClioneSqlProperties());
+
+        assertThat(template.queryForList("sql/test/SelectOne.sql")).isEmpty();
+
+        verify(statement, never()).setFetchSize(anyInt());
+        verify(statement, never()).setMaxRows(anyInt());
+        verify(statement, never()).setQueryTimeout(anyInt());
+    }
+
+    @Test
+    void invalidStatementHintIsRejected() {
+        assertThatExceptionOfType(ClioneFormatException.class)
+                .isThrownBy(() -> StatementHints.parse("sql/Bad.sql", "-- @fetch-size many\nSELECT 1"))
+                .withMessageContaining("sql/Bad.sql");
+        assertThat(StatementHints.parse("sql/Other.sql", "-- @author someone\nSELECT 1 -- @max-rows 5"))
+                .isSameAs(StatementHints.NONE);
+    }
+
+    @Test
+    void defaultFetchSizeIsCappedAtMaxRows() {
+        StatementHints capped = StatementHints.parse("sql/Capped.sql", "-- @max-rows 1\nSELECT 1");
+
+        assertThat(capped.withDefaultFetchSize(100).getFetchSize()).isEqualTo(1);
+        assertThat(StatementHints.NONE.withDefaultFetchSize(100).getFetchSize()).isEqualTo(100);
+    }
+
+    @Test
+    void connectionIsReleasedWhenDatabaseProfileCannotBeRead() throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.getMetaData()).thenThrow(new SQLException("metadata unavailable"));
+        ClioneSqlTemplate template = new ClioneSqlTemplate(dataSource, new ClioneSqlProperties());
+
+        assertThatExceptionOfType(SQLRuntimeException.class)
+                .isThrownBy(() -> template.queryForList("sql/test/SelectOne.sql"));
+        assertThatExceptionOfType(SQLRuntimeException.class)
+                .isThrownBy(() -> template.batchUpdate("sql/test/SelectOne.sql", List.of(Map.of()), 10));
+        assertThatExceptionOfType(SQLRuntimeException.class)
+                .isThrownBy(() -> template.stream("sql/test/SelectOne.sql"));
+
+        verify(connection, times(3)).close();
+    }
+
+    @Test
+    void detectedProductSelectsDialectVariantInEveryMode() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:variant");
+        ClioneSqlProperties developmentProperties = new ClioneSqlProperties();
+        developmentProperties.setDevelopmentMode(true);
+
+        for (ClioneSqlProperties properties : List.of(new ClioneSqlProperties(), developmentProperties)) {
+            ClioneSqlTemplate template = new ClioneSqlTemplate(dataSource, properties);
+
+            assertThat(template.queryForList("sql/test/SelectProduct.sql")).extracting(row -> row.get("PRODUCT"))
+                    .containsExactly("h2");
+            assertThat(template.page("sql/test/SelectProduct.sql", null, PageRequest.of(0, 10)).getContent())
+                    .extracting(row -> row.get("PRODUCT")).containsExactly("h2");
+        }
+    }
+
+    @Test
+    void detectedPostgreSqlSelectsPostgresVariant() throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        DatabaseMetaData metaData = mock(DatabaseMetaData.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.getMetaData()).thenReturn(metaData);
+        when(metaData.getDatabaseProductName()).thenReturn("PostgreSQL");
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(resultSet);
+        ClioneSqlTemplate template = new ClioneSqlTemplate(dataSource, new ClioneSqlProperties());
+
+        assertThat(template.queryForList("sql/test/SelectProduct.sql")).isEmpty();
+
+        assertThat(template.getDatabaseProfile().getClioneProductName()).isEqualTo("postgres");
+        verify(connection).prepareStatement(contains("'postgres'"));
+    }
+
+    @Test
+    void pageReadsOffsetAndKeysetPagesWithTotal() throws SQLException {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:page;DB_CLOSE_DELAY=-1");
+        try (Connection con = dataSource.getConnection(); Statement statement = con.createStatement()) {
+            statement.execute("CREATE TABLE item (id INT PRIMARY KEY, name VARCHAR(20), price INT)");
+            statement.execute("INSERT INTO item SELECT x, 'item-' || MOD(x, 3), MOD(x, 5) FROM SYSTEM_RANGE(1, 25)");
+        }
+        ClioneSqlTemplate template = new ClioneSqlTemplate(dataSource, new ClioneSqlProperties());
+        Map<String, Object> params = SQLManager.params("minPrice", 1);
+
+        Page third = template.page("sql/test/SelectItems.sql", params, PageRequest.of(2, 8).sortedBy("id").withTotal());
+        assertThat(third.getContent()).extracting(row -> row.get("ID")).containsExactly(21, 22, 23, 24);
+        assertThat(third.getTotal()).isEqualTo(20);
+        assertThat(third.hasNext()).isFalse();
+
+        List<Object> ids = new ArrayList<>();
+        Page page = template.page("sql/test/SelectItems.sql", params, PageRequest.keyset(6, "name", "id DESC"));
+        int pages = 1;
+        ids.addAll(page.getContent().stream().map(row -> row.get("ID")).toList());
+        while (page.hasNext()) {
+            page = template.page("sql/test/SelectItems.sql", params, page.nextPageRequest());
+            ids.addAll(page.getContent().stream().map(row -> row.get("ID")).toList());
+            pages++;
+        }
+        assertThat(pages).isEqualTo(4);
+        assertThat(ids).hasSize(20).startsWith(24, 21, 18, 12, 9, 6).endsWith(11, 8, 2);
+
+        try (Connection con = dataSource.getConnection(); Statement statement = con.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+    }
+
+    @Test
+    void recordParametersAreReadThroughMapView() {
+        ClioneSqlTemplate template = new ClioneSqlTemplate(mock(DataSource.class), new ClioneSqlProperties());
+        Map<String, Object> map = SQLManager.params("id", 1);
+
+        Map<String, Object> params = template.parameters(new PersonParams(7L, "Ann"));
+
+        assertThat(template.parameters(map)).isSameAs(map);
+        assertThat(params.get("id")).isEqualTo(7L);
+        assertThat(params.get("first_name")).isEqualTo("Ann");
+        assertThat(params.containsKey("status")).isFalse();
+        assertThat(params).containsOnly(Map.entry("id", 7L), Map.entry("firstName", "Ann"));
+    }
+
+    @Test
+    void valuesWithoutParameterPropertiesAreRejected() {
+        ClioneSqlTemplate template = new ClioneSqlTemplate(mock(DataSource.class), new ClioneSqlProperties());
+
+        assertThatExceptionOfType(IllegalArgumentException.class)
+                .isThrownBy(() -> template.query("sql/test/SelectOne.sql", ItemBean.class))
+                .withMessageContaining("query(sqlPath, params, ItemBean.class)");
+        for (Object params : List.of("Ann", 7L, Boolean.TRUE, TimeUnit.SECONDS, new int[] { 1 })) {
+            assertThatExceptionOfType(IllegalArgumentException.class).isThrownBy(() -> template.parameters(params));
+        }
+    }
+
+    @Test
+    void updateNotifiesExecutionListener() throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(statement.executeUpdate()).thenReturn(3);
+        ClioneSqlExecutionListener listener = mock(ClioneSqlExecutionListener.class);
+        ClioneSqlTemplate template = new ClioneSqlTemplate(dataSource, new ClioneSqlProperties());
+        template.setExecutionListeners(List.of(listener));
+
+        Map<String, Object> params = SQLManager.params("id", 1).$("name", "a");
+        int count = template.update("sql/test/InsertItem.sql", params);
+
+        ClioneSqlExecution execution = new ClioneSqlExecution("sql/test/InsertItem.sql", ClioneSqlExecution.UPDATE);
+        assertThat(count).isEqualTo(3);
+        verify(listener).connectionAcquired(eq(execution), anyLong());
+        verify(listener).executionSucceeded(eq(execution), anyLong(), eq(3L));
+        verify(listener).executionSucceeded(
+                argThat(reported -> Integer.valueOf(params.hashCode()).equals(reported.paramsFingerprint())), anyLong(),
+                anyLong());
+        verify(listener, never()).executionFailed(any(), anyLong(), any());
+    }
+
+    @Test
+    void failedQueryNotifiesExecutionListener() throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(statement.executeQuery()).thenThrow(new SQLException("boom", "42000"));
+        ClioneSqlExecutionListener listener = mock(ClioneSqlExecutionListener.class);
+        ClioneSqlTemplate template = new ClioneSqlTemplate(dataSource, new ClioneSqlProperties());
+        template.setExecutionListeners(List.of(listener));
+
+        assertThatExceptionOfType(SQLRuntimeException.class)
+                .isThrownBy(() -> template.queryForList("sql/test/SelectOne.sql"));
+
+        ClioneSqlExecution execution = new ClioneSqlExecution("sql/test/SelectOne.sql", ClioneSqlExecution.FIND_ALL);
+        verify(listener).executionFailed(eq(execution), anyLong(), any(SQLRuntimeException.class));
+        verify(listener, never()).executionSucceeded(any(), anyLong(), anyLong());
+        verify(connection).close();
+    }
+
+    @Test
+    void useFileReportsEachStatementExecution() throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(statement.executeUpdate()).thenReturn(1);
+        ClioneSqlExecutionListener listener = mock(ClioneSqlExecutionListener.class);
+        ClioneSqlTemplate template = new ClioneSqlTemplate(dataSource, new ClioneSqlProperties());
+        template.setExecutionListeners(List.of(listener));
+
+        SQLExecutor executor = template.useFile("sql/test/InsertItem.sql");
+        executor.update(SQLManager.params("id", 1).$("name", "a"));
+        executor.update(SQLManager.params("id", 2).$("name", "b"));
+
+        ClioneSqlExecution execution = new ClioneSqlExecution("sql/test/InsertItem.sql", ClioneSqlExecution.UPDATE);
+        verify(listener).connectionAcquired(eq(execution), anyLong());
+        verify(listener, times(2)).executionSucceeded(eq(execution), anyLong(), eq(1L));
+    }
+
+    @Test
+    void useFileExecutionsAreFingerprintedByBindValues() throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(statement.executeUpdate()).thenReturn(1);
+        List<Integer> fingerprints = new ArrayList<>();
+        ClioneSqlTemplate template = new ClioneSqlTemplate(dataSource, new ClioneSqlProperties());
+        template.setExecutionListeners(List.of(new ClioneSqlExecutionListener() {
+
+            @Override
+            public void executionSucceeded(ClioneSqlExecution execution, long nanos, long rowCount) {
+                fingerprints.add(execution.paramsFingerprint());
+            }
+        }));
+
+        SQLExecutor executor = template.useFile("sql/test/InsertItem.sql");
+        executor.update(SQLManager.params("id", 1).$("name", "a"));
+        executor.update(SQLManager.params("id", 1).$("name", "a"));
+        executor.update(SQLManager.params("id", 2).$("name", "a"));
+
+        assertThat(fingerprints).hasSize(3).doesNotContainNull();
+        assertThat(fingerprints.get(1)).isEqualTo(fingerprints.get(0));
+        assertThat(fingerprints.get(2)).isNotEqualTo(fingerprints.get(0));
+    }
+
+    @Test
+    void inSessionReusesOneConnectionForAllStatements() throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(resultSet);
+        when(statement.executeUpdate()).thenReturn(1);
+        ClioneSqlTemplate template = new ClioneSqlTemplate(dataSource, new ClioneSqlProperties());
+
+        int updated = template.inSession(session -> {
+            session.queryForList("sql/test/SelectOne.sql");
+            session.query("sql/test/SelectOne.sql");
+            return session.update("sql/test/InsertItem.sql", SQLManager.params("id", 1).$("name", "a"));
+        });
+
+        assertThat(updated).isEqualTo(1);
+        verify(dataSource).getConnection();
+        verify(connection, times(3)).prepareStatement(anyString());
+        verify(statement, times(3)).close();
+        verify(connection).close();
+    }
+
+    @Test
+    void inSessionAppliesStatementHintsPerSqlFile() throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        PreparedStatement plain = mock(PreparedStatement.class);
+        PreparedStatement report = mock(PreparedStatement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(plain);
+        when(connection.prepareStatement(anyString(), anyInt(), anyInt())).thenReturn(report);
+        when(plain.executeQuery()).thenReturn(resultSet);
+        when(report.executeQuery()).thenReturn(resultSet);
+        ClioneSqlProperties properties = new ClioneSqlProperties();
+        ClioneSqlProperties.Query query = new ClioneSqlProperties.Query();
+        query.setMaxRows(100);
+        properties.getQueries().put("sql/test/SelectReport.sql", query);
+        ClioneSqlTemplate template = new ClioneSqlTemplate(dataSource, properties);
+
+        template.inSession(session -> {
+            session.queryForList("sql/test/SelectReport.sql");
+            return session.queryForList("sql/test/SelectOne.sql");
+        });
+
+        verify(connection).prepareStatement(anyString(), eq(ResultSet.TYPE_SCROLL_INSENSITIVE),
+                eq(ResultSet.CONCUR_READ_ONLY));
+        verify(report).setFetchSize(500);
+        verify(report).setMaxRows(100);
+        verify(report).setQueryTimeout(2);
+        verify(connection).prepareStatement(anyString());
+        verify(plain, never()).setFetchSize(anyInt());
+        verify(plain, never()).setQueryTimeout(anyInt());
+    }
+
+    @Test
+    void statementCacheReusesStatementsWithinTransaction() throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(statement.executeUpdate()).thenReturn(1);
+        ClioneSqlProperties properties = new ClioneSqlProperties();
+        properties.setStatementCacheSize(8);
+        ClioneSqlTemplate template = new ClioneSqlTemplate(dataSource, properties);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < 5; i++) {
+                template.update("sql/test/InsertItem.sql", SQLManager.params("id", i).$("name", "name" + i));
+            }
+        });
+
+        verify(connection).prepareStatement(anyString());
+        verify(statement, times(5)).executeUpdate();
+        verify(statement, times(5)).clearParameters();
+        verify(statement).close();
+        verify(connection).commit();
+        verify(connection).close();
+    }
+
+    @Test
+    void statementCacheIsNotUsedOutsideTransaction() throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        ClioneSqlProperties properties = new ClioneSqlProperties();
+        properties.setStatementCacheSize(8);
+        ClioneSqlTemplate template = new ClioneSqlTemplate(dataSource, properties);
+
+        template.update("sql/test/InsertItem.sql", SQLManager.params("id", 1).$("name", "a"));
+        template.update("sql/test/InsertItem.sql", SQLManager.params("id", 2).$("name", "b"));
+
+        verify(connection, times(2)).prepareStatement(anyString());
+        verify(statement, times(2)).close();
+        verify(statement, never()).clearParameters();
+    }
+
+    @Test
+    void statementCacheResetsHintsOfSqlFilesWithSameText() throws SQLException {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:statement-cache;DB_CLOSE_DELAY=-1");
+        try (Connection con = dataSource.getConnection(); Statement statement = con.createStatement()) {
+            statement.execute("CREATE TABLE item (id INT PRIMARY KEY, name VARCHAR(20), price INT)");
+            statement.execute("INSERT INTO item SELECT x, 'item-' || x, x FROM SYSTEM_RANGE(1, 3)");
+        }
+        ClioneSqlProperties properties = new ClioneSqlProperties();
+        properties.setStatementCacheSize(8);
+        ClioneSqlProperties.Query capped = new ClioneSqlProperties.Query();
+        capped.setMaxRows(1);
+        capped.setQueryTimeout(Duration.ofSeconds(5));
+        properties.getQueries().put("sql/test/SelectCappedItems.sql", capped);
+        ClioneSqlTemplate template = new ClioneSqlTemplate(dataSource, properties);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        Map<String, Object> params = SQLManager.params("minPrice", 0);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            assertThat(template.queryForList("sql/test/SelectCappedItems.sql", params)).hasSize(1);
+            assertThat(template.queryForList("sql/test/SelectItems.sql", params)).hasSize(3);
+            assertThat(template.queryForList("sql/test/SelectCappedItems.sql", params)).hasSize(1);
+        });
+
+        try (Connection con = dataSource.getConnection(); Statement statement = con.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+    }
+
+    @Test
+    void asyncExecutionsAreLimitedToConcurrencyLimit() throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+        when(dataSource.getConnection()).thenAnswer(invocation -> {
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            return connection;
+        });
+        doAnswer(invocation -> active.decrementAndGet()).when(connection).close();
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(statement.executeUpdate()).thenAnswer(invocation -> {
+            Thread.sleep(20);
+            return 1;
+        });
+        ClioneSqlTemplate template = new ClioneSqlTemplate(dataSource, new ClioneSqlProperties());
+        template.setAsyncConcurrencyLimit(2);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        template.setAsyncExecutor(executor);
+        try {
+            List<CompletableFuture<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(template.updateAsync("sql/test/InsertItem.sql", SQLManager.params("id", i).$("name", "a")));
+            }
+
+            assertThat(futures).allSatisfy(future -> assertThat(future.join()).isEqualTo(1));
+            assertThat(maxActive.get()).isEqualTo(2);
+            verify(connection, times(8)).close();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void asyncExecutionsRunOnDefaultExecutor() throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        List<String> threads = new ArrayList<>();
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(statement.executeQuery()).thenAnswer(invocation -> {
+            threads.add(Thread.currentThread().getName());
+            return resultSet;
+        });
+        ClioneSqlTemplate template = new ClioneSqlTemplate(dataSource, new ClioneSqlProperties());
+
+        assertThat(template.queryForListAsync("sql/test/SelectOne.sql").join()).isEmpty();
+
+        assertThat(threads).singleElement().asString().startsWith(AsyncExecutors.THREAD_NAME_PREFIX);
+        verify(connection).close();
+    }
+
+    @Test
+    void concurrentIdenticalQueriesShareOneExecution() throws Exception {
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        CountDownLatch executing = new CountDownLatch(1);
+        when(resultSet.next()).thenReturn(true, false);
+        when(resultSet.getMetaData()).thenReturn(metaData);
+        when(metaData.getColumnCount()).thenReturn(1);
+        when(metaData.getColumnLabel(1)).thenReturn("ID");
+        when(resultSet.getObject(1)).thenReturn(1);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(statement.executeQuery()).thenAnswer(invocation -> {
+            executing.await();
+            return resultSet;
+        });
+        ClioneSqlTemplate template = new ClioneSqlTemplate(dataSource, coalescingProperties());
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        template.setAsyncExecutor(executor);
+        try {
+            List<CompletableFuture<List<ResultMap>>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(template.queryForListAsync("sql/test/SelectOne.sql", SQLManager.params("id", 1)));
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (template.getCoalescingStatistics().get("sql/test/SelectOne.sql").coalescedCount() < 7
+                    && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            executing.countDown();
+
+            List<List<ResultMap>> results = futures.stream().map(CompletableFuture::join).toList();
+            results.get(0).get(0).put("ID", 99);
+            assertThat(results.subList(1, results.size())).allSatisfy(
+                    rows -> assertThat(rows).singleElement().satisfies(row -> assertThat(row).containsEntry("ID", 1)));
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(template.getCoalescingStatistics().get("sql/test/SelectOne.sql"))
+                .isEqualTo(new CoalescingStatistics(1, 7, 0));
+        verify(dataSource).getConnection();
+        verify(statement).executeQuery();
+    }
+
+    @Test
+    void coalescingIsBypassedInReadWriteTransactions() throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(resultSet);
+        ClioneSqlTemplate template = new ClioneSqlTemplate(dataSource, coalescingProperties());
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+        transactionTemplate.executeWithoutResult(status -> template.queryForList("sql/test/SelectOne.sql"));
+        assertThat(template.getCoalescingStatistics().get("sql/test/SelectOne.sql").executionCount()).isZero();
+
+        transactionTemplate.setReadOnly(true);
+        transactionTemplate.executeWithoutResult(status -> template.queryForList("sql/test/SelectOne.sql"));
+        template.queryForList("sql/test/SelectOne.sql");
+        assertThat(template.getCoalescingStatistics().get("sql/test/SelectOne.sql").executionCount()).isEqualTo(2);
+    }
+
+    @Test
+    void uncontendedCoalescedExecutionReturnsResultWithoutCopy() {
+        QueryCoalescer.Flights flights = new QueryCoalescer.Flights("sql/test/SelectOne.sql");
+        List<ItemBean> rows = new ArrayList<>(List.of(new ItemBean()));
+
+        List<ItemBean> result = flights.execute(QueryResultCache.Key.of(ClioneSqlExecution.FIND_ALL, null, null),
+                mock(ClioneSqlExecutionListener.class), () -> rows);
+
+        assertThat(result).isSameAs(rows);
+    }
+
+    @Test
+    void coalescedBeansAreCopiedAndRecordsShared() {
+        ItemBean bean = new ItemBean();
+        bean.setId(1);
+        bean.setName("apple");
+        PersonParams person = new PersonParams(1, "Ada");
+
+        List<?> beans = (List<?>) QueryCoalescer.Flights.copy(List.of(bean));
+        ((ItemBean) beans.get(0)).setName("changed");
+
+        assertThat(beans).singleElement().isNotSameAs(bean);
+        assertThat(bean.getName()).isEqualTo("apple");
+        assertThat(QueryCoalescer.Flights.copy(bean)).isNotSameAs(bean).usingRecursiveComparison().isEqualTo(bean);
+        assertThat(QueryCoalescer.Flights.copy(person)).isSameAs(person);
+        assertThat(QueryCoalescer.Flights.copy(null)).isNull();
+    }
+
+    @Test
+    void batchLoaderQueriesChunksOfKeysThroughSqlFile() throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(resultSet);
+        ClioneSqlProperties properties = new ClioneSqlProperties();
+        properties.setBatchLoaderMaxBatchSize(2);
+        ClioneSqlTemplate template = new ClioneSqlTemplate(dataSource, properties);
+
+        ClioneSqlBatchLoader<Integer, ResultMap> loader = template.batchLoader("sql/test/SelectItemsByIds.sql", "ids",
+                row -> (Integer) row.get("ID"));
+
+        assertThat(loader.loadAll(List.of(1, 2, 3))).isEmpty();
+        verify(statement, times(2)).executeQuery();
+    }
+
+    private static ClioneSqlProperties coalescingProperties() {
+        ClioneSqlProperties properties = new ClioneSqlProperties();
+        ClioneSqlProperties.Query query = new ClioneSqlProperties.Query();
+        query.setCoalesce(true);
+        properties.getQueries().put("sql/test/SelectOne.sql", query);
+        return properties;
+    }
+
     private ClioneSqlTemplate createTemplate(ClioneSqlProperties properties) throws SQLException {
         DataSource dataSource = mock(DataSource.class);
         Connection connection = mock(Connection.class);
         when(dataSource.getConnection()).thenReturn(connection);
         return new ClioneSqlTemplate(dataSource, properties);
     }
+
+    private record PersonParams(long id, String firstName) {
+    }
+
+    public static class ItemBean {
+
+        private int id;
+
+        private String name;
+
+        public int getId() {
+            return id;
+        }
+
+        public void setId(int id) {
+            this.id = id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
 }
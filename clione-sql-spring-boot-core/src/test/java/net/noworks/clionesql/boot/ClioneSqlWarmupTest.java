@@ -0,0 +1,57 @@
+package net.noworks.clionesql.boot;
+
+import tetz42.clione.exception.ClioneFormatException;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ClioneSqlWarmupTest {
+
+    @Test
+    void parsesTemplatesAndDialectVariantsUnderPrefix() {
+        ClioneSqlProperties properties = new ClioneSqlProperties();
+        properties.setSqlFilePrefix("/sql/");
+
+        ClioneSqlWarmup.Result result = new ClioneSqlWarmup(properties).warmUp();
+
+        assertThat(result.parseTimes()).containsKeys("sql/test/SelectOne.sql", "sql/test/SelectOne.sql-postgres");
+        assertThat(result.totalTime()).isPositive();
+    }
+
+    @Test
+    void opensTemplatesThroughTemplateWithDetectedProduct() {
+        ClioneSqlProperties properties = new ClioneSqlProperties();
+        properties.setSqlFilePrefix("sql");
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:warmup");
+        ClioneSqlTemplate template = new ClioneSqlTemplate(dataSource, properties);
+
+        ClioneSqlWarmup.Result result = new ClioneSqlWarmup(template, properties,
+                new PathMatchingResourcePatternResolver()).warmUp();
+
+        assertThat(result.parseTimes()).containsKey("sql/test/SelectOne.sql")
+                .doesNotContainKey("sql/test/SelectOne.sql-postgres");
+        assertThat(template.getDatabaseProfile().getClioneProductName()).isEqualTo("h2");
+    }
+
+    @Test
+    void skipsWhenPrefixIsNotSet() {
+        ClioneSqlWarmup.Result result = new ClioneSqlWarmup(new ClioneSqlProperties()).warmUp();
+
+        assertThat(result.parseTimes()).isEmpty();
+    }
+
+    @Test
+    void failsFastOnFormatError() {
+        ClioneSqlProperties properties = new ClioneSqlProperties();
+        properties.setSqlFilePrefix("broken");
+        properties.getWarmup().setParallelism(1);
+
+        assertThatThrownBy(() -> new ClioneSqlWarmup(properties).warmUp()).isInstanceOf(ClioneFormatException.class);
+    }
+}
@@ -0,0 +1,42 @@
+package net.noworks.clionesql.boot;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompiledRowMapperTest {
+
+    @Test
+    void rebindsWhenColumnsAreReordered() throws SQLException {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:rowmapper");
+        CompiledRowMapper<Item> mapper = CompiledRowMapper.of(Item.class);
+
+        try (Connection con = dataSource.getConnection(); Statement statement = con.createStatement()) {
+            assertThat(extract(mapper, statement, "SELECT 'apple' AS first_name, 'fruit' AS kind"))
+                    .containsExactly(new Item("apple", "fruit"));
+            assertThat(extract(mapper, statement, "SELECT 'vegetable' AS kind, 'carrot' AS first_name"))
+                    .containsExactly(new Item("carrot", "vegetable"));
+        }
+    }
+
+    private static List<Item> extract(CompiledRowMapper<Item> mapper, Statement statement, String sql)
+            throws SQLException {
+        List<Item> rows = new ArrayList<>();
+        try (ResultSet rs = statement.executeQuery(sql)) {
+            mapper.extract(rs, 0, rows);
+        }
+        return rows;
+    }
+
+    record Item(String firstName, String kind) {
+    }
+}
@@ -0,0 +1,104 @@
+package net.noworks.clionesql.boot;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DatabaseProfileTest {
+
+    @Test
+    void detectsH2Capabilities() throws SQLException {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:profile");
+
+        DatabaseProfile profile;
+        try (Connection con = dataSource.getConnection()) {
+            profile = DatabaseProfile.detect(con, null);
+        }
+
+        assertThat(profile.getProductName()).isEqualTo("H2");
+        assertThat(profile.getClioneProductName()).isEqualTo("h2");
+        assertThat(profile.getMajorVersion()).isEqualTo(2);
+        assertThat(profile.getDriverName()).isEqualTo("H2 JDBC Driver");
+        assertThat(profile.isBatchUpdatesSupported()).isTrue();
+        assertThat(profile.isGeneratedKeysSupported()).isTrue();
+        assertThat(profile.getMaxBindParameters()).isEqualTo(Short.MAX_VALUE);
+        assertThat(profile.getRecommendedFetchSize()).isZero();
+        assertThat(profile.getPageDialect()).isEqualTo(PageDialect.LIMIT_OFFSET);
+    }
+
+    @Test
+    void configuredProductNameTakesPrecedence() throws SQLException {
+        Connection con = connection("PostgreSQL", 16, 2);
+
+        DatabaseProfile profile = DatabaseProfile.detect(con, "postgres-legacy");
+
+        assertThat(profile.getProductName()).isEqualTo("PostgreSQL");
+        assertThat(profile.getClioneProductName()).isEqualTo("postgres-legacy");
+    }
+
+    @Test
+    void mapsDetectedProductToClioneProductName() throws SQLException {
+        assertThat(DatabaseProfile.detect(connection("PostgreSQL", 16, 2), null).getClioneProductName())
+                .isEqualTo("postgres");
+        assertThat(DatabaseProfile.detect(connection("Microsoft SQL Server", 16, 0), null).getClioneProductName())
+                .isEqualTo("sqlserver");
+        assertThat(DatabaseProfile.detect(connection("DB2/LINUXX8664", 11, 5), null).getClioneProductName())
+                .isEqualTo("db2");
+        assertThat(DatabaseProfile.detect(connection("MariaDB", 11, 4), null).getClioneProductName())
+                .isEqualTo("mysql");
+        assertThat(DatabaseProfile.detect(connection("Oracle", 19, 0), null).getClioneProductName())
+                .isEqualTo("oracle");
+        assertThat(DatabaseProfile.detect(connection("SQLite", 3, 45), null).getClioneProductName())
+                .isEqualTo("sqlite");
+        assertThat(DatabaseProfile.detect(connection("Firebird", 4, 0), null).getClioneProductName())
+                .isEqualTo("firebird");
+    }
+
+    @Test
+    void derivesLimitsFromProductAndVersion() throws SQLException {
+        assertThat(DatabaseProfile.detect(connection("Microsoft SQL Server", 16, 0), null).getMaxBindParameters())
+                .isEqualTo(2099);
+        assertThat(DatabaseProfile.detect(connection("SQLite", 3, 31), null).getMaxBindParameters()).isEqualTo(999);
+        assertThat(DatabaseProfile.detect(connection("SQLite", 3, 45), null).getMaxBindParameters()).isEqualTo(32766);
+        assertThat(DatabaseProfile.detect(connection("MySQL", 8, 0), null).getMaxBindParameters()).isEqualTo(65535);
+
+        DatabaseProfile oracle = DatabaseProfile.detect(connection("Oracle", 19, 0), null);
+        assertThat(oracle.getRecommendedFetchSize()).isEqualTo(100);
+        assertThat(oracle.getMaxInListSize()).isEqualTo(1000);
+        assertThat(DatabaseProfile.detect(connection("Microsoft SQL Server", 16, 0), null).getMaxInListSize())
+                .isEqualTo(2099);
+        assertThat(oracle.getPageDialect()).isEqualTo(PageDialect.OFFSET_FETCH);
+        assertThat(DatabaseProfile.detect(connection("Microsoft SQL Server", 16, 0), null).getMaxInsertRows())
+                .isEqualTo(1000);
+        assertThat(oracle.getMaxInsertRows()).isEqualTo(Integer.MAX_VALUE);
+    }
+
+    @Test
+    void toleratesMissingMetadata() throws SQLException {
+        DatabaseProfile profile = DatabaseProfile.detect(mock(Connection.class), null);
+
+        assertThat(profile.getProductName()).isNull();
+        assertThat(profile.getClioneProductName()).isNull();
+        assertThat(profile.isBatchUpdatesSupported()).isTrue();
+        assertThat(profile.getPageDialect()).isEqualTo(PageDialect.OFFSET_FETCH);
+    }
+
+    private static Connection connection(String productName, int majorVersion, int minorVersion) throws SQLException {
+        Connection con = mock(Connection.class);
+        DatabaseMetaData metaData = mock(DatabaseMetaData.class);
+        when(con.getMetaData()).thenReturn(metaData);
+        when(metaData.getDatabaseProductName()).thenReturn(productName);
+        when(metaData.getDatabaseMajorVersion()).thenReturn(majorVersion);
+        when(metaData.getDatabaseMinorVersion()).thenReturn(minorVersion);
+        when(metaData.supportsBatchUpdates()).thenReturn(true);
+        return con;
+    }
+}
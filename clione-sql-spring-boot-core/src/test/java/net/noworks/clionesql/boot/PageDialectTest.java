@@ -0,0 +1,85 @@
+package net.noworks.clionesql.boot;
+
+import java.util.List;
+import java.util.Map;
+
+import tetz42.clione.util.ResultMap;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class PageDialectTest {
+
+    @Test
+    void resolvesDialectFromProductName() {
+        assertThat(PageDialect.of("postgres")).isEqualTo(PageDialect.LIMIT_OFFSET);
+        assertThat(PageDialect.of("MySQL")).isEqualTo(PageDialect.LIMIT_OFFSET);
+        assertThat(PageDialect.of("sqlite")).isEqualTo(PageDialect.LIMIT_OFFSET);
+        assertThat(PageDialect.of("H2")).isEqualTo(PageDialect.LIMIT_OFFSET);
+        assertThat(PageDialect.of("oracle")).isEqualTo(PageDialect.OFFSET_FETCH);
+        assertThat(PageDialect.of("sqlserver")).isEqualTo(PageDialect.OFFSET_FETCH);
+        assertThat(PageDialect.of("db2")).isEqualTo(PageDialect.OFFSET_FETCH);
+        assertThat(PageDialect.of("firebird")).isEqualTo(PageDialect.OFFSET_FETCH);
+    }
+
+    @Test
+    void appendsLimitClauseToUnsortedQuery() {
+        assertThat(PageDialect.LIMIT_OFFSET.paginate("SELECT * FROM item ORDER BY id;\n", PageRequest.of(2, 10)))
+                .isEqualTo("SELECT * FROM item ORDER BY id\n"
+                        + "LIMIT /* $clionePageLimit */1 OFFSET /* $clionePageOffset */0");
+        assertThat(PageDialect.bind(Map.of("name", "a"), PageRequest.of(2, 10))).containsEntry("name", "a")
+                .containsEntry("clionePageLimit", 11).containsEntry("clionePageOffset", 20L);
+    }
+
+    @Test
+    void wrapsQueryForKeysetAndTotal() {
+        PageRequest request = PageRequest.keyset(10, "name", "id DESC").withTotal().after("b", 7);
+
+        assertThat(PageDialect.OFFSET_FETCH.paginate("SELECT * FROM item", request)).isEqualTo("SELECT * FROM (\n"
+                + "SELECT page_count_.*, COUNT(*) OVER () AS clione_total_count FROM (\nSELECT * FROM item\n) page_count_"
+                + "\n) page_\nWHERE (name > /* $clionePageKey0 */0)"
+                + " OR (name = /* $clionePageKey0 */0 AND id < /* $clionePageKey1 */0)\nORDER BY name, id DESC\n"
+                + "OFFSET /* $clionePageOffset */0 ROWS FETCH NEXT /* $clionePageLimit */1 ROWS ONLY");
+        assertThat(PageDialect.bind(null, request)).containsEntry("clionePageKey0", "b").containsEntry("clionePageKey1",
+                7);
+    }
+
+    @Test
+    void rejectsTotalWithoutSortColumns() {
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> PageDialect.LIMIT_OFFSET.paginate("SELECT * FROM item ORDER BY id",
+                        PageRequest.of(0, 10).withTotal()))
+                .withMessageContaining("sortedBy");
+        assertThat(PageDialect.LIMIT_OFFSET.paginate("SELECT * FROM item", PageRequest.of(0, 10).withTotal()
+                .sortedBy("id"))).contains("ORDER BY id\nLIMIT");
+    }
+
+    @Test
+    void rejectsInvalidSortColumns() {
+        assertThatIllegalArgumentException().isThrownBy(() -> PageRequest.keyset(10, "id; DROP TABLE item"));
+        assertThatIllegalArgumentException().isThrownBy(() -> PageRequest.keyset(10, "id").after(1, 2));
+    }
+
+    @Test
+    void buildsPageFromLookAheadRow() {
+        PageRequest request = PageRequest.keyset(2, "id").withTotal();
+        List<ResultMap> rows = List.of(row(1, 5), row(2, 5), row(3, 5));
+
+        Page page = PageDialect.toPage(request, rows);
+
+        assertThat(page.getContent()).hasSize(2).allSatisfy(row -> assertThat(row).containsOnlyKeys("ID"));
+        assertThat(page.getTotal()).isEqualTo(5);
+        assertThat(page.hasNext()).isTrue();
+        assertThat(page.nextPageRequest().getAfter()).containsExactly(2);
+        assertThat(PageDialect.toPage(request, List.of()).getTotal()).isZero();
+    }
+
+    private static ResultMap row(int id, long total) {
+        ResultMap row = new ResultMap();
+        row.put("ID", id);
+        row.put("CLIONE_TOTAL_COUNT", total);
+        return row;
+    }
+}
@@ -0,0 +1,57 @@
+package net.noworks.clionesql.boot;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class ResultSizeEstimatorTest {
+
+    private static final String PATH = "sql/test/SelectItems.sql";
+
+    @Test
+    void unknownFileKeepsDefaults() {
+        ResultSizeEstimator estimator = new ResultSizeEstimator(10, 1000, 10000);
+
+        assertThat(estimator.estimate(PATH)).isEqualTo(-1);
+        assertThat(estimator.fetchSize(PATH)).isZero();
+        assertThat(estimator.initialCapacity(PATH)).isEqualTo(10);
+    }
+
+    @Test
+    void firstRowCountIsTakenAsIsAndLaterOnesAreAveraged() {
+        ResultSizeEstimator estimator = new ResultSizeEstimator(10, 1000, 10000);
+
+        estimator.record(PATH, 200);
+        assertThat(estimator.estimate(PATH)).isEqualTo(200);
+        assertThat(estimator.fetchSize(PATH)).isEqualTo(201);
+        assertThat(estimator.initialCapacity(PATH)).isEqualTo(200);
+
+        estimator.record(PATH, 600);
+        assertThat(estimator.estimate(PATH)).isEqualTo(300);
+
+        estimator.record(PATH, -1);
+        assertThat(estimator.estimate(PATH)).isEqualTo(300);
+        assertThat(estimator.estimate("sql/test/SelectOne.sql")).isEqualTo(-1);
+    }
+
+    @Test
+    void suggestionsAreBounded() {
+        ResultSizeEstimator estimator = new ResultSizeEstimator(10, 1000, 5000);
+
+        estimator.record(PATH, 1);
+        assertThat(estimator.fetchSize(PATH)).isEqualTo(10);
+        assertThat(estimator.initialCapacity(PATH)).isEqualTo(1);
+
+        estimator.record("sql/test/SelectReport.sql", 100_000);
+        assertThat(estimator.fetchSize("sql/test/SelectReport.sql")).isEqualTo(1000);
+        assertThat(estimator.initialCapacity("sql/test/SelectReport.sql")).isEqualTo(5000);
+    }
+
+    @Test
+    void rejectsInvalidBounds() {
+        assertThatIllegalArgumentException().isThrownBy(() -> new ResultSizeEstimator(0, 1000, 10000));
+        assertThatIllegalArgumentException().isThrownBy(() -> new ResultSizeEstimator(100, 10, 10000));
+        assertThatIllegalArgumentException().isThrownBy(() -> new ResultSizeEstimator(10, 1000, -1));
+    }
+}
@@ -0,0 +1,128 @@
+package net.noworks.clionesql.boot;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import tetz42.clione.exception.SQLFileNotFoundException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SqlBundleTest {
+
+    @TempDir
+    Path classpathRoot;
+
+    private URLClassLoader classLoader;
+
+    private ClassLoader originalClassLoader;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Path bundle = classpathRoot.resolve(SqlBundle.LOCATION);
+        Files.createDirectories(bundle.getParent());
+        try (OutputStream out = Files.newOutputStream(bundle)) {
+            SqlBundle.write(Map.of("sql/bundled/OnlyInBundle.sql", bytes("SELECT 'bundled'"),
+                    "sql/bundled/OnlyInBundle.sql-postgres", bytes("SELECT 'postgres'"), "sql/bundled/日本語.sql",
+                    bytes("SELECT '氏名'"), "sql/bundled/Report.sql", bytes("-- @fetch-size 500\nSELECT 'report'")),
+                    out);
+        }
+        classLoader = new URLClassLoader(new URL[] { classpathRoot.toUri().toURL() }, null);
+        originalClassLoader = Thread.currentThread().getContextClassLoader();
+        Thread.currentThread().setContextClassLoader(classLoader);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Thread.currentThread().setContextClassLoader(originalClassLoader);
+        classLoader.close();
+    }
+
+    @Test
+    void readsBundledFiles() throws IOException {
+        SqlBundle bundle = SqlBundle.load(classLoader);
+
+        assertThat(bundle.getPaths()).containsExactlyInAnyOrder("sql/bundled/OnlyInBundle.sql",
+                "sql/bundled/OnlyInBundle.sql-postgres", "sql/bundled/日本語.sql", "sql/bundled/Report.sql");
+        try (InputStream in = bundle.open("sql/bundled/日本語.sql")) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("SELECT '氏名'");
+        }
+        assertThat(bundle.open("sql/bundled/Missing.sql")).isNull();
+        assertThat(bundle.isResolved("sql/bundled/日本語.sql-oracle")).isTrue();
+        assertThat(bundle.isResolved("sql/bundled/Missing.sql")).isFalse();
+    }
+
+    @Test
+    void returnsNullWithoutBundle() throws IOException {
+        try (URLClassLoader empty = new URLClassLoader(new URL[0], null)) {
+            assertThat(SqlBundle.load(empty)).isNull();
+        }
+    }
+
+    @Test
+    void templateServesSqlFilesFromBundle() throws SQLException {
+        ClioneSqlProperties properties = new ClioneSqlProperties();
+        properties.setProductName("postgres");
+        ClioneSqlTemplate template = createTemplate(properties);
+
+        assertThat(template.useFile("sql/bundled/OnlyInBundle.sql").genSql()).isEqualTo("SELECT 'postgres'");
+        assertThat(createTemplate(new ClioneSqlProperties()).useFile("sql/bundled/OnlyInBundle.sql").genSql())
+                .isEqualTo("SELECT 'bundled'");
+        assertThat(Thread.currentThread().getContextClassLoader()).isSameAs(classLoader);
+        assertThatExceptionOfType(SQLFileNotFoundException.class)
+                .isThrownBy(() -> template.useFile("sql/bundled/Missing.sql"));
+    }
+
+    @Test
+    void hintsAndPagesAreReadFromBundle() throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(resultSet);
+        ClioneSqlProperties properties = new ClioneSqlProperties();
+        properties.setProductName("postgres");
+        ClioneSqlTemplate template = new ClioneSqlTemplate(dataSource, properties);
+
+        assertThat(template.statementHints("sql/bundled/Report.sql", "postgres").getFetchSize()).isEqualTo(500);
+        assertThat(template.page("sql/bundled/OnlyInBundle.sql", null, PageRequest.of(0, 10)).getContent()).isEmpty();
+
+        verify(connection).prepareStatement(contains("SELECT 'postgres'"));
+    }
+
+    private static byte[] bytes(String sql) {
+        return sql.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static ClioneSqlTemplate createTemplate(ClioneSqlProperties properties) throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        return new ClioneSqlTemplate(dataSource, properties);
+    }
+}
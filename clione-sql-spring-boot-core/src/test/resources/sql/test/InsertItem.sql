@@ -0,0 +1 @@
+INSERT INTO item (id, name) VALUES (/* id */1, /* name */'dummy')
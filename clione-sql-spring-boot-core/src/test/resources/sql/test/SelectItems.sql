@@ -0,0 +1,4 @@
+SELECT id, name, price
+  FROM item
+ WHERE price >= /* minPrice */0
+ ORDER BY id;
@@ -0,0 +1,4 @@
+SELECT id, name, price
+  FROM item
+ WHERE id IN /* ids */(1, 2)
+ ORDER BY id;
@@ -0,0 +1 @@
+SELECT 'default' AS product
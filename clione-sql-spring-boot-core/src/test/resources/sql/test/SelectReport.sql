@@ -0,0 +1,5 @@
+-- Report over all items; statements get the hints below.
+-- @fetch-size 500
+-- @query-timeout 1500ms
+-- @result-set-type scroll-insensitive
+SELECT * FROM item
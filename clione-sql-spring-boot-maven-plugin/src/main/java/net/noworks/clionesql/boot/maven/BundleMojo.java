@@ -0,0 +1,168 @@
+package net.noworks.clionesql.boot.maven;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import tetz42.clione.exception.ClioneFormatException;
+
+import net.noworks.clionesql.boot.ClioneSqlProperties;
+import net.noworks.clionesql.boot.ClioneSqlWarmup;
+import net.noworks.clionesql.boot.SqlBundle;
+
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+/**
+ * Validates every SQL file under {@code sqlFilePrefix} and packs them into a single {@link SqlBundle}.
+ *
+ * <p>
+ * Runs in the {@code process-classes} phase, after resources have been copied to {@code classesDirectory}. Each
+ * {@code *.sql} file and dialect variant ({@code *.sql-<productName>}) is parsed by clione-sql, so that 2Way SQL syntax
+ * errors fail the build, and then written unchanged to {@code META-INF/clione-sql/sql.bundle}. At runtime,
+ * {@code ClioneSqlTemplate} serves SQL file lookups from the bundle.
+ */
+@Mojo(name = "bundle", defaultPhase = LifecyclePhase.PROCESS_CLASSES, threadSafe = true)
+public class BundleMojo extends AbstractMojo {
+
+    private static final String SQL_SUFFIX = ".sql";
+
+    /**
+     * Directory containing the compiled classes and resources.
+     */
+    @Parameter(defaultValue = "${project.build.outputDirectory}", required = true)
+    private File classesDirectory;
+
+    /**
+     * Classpath-relative directory containing the SQL files, matching {@code clione-sql.sql-file-prefix}.
+     */
+    @Parameter(property = "clione-sql.sql-file-prefix", defaultValue = "sql", required = true)
+    private String sqlFilePrefix;
+
+    /**
+     * Product name used to parse SQL files that have no dialect variant, matching {@code clione-sql.product-name}.
+     */
+    @Parameter(property = "clione-sql.product-name")
+    private String productName;
+
+    /**
+     * Whether to parse every SQL file before bundling.
+     */
+    @Parameter(property = "clione-sql.bundle.validate", defaultValue = "true")
+    private boolean validate;
+
+    /**
+     * Whether to skip bundling.
+     */
+    @Parameter(property = "clione-sql.bundle.skip", defaultValue = "false")
+    private boolean skip;
+
+    /** Creates a new {@code BundleMojo}. */
+    public BundleMojo() {
+    }
+
+    /**
+     * Validates and bundles the SQL files.
+     *
+     * @throws MojoFailureException
+     *             if a SQL file has a 2Way SQL syntax error
+     * @throws MojoExecutionException
+     *             if the SQL files cannot be read or the bundle cannot be written
+     */
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        if (skip) {
+            getLog().info("Skipping clione-sql bundle");
+            return;
+        }
+        String prefix = normalizePrefix(sqlFilePrefix);
+        Path root = classesDirectory.toPath().resolve(prefix);
+        if (!Files.isDirectory(root)) {
+            getLog().info("No SQL files to bundle in " + root);
+            return;
+        }
+        try {
+            Map<String, byte[]> files = collect(prefix, root);
+            if (validate) {
+                validate(prefix);
+            }
+            Path bundle = classesDirectory.toPath().resolve(SqlBundle.LOCATION);
+            Path directory = bundle.getParent();
+            if (directory != null) {
+                Files.createDirectories(directory);
+            }
+            try (OutputStream out = Files.newOutputStream(bundle)) {
+                SqlBundle.write(files, out);
+            }
+            getLog().info("Bundled " + files.size() + " SQL files into " + bundle);
+        } catch (IOException | UncheckedIOException ex) {
+            throw new MojoExecutionException("Failed to bundle SQL files under " + root, ex);
+        }
+    }
+
+    private static Map<String, byte[]> collect(String prefix, Path root) throws IOException {
+        List<Path> paths;
+        try (Stream<Path> walk = Files.walk(root)) {
+            paths = walk.filter(Files::isRegularFile).filter(BundleMojo::isSqlFile).collect(Collectors.toList());
+        }
+        Map<String, byte[]> files = new TreeMap<>();
+        for (Path path : paths) {
+            StringBuilder name = new StringBuilder(prefix);
+            for (Path element : root.relativize(path)) {
+                name.append('/').append(element);
+            }
+            files.put(name.toString(), Files.readAllBytes(path));
+        }
+        return files;
+    }
+
+    private static boolean isSqlFile(Path path) {
+        String name = String.valueOf(path.getFileName());
+        return name.endsWith(SQL_SUFFIX) || name.contains(SQL_SUFFIX + "-");
+    }
+
+    private void validate(String prefix) throws IOException, MojoFailureException {
+        ClioneSqlProperties properties = new ClioneSqlProperties();
+        properties.setSqlFilePrefix(prefix);
+        properties.setProductName(productName);
+        Thread thread = Thread.currentThread();
+        ClassLoader original = thread.getContextClassLoader();
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[] { classesDirectory.toURI().toURL() }, null)) {
+            thread.setContextClassLoader(classLoader);
+            new ClioneSqlWarmup(properties, new PathMatchingResourcePatternResolver(classLoader)).warmUp();
+        } catch (ClioneFormatException ex) {
+            throw new MojoFailureException("Invalid 2Way SQL under " + prefix + ": " + ex.getMessage(), ex);
+        } finally {
+            thread.setContextClassLoader(original);
+        }
+    }
+
+    private static String normalizePrefix(String prefix) {
+        String normalized = prefix.trim();
+        int start = 0;
+        int end = normalized.length();
+        while (start < end && normalized.charAt(start) == '/') {
+            start++;
+        }
+        while (end > start && normalized.charAt(end - 1) == '/') {
+            end--;
+        }
+        return normalized.substring(start, end);
+    }
+}
@@ -0,0 +1,91 @@
+package net.noworks.clionesql.boot.maven;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import net.noworks.clionesql.boot.SqlBundle;
+
+import org.apache.maven.plugin.MojoFailureException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class BundleMojoTest {
+
+    @TempDir
+    Path classesDirectory;
+
+    @Test
+    void bundlesSqlFilesAndDialectVariants() throws Exception {
+        write("sql/bundle/Select.sql", "SELECT 1");
+        write("sql/bundle/Select.sql-postgres", "SELECT 1 /* postgres */");
+        write("sql/bundle/nested/Update.sql", "UPDATE item SET name = /* name */'a'");
+        write("sql/bundle/README.md", "not SQL");
+
+        createMojo("/sql/").execute();
+
+        try (URLClassLoader classLoader = classLoader()) {
+            SqlBundle bundle = SqlBundle.load(classLoader);
+            assertThat(bundle.getPaths()).containsExactly("sql/bundle/Select.sql", "sql/bundle/Select.sql-postgres",
+                    "sql/bundle/nested/Update.sql");
+            try (InputStream in = bundle.open("sql/bundle/Select.sql-postgres")) {
+                assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("SELECT 1 /* postgres */");
+            }
+            assertThat(bundle.isResolved("sql/bundle/nested/Update.sql-oracle")).isTrue();
+            assertThat(bundle.isResolved("sql/other/Select.sql")).isFalse();
+        }
+    }
+
+    @Test
+    void failsOnFormatError() throws Exception {
+        write("sql/broken/Broken.sql", "SELECT /* unclosed");
+
+        assertThatExceptionOfType(MojoFailureException.class).isThrownBy(() -> createMojo("sql").execute());
+        assertThat(classesDirectory.resolve(SqlBundle.LOCATION)).doesNotExist();
+    }
+
+    @Test
+    void skipsValidationWhenDisabled() throws Exception {
+        write("sql/unchecked/Broken.sql", "SELECT /* unclosed");
+        BundleMojo mojo = createMojo("sql");
+        ReflectionTestUtils.setField(mojo, "validate", false);
+
+        mojo.execute();
+
+        assertThat(classesDirectory.resolve(SqlBundle.LOCATION)).exists();
+    }
+
+    @Test
+    void doesNothingWithoutSqlDirectory() throws Exception {
+        createMojo("sql").execute();
+
+        assertThat(classesDirectory.resolve(SqlBundle.LOCATION)).doesNotExist();
+    }
+
+    private BundleMojo createMojo(String sqlFilePrefix) {
+        BundleMojo mojo = new BundleMojo();
+        ReflectionTestUtils.setField(mojo, "classesDirectory", classesDirectory.toFile());
+        ReflectionTestUtils.setField(mojo, "sqlFilePrefix", sqlFilePrefix);
+        ReflectionTestUtils.setField(mojo, "validate", true);
+        return mojo;
+    }
+
+    private URLClassLoader classLoader() throws IOException {
+        return new URLClassLoader(new URL[] { classesDirectory.toUri().toURL() }, null);
+    }
+
+    private void write(String path, String content) throws IOException {
+        Path file = classesDirectory.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+    }
+}
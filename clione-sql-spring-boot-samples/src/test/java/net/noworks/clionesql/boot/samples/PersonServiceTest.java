@@ -0,0 +1,50 @@
+package net.noworks.clionesql.boot.samples;
+
+import tetz42.clione.util.ResultMap;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Exercises {@link PersonService} against the embedded database; also run as a native test with
+ * {@code mvn -Pnative test}.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:personservice")
+@Transactional
+class PersonServiceTest {
+
+    @Autowired
+    private PersonService personService;
+
+    @Test
+    void findAll() {
+        assertThat(personService.findAll()).extracting(row -> row.get("NAME")).startsWith("Alice", "Bob");
+    }
+
+    @Test
+    void findByName() {
+        assertThat(personService.findByName("Alice")).hasSize(2);
+        assertThat(personService.findByName("Charlie")).isEmpty();
+    }
+
+    @Test
+    void insertAndFindById() {
+        assertThat(personService.insert(20, "Erin", "ACTIVE")).isEqualTo(1);
+
+        ResultMap person = personService.findById(20);
+        assertThat(person.get("NAME")).isEqualTo("Erin");
+        assertThat(person.get("STATUS")).isEqualTo("ACTIVE");
+    }
+
+    @Test
+    void updateStatus() {
+        assertThat(personService.updateStatus(1, "INACTIVE")).isEqualTo(1);
+
+        assertThat(personService.findById(1).get("STATUS")).isEqualTo("INACTIVE");
+    }
+}